@@ -0,0 +1,64 @@
+package gpsl.compiler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Constants and low-level encoding helpers of the property bundle format.
+ *
+ * <p>A bundle is laid out as:
+ * <pre>
+ * magic 'GPSB' | version
+ * string table      : count, UTF strings (names, atom values, operators)
+ * expression table  : count, nodes in post-order (children refer to earlier ids)
+ * automata          : count, (name, kind, states, initial, accept, transitions)
+ * </pre>
+ * Counts and table indices are unsigned variable-length integers.
+ */
+final class BundleFormat {
+
+    static final int MAGIC = 0x47505342; // "GPSB"
+    static final int VERSION = 1;
+
+    static final byte TRUE = 0;
+    static final byte FALSE = 1;
+    static final byte ATOM = 2;
+    static final byte NEGATION = 3;
+    static final byte NEXT = 4;
+    static final byte EVENTUALLY = 5;
+    static final byte GLOBALLY = 6;
+    static final byte CONJUNCTION = 7;
+    static final byte DISJUNCTION = 8;
+    static final byte EXCLUSIVE_DISJUNCTION = 9;
+    static final byte IMPLICATION = 10;
+    static final byte EQUIVALENCE = 11;
+    static final byte STRONG_UNTIL = 12;
+    static final byte WEAK_UNTIL = 13;
+    static final byte STRONG_RELEASE = 14;
+    static final byte WEAK_RELEASE = 15;
+    static final byte CONDITIONAL = 16;
+
+    private BundleFormat() {
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer in property bundle");
+    }
+}
@@ -0,0 +1,145 @@
+package gpsl.compiler;
+
+import gpsl.syntax.model.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static gpsl.compiler.BundleFormat.*;
+
+/**
+ * Decodes the property bundle format written by {@link BundleWriter}.
+ *
+ * <p>Every expression id is decoded once, so guards shared in the bundle are
+ * shared in memory as well. All nodes are built through the supplied {@link Factory}.
+ */
+final class BundleReader {
+
+    private final Factory factory;
+    private DataInputStream in;
+    private String[] strings;
+    private Expression[] expressions;
+
+    BundleReader(Factory factory) {
+        this.factory = factory;
+    }
+
+    Map<String, Automaton> read(InputStream stream) throws IOException {
+        in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a GPSL property bundle");
+        }
+        int version = readVarInt(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported property bundle version " + version + ", expected " + VERSION);
+        }
+
+        strings = new String[readVarInt(in)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        expressions = new Expression[readVarInt(in)];
+        for (int i = 0; i < expressions.length; i++) {
+            expressions[i] = readExpression();
+        }
+
+        int count = readVarInt(in);
+        Map<String, Automaton> automata = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = string();
+            automata.put(name, readAutomaton());
+        }
+        return automata;
+    }
+
+    private Automaton readAutomaton() throws IOException {
+        var kinds = AutomatonSemanticsKind.values();
+        int kind = in.readUnsignedByte();
+        if (kind >= kinds.length) {
+            throw new IOException("Unknown automaton kind " + kind + " in property bundle");
+        }
+
+        List<State> states = new ArrayList<>();
+        int stateCount = readVarInt(in);
+        for (int i = 0; i < stateCount; i++) {
+            states.add(factory.state(string()));
+        }
+        Set<State> initialStates = readStates(states);
+        Set<State> acceptStates = readStates(states);
+
+        int transitionCount = readVarInt(in);
+        List<Transition> transitions = new ArrayList<>(transitionCount);
+        for (int i = 0; i < transitionCount; i++) {
+            State source = state(states);
+            int priority = in.readInt();
+            Expression guard = expression();
+            State target = state(states);
+            transitions.add(factory.transition(source, priority, guard, target));
+        }
+        return factory.automaton(kinds[kind], new HashSet<>(states), initialStates, acceptStates, transitions);
+    }
+
+    private Set<State> readStates(List<State> states) throws IOException {
+        int count = readVarInt(in);
+        Set<State> result = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            result.add(state(states));
+        }
+        return result;
+    }
+
+    private Expression readExpression() throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case TRUE -> factory.t();
+            case FALSE -> factory.f();
+            case ATOM -> factory.atom(string(), string());
+            case NEGATION -> factory.negation(string(), expression());
+            case NEXT -> factory.next(string(), expression());
+            case EVENTUALLY -> factory.eventually(string(), expression());
+            case GLOBALLY -> factory.globally(string(), expression());
+            case CONJUNCTION -> factory.conjunction(string(), expression(), expression());
+            case DISJUNCTION -> factory.disjunction(string(), expression(), expression());
+            case EXCLUSIVE_DISJUNCTION -> factory.exclusiveDisjunction(string(), expression(), expression());
+            case IMPLICATION -> factory.implication(string(), expression(), expression());
+            case EQUIVALENCE -> factory.equivalence(string(), expression(), expression());
+            case STRONG_UNTIL -> factory.strongUntil(string(), expression(), expression());
+            case WEAK_UNTIL -> factory.weakUntil(string(), expression(), expression());
+            case STRONG_RELEASE -> factory.strongRelease(string(), expression(), expression());
+            case WEAK_RELEASE -> factory.weakRelease(string(), expression(), expression());
+            case CONDITIONAL -> factory.conditional(expression(), expression(), expression());
+            default -> throw new IOException("Unknown expression tag " + tag + " in property bundle");
+        };
+    }
+
+    private String string() throws IOException {
+        int id = readVarInt(in);
+        if (id >= strings.length) {
+            throw new IOException("String index " + id + " out of range in property bundle");
+        }
+        return strings[id];
+    }
+
+    private Expression expression() throws IOException {
+        int id = readVarInt(in);
+        if (id >= expressions.length || expressions[id] == null) {
+            throw new IOException("Expression index " + id + " out of range in property bundle");
+        }
+        return expressions[id];
+    }
+
+    private State state(List<State> states) throws IOException {
+        int id = readVarInt(in);
+        if (id >= states.size()) {
+            throw new IOException("State index " + id + " out of range in property bundle");
+        }
+        return states.get(id);
+    }
+}
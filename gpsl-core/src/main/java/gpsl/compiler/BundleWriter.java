@@ -0,0 +1,157 @@
+package gpsl.compiler;
+
+import gpsl.syntax.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static gpsl.compiler.BundleFormat.*;
+
+/**
+ * Encodes automata into the property bundle format.
+ *
+ * <p>Guards are hash-consed while writing: structurally equal subexpressions,
+ * within one guard or across transitions and automata, are written once and referred to by id.
+ * References are written as their (linked) target and let expressions as their body,
+ * since only the guard's value matters at runtime.
+ */
+final class BundleWriter {
+
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final Map<Expression, Integer> expressions = new HashMap<>();
+    private final ByteArrayOutputStream expressionBytes = new ByteArrayOutputStream();
+    private final DataOutputStream expressionOut = new DataOutputStream(expressionBytes);
+    private final ByteArrayOutputStream automatonBytes = new ByteArrayOutputStream();
+    private final DataOutputStream automatonOut = new DataOutputStream(automatonBytes);
+
+    void write(Map<String, Automaton> automata, OutputStream stream) throws IOException {
+        writeVarInt(automatonOut, automata.size());
+        for (var entry : automata.entrySet()) {
+            writeAutomaton(entry.getKey(), entry.getValue());
+        }
+
+        var out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        writeVarInt(out, VERSION);
+        writeVarInt(out, strings.size());
+        for (String string : strings.keySet()) {
+            out.writeUTF(string);
+        }
+        writeVarInt(out, expressions.size());
+        expressionBytes.writeTo(out);
+        automatonBytes.writeTo(out);
+        out.flush();
+    }
+
+    private void writeAutomaton(String name, Automaton automaton) throws IOException {
+        writeVarInt(automatonOut, string(name));
+        automatonOut.writeByte(automaton.semanticsKind().ordinal());
+
+        List<State> states = new ArrayList<>(automaton.states());
+        Map<State, Integer> stateIds = new HashMap<>();
+        writeVarInt(automatonOut, states.size());
+        for (State state : states) {
+            stateIds.put(state, stateIds.size());
+            writeVarInt(automatonOut, string(state.name()));
+        }
+        writeVarInt(automatonOut, automaton.initialStates().size());
+        for (State state : automaton.initialStates()) {
+            writeVarInt(automatonOut, stateIds.get(state));
+        }
+        writeVarInt(automatonOut, automaton.acceptStates().size());
+        for (State state : automaton.acceptStates()) {
+            writeVarInt(automatonOut, stateIds.get(state));
+        }
+        writeVarInt(automatonOut, automaton.transitions().size());
+        for (Transition transition : automaton.transitions()) {
+            writeVarInt(automatonOut, stateIds.get(transition.source()));
+            automatonOut.writeInt(transition.priority());
+            writeVarInt(automatonOut, expression(transition.guard()));
+            writeVarInt(automatonOut, stateIds.get(transition.target()));
+        }
+    }
+
+    private int string(String value) {
+        return strings.computeIfAbsent(value, k -> strings.size());
+    }
+
+    private int expression(Expression expression) throws IOException {
+        if (expression instanceof Reference reference) {
+            if (reference.expression() == null) {
+                throw new IllegalArgumentException("Unresolved reference in guard: " + reference.name());
+            }
+            return expression(reference.expression());
+        }
+        if (expression instanceof LetExpression let && let.expression() instanceof Expression body) {
+            return expression(body);
+        }
+        Integer id = expressions.get(expression);
+        if (id != null) {
+            return id;
+        }
+        // children first, so that every id refers to an already decoded node
+        switch (expression) {
+            case True t -> expressionOut.writeByte(TRUE);
+            case False f -> expressionOut.writeByte(FALSE);
+            case Atom atom -> {
+                int value = string(atom.value());
+                int delimiter = string(atom.delimiter());
+                expressionOut.writeByte(ATOM);
+                writeVarInt(expressionOut, value);
+                writeVarInt(expressionOut, delimiter);
+            }
+            case Negation e -> unary(NEGATION, e.operator(), e.expression());
+            case Next e -> unary(NEXT, e.operator(), e.expression());
+            case Eventually e -> unary(EVENTUALLY, e.operator(), e.expression());
+            case Globally e -> unary(GLOBALLY, e.operator(), e.expression());
+            case Conjunction e -> binary(CONJUNCTION, e.operator(), e.left(), e.right());
+            case Disjunction e -> binary(DISJUNCTION, e.operator(), e.left(), e.right());
+            case ExclusiveDisjunction e -> binary(EXCLUSIVE_DISJUNCTION, e.operator(), e.left(), e.right());
+            case Implication e -> binary(IMPLICATION, e.operator(), e.left(), e.right());
+            case Equivalence e -> binary(EQUIVALENCE, e.operator(), e.left(), e.right());
+            case StrongUntil e -> binary(STRONG_UNTIL, e.operator(), e.left(), e.right());
+            case WeakUntil e -> binary(WEAK_UNTIL, e.operator(), e.left(), e.right());
+            case StrongRelease e -> binary(STRONG_RELEASE, e.operator(), e.left(), e.right());
+            case WeakRelease e -> binary(WEAK_RELEASE, e.operator(), e.left(), e.right());
+            case Conditional e -> {
+                int condition = expression(e.condition());
+                int trueBranch = expression(e.trueBranch());
+                int falseBranch = expression(e.falseBranch());
+                expressionOut.writeByte(CONDITIONAL);
+                writeVarInt(expressionOut, condition);
+                writeVarInt(expressionOut, trueBranch);
+                writeVarInt(expressionOut, falseBranch);
+            }
+            default -> throw new IllegalArgumentException(
+                    "Cannot serialize " + expression.getClass().getSimpleName() + " in a guard");
+        }
+        id = expressions.size();
+        expressions.put(expression, id);
+        return id;
+    }
+
+    private void unary(byte tag, String operator, Expression operand) throws IOException {
+        int op = string(operator);
+        int child = expression(operand);
+        expressionOut.writeByte(tag);
+        writeVarInt(expressionOut, op);
+        writeVarInt(expressionOut, child);
+    }
+
+    private void binary(byte tag, String operator, Expression left, Expression right) throws IOException {
+        int op = string(operator);
+        int l = expression(left);
+        int r = expression(right);
+        expressionOut.writeByte(tag);
+        writeVarInt(expressionOut, op);
+        writeVarInt(expressionOut, l);
+        writeVarInt(expressionOut, r);
+    }
+}
@@ -0,0 +1,250 @@
+package gpsl.compiler;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.semantics.Semantics;
+import gpsl.syntax.IncrementalDocument;
+import gpsl.syntax.TextEdit;
+import gpsl.syntax.model.Automaton;
+import gpsl.syntax.model.Declarations;
+import gpsl.syntax.model.ExpressionDeclaration;
+import rege.reader.infra.ParseError;
+import rege.reader.infra.ParseResult;
+
+import java.util.*;
+
+/**
+ * A {@link PropertyCompiler} kept compiled across reloads of its source.
+ *
+ * <p>The source is kept in an {@link IncrementalDocument}, so a reload re-parses and relinks only the
+ * declarations around the changed text and those referring to them. The compiler keeps the graph of the
+ * dependencies between top-level declarations, from the targets of their linked references, and translates
+ * again only the declarations whose text changed and, transitively, the declarations depending on them.
+ * The automata and the {@link Semantics} of the other declarations are reused as they are.
+ *
+ * <p>When a reload has errors, the automata and semantics of the last successful compilation are kept,
+ * and the next reload is compared with it.
+ *
+ * <p>Not thread-safe.
+ */
+public final class IncrementalCompiler {
+
+    /**
+     * The automaton of a declaration, with the declaration and the text it was translated from.
+     */
+    private record Translation(ExpressionDeclaration declaration, String text, Automaton automaton) {}
+
+    private final IncrementalDocument document;
+    private final Map<String, Translation> translations = new HashMap<>();
+    // names referred to by each declaration, and the declarations referring to each name
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    private final Map<String, Map<AtomEvaluator<?>, Semantics<?>>> semantics = new HashMap<>();
+    private PropertyBundle bundle = new PropertyBundle(Map.of());
+    private ParseResult<PropertyBundle> result;
+    private Set<String> lastTranslated = Set.of();
+
+    private IncrementalCompiler(String source) {
+        this.document = IncrementalDocument.parse(source);
+        this.result = update();
+    }
+
+    /**
+     * Compiles GPSL declarations, keeping them for later reloads.
+     *
+     * @param source the GPSL declarations source
+     * @return the compiler, whose {@link #result()} holds the bundle or the errors
+     */
+    public static IncrementalCompiler compile(String source) {
+        return new IncrementalCompiler(source);
+    }
+
+    /**
+     * The current source text.
+     */
+    public String source() {
+        return document.source();
+    }
+
+    /**
+     * The result of the last compilation or reload, as {@link PropertyCompiler#compile(String)} would return it.
+     */
+    public ParseResult<PropertyBundle> result() {
+        return result;
+    }
+
+    /**
+     * The bundle of the last successful compilation or reload, empty if there was none.
+     */
+    public PropertyBundle bundle() {
+        return bundle;
+    }
+
+    /**
+     * The names of the declarations translated by the last compilation or reload.
+     */
+    Set<String> lastTranslated() {
+        return lastTranslated;
+    }
+
+    /**
+     * Compiles a new version of the source, translating only the declarations affected by the changes.
+     *
+     * @param newSource the new GPSL declarations source
+     * @return ParseResult containing the bundle, or the parse, link and translation errors
+     */
+    public ParseResult<PropertyBundle> reload(String newSource) {
+        String source = document.source();
+        if (newSource.equals(source)) {
+            lastTranslated = Set.of();
+            return result;
+        }
+        // a single edit, from the first to the last changed character
+        int prefix = 0;
+        int limit = Math.min(source.length(), newSource.length());
+        while (prefix < limit && source.charAt(prefix) == newSource.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && source.charAt(source.length() - 1 - suffix) == newSource.charAt(newSource.length() - 1 - suffix)) {
+            suffix++;
+        }
+        document.apply(List.of(new TextEdit(prefix, source.length() - suffix,
+                newSource.substring(prefix, newSource.length() - suffix))));
+        result = update();
+        return result;
+    }
+
+    /**
+     * Gets the semantics of a property of the last successful compilation, built once per atom evaluator
+     * and kept until the property is translated again.
+     *
+     * @param <T> the type of input context passed to guard evaluators
+     * @param name the declaration name
+     * @param atomEvaluator the evaluator for atomic propositions
+     * @return the semantics of the property's automaton
+     * @throws NoSuchElementException if the last successful compilation has no such property
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Semantics<T> semantics(String name, AtomEvaluator<T> atomEvaluator) {
+        Automaton automaton = bundle.automaton(name);
+        Map<AtomEvaluator<?>, Semantics<?>> cached = semantics.computeIfAbsent(name, k -> new IdentityHashMap<>());
+        Semantics<?> result = cached.get(atomEvaluator);
+        // built from the automaton of a failed reload, not in the bundle yet
+        if (result == null || result.getAutomaton() != automaton) {
+            result = new Semantics<>(automaton, atomEvaluator);
+            cached.put(atomEvaluator, result);
+        }
+        return (Semantics<T>) result;
+    }
+
+    private ParseResult<PropertyBundle> update() {
+        ParseResult<Declarations> linked = document.linkResult();
+        if (!(linked instanceof ParseResult.Success<Declarations>(Declarations block))) {
+            lastTranslated = Set.of();
+            return new ParseResult.Failure<>(((ParseResult.Failure<Declarations>) linked).errors(), source());
+        }
+        // the names are unique, duplicates being link errors
+        Map<String, ExpressionDeclaration> declarations = new LinkedHashMap<>();
+        for (ExpressionDeclaration declaration : block.declarations()) {
+            declarations.put(declaration.name(), declaration);
+        }
+
+        // the removed declarations and those whose text changed
+        Set<String> changed = new HashSet<>();
+        for (String name : dependencies.keySet()) {
+            if (!declarations.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+        Map<String, String> texts = new HashMap<>();
+        declarations.forEach((name, declaration) -> {
+            Translation translation = translations.get(name);
+            if (translation == null || translation.declaration() != declaration) {
+                String text = text(declaration);
+                texts.put(name, text);
+                if (translation == null || !translation.text().equals(text)) {
+                    changed.add(name);
+                }
+            }
+        });
+        for (String name : changed) {
+            index(name, declarations.get(name));
+        }
+
+        // the changed declarations and, transitively, those depending on them
+        Set<String> invalidated = new HashSet<>(changed);
+        Deque<String> pending = new ArrayDeque<>(changed);
+        while (!pending.isEmpty()) {
+            for (String dependent : List.copyOf(dependents.getOrDefault(pending.pop(), Set.of()))) {
+                if (invalidated.add(dependent)) {
+                    index(dependent, declarations.get(dependent));
+                    pending.push(dependent);
+                }
+            }
+        }
+
+        Set<String> translated = new HashSet<>();
+        List<ParseError> errors = new ArrayList<>();
+        for (String name : invalidated) {
+            translations.remove(name);
+            semantics.remove(name);
+        }
+        declarations.forEach((name, declaration) -> {
+            Translation translation = translations.get(name);
+            if (translation == null) {
+                try {
+                    Automaton automaton = Semantics.toAutomaton(declaration);
+                    String text = texts.computeIfAbsent(name, k -> text(declaration));
+                    translations.put(name, new Translation(declaration, text, automaton));
+                    translated.add(name);
+                } catch (Semantics.SemanticConversionException e) {
+                    errors.add(new ParseError(
+                            document.parseResult().rangeOf(declaration).orElse(null),
+                            "Cannot translate '" + name + "': " + e.getMessage(),
+                            "translation-error"));
+                }
+            } else if (translation.declaration() != declaration) {
+                translations.put(name, new Translation(declaration, translation.text(), translation.automaton()));
+            }
+        });
+        lastTranslated = translated;
+        if (!errors.isEmpty()) {
+            return new ParseResult.Failure<>(errors, source());
+        }
+
+        Map<String, Automaton> automata = new LinkedHashMap<>();
+        declarations.forEach((name, declaration) -> automata.put(name, translations.get(name).automaton()));
+        bundle = new PropertyBundle(automata);
+        return new ParseResult.Success<>(bundle);
+    }
+
+    /**
+     * Replaces the dependencies of a declaration in the graph.
+     *
+     * @param declaration the current declaration of the name, null if it was removed
+     */
+    private void index(String name, ExpressionDeclaration declaration) {
+        Set<String> previous = dependencies.remove(name);
+        if (previous != null) {
+            for (String dependency : previous) {
+                Set<String> names = dependents.get(dependency);
+                names.remove(name);
+                if (names.isEmpty()) {
+                    dependents.remove(dependency);
+                }
+            }
+        }
+        if (declaration != null) {
+            Set<String> names = document.dependencies(declaration);
+            dependencies.put(name, names);
+            for (String dependency : names) {
+                dependents.computeIfAbsent(dependency, k -> new HashSet<>()).add(name);
+            }
+        }
+    }
+
+    private String text(ExpressionDeclaration declaration) {
+        return document.text(declaration);
+    }
+}
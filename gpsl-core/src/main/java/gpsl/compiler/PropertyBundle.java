@@ -0,0 +1,150 @@
+package gpsl.compiler;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.semantics.Semantics;
+import gpsl.syntax.model.Automaton;
+import gpsl.syntax.model.Factory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A set of named, already translated property automata.
+ *
+ * <p>Bundles are produced ahead of time by {@link PropertyCompiler} and loaded at runtime
+ * with {@link #read(InputStream)}. Loading a bundle only decodes the automata: it does not
+ * use the ANTLR parser nor the LTL3BA binary.
+ *
+ * <pre>{@code
+ * PropertyBundle bundle = PropertyBundle.read(Path.of("properties.gpslb"));
+ * Semantics<Model> semantics = bundle.semantics("exclusion", atomEvaluator);
+ * }</pre>
+ */
+public final class PropertyBundle {
+
+    private final Map<String, Automaton> automata;
+
+    /**
+     * Creates a bundle from named automata.
+     *
+     * @param automata the automata, by declaration name (iteration order is preserved)
+     */
+    public PropertyBundle(Map<String, Automaton> automata) {
+        this.automata = Collections.unmodifiableMap(new LinkedHashMap<>(automata));
+    }
+
+    /**
+     * Gets the declaration names, in declaration order.
+     *
+     * @return the names of the properties in this bundle
+     */
+    public Set<String> names() {
+        return automata.keySet();
+    }
+
+    /**
+     * Gets all automata of this bundle.
+     *
+     * @return unmodifiable view of the name-to-automaton mapping
+     */
+    public Map<String, Automaton> automata() {
+        return automata;
+    }
+
+    /**
+     * Gets the automaton of a property.
+     *
+     * @param name the declaration name
+     * @return the automaton
+     * @throws NoSuchElementException if the bundle has no such property
+     */
+    public Automaton automaton(String name) {
+        Automaton automaton = automata.get(name);
+        if (automaton == null) {
+            throw new NoSuchElementException("No property named '" + name + "' in bundle");
+        }
+        return automaton;
+    }
+
+    /**
+     * Builds the semantics of a property.
+     *
+     * @param <T> the type of input context passed to guard evaluators
+     * @param name the declaration name
+     * @param atomEvaluator the evaluator for atomic propositions
+     * @return the semantics of the property's automaton
+     * @throws NoSuchElementException if the bundle has no such property
+     */
+    public <T> Semantics<T> semantics(String name, AtomEvaluator<T> atomEvaluator) {
+        return new Semantics<>(automaton(name), atomEvaluator);
+    }
+
+    /**
+     * Writes this bundle. Structurally equal guards are written once.
+     *
+     * @param out the stream to write to (not closed)
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream out) throws IOException {
+        new BundleWriter().write(automata, out);
+    }
+
+    /**
+     * Writes this bundle to a file.
+     *
+     * @param file the file to write
+     * @throws IOException if writing fails
+     */
+    public void write(Path file) throws IOException {
+        try (var out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(out);
+        }
+    }
+
+    /**
+     * Reads a bundle, building the automata with the default factory.
+     *
+     * @param in the stream to read from (not closed)
+     * @return the bundle
+     * @throws IOException if reading fails or the stream is not a valid bundle
+     */
+    public static PropertyBundle read(InputStream in) throws IOException {
+        return read(in, Factory.instance());
+    }
+
+    /**
+     * Reads a bundle, building the automata through the given factory
+     * (e.g. a hash-consing factory shared with other properties).
+     *
+     * @param in the stream to read from (not closed)
+     * @param factory the factory used to build the automata
+     * @return the bundle
+     * @throws IOException if reading fails or the stream is not a valid bundle
+     */
+    public static PropertyBundle read(InputStream in, Factory factory) throws IOException {
+        return new PropertyBundle(new BundleReader(factory).read(in));
+    }
+
+    /**
+     * Reads a bundle from a file.
+     *
+     * @param file the file to read
+     * @return the bundle
+     * @throws IOException if reading fails or the file is not a valid bundle
+     */
+    public static PropertyBundle read(Path file) throws IOException {
+        try (var in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package gpsl.compiler;
+
+import gpsl.semantics.Semantics;
+import gpsl.syntax.Reader;
+import gpsl.syntax.model.Automaton;
+import gpsl.syntax.model.Declarations;
+import gpsl.syntax.model.ExpressionDeclaration;
+import rege.reader.infra.ParseError;
+import rege.reader.infra.ParseResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ahead-of-time compiler from {@code .gpsl} declarations to a {@link PropertyBundle}.
+ *
+ * <p>Every declaration is parsed and linked with {@link Reader}, then translated to an
+ * automaton as {@link Semantics} would do at runtime (LTL3BA for temporal formulas).
+ *
+ * <p>Command line usage: {@code PropertyCompiler <input.gpsl> <output.gpslb>}.
+ * The exit status is non-zero if the input has errors.
+ */
+public final class PropertyCompiler {
+
+    private PropertyCompiler() {
+    }
+
+    /**
+     * Compiles GPSL declarations into a bundle holding one automaton per declaration.
+     *
+     * @param source the GPSL declarations source
+     * @return ParseResult containing the bundle, or the parse, link and translation errors
+     */
+    public static ParseResult<PropertyBundle> compile(String source) {
+        var parsed = Reader.parseDeclarationsWithPositions(source);
+        var linked = Reader.linkWithPositions(parsed);
+        if (!(linked instanceof ParseResult.Success<Declarations>(Declarations declarations))) {
+            var failure = (ParseResult.Failure<Declarations>) linked;
+            return new ParseResult.Failure<>(failure.errors(), source);
+        }
+
+        Map<String, Automaton> automata = new LinkedHashMap<>();
+        List<ParseError> errors = new ArrayList<>();
+        for (ExpressionDeclaration declaration : declarations.declarations()) {
+            try {
+                automata.put(declaration.name(), Semantics.toAutomaton(declaration));
+            } catch (Semantics.SemanticConversionException e) {
+                errors.add(new ParseError(
+                        parsed.rangeOf(declaration).orElse(null),
+                        "Cannot translate '" + declaration.name() + "': " + e.getMessage(),
+                        "translation-error"));
+            }
+        }
+        if (!errors.isEmpty()) {
+            return new ParseResult.Failure<>(errors, source);
+        }
+        return new ParseResult.Success<>(new PropertyBundle(automata));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: PropertyCompiler <input.gpsl> <output.gpslb>");
+            System.exit(2);
+        }
+        Path input = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+
+        var result = compile(Files.readString(input));
+        if (result instanceof ParseResult.Failure<PropertyBundle> failure) {
+            System.err.println(input + ":");
+            System.err.println(failure.formatErrors());
+            System.exit(1);
+        }
+        var bundle = ((ParseResult.Success<PropertyBundle>) result).value();
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        bundle.write(output);
+        System.out.println("Compiled " + bundle.names().size() + " properties from " + input + " to " + output);
+    }
+}
@@ -0,0 +1,240 @@
+package gpsl.compiler;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.semantics.Semantics;
+import rege.reader.infra.ParseError;
+import rege.reader.infra.ParseResult;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@code .gpsl} files of some directories compiled, reloading them when they change.
+ *
+ * <p>The directories are watched with a {@link WatchService} on a daemon thread. Changes are collected until
+ * none happened for the debounce delay, then every changed file is reloaded through its
+ * {@link IncrementalCompiler}: only the edited declarations and their dependents are parsed, linked and
+ * translated again, and the {@link Semantics} of the other declarations are kept.
+ *
+ * <p>The compiled properties are published as immutable {@link Snapshot}s, replaced atomically after each
+ * reload. Evaluations holding a snapshot keep running against it, whatever the later reloads.
+ *
+ * <pre>{@code
+ * try (var reloader = PropertyReloader.watch(atomEvaluator, Duration.ofMillis(200), Path.of("properties"))) {
+ *     Semantics<Model> semantics = reloader.snapshot().semantics(Path.of("properties/mutex.gpsl"), "exclusion");
+ * }
+ * }</pre>
+ *
+ * @param <T> the type of input context passed to guard evaluators
+ */
+public final class PropertyReloader<T> implements AutoCloseable {
+
+    /**
+     * The compiled properties at some point in time.
+     *
+     * @param generation the number of reloads before this snapshot
+     * @param properties the semantics of the properties of each file, by declaration name. A file that has errors
+     *                   keeps the properties of its last successful compilation
+     * @param errors the errors of the files whose last reload failed
+     * @param <T> the type of input context passed to guard evaluators
+     */
+    public record Snapshot<T>(long generation, Map<Path, Map<String, Semantics<T>>> properties,
+                              Map<Path, List<ParseError>> errors) {
+
+        public Snapshot {
+            properties = Map.copyOf(properties);
+            errors = Map.copyOf(errors);
+        }
+
+        /**
+         * Gets the semantics of a property.
+         *
+         * @param file the file declaring the property
+         * @param name the declaration name
+         * @return the semantics of the property
+         * @throws NoSuchElementException if the file has no such property
+         */
+        public Semantics<T> semantics(Path file, String name) {
+            Semantics<T> semantics = properties.getOrDefault(file.toAbsolutePath().normalize(), Map.of()).get(name);
+            if (semantics == null) {
+                throw new NoSuchElementException("No property named '" + name + "' in " + file);
+            }
+            return semantics;
+        }
+    }
+
+    private static final String EXTENSION = ".gpsl";
+
+    private final AtomEvaluator<T> atomEvaluator;
+    private final Duration debounce;
+    private final List<Path> directories;
+    private final WatchService watchService;
+    private final Map<Path, IncrementalCompiler> compilers = new HashMap<>();
+    private final AtomicReference<Snapshot<T>> snapshot =
+            new AtomicReference<>(new Snapshot<>(0, Map.of(), Map.of()));
+
+    private PropertyReloader(AtomEvaluator<T> atomEvaluator, Duration debounce, List<Path> directories)
+            throws IOException {
+        this.atomEvaluator = Objects.requireNonNull(atomEvaluator, "AtomEvaluator cannot be null");
+        this.debounce = Objects.requireNonNull(debounce, "Debounce delay cannot be null");
+        if (directories.isEmpty()) {
+            throw new IllegalArgumentException("No directory to watch");
+        }
+        this.directories = directories.stream().map(d -> d.toAbsolutePath().normalize()).toList();
+        this.watchService = this.directories.getFirst().getFileSystem().newWatchService();
+        try {
+            for (Path directory : this.directories) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+            reload(scan());
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        Thread thread = new Thread(this::run, "gpsl-reloader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Compiles the {@code .gpsl} files of some directories, then watches them for changes.
+     *
+     * @param <T> the type of input context passed to guard evaluators
+     * @param atomEvaluator the evaluator for atomic propositions of the semantics
+     * @param debounce the delay without changes after which the changed files are reloaded
+     * @param directories the directories to watch, not recursively
+     * @return the reloader, holding the compiled properties
+     * @throws IOException if a directory cannot be watched
+     * @throws IllegalArgumentException if there is no directory
+     */
+    public static <T> PropertyReloader<T> watch(AtomEvaluator<T> atomEvaluator, Duration debounce,
+                                                Path... directories) throws IOException {
+        return new PropertyReloader<>(atomEvaluator, debounce, List.of(directories));
+    }
+
+    /**
+     * Gets the current snapshot of the compiled properties.
+     */
+    public Snapshot<T> snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Stops watching the directories. The last snapshot stays available.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Set<Path> changed = new HashSet<>();
+                collect(watchService.take(), changed);
+                WatchKey key;
+                while ((key = watchService.poll(debounce.toNanos(), TimeUnit.NANOSECONDS)) != null) {
+                    collect(key, changed);
+                }
+                reload(changed);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost: every file may have changed
+                changed.addAll(scan());
+                synchronized (this) {
+                    changed.addAll(compilers.keySet());
+                }
+            } else if (event.context() instanceof Path name && isProperties(name)) {
+                changed.add(directory.resolve(name));
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Lists the {@code .gpsl} files of the watched directories.
+     */
+    private List<Path> scan() {
+        List<Path> files = new ArrayList<>();
+        for (Path directory : directories) {
+            try (Stream<Path> entries = Files.list(directory)) {
+                entries.filter(f -> isProperties(f.getFileName()) && Files.isRegularFile(f)).forEach(files::add);
+            } catch (IOException e) {
+                // reported when the files are read
+            }
+        }
+        return files;
+    }
+
+    private static boolean isProperties(Path name) {
+        return name.toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * Reloads files and publishes the next snapshot, in which the other files keep their semantics.
+     * A file that no longer exists is removed.
+     */
+    synchronized void reload(Collection<Path> files) {
+        Snapshot<T> previous = snapshot.get();
+        Map<Path, Map<String, Semantics<T>>> properties = new HashMap<>(previous.properties());
+        Map<Path, List<ParseError>> errors = new HashMap<>(previous.errors());
+        for (Path file : files) {
+            file = file.toAbsolutePath().normalize();
+            if (!Files.isRegularFile(file)) {
+                compilers.remove(file);
+                properties.remove(file);
+                errors.remove(file);
+                continue;
+            }
+            ParseResult<PropertyBundle> result;
+            IncrementalCompiler compiler = compilers.get(file);
+            try {
+                String source = Files.readString(file);
+                if (compiler == null) {
+                    compiler = IncrementalCompiler.compile(source);
+                    compilers.put(file, compiler);
+                    result = compiler.result();
+                } else {
+                    result = compiler.reload(source);
+                }
+            } catch (IOException | RuntimeException e) {
+                errors.put(file, List.of(new ParseError(null, "Cannot reload " + file + ": " + e.getMessage(),
+                        "reload-error")));
+                continue;
+            }
+
+            if (result instanceof ParseResult.Failure<PropertyBundle> failure) {
+                errors.put(file, failure.errors());
+            } else {
+                errors.remove(file);
+            }
+            // the semantics of the declarations that were not translated again are the same instances
+            Map<String, Semantics<T>> semantics = new LinkedHashMap<>();
+            for (String name : compiler.bundle().names()) {
+                semantics.put(name, compiler.semantics(name, atomEvaluator));
+            }
+            properties.put(file, Collections.unmodifiableMap(semantics));
+        }
+        snapshot.set(new Snapshot<>(previous.generation() + 1, properties, errors));
+    }
+}
@@ -0,0 +1,74 @@
+package gpsl.semantics;
+
+import gpsl.syntax.model.*;
+
+import java.util.*;
+
+/**
+ * Turns the Büchi automaton of a co-safety property into its bad-prefix NFA.
+ *
+ * <p>A violation of a safety requirement shows in a finite prefix, after which the Büchi automaton of the
+ * (co-safety) property stays in an accepting state looping on {@code true}. Checking such a property is the
+ * reachability of one of these terminal states: the check stops at the first violation and needs no accepting
+ * cycle detection.
+ *
+ * <p>The NFA keeps the states and transitions of the Büchi automaton and accepts its terminal states only.
+ * It is used only when it is exact, that is when every accepting state lying on a cycle is terminal:
+ * an accepting run then visits a terminal state, which accepts every continuation.
+ */
+public class CoSafetyToNFA {
+    //returns the bad-prefix NFA if the property is co-safety and its automaton allows it, empty otherwise
+    public static Optional<Automaton> toNFA(SyntaxTreeElement property, Automaton automaton) {
+        if (automaton.semanticsKind() != AutomatonSemanticsKind.BUCHI || !property.accept(new IsCoSafety(), false)) {
+            return Optional.empty();
+        }
+        return toNFA(automaton);
+    }
+
+    //returns the bad-prefix NFA if every accepting state on a cycle is terminal, empty otherwise
+    public static Optional<Automaton> toNFA(Automaton buchi) {
+        Map<State, List<Transition>> outgoing = new HashMap<>();
+        for (Transition transition : buchi.transitions()) {
+            outgoing.computeIfAbsent(transition.source(), k -> new ArrayList<>()).add(transition);
+        }
+        Set<State> terminals = new HashSet<>();
+        for (State state : buchi.acceptStates()) {
+            List<Transition> transitions = outgoing.getOrDefault(state, List.of());
+            if (isTerminal(state, transitions)) {
+                terminals.add(state);
+            } else if (onCycle(state, outgoing)) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new Automaton(
+                AutomatonSemanticsKind.NFA,
+                buchi.states(),
+                buchi.initialStates(),
+                terminals,
+                buchi.transitions()));
+    }
+
+    //a terminal state loops on true at its highest priority, so the loop is always taken
+    private static boolean isTerminal(State state, List<Transition> transitions) {
+        int highest = transitions.stream().mapToInt(Transition::priority).min().orElse(Integer.MAX_VALUE);
+        return transitions.stream().anyMatch(t ->
+                t.target().equals(state) && t.priority() == highest && t.guard() instanceof True);
+    }
+
+    private static boolean onCycle(State state, Map<State, List<Transition>> outgoing) {
+        Set<State> known = new HashSet<>();
+        Deque<State> stack = new ArrayDeque<>();
+        stack.push(state);
+        while (!stack.isEmpty()) {
+            for (Transition transition : outgoing.getOrDefault(stack.pop(), List.of())) {
+                if (transition.target().equals(state)) {
+                    return true;
+                }
+                if (known.add(transition.target())) {
+                    stack.push(transition.target());
+                }
+            }
+        }
+        return false;
+    }
+}
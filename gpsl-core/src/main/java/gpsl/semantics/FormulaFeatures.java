@@ -0,0 +1,143 @@
+package gpsl.semantics;
+
+import gpsl.syntax.model.*;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cheap complexity features of a formula, used by {@link TranslationStrategy} to route it
+ * to a translation backend.
+ *
+ * <p>Features are computed in one pass over the expression; references are followed and
+ * shared subexpressions are only counted once.
+ *
+ * @param size the number of distinct expression nodes
+ * @param atomCount the number of distinct atoms
+ * @param temporalDepth the maximal nesting of temporal operators (0 for propositional formulas)
+ */
+public record FormulaFeatures(int size, int atomCount, int temporalDepth) {
+
+    /**
+     * Checks whether the formula has no temporal operator.
+     *
+     * @return true if the formula is propositional
+     */
+    public boolean isPropositional() {
+        return temporalDepth == 0;
+    }
+
+    /**
+     * Computes the features of an expression.
+     *
+     * @param expression the expression
+     * @return its features
+     */
+    public static FormulaFeatures of(Expression expression) {
+        var collector = new Collector();
+        int depth = collector.depth(expression);
+        return new FormulaFeatures(collector.depths.size(), collector.atoms.size(), depth);
+    }
+
+    private static class Collector implements Visitor<Void, Integer> {
+        final Map<SyntaxTreeElement, Integer> depths = new IdentityHashMap<>();
+        final Set<Atom> atoms = new HashSet<>();
+
+        int depth(SyntaxTreeElement element) {
+            Integer depth = depths.get(element);
+            if (depth == null) {
+                depth = element.accept(this, null);
+                depths.put(element, depth);
+            }
+            return depth;
+        }
+
+        @Override
+        public Integer visit(SyntaxTreeElement element, Void input) {
+            throw new Semantics.SemanticConversionException(
+                    "Cannot compute formula features of " + element.getClass().getSimpleName() + " elements");
+        }
+
+        @Override
+        public Integer visit(Atom element, Void input) {
+            atoms.add(element);
+            return 0;
+        }
+
+        @Override
+        public Integer visit(True element, Void input) {
+            return 0;
+        }
+
+        @Override
+        public Integer visit(False element, Void input) {
+            return 0;
+        }
+
+        @Override
+        public Integer visit(Reference element, Void input) {
+            if (element.expression() == null) {
+                throw new Semantics.SemanticConversionException("Unresolved reference: " + element.name());
+            }
+            return depth(element.expression());
+        }
+
+        @Override
+        public Integer visit(LetExpression element, Void input) {
+            return depth(element.expression());
+        }
+
+        @Override
+        public Integer visit(Negation element, Void input) {
+            return depth(element.expression());
+        }
+
+        @Override
+        public Integer visit(BinaryExpression element, Void input) {
+            return Math.max(depth(element.left()), depth(element.right()));
+        }
+
+        @Override
+        public Integer visit(Conditional element, Void input) {
+            return Math.max(depth(element.condition()),
+                    Math.max(depth(element.trueBranch()), depth(element.falseBranch())));
+        }
+
+        @Override
+        public Integer visit(Next element, Void input) {
+            return 1 + depth(element.expression());
+        }
+
+        @Override
+        public Integer visit(Eventually element, Void input) {
+            return 1 + depth(element.expression());
+        }
+
+        @Override
+        public Integer visit(Globally element, Void input) {
+            return 1 + depth(element.expression());
+        }
+
+        @Override
+        public Integer visit(StrongUntil element, Void input) {
+            return 1 + Math.max(depth(element.left()), depth(element.right()));
+        }
+
+        @Override
+        public Integer visit(WeakUntil element, Void input) {
+            return 1 + Math.max(depth(element.left()), depth(element.right()));
+        }
+
+        @Override
+        public Integer visit(StrongRelease element, Void input) {
+            return 1 + Math.max(depth(element.left()), depth(element.right()));
+        }
+
+        @Override
+        public Integer visit(WeakRelease element, Void input) {
+            return 1 + Math.max(depth(element.left()), depth(element.right()));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package gpsl.semantics;
+
+import gpsl.syntax.model.*;
+
+/**
+ * Decides whether an expression is syntactically co-safety: every violation of it is witnessed by a finite prefix.
+ *
+ * <p>The input tells whether the expression is under an odd number of negations. Co-safety formulas are built
+ * from atoms with the boolean operators, {@code X}, {@code <>}, {@code U} and {@code M}, and negated
+ * {@code []}, {@code W} and {@code R}. Since GPSL properties describe their violations, a declared formula that
+ * is co-safety is a safety requirement: {@code [] ! |bad|} is declared as {@code ! [] ! |bad|}.
+ *
+ * <pre>{@code
+ * boolean coSafety = formula.accept(new IsCoSafety(), false);
+ * boolean safety = formula.accept(new IsCoSafety(), true);
+ * }</pre>
+ */
+public class IsCoSafety implements Visitor<Boolean, Boolean> {
+
+    @Override
+    public Boolean visit(SyntaxTreeElement element, Boolean negated) {
+        return false;
+    }
+
+    @Override
+    public Boolean visit(Atom element, Boolean negated) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(True element, Boolean negated) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(False element, Boolean negated) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Reference element, Boolean negated) {
+        return element.expression() != null && element.expression().accept(this, negated);
+    }
+
+    @Override
+    public Boolean visit(Negation element, Boolean negated) {
+        return element.expression().accept(this, !negated);
+    }
+
+    @Override
+    public Boolean visit(Conjunction element, Boolean negated) {
+        return element.left().accept(this, negated) && element.right().accept(this, negated);
+    }
+
+    @Override
+    public Boolean visit(Disjunction element, Boolean negated) {
+        return element.left().accept(this, negated) && element.right().accept(this, negated);
+    }
+
+    @Override
+    public Boolean visit(Implication element, Boolean negated) {
+        return element.left().accept(this, !negated) && element.right().accept(this, negated);
+    }
+
+    @Override
+    public Boolean visit(ExclusiveDisjunction element, Boolean negated) {
+        return bothPolarities(element.left()) && bothPolarities(element.right());
+    }
+
+    @Override
+    public Boolean visit(Equivalence element, Boolean negated) {
+        return bothPolarities(element.left()) && bothPolarities(element.right());
+    }
+
+    @Override
+    public Boolean visit(Conditional element, Boolean negated) {
+        return bothPolarities(element.condition())
+            && element.trueBranch().accept(this, negated)
+            && element.falseBranch().accept(this, negated);
+    }
+
+    private boolean bothPolarities(Expression expression) {
+        return expression.accept(this, false) && expression.accept(this, true);
+    }
+
+    @Override
+    public Boolean visit(Next element, Boolean negated) {
+        return element.expression().accept(this, negated);
+    }
+
+    @Override
+    public Boolean visit(Eventually element, Boolean negated) {
+        return !negated && element.expression().accept(this, false);
+    }
+
+    @Override
+    public Boolean visit(Globally element, Boolean negated) {
+        return negated && element.expression().accept(this, true);
+    }
+
+    @Override
+    public Boolean visit(StrongUntil element, Boolean negated) {
+        return !negated && element.left().accept(this, false) && element.right().accept(this, false);
+    }
+
+    @Override
+    public Boolean visit(StrongRelease element, Boolean negated) {
+        return !negated && element.left().accept(this, false) && element.right().accept(this, false);
+    }
+
+    @Override
+    public Boolean visit(WeakUntil element, Boolean negated) {
+        return negated && element.left().accept(this, true) && element.right().accept(this, true);
+    }
+
+    @Override
+    public Boolean visit(WeakRelease element, Boolean negated) {
+        return negated && element.left().accept(this, true) && element.right().accept(this, true);
+    }
+
+    @Override
+    public Boolean visit(Automaton element, Boolean negated) {
+        return false;
+    }
+
+    @Override
+    public Boolean visit(ExpressionDeclaration element, Boolean negated) {
+        return element.expression().accept(this, negated);
+    }
+
+    @Override
+    public Boolean visit(LetExpression element, Boolean negated) {
+        return element.expression().accept(this, negated);
+    }
+}
@@ -6,7 +6,6 @@ import obp3.runtime.sli.DependentSemanticRelation;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
 /**
  * Provides operational semantics for any GPSL syntax tree element.
@@ -33,48 +32,37 @@ public class Semantics<T> implements DependentSemanticRelation<T, Transition, St
      * @throws IllegalArgumentException if element is not an Automaton or Expression
      */
     public Semantics(SyntaxTreeElement element, AtomEvaluator<T> atomEvaluator) {
+        this(element, atomEvaluator, TranslationStrategy.defaultStrategy());
+    }
+
+    /**
+     * Creates a semantics instance for a syntax tree element, translating formulas with the given strategy.
+     *
+     * @param element the syntax tree element (Automaton or Expression)
+     * @param atomEvaluator the evaluator for atomic propositions
+     * @param strategy the strategy selecting the translation backend for formulas
+     * @throws SemanticConversionException if element cannot be converted to an automaton
+     */
+    public Semantics(SyntaxTreeElement element, AtomEvaluator<T> atomEvaluator, TranslationStrategy strategy) {
         Objects.requireNonNull(element, "Element cannot be null");
         Objects.requireNonNull(atomEvaluator, "AtomEvaluator cannot be null");
-        
-        Automaton automaton = toAutomaton(element);
+        Objects.requireNonNull(strategy, "TranslationStrategy cannot be null");
+
+        Automaton automaton = strategy.toAutomaton(element);
         this.automatonSemantics = new AutomatonSemantics<>(automaton, atomEvaluator);
     }
 
     /**
-     * Converts a syntax tree element to an automaton.
+     * Converts a syntax tree element to an automaton with the default {@link TranslationStrategy}:
+     * automata are used directly, propositional formulas become NFAs and
+     * other formulas are translated with {@link Expression2BuchiAutomaton}.
      * 
      * @param element the element to convert
      * @return the automaton
-     * @throws IllegalArgumentException if element is not an Automaton or Expression
+     * @throws SemanticConversionException if element is not an Automaton or Expression
      */
     public static Automaton toAutomaton(SyntaxTreeElement element) {
-        var nfa = PropositionalToNFA.hasAutomaton(element, false);
-        if (nfa.isPresent()) {
-            return nfa.get();
-        }
-        var buchi = PropositionalToNFA.hasAutomaton(element, true);
-        if (buchi.isPresent()) {
-            return buchi.get();
-        }
-
-        var exp = PropositionalToNFA.toExpression(element);
-        return PropositionalToNFA
-                .toNFA(element)
-                .or(() -> exp.flatMap(Semantics::toBuchi))
-                .orElseThrow(() -> new SemanticConversionException("Cannot convert element to automaton"));
-    }
-
-    private static Optional<Automaton> toBuchi(Expression expression) {
-        var result = Expression2BuchiAutomaton.convert(expression);
-        if (result instanceof rege.reader.infra.ParseResult.Success<Automaton>(Automaton value)) {
-            return Optional.of(value);
-        } else if (result instanceof rege.reader.infra.ParseResult.Failure<Automaton> failure) {
-            throw new SemanticConversionException(
-                    "Failed to convert expression to automaton:\n" + failure.formatErrors()
-            );
-        } else {
-            throw new SemanticConversionException("Unexpected ParseResult type");
-        }
+        return TranslationStrategy.defaultStrategy().toAutomaton(element);
     }
     
     /**
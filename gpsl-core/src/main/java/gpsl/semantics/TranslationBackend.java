@@ -0,0 +1,125 @@
+package gpsl.semantics;
+
+import gpsl.ltl3ba.Ltl3baOptions;
+import gpsl.syntax.model.Automaton;
+import gpsl.syntax.model.Expression;
+import gpsl.toBuchi.Expression2BuchiAutomaton;
+import rege.reader.infra.ParseResult;
+
+import java.util.function.Predicate;
+
+/**
+ * A translation from formulas to automata, selected by a {@link TranslationStrategy}.
+ */
+public interface TranslationBackend {
+
+    /**
+     * Gets the backend name, used in error messages.
+     */
+    String name();
+
+    /**
+     * Checks whether this backend should be tried for a formula with the given features.
+     */
+    boolean accepts(FormulaFeatures features);
+
+    /**
+     * Translates a formula.
+     *
+     * @param expression the formula
+     * @return the automaton
+     * @throws Semantics.SemanticConversionException if the translation fails
+     */
+    Automaton translate(Expression expression);
+
+    /**
+     * Restricts this backend to the formulas whose features also satisfy the given condition.
+     *
+     * @param condition the additional routing condition, e.g. {@code f -> f.size() < 500}
+     * @return the restricted backend
+     */
+    default TranslationBackend when(Predicate<FormulaFeatures> condition) {
+        TranslationBackend self = this;
+        return new TranslationBackend() {
+            @Override
+            public String name() {
+                return self.name();
+            }
+
+            @Override
+            public boolean accepts(FormulaFeatures features) {
+                return self.accepts(features) && condition.test(features);
+            }
+
+            @Override
+            public Automaton translate(Expression expression) {
+                return self.translate(expression);
+            }
+        };
+    }
+
+    /**
+     * The direct translation of propositional formulas to a two-state NFA.
+     *
+     * @return the propositional backend, accepting only propositional formulas
+     */
+    static TranslationBackend propositional() {
+        return new TranslationBackend() {
+            @Override
+            public String name() {
+                return "propositional";
+            }
+
+            @Override
+            public boolean accepts(FormulaFeatures features) {
+                return features.isPropositional();
+            }
+
+            @Override
+            public Automaton translate(Expression expression) {
+                return PropositionalToNFA.toNFA(expression)
+                        .orElseThrow(() -> new Semantics.SemanticConversionException("Not a propositional formula"));
+            }
+        };
+    }
+
+    /**
+     * The translation to Büchi automata with the native LTL3BA tool, with default options.
+     *
+     * @return the LTL3BA backend, accepting every formula
+     */
+    static TranslationBackend ltl3ba() {
+        return ltl3ba(Ltl3baOptions.defaults());
+    }
+
+    /**
+     * The translation to Büchi automata with the native LTL3BA tool.
+     *
+     * @param options the ltl3ba optimization switches
+     * @return the LTL3BA backend, accepting every formula
+     */
+    static TranslationBackend ltl3ba(Ltl3baOptions options) {
+        return new TranslationBackend() {
+            @Override
+            public String name() {
+                return "ltl3ba";
+            }
+
+            @Override
+            public boolean accepts(FormulaFeatures features) {
+                return true;
+            }
+
+            @Override
+            public Automaton translate(Expression expression) {
+                var result = Expression2BuchiAutomaton.convert(expression, options);
+                if (result instanceof ParseResult.Success<Automaton>(Automaton value)) {
+                    return value;
+                }
+                throw new Semantics.SemanticConversionException(
+                        "Failed to convert expression to automaton:\n"
+                                + ((ParseResult.Failure<Automaton>) result).formatErrors());
+            }
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package gpsl.semantics;
+
+import gpsl.syntax.model.Automaton;
+import gpsl.syntax.model.Expression;
+import gpsl.syntax.model.SyntaxTreeElement;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Selects the translation backend used to turn a property into an automaton.
+ *
+ * <p>Explicit automata are used as they are. Formulas are routed by their {@link FormulaFeatures}:
+ * the backends are tried in order, skipping those that do not accept the features. A backend
+ * that fails or exceeds its timeout falls back to the next one. The default strategy uses
+ * the {@link TranslationBackend#propositional() propositional} translation for propositional
+ * formulas and {@link TranslationBackend#ltl3ba() LTL3BA} for everything else, without timeouts.
+ *
+ * <p>Backends with a timeout run on a shared pool of one daemon thread per processor, and are interrupted
+ * when they exceed it: the LTL3BA backend then kills its ltl3ba process. The time spent waiting for a pool
+ * thread counts in the timeout.
+ *
+ * <pre>{@code
+ * TranslationStrategy strategy = TranslationStrategy
+ *         .first(TranslationBackend.propositional())
+ *         .then(TranslationBackend.ltl3ba().when(f -> f.size() < 2_000), Duration.ofSeconds(5))
+ *         .then(myOnTheFlyBackend);
+ * }</pre>
+ */
+public final class TranslationStrategy {
+
+    private static final TranslationStrategy DEFAULT = first(TranslationBackend.propositional())
+            .then(TranslationBackend.ltl3ba());
+
+    private static final ExecutorService TIMED_TRANSLATIONS = timedTranslations(
+            Runtime.getRuntime().availableProcessors());
+
+    private static ExecutorService timedTranslations(int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "gpsl-translation");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * A backend and its time budget ({@code null} for no limit).
+     */
+    public record Stage(TranslationBackend backend, Duration timeout) {}
+
+    private final List<Stage> stages;
+
+    private TranslationStrategy(List<Stage> stages) {
+        this.stages = List.copyOf(stages);
+    }
+
+    /**
+     * Gets the default strategy: propositional translation, then LTL3BA.
+     *
+     * @return the default strategy
+     */
+    public static TranslationStrategy defaultStrategy() {
+        return DEFAULT;
+    }
+
+    /**
+     * Creates a strategy starting with the given backend, without timeout.
+     *
+     * @param backend the first backend to try
+     * @return the strategy
+     */
+    public static TranslationStrategy first(TranslationBackend backend) {
+        return new TranslationStrategy(List.of(new Stage(backend, null)));
+    }
+
+    /**
+     * Creates a strategy starting with the given backend.
+     *
+     * @param backend the first backend to try
+     * @param timeout the time budget of the backend
+     * @return the strategy
+     */
+    public static TranslationStrategy first(TranslationBackend backend, Duration timeout) {
+        return new TranslationStrategy(List.of(new Stage(backend, timeout)));
+    }
+
+    /**
+     * Creates a strategy falling back to the given backend, without timeout.
+     *
+     * @param backend the backend to try after the current ones
+     * @return a new strategy
+     */
+    public TranslationStrategy then(TranslationBackend backend) {
+        return then(backend, null);
+    }
+
+    /**
+     * Creates a strategy falling back to the given backend.
+     *
+     * @param backend the backend to try after the current ones
+     * @param timeout the time budget of the backend
+     * @return a new strategy
+     */
+    public TranslationStrategy then(TranslationBackend backend, Duration timeout) {
+        List<Stage> extended = new ArrayList<>(stages);
+        extended.add(new Stage(backend, timeout));
+        return new TranslationStrategy(extended);
+    }
+
+    /**
+     * Gets the stages of this strategy, in the order they are tried.
+     *
+     * @return the stages
+     */
+    public List<Stage> stages() {
+        return stages;
+    }
+
+    /**
+     * Converts a syntax tree element to an automaton.
+     *
+     * @param element the element to convert (automaton, expression, declaration or let expression)
+     * @return the automaton
+     * @throws Semantics.SemanticConversionException if the element cannot be converted
+     */
+    public Automaton toAutomaton(SyntaxTreeElement element) {
+        var nfa = PropositionalToNFA.hasAutomaton(element, false);
+        if (nfa.isPresent()) {
+            return nfa.get();
+        }
+        var buchi = PropositionalToNFA.hasAutomaton(element, true);
+        if (buchi.isPresent()) {
+            return buchi.get();
+        }
+        return PropositionalToNFA.toExpression(element)
+                .map(this::translate)
+                .orElseThrow(() -> new Semantics.SemanticConversionException("Cannot convert element to automaton"));
+    }
+
+    /**
+     * Translates a formula with the first accepting backend that succeeds in time.
+     *
+     * @param expression the formula
+     * @return the automaton
+     * @throws Semantics.SemanticConversionException if every accepting backend fails
+     */
+    public Automaton translate(Expression expression) {
+        FormulaFeatures features = FormulaFeatures.of(expression);
+        List<RuntimeException> failures = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        for (Stage stage : stages) {
+            if (!stage.backend().accepts(features)) {
+                continue;
+            }
+            try {
+                return stage.timeout() == null
+                        ? stage.backend().translate(expression)
+                        : translateWithin(stage, expression);
+            } catch (RuntimeException e) {
+                failures.add(e);
+                messages.add(stage.backend().name() + ": " + e.getMessage());
+            }
+        }
+        if (failures.isEmpty()) {
+            throw new Semantics.SemanticConversionException("No translation backend accepts " + features);
+        }
+        if (failures.size() == 1 && failures.getFirst() instanceof Semantics.SemanticConversionException single) {
+            throw single;
+        }
+        throw new Semantics.SemanticConversionException(
+                "All translation backends failed:\n" + String.join("\n", messages), failures.getLast());
+    }
+
+    private static Automaton translateWithin(Stage stage, Expression expression) {
+        Future<Automaton> future = TIMED_TRANSLATIONS.submit(() -> stage.backend().translate(expression));
+        try {
+            return future.get(stage.timeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new Semantics.SemanticConversionException("timed out after " + stage.timeout());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new Semantics.SemanticConversionException(String.valueOf(e.getCause().getMessage()), e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new Semantics.SemanticConversionException("interrupted", e);
+        } catch (CancellationException e) {
+            throw new Semantics.SemanticConversionException("cancelled", e);
+        }
+    }
+}
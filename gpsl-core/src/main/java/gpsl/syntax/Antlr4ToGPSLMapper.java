@@ -5,6 +5,7 @@ import gpsl.parser.GPSLParser;
 import gpsl.syntax.model.*;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.TerminalNode;
+import rege.reader.infra.ParseError;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -12,15 +13,44 @@ import java.util.stream.Collectors;
 /**
  * Maps ANTLR4 parse tree to GPSL syntax model with external position tracking.
  * This class walks the ANTLR4 parse tree and constructs corresponding GPSL syntax tree elements.
+ * <p>
+ * Nodes are built through a {@link Factory}. When a symbol context is given, references are resolved
+ * while the tree is built, as {@link SymbolResolver} would, and inlined with {@link Factory#reference(Expression)},
+ * so a hash-consing factory directly builds a shared DAG.
  */
 public class Antlr4ToGPSLMapper extends GPSLBaseListener {
     
     private final Map<ParserRuleContext, Object> valueMap = new HashMap<>();
     private final ParseContext context;
+    private final boolean trackPositions;
+    private final Factory factory;
+    private final Context symbols;
     private Declarations tree = null;
 
     public Antlr4ToGPSLMapper(ParseContext context) {
+        this(context, true);
+    }
+
+    /**
+     * @param context the parse context receiving the positions
+     * @param trackPositions whether to record the range and parse tree node of each AST node;
+     *                       without them the parse tree can be collected as soon as the AST is built
+     */
+    public Antlr4ToGPSLMapper(ParseContext context, boolean trackPositions) {
+        this(context, trackPositions, Factory.instance(), null);
+    }
+
+    /**
+     * @param context the parse context receiving the positions and the linking errors
+     * @param trackPositions whether to record the range and parse tree node of each AST node
+     * @param factory the factory building the nodes
+     * @param symbols the symbol context used to resolve references while building, or null to leave them unresolved
+     */
+    public Antlr4ToGPSLMapper(ParseContext context, boolean trackPositions, Factory factory, Context symbols) {
         this.context = context;
+        this.trackPositions = trackPositions;
+        this.factory = factory;
+        this.symbols = symbols;
     }
 
     /**
@@ -37,8 +67,8 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
         valueMap.put(ctx, value);
         
         // Track position for AST nodes
-        if (value instanceof SyntaxTreeElement node) {
-            context.positionMap().put(node, PositionMap.rangeOf(ctx));
+        if (trackPositions && value instanceof SyntaxTreeElement node) {
+            context.positionMap().put(node, ctx);
             context.positionMap().putParseTree(node, ctx);
         }
     }
@@ -54,7 +84,7 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
 
     @Override
     public void exitLiteral(GPSLParser.LiteralContext ctx) {
-        Expression literal = ctx.TRUE() != null ? new True() : new False();
+        Expression literal = ctx.TRUE() != null ? factory.t() : factory.f();
         setValue(ctx, literal);
     }
 
@@ -74,7 +104,7 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
                 break;
         }
         
-        setValue(ctx, new Atom(atom, delimiter));
+        setValue(ctx, factory.atom(atom, delimiter));
     }
 
     @Override
@@ -87,11 +117,11 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
         String operator = ctx.operator.getText();
         Expression expression = getValue(ctx.formula());
         
-        UnaryExpression unaryExpression = switch (ctx.operator.getType()) {
-            case GPSLParser.NEGATION -> new Negation(operator, expression);
-            case GPSLParser.NEXT -> new Next(operator, expression);
-            case GPSLParser.EVENTUALLY -> new Eventually(operator, expression);
-            case GPSLParser.GLOBALLY -> new Globally(operator, expression);
+        Expression unaryExpression = switch (ctx.operator.getType()) {
+            case GPSLParser.NEGATION -> factory.negation(operator, expression);
+            case GPSLParser.NEXT -> factory.next(operator, expression);
+            case GPSLParser.EVENTUALLY -> factory.eventually(operator, expression);
+            case GPSLParser.GLOBALLY -> factory.globally(operator, expression);
             default -> throw new IllegalStateException("Unknown unary operator: " + operator);
         };
         
@@ -104,16 +134,16 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
         Expression left = getValue(ctx.formula(0));
         Expression right = getValue(ctx.formula(1));
         
-        BinaryExpression binaryExpression = switch (ctx.operator.getType()) {
-            case GPSLParser.CONJUNCTION -> new Conjunction(operator, left, right);
-            case GPSLParser.DISJUNCTION -> new Disjunction(operator, left, right);
-            case GPSLParser.XOR -> new ExclusiveDisjunction(operator, left, right);
-            case GPSLParser.IMPLICATION -> new Implication(operator, left, right);
-            case GPSLParser.EQUIVALENCE -> new Equivalence(operator, left, right);
-            case GPSLParser.SUNTIL -> new StrongUntil(operator, left, right);
-            case GPSLParser.WUNTIL -> new WeakUntil(operator, left, right);
-            case GPSLParser.SRELEASE -> new StrongRelease(operator, left, right);
-            case GPSLParser.WRELEASE -> new WeakRelease(operator, left, right);
+        Expression binaryExpression = switch (ctx.operator.getType()) {
+            case GPSLParser.CONJUNCTION -> factory.conjunction(operator, left, right);
+            case GPSLParser.DISJUNCTION -> factory.disjunction(operator, left, right);
+            case GPSLParser.XOR -> factory.exclusiveDisjunction(operator, left, right);
+            case GPSLParser.IMPLICATION -> factory.implication(operator, left, right);
+            case GPSLParser.EQUIVALENCE -> factory.equivalence(operator, left, right);
+            case GPSLParser.SUNTIL -> factory.strongUntil(operator, left, right);
+            case GPSLParser.WUNTIL -> factory.weakUntil(operator, left, right);
+            case GPSLParser.SRELEASE -> factory.strongRelease(operator, left, right);
+            case GPSLParser.WRELEASE -> factory.weakRelease(operator, left, right);
             default -> throw new IllegalStateException("Unknown binary operator: " + operator);
         };
         
@@ -126,7 +156,7 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
         Expression trueBranch = getValue(ctx.formula(1));
         Expression falseBranch = getValue(ctx.formula(2));
 
-        Conditional conditional = new Conditional(condition, trueBranch, falseBranch);
+        Expression conditional = factory.conditional(condition, trueBranch, falseBranch);
         setValue(ctx, conditional);
     }
 
@@ -142,8 +172,51 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
 
     @Override
     public void exitReferenceExp(GPSLParser.ReferenceExpContext ctx) {
-        Reference reference = new Reference(ctx.IDENTIFIER().getText());
-        setValue(ctx, reference);
+        String name = ctx.IDENTIFIER().getText();
+        if (symbols == null) {
+            setValue(ctx, factory.reference(name));
+            return;
+        }
+        try {
+            Object resolved = symbols.lookup(name);
+            if (resolved instanceof Expression expression) {
+                setValue(ctx, factory.reference(expression));
+            } else {
+                // a state of the enclosing automaton, shadowing any formula of the same name
+                setValue(ctx, factory.reference(name));
+                addError(ctx, "state '" + name + "' is not a formula", "state-reference");
+            }
+        } catch (Context.SymbolNotFoundException e) {
+            setValue(ctx, factory.reference(name));
+            addError(ctx, "undefined symbol '" + name + "'", "undefined-symbol");
+        }
+    }
+
+    @Override
+    public void enterLetExp(GPSLParser.LetExpContext ctx) {
+        if (symbols != null) symbols.pushContext();
+    }
+
+    @Override
+    public void enterAutomaton(GPSLParser.AutomatonContext ctx) {
+        if (symbols != null) symbols.pushContext();
+    }
+
+    /**
+     * Opens the scope of the automaton states, nested in the scope of its let declarations
+     * as in {@link SymbolResolver#visit(Automaton, Context)}.
+     */
+    @Override
+    public void enterAutomatonDecl(GPSLParser.AutomatonDeclContext ctx) {
+        if (symbols != null) symbols.pushContext();
+    }
+
+    /**
+     * Reports a linking error at the source range of a parse tree node.
+     */
+    private void addError(ParserRuleContext ctx, String message, String errorCode) {
+        context.addError(new ParseError(
+                PositionMap.rangeOf(ctx), message, ParseError.Severity.ERROR, Optional.of(errorCode)));
     }
 
     @Override
@@ -158,8 +231,16 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
         }
 
         boolean isInternal = ctx.SEQ() == null;
-        ExpressionDeclaration declaration = new ExpressionDeclaration(name, expression, isInternal);
+        ExpressionDeclaration declaration = factory.declaration(name, expression, isInternal);
         setValue(ctx, declaration);
+
+        if (symbols != null && expression != null) {
+            try {
+                symbols.define(name, expression);
+            } catch (Context.SymbolAlreadyDefinedException e) {
+                addError(ctx, "duplicate symbol '" + name + "'", "duplicate-symbol");
+            }
+        }
     }
 
     @Override
@@ -168,7 +249,7 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
                 .map(this::<ExpressionDeclaration>getValue)
                 .collect(Collectors.toList());
         
-        Declarations declarationNode = new Declarations(declarations);
+        Declarations declarationNode = factory.declarations(declarations);
         setValue(ctx, declarationNode);
     }
 
@@ -182,8 +263,9 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
     public void exitLetExp(GPSLParser.LetExpContext ctx) {
         Declarations declarations = getValue(ctx.letDecl());
         Expression expression = getValue(ctx.formula());
-        LetExpression letExpression = new LetExpression(declarations, expression);
+        Expression letExpression = factory.letExpression(declarations, expression);
         setValue(ctx, letExpression);
+        if (symbols != null) symbols.popContext();
     }
 
     @Override
@@ -192,7 +274,7 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
                 .map(this::<ExpressionDeclaration>getValue)
                 .collect(Collectors.toList());
         
-        this.tree = new Declarations(declarations);
+        this.tree = factory.declarations(declarations);
         setValue(ctx, this.tree);
     }
 
@@ -202,6 +284,10 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
                 .map(TerminalNode::getText)
                 .collect(Collectors.toList());
         setValue(ctx, states);
+        // the states are declared before the transitions whose guards may name them
+        if (symbols != null) {
+            states.stream().distinct().forEach(name -> symbols.define(name, factory.state(name)));
+        }
     }
 
     @Override
@@ -242,7 +328,7 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
         Expression guard = getValue(ctx.formula());
         
         // Note: source and target are strings here, will be resolved to State objects later
-        Transition transition = new Transition(new State(source), priority, guard, new State(target));
+        Transition transition = factory.transition(factory.state(source), priority, guard, factory.state(target));
         setValue(ctx, transition);
     }
 
@@ -263,28 +349,30 @@ public class Antlr4ToGPSLMapper extends GPSLBaseListener {
 
         // Convert state names to a set for the automaton
         Set<State> states = stateNames.stream()
-                .map(State::new)
+                .map(factory::state)
                 .collect(Collectors.toSet());
         
         Set<State> initialStates = initialNames.stream()
-                .map(State::new)
+                .map(factory::state)
                 .collect(Collectors.toSet());
         
         Set<State> acceptStates = acceptNames.stream()
-                .map(State::new)
+                .map(factory::state)
                 .collect(Collectors.toSet());
         
-        Automaton automaton = new Automaton(semantics, states, initialStates, acceptStates, transitions);
+        Automaton automaton = factory.automaton(semantics, states, initialStates, acceptStates, transitions);
         setValue(ctx, automaton);
+        if (symbols != null) symbols.popContext();
     }
 
     @Override
     public void exitAutomaton(GPSLParser.AutomatonContext ctx) {
         Declarations declarations = ctx.letDecl() != null 
                 ? getValue(ctx.letDecl()) 
-                : new Declarations(List.of());
+                : factory.declarations(List.of());
         Automaton automaton = getValue(ctx.automatonDecl());
-        LetExpression letExpression = new LetExpression(declarations, automaton);
+        Expression letExpression = factory.letExpression(declarations, automaton);
         setValue(ctx, letExpression);
+        if (symbols != null) symbols.popContext();
     }
 }
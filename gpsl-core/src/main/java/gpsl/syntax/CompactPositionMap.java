@@ -0,0 +1,315 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+import rege.reader.infra.*;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+
+import java.util.*;
+
+/**
+ * A {@link PositionMap} keeping only the start and end offsets of the nodes.
+ *
+ * <p>Each node gets a dense id from an open-addressing identity table, and its offsets are stored in
+ * {@code int} arrays indexed by that id: a few tens of bytes per node, instead of a {@link Range}, two
+ * {@link Position}s and the map entries. Lines and columns are computed when a range is read, from a table of
+ * the line-start offsets of the source built on the first read. The ranges put in the map must therefore be
+ * ranges of that source, as made by {@link #rangeOf}.
+ *
+ * <p>Parse tree nodes are only kept when asked for: they retain the whole ANTLR parse tree.
+ */
+public final class CompactPositionMap extends PositionMap {
+
+    private static final int[] NO_INTS = new int[0];
+    private static final SyntaxTreeElement[] NO_NODES = new SyntaxTreeElement[0];
+    // slot of a removed node, which does not end a probe sequence
+    private static final int REMOVED = -1;
+
+    private final String source;
+    private final boolean parseTrees;
+    private volatile LineIndex lines;
+
+    // open-addressing table of node ids + 1, 0 being a free slot
+    private int[] slots = NO_INTS;
+    private int usedSlots;
+    // by id, the node (null once removed) and its first range
+    private SyntaxTreeElement[] nodes = NO_NODES;
+    private int[] starts = NO_INTS;
+    private int[] ends = NO_INTS;
+    private int size;
+    private int removed;
+    // all the ranges, as start and end offset pairs, of the nodes found at more than one source location
+    private final Map<SyntaxTreeElement, int[]> sharedOffsets = new IdentityHashMap<>();
+
+    /**
+     * Creates a map of the positions in a source, without parse tree nodes.
+     */
+    public CompactPositionMap(String source) {
+        this(source, false);
+    }
+
+    /**
+     * Creates a map of the positions in a source.
+     *
+     * @param source the source of the positions
+     * @param parseTrees whether to keep the parse tree nodes recorded with {@link #putParseTree}
+     */
+    public CompactPositionMap(String source, boolean parseTrees) {
+        this.source = source;
+        this.parseTrees = parseTrees;
+    }
+
+    /**
+     * Creates a map of the positions in a source of which only the line starts are known.
+     */
+    CompactPositionMap(LineIndex lines) {
+        this.source = null;
+        this.parseTrees = false;
+        this.lines = lines;
+    }
+
+    @Override
+    public void put(SyntaxTreeElement node, Range range) {
+        putOffsets(node, range.start().offset(), range.end().offset());
+    }
+
+    @Override
+    void put(SyntaxTreeElement node, Token start, Token stop) {
+        putOffsets(node, start.getStartIndex(), stop.getStopIndex() + 1);
+    }
+
+    /**
+     * Record the position of an AST node from its start and end offsets.
+     */
+    void putOffsets(SyntaxTreeElement node, int start, int end) {
+        int id = id(node);
+        if (id < 0) {
+            add(node, start, end);
+            return;
+        }
+        int[] offsets = sharedOffsets.get(node);
+        int last = offsets == null ? 0 : offsets.length - 2;
+        int lastStart = offsets == null ? starts[id] : offsets[last];
+        int lastEnd = offsets == null ? ends[id] : offsets[last + 1];
+        if (start <= lastStart && lastEnd <= end) {
+            // widen the last range
+            if (offsets == null) {
+                starts[id] = start;
+                ends[id] = end;
+            } else {
+                offsets[last] = start;
+                offsets[last + 1] = end;
+            }
+            return;
+        }
+        if (offsets == null) {
+            sharedOffsets.put(node, new int[] {starts[id], ends[id], start, end});
+        } else {
+            offsets = Arrays.copyOf(offsets, offsets.length + 2);
+            offsets[last + 2] = start;
+            offsets[last + 3] = end;
+            sharedOffsets.put(node, offsets);
+        }
+    }
+
+    @Override
+    public void putParseTree(SyntaxTreeElement node, ParserRuleContext ctx) {
+        if (parseTrees) {
+            super.putParseTree(node, ctx);
+        }
+    }
+
+    @Override
+    void setParseTree(SyntaxTreeElement node, ParserRuleContext ctx) {
+        if (parseTrees) {
+            super.setParseTree(node, ctx);
+        }
+    }
+
+    @Override
+    public Optional<Range> get(SyntaxTreeElement node) {
+        int id = id(node);
+        return id < 0 ? Optional.empty() : Optional.of(range(starts[id], ends[id]));
+    }
+
+    @Override
+    public List<Range> getAll(SyntaxTreeElement node) {
+        int id = id(node);
+        if (id < 0) {
+            return List.of();
+        }
+        int[] offsets = sharedOffsets.get(node);
+        if (offsets == null) {
+            return List.of(range(starts[id], ends[id]));
+        }
+        List<Range> ranges = new ArrayList<>(offsets.length / 2);
+        for (int i = 0; i < offsets.length; i += 2) {
+            ranges.add(range(offsets[i], offsets[i + 1]));
+        }
+        return Collections.unmodifiableList(ranges);
+    }
+
+    @Override
+    public boolean contains(SyntaxTreeElement node) {
+        return id(node) >= 0;
+    }
+
+    @Override
+    public Set<SyntaxTreeElement> trackedNodes() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<SyntaxTreeElement> iterator() {
+                return Arrays.stream(nodes, 0, size).filter(Objects::nonNull).iterator();
+            }
+
+            @Override
+            public int size() {
+                return size - removed;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof SyntaxTreeElement node && id(node) >= 0;
+            }
+        };
+    }
+
+    @Override
+    void replace(SyntaxTreeElement node, List<Range> ranges) {
+        Range first = ranges.getFirst();
+        int id = id(node);
+        if (id < 0) {
+            add(node, first.start().offset(), first.end().offset());
+        } else {
+            starts[id] = first.start().offset();
+            ends[id] = first.end().offset();
+        }
+        if (ranges.size() > 1) {
+            int[] offsets = new int[ranges.size() * 2];
+            for (int i = 0; i < ranges.size(); i++) {
+                offsets[2 * i] = ranges.get(i).start().offset();
+                offsets[2 * i + 1] = ranges.get(i).end().offset();
+            }
+            sharedOffsets.put(node, offsets);
+        } else {
+            sharedOffsets.remove(node);
+        }
+    }
+
+    @Override
+    void remove(SyntaxTreeElement node) {
+        super.remove(node);
+        int slot = slot(node);
+        if (slot >= 0) {
+            nodes[slots[slot] - 1] = null;
+            slots[slot] = REMOVED;
+            sharedOffsets.remove(node);
+            removed++;
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        slots = NO_INTS;
+        usedSlots = 0;
+        nodes = NO_NODES;
+        starts = NO_INTS;
+        ends = NO_INTS;
+        size = 0;
+        removed = 0;
+        sharedOffsets.clear();
+    }
+
+    @Override
+    public long estimatedSize() {
+        long shared = 0;
+        for (int[] offsets : sharedOffsets.values()) {
+            shared += 48 + 4L * offsets.length;
+        }
+        // the node references are counted as 8 bytes
+        return super.estimatedSize() + 4L * slots.length + 16L * nodes.length + shared;
+    }
+
+    private Range range(int start, int end) {
+        LineIndex index = lines;
+        if (index == null) {
+            index = LineIndex.ofCodePoints(source);
+            lines = index;
+        }
+        return new Range(index.position(start), index.position(end));
+    }
+
+    private int id(SyntaxTreeElement node) {
+        int slot = slot(node);
+        return slot < 0 ? -1 : slots[slot] - 1;
+    }
+
+    /**
+     * Finds the slot of a node.
+     *
+     * @return the slot index, or -1 if the node is not in the map
+     */
+    private int slot(SyntaxTreeElement node) {
+        if (slots.length == 0) {
+            return -1;
+        }
+        int mask = slots.length - 1;
+        for (int i = hash(node) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) {
+                return -1;
+            }
+            if (slot > 0 && nodes[slot - 1] == node) {
+                return i;
+            }
+        }
+    }
+
+    private void add(SyntaxTreeElement node, int start, int end) {
+        if (2 * (usedSlots + 1) > slots.length) {
+            rehash();
+        }
+        if (size == nodes.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            nodes = Arrays.copyOf(nodes, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        int id = size++;
+        nodes[id] = node;
+        starts[id] = start;
+        ends[id] = end;
+        insert(id);
+        usedSlots++;
+    }
+
+    private void rehash() {
+        int live = size - removed;
+        int capacity = 16;
+        while (capacity < 4 * (live + 1)) {
+            capacity <<= 1;
+        }
+        slots = new int[capacity];
+        usedSlots = live;
+        for (int id = 0; id < size; id++) {
+            if (nodes[id] != null) {
+                insert(id);
+            }
+        }
+    }
+
+    private void insert(int id) {
+        int mask = slots.length - 1;
+        int i = hash(nodes[id]) & mask;
+        while (slots[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = id + 1;
+    }
+
+    private static int hash(Object node) {
+        int h = System.identityHashCode(node);
+        return h ^ (h >>> 16);
+    }
+}
@@ -5,17 +5,33 @@ import java.util.*;
 /**
  * Manages symbol scopes for GPSL expressions.
  * Supports nested contexts with lexical scoping.
+ *
+ * <p>The inner scopes are flattened into a single table holding the innermost binding of each name, the
+ * bindings it shadows being chained behind it. Each scope is a segment of an undo log of the names it defined,
+ * replayed in reverse when it is popped. A lookup is a single hash probe whatever the nesting depth, and
+ * pushing a scope allocates nothing.
  */
 public class Context {
-    
-    private final Deque<Map<String, Object>> contextStack;
+
+    private final Map<String, Object> globalScope;
+    // the innermost binding of each name defined in an inner scope
+    private final Map<String, Binding> bindings = new HashMap<>();
+    // the names defined in the inner scopes, in definition order
+    private String[] log = new String[16];
+    private int logSize;
+    // the log size at the start of each inner scope
+    private int[] scopeStarts = new int[8];
+    private int depth;
+
+    private record Binding(Object value, int depth, Binding shadowed) {
+    }
 
     /**
      * Creates a new context with an optional global scope.
+     * Symbols defined in the global scope are put in the given map.
      */
     public Context(Map<String, Object> globalScope) {
-        this.contextStack = new ArrayDeque<>();
-        this.contextStack.push(globalScope != null ? globalScope : new HashMap<>());
+        this.globalScope = globalScope != null ? globalScope : new HashMap<>();
     }
 
     /**
@@ -27,34 +43,57 @@ public class Context {
 
     /**
      * Returns the current (innermost) context.
+     * The global scope is returned as is; an inner scope as an unmodifiable copy of its symbols.
      */
     public Map<String, Object> currentContext() {
-        return contextStack.peek();
+        if (depth == 0) {
+            return globalScope;
+        }
+        Map<String, Object> scope = new LinkedHashMap<>();
+        for (int i = scopeStarts[depth - 1]; i < logSize; i++) {
+            scope.put(log[i], bindings.get(log[i]).value());
+        }
+        return Collections.unmodifiableMap(scope);
     }
 
     /**
-     * Pushes a new context onto the stack.
+     * Pushes a new context onto the stack, defining the symbols of the given map.
      */
     public void pushContext(Map<String, Object> context) {
-        contextStack.push(context != null ? context : new HashMap<>());
+        pushContext();
+        if (context != null) {
+            context.forEach(this::define);
+        }
     }
 
     /**
      * Pushes a new empty context onto the stack.
      */
     public void pushContext() {
-        pushContext(new HashMap<>());
+        if (depth == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+        }
+        scopeStarts[depth++] = logSize;
     }
 
     /**
      * Pops the current context from the stack.
      */
     public void popContext() {
-        if (contextStack.size() > 1) {
-            contextStack.pop();
-        } else {
+        if (depth == 0) {
             throw new IllegalStateException("Cannot pop the global context");
         }
+        int start = scopeStarts[--depth];
+        for (int i = logSize - 1; i >= start; i--) {
+            Binding shadowed = bindings.get(log[i]).shadowed();
+            if (shadowed == null) {
+                bindings.remove(log[i]);
+            } else {
+                bindings.put(log[i], shadowed);
+            }
+            log[i] = null;
+        }
+        logSize = start;
     }
 
     /**
@@ -66,10 +105,13 @@ public class Context {
      */
     @SuppressWarnings("unchecked")
     public <T> T lookup(String symbol) {
-        for (Map<String, Object> scope : contextStack) {
-            if (scope.containsKey(symbol)) {
-                return (T) scope.get(symbol);
-            }
+        Binding binding = bindings.get(symbol);
+        if (binding != null) {
+            return (T) binding.value();
+        }
+        Object value = globalScope.get(symbol);
+        if (value != null || globalScope.containsKey(symbol)) {
+            return (T) value;
         }
         throw new SymbolNotFoundException("Symbol " + symbol + " is not defined in the current scope");
     }
@@ -82,10 +124,26 @@ public class Context {
      * @throws SymbolAlreadyDefinedException if the symbol is already defined in the current scope
      */
     public void define(String symbol, Object value) {
-        if (currentContext().containsKey(symbol)) {
-            throw new SymbolAlreadyDefinedException("Symbol " + symbol + " is already defined in the current scope");
+        if (depth == 0) {
+            if (globalScope.containsKey(symbol)) {
+                throw alreadyDefined(symbol);
+            }
+            globalScope.put(symbol, value);
+            return;
         }
-        currentContext().put(symbol, value);
+        Binding shadowed = bindings.get(symbol);
+        if (shadowed != null && shadowed.depth() == depth) {
+            throw alreadyDefined(symbol);
+        }
+        bindings.put(symbol, new Binding(value, depth, shadowed));
+        if (logSize == log.length) {
+            log = Arrays.copyOf(log, logSize * 2);
+        }
+        log[logSize++] = symbol;
+    }
+
+    private static SymbolAlreadyDefinedException alreadyDefined(String symbol) {
+        return new SymbolAlreadyDefinedException("Symbol " + symbol + " is already defined in the current scope");
     }
 
     /**
@@ -0,0 +1,171 @@
+package gpsl.syntax;
+
+import rege.reader.infra.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits GPSL declaration blocks into chunks of whole top-level declarations, without lexing.
+ * <p>
+ * A top-level declaration starts with an identifier followed by {@code =} or {@code *=} outside of any
+ * parentheses, guard brackets and {@code let ... in} scope. Atoms and comments are skipped, so that an
+ * {@code =} inside them is not taken for a declaration. In valid sources these are exactly the boundaries
+ * the parser would find; chunks of invalid sources fail to parse and the caller falls back to a whole parse.
+ */
+final class DeclarationScanner {
+
+    /**
+     * A slice of the source and the position of its first character.
+     * The slice is in {@code String} indices, and the position in code points as by the lexer.
+     */
+    record Chunk(int start, int end, Position origin) {}
+
+    private final String source;
+    private final int length;
+    private int line = 1;
+    private int lineStart = 0;
+    // code points before the last chunk start
+    private int countedIndex = 0;
+    private int countedCodePoints = 0;
+
+    private DeclarationScanner(String source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    /**
+     * Splits a source into chunks of about the given size, cut at top-level declaration boundaries.
+     *
+     * @param source the GPSL declarations source
+     * @param targetSize the minimal size of a chunk, in characters
+     * @return the chunks covering the source, in order
+     */
+    static List<Chunk> split(String source, int targetSize) {
+        return new DeclarationScanner(source).chunks(targetSize);
+    }
+
+    private List<Chunk> chunks(int targetSize) {
+        List<Chunk> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        Position chunkOrigin = new Position(1, 1, 0);
+        int parens = 0;
+        int brackets = 0;
+        int lets = 0;
+        boolean hasDeclaration = false;
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            char next = i + 1 < length ? source.charAt(i + 1) : '\0';
+            if (c == '\n') {
+                newLine(i);
+                i++;
+            } else if (c == '/' && next == '/') {
+                i = skipUntil(i + 2, "\n");
+            } else if (c == '/' && next == '*') {
+                i = skipUntil(i + 2, "*/") + 2;
+            } else if (c == '/' && next == '\\' || c == '\\' && next == '/') {
+                // conjunction and disjunction, not let
+                i += 2;
+            } else if (c == '\\') {
+                lets++;
+                i++;
+            } else if (c == '|' && next == '|') {
+                i += 2;
+            } else if (c == '|' || c == '"') {
+                i = skipAtom(i + 1, c) + 1;
+            } else if (Character.isLetter(c)) {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(source.charAt(end)) || source.charAt(end) == '_')) {
+                    end++;
+                }
+                String word = source.substring(i, end);
+                if (word.equals("let")) {
+                    lets++;
+                } else if (word.equals("in")) {
+                    lets = Math.max(0, lets - 1);
+                } else if (parens == 0 && brackets == 0 && lets == 0 && startsDeclaration(end)) {
+                    // leading comments stay with the first declaration
+                    if (hasDeclaration && i - chunkStart >= targetSize) {
+                        chunks.add(new Chunk(chunkStart, i, chunkOrigin));
+                        chunkStart = i;
+                        chunkOrigin = position(i);
+                    }
+                    hasDeclaration = true;
+                }
+                i = end;
+            } else {
+                switch (c) {
+                    case '(' -> parens++;
+                    case ')' -> parens = Math.max(0, parens - 1);
+                    case '[' -> brackets++;
+                    case ']' -> brackets = Math.max(0, brackets - 1);
+                    default -> { }
+                }
+                i++;
+            }
+        }
+        chunks.add(new Chunk(chunkStart, length, chunkOrigin));
+        return chunks;
+    }
+
+    /**
+     * Gets the position of an index on the current line, after the previous chunk start.
+     */
+    private Position position(int index) {
+        countedCodePoints += source.codePointCount(countedIndex, index);
+        countedIndex = index;
+        return new Position(line, source.codePointCount(lineStart, index) + 1, countedCodePoints);
+    }
+
+    private boolean startsDeclaration(int afterIdentifier) {
+        int i = afterIdentifier;
+        while (i < length && Character.isWhitespace(source.charAt(i))) {
+            i++;
+        }
+        if (source.startsWith("*=", i)) {
+            return true;
+        }
+        return i < length && source.charAt(i) == '='
+                && (i + 1 >= length || source.charAt(i + 1) != '>');
+    }
+
+    private int skipAtom(int from, char delimiter) {
+        int i = from;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '\\' && i + 1 < length && source.charAt(i + 1) == delimiter) {
+                i += 2;
+                continue;
+            }
+            if (c == delimiter) {
+                return i;
+            }
+            if (c == '\n') {
+                newLine(i);
+            }
+            i++;
+        }
+        return length;
+    }
+
+    private int skipUntil(int from, String terminator) {
+        int end = source.indexOf(terminator, from);
+        if (end < 0) {
+            end = length;
+        }
+        if (!terminator.equals("\n")) {
+            for (int i = from; i < end; i++) {
+                if (source.charAt(i) == '\n') {
+                    newLine(i);
+                }
+            }
+        }
+        return end;
+    }
+
+    private void newLine(int newlineIndex) {
+        line++;
+        lineStart = newlineIndex + 1;
+    }
+}
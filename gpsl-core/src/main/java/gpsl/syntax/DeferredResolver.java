@@ -0,0 +1,152 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+import rege.reader.infra.ParseError;
+import rege.reader.infra.Position;
+import rege.reader.infra.Range;
+
+import java.util.*;
+
+/**
+ * Links a stream of top-level declarations one at a time.
+ * <p>
+ * Each declaration is resolved as {@link SymbolResolver} does, except that a name not yet defined is
+ * recorded in a deferred resolution table instead of being reported. Defining the name at top level later
+ * resolves the deferred references in place; {@link #finish()} reports those still undefined.
+ * A forward reference that would close a cycle is reported and left unresolved.
+ */
+final class DeferredResolver extends SymbolResolver {
+
+    private record Pending(Reference reference, Range range) {}
+
+    private final ParseContext parseContext;
+    private final Context globals;
+    private final Map<String, List<Pending>> pending = new LinkedHashMap<>();
+
+    DeferredResolver(ParseContext parseContext, Map<String, Object> externalSymbols) {
+        super(parseContext);
+        this.parseContext = parseContext;
+        this.globals = new Context(new HashMap<>(externalSymbols));
+    }
+
+    /**
+     * Resolves a top-level declaration and the deferred references to it.
+     * Its positions must be in the parse context's position map.
+     */
+    void link(ExpressionDeclaration declaration) {
+        declaration.accept(this, globals);
+
+        List<Pending> waiting = pending.remove(declaration.name());
+        if (waiting == null || declaration.expression() == null) {
+            return;
+        }
+        Set<Reference> references = Collections.newSetFromMap(new IdentityHashMap<>());
+        waiting.forEach(p -> references.add(p.reference()));
+        if (new Reaches(references).reaches(declaration.expression())) {
+            for (Pending p : waiting) {
+                addError(p.range(), "cyclic reference '" + declaration.name() + "'", "cyclic-reference");
+            }
+            return;
+        }
+        for (Pending p : waiting) {
+            p.reference().setExpression(declaration.expression());
+        }
+    }
+
+    /**
+     * Reports the references whose name was never defined.
+     */
+    void finish() {
+        pending.forEach((name, waiting) -> {
+            for (Pending p : waiting) {
+                addError(p.range(), "undefined symbol '" + name + "'", "undefined-symbol");
+            }
+        });
+        pending.clear();
+    }
+
+    @Override
+    public Void visit(Reference reference, Context environment) {
+        if (reference.expression() == null) {
+            try {
+                Object resolved = environment.lookup(reference.name());
+                if (resolved instanceof State) {
+                    parseContext.addError(parseContext.errorAt(
+                            reference, "state '" + reference.name() + "' is not a formula", "state-reference"));
+                } else {
+                    reference.setExpression((Expression) resolved);
+                }
+            } catch (Context.SymbolNotFoundException e) {
+                Range range = parseContext.positionMap().get(reference)
+                        .orElseGet(() -> Range.at(Position.start()));
+                pending.computeIfAbsent(reference.name(), k -> new ArrayList<>()).add(new Pending(reference, range));
+            }
+        }
+        return null;
+    }
+
+    private void addError(Range range, String message, String errorCode) {
+        parseContext.addError(new ParseError(range, message, ParseError.Severity.ERROR, Optional.of(errorCode)));
+    }
+
+    /**
+     * Checks whether an element reaches one of the given references, following resolved references.
+     */
+    private static final class Reaches implements Visitor<Void, Boolean> {
+        private final Set<Reference> targets;
+        private final Set<SyntaxTreeElement> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Reaches(Set<Reference> targets) {
+            this.targets = targets;
+        }
+
+        boolean reaches(SyntaxTreeElement element) {
+            return element != null && visited.add(element) && element.accept(this, null);
+        }
+
+        @Override
+        public Boolean visit(SyntaxTreeElement element, Void input) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Reference element, Void input) {
+            return targets.contains(element) || reaches(element.expression());
+        }
+
+        @Override
+        public Boolean visit(UnaryExpression element, Void input) {
+            return reaches(element.expression());
+        }
+
+        @Override
+        public Boolean visit(BinaryExpression element, Void input) {
+            return reaches(element.left()) || reaches(element.right());
+        }
+
+        @Override
+        public Boolean visit(Conditional element, Void input) {
+            return reaches(element.condition()) || reaches(element.trueBranch()) || reaches(element.falseBranch());
+        }
+
+        @Override
+        public Boolean visit(LetExpression element, Void input) {
+            return reaches(element.declarations()) || reaches(element.expression());
+        }
+
+        @Override
+        public Boolean visit(Declarations element, Void input) {
+            return element.declarations().stream().anyMatch(this::reaches);
+        }
+
+        @Override
+        public Boolean visit(ExpressionDeclaration element, Void input) {
+            return reaches(element.expression());
+        }
+
+        @Override
+        public Boolean visit(Automaton element, Void input) {
+            return element.transitions().stream().anyMatch(t -> reaches(t.guard()));
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package gpsl.syntax;
+
+import gpsl.parser.GPSLLexer;
+import gpsl.syntax.Reader.ParseResultWithPositions;
+import gpsl.syntax.model.*;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import rege.reader.infra.*;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A declarations source kept parsed and linked across edits.
+ * <p>
+ * An edit re-parses only the top-level declarations it touches: from the declaration containing or preceding
+ * its start to the declaration containing or following its end. The positions of the other declarations are
+ * shifted, and only the declarations referring to, or named as, a removed or added declaration are linked again.
+ * The results are those of {@link Reader#parseDeclarationsWithPositions(String)} and
+ * {@link Reader#linkWithPositions(ParseResultWithPositions, Map)} on the whole source, which is parsed again
+ * when the previous source did not parse or when an edited region does not parse on its own.
+ * <p>
+ * Edits are expressed in {@code String} indices, and positions in code points as by the lexer; the regions are
+ * computed in code points and only converted to {@code String} indices to slice the source.
+ * <p>
+ * Not thread-safe.
+ */
+public final class IncrementalDocument {
+
+    /**
+     * Edit in code points: the replaced offsets and the change of length.
+     */
+    private record Edit(int start, int end, int delta) {}
+
+    /**
+     * Damaged region: old offsets, the old declarations it covers and the new offsets, in code points.
+     */
+    private record Region(int start, int end, int firstDeclaration, int lastDeclaration,
+                          int newStart, int newEnd, Position oldEndPosition, Position newEndPosition) {}
+
+    private final Map<String, Object> externalSymbols;
+    private String source;
+    // code point line index, and String index of each code point if the source has supplementary characters
+    private LineIndex lines;
+    private int[] charOffsets;
+    private ParseResultWithPositions<Declarations> parseResult;
+    private final Map<ExpressionDeclaration, List<ParseError>> linkErrors = new IdentityHashMap<>();
+    // names referred to by each declaration, and the declarations referring to each name
+    private final Map<ExpressionDeclaration, Set<String>> referredNames = new IdentityHashMap<>();
+    private final Map<String, Set<ExpressionDeclaration>> referrers = new HashMap<>();
+    // the name of the top-level declaration of each expression, built on demand
+    private Map<Expression, String> definitions;
+    private int lastLinked;
+    private int wholeParses;
+
+    private IncrementalDocument(Map<String, Object> externalSymbols) {
+        this.externalSymbols = externalSymbols;
+    }
+
+    /**
+     * Parse and link a declarations source.
+     */
+    public static IncrementalDocument parse(String source) {
+        return parse(source, Map.of());
+    }
+
+    /**
+     * Parse and link a declarations source with external symbols.
+     *
+     * @param source the source text
+     * @param externalSymbols external symbols available for resolution, copied
+     */
+    public static IncrementalDocument parse(String source, Map<String, Object> externalSymbols) {
+        IncrementalDocument document = new IncrementalDocument(new HashMap<>(externalSymbols));
+        document.reparse(source);
+        return document;
+    }
+
+    /**
+     * The current source text.
+     */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * The parse result of the current source, with syntax errors only.
+     */
+    public ParseResultWithPositions<Declarations> parseResult() {
+        return parseResult;
+    }
+
+    /**
+     * The link result of the current source: the parse errors if it does not parse, the link errors otherwise.
+     */
+    public ParseResult<Declarations> linkResult() {
+        if (!(parseResult.result() instanceof ParseResult.Success<Declarations>(Declarations declarations))) {
+            return parseResult.result();
+        }
+        List<ParseError> errors = new ArrayList<>();
+        for (ExpressionDeclaration declaration : declarations.declarations()) {
+            errors.addAll(linkErrors.getOrDefault(declaration, List.of()));
+        }
+        return errors.isEmpty() ? new ParseResult.Success<>(declarations) : new ParseResult.Failure<>(errors, source);
+    }
+
+    /**
+     * The names of the top-level declarations that the references of a declaration are linked to.
+     * References to let-bound names, to external symbols or left unresolved are not included.
+     *
+     * @param declaration a top-level declaration of the current parse result
+     * @return the names of the declarations it depends on
+     */
+    public Set<String> dependencies(ExpressionDeclaration declaration) {
+        if (definitions == null) {
+            definitions = new IdentityHashMap<>();
+            if (parseResult.result() instanceof ParseResult.Success<Declarations>(Declarations declarations)) {
+                for (ExpressionDeclaration definition : declarations.declarations()) {
+                    if (definition.expression() != null) {
+                        definitions.putIfAbsent(definition.expression(), definition.name());
+                    }
+                }
+            }
+        }
+        Set<String> names = new HashSet<>();
+        forEachReference(declaration, reference -> {
+            String name = reference.expression() == null ? null : definitions.get(reference.expression());
+            if (name != null) {
+                names.add(name);
+            }
+        });
+        return names;
+    }
+
+    /**
+     * The source text of an element of the current parse result.
+     *
+     * @param element a node of the current parse result
+     * @return the text between its start and end positions
+     * @throws IllegalStateException if the element has no position
+     */
+    public String text(SyntaxTreeElement element) {
+        Range range = parseResult.positionMap().getOrThrow(element);
+        if (charOffsets == null && source.length() != lines.length()) {
+            charOffsets = new int[lines.length() + 1];
+            for (int i = 0, offset = 0; offset <= lines.length(); offset++) {
+                charOffsets[offset] = i;
+                i = i < source.length() ? source.offsetByCodePoints(i, 1) : i;
+            }
+        }
+        return charOffsets == null
+                ? source.substring(range.start().offset(), range.end().offset())
+                : source.substring(charOffsets[range.start().offset()], charOffsets[range.end().offset()]);
+    }
+
+    /**
+     * The number of declarations linked by the last parse or edit.
+     */
+    int lastLinked() {
+        return lastLinked;
+    }
+
+    /**
+     * The number of times the whole source was parsed.
+     */
+    int wholeParses() {
+        return wholeParses;
+    }
+
+    /**
+     * Apply edits expressed against the current source.
+     *
+     * @param edits non-overlapping edits, in any order
+     * @throws IllegalArgumentException if edits overlap or exceed the source
+     */
+    public void apply(List<TextEdit> edits) {
+        if (edits.isEmpty()) {
+            return;
+        }
+        String newSource = TextEdit.apply(source, edits);
+        if (!(parseResult.result() instanceof ParseResult.Success<Declarations>(Declarations declarations))
+                || !reparseRegions(declarations, codePointEdits(TextEdit.sorted(edits)), newSource)) {
+            reparse(newSource);
+        }
+    }
+
+    /**
+     * Converts sorted edits of the current source to code points.
+     */
+    private List<Edit> codePointEdits(List<TextEdit> edits) {
+        List<Edit> converted = new ArrayList<>(edits.size());
+        int index = 0;
+        int offset = 0;
+        for (TextEdit edit : edits) {
+            // the edits are checked against the source by TextEdit.apply
+            offset += source.codePointCount(index, edit.start());
+            int end = offset + source.codePointCount(edit.start(), edit.end());
+            converted.add(new Edit(offset, end,
+                    edit.text().codePointCount(0, edit.text().length()) - (end - offset)));
+            index = edit.end();
+            offset = end;
+        }
+        return converted;
+    }
+
+    private void reparse(String newSource) {
+        source = newSource;
+        lines = LineIndex.ofCodePoints(newSource);
+        charOffsets = null;
+        parseResult = Reader.parseDeclarationsWithPositions(newSource);
+        definitions = null;
+        wholeParses++;
+        linkErrors.clear();
+        referredNames.clear();
+        referrers.clear();
+        lastLinked = 0;
+        if (parseResult.result() instanceof ParseResult.Success<Declarations>(Declarations declarations)) {
+            declarations.declarations().forEach(this::index);
+            Set<ExpressionDeclaration> all = Collections.newSetFromMap(new IdentityHashMap<>());
+            all.addAll(declarations.declarations());
+            link(declarations.declarations(), all, Set.of());
+        }
+    }
+
+    /**
+     * Re-parses the damaged regions and splices them into the previous declarations.
+     *
+     * @return false if the whole source must be parsed again, in which case nothing was changed
+     */
+    private boolean reparseRegions(Declarations previous, List<Edit> edits, String newSource) {
+        List<ExpressionDeclaration> oldDeclarations = previous.declarations();
+        PositionMap oldPositions = parseResult.positionMap();
+        int count = oldDeclarations.size();
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        for (int i = 0; i < count; i++) {
+            Range range = oldPositions.getOrThrow(oldDeclarations.get(i));
+            starts[i] = range.start().offset();
+            ends[i] = range.end().offset();
+        }
+
+        LineIndex newLines = LineIndex.ofCodePoints(newSource);
+        List<Region> regions = damagedRegions(edits, starts, ends, newSource, newLines);
+        if (regions == null) {
+            return false;
+        }
+
+        PositionMap positions = new CompactPositionMap(newSource);
+        List<List<ExpressionDeclaration>> reparsed = new ArrayList<>();
+        for (Region region : regions) {
+            int textStart = newSource.offsetByCodePoints(0, region.newStart());
+            String text = newSource.substring(textStart,
+                    newSource.offsetByCodePoints(textStart, region.newEnd() - region.newStart()));
+            ParseResultWithPositions<Declarations> result = Reader.parseDeclarationsWithPositions(text);
+            if (result.result() instanceof ParseResult.Success<Declarations>(Declarations declarations)) {
+                // the block parser stops before unexpected tokens, and would drop the next declarations too
+                int parsedEnd = result.positionMap().getOrThrow(declarations).end().offset();
+                if (!isBlank(text.substring(text.offsetByCodePoints(0, parsedEnd)))) {
+                    return false;
+                }
+                positions.mergeFrom(result.positionMap(), newLines.position(region.newStart()));
+                positions.remove(declarations);
+                reparsed.add(declarations.declarations());
+            } else if (isBlank(text)) {
+                reparsed.add(List.of());
+            } else {
+                return false;
+            }
+        }
+
+        List<ExpressionDeclaration> declarations = new ArrayList<>();
+        List<ExpressionDeclaration> removed = new ArrayList<>();
+        Set<ExpressionDeclaration> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        int next = 0;
+        for (int i = 0; i < regions.size(); i++) {
+            Region region = regions.get(i);
+            declarations.addAll(oldDeclarations.subList(next, region.firstDeclaration()));
+            removed.addAll(oldDeclarations.subList(region.firstDeclaration(), region.lastDeclaration()));
+            declarations.addAll(reparsed.get(i));
+            added.addAll(reparsed.get(i));
+            next = region.lastDeclaration();
+        }
+        declarations.addAll(oldDeclarations.subList(next, count));
+        if (declarations.isEmpty()) {
+            // an empty block is a syntax error
+            return false;
+        }
+
+        // positions and link errors of the kept declarations
+        positions.mergeFrom(oldPositions, range -> move(range, regions));
+        positions.remove(previous);
+        for (ExpressionDeclaration declaration : removed) {
+            positions.remove(declaration);
+            linkErrors.remove(declaration);
+            unindex(declaration);
+        }
+        linkErrors.replaceAll((declaration, errors) -> errors.stream()
+                .map(e -> new ParseError(move(e.range(), regions), e.message(), e.severity(), e.code()))
+                .toList());
+
+        Declarations block = new Declarations(declarations);
+        positions.put(block, new Range(
+                positions.getOrThrow(declarations.getFirst()).start(),
+                positions.getOrThrow(declarations.getLast()).end()));
+        source = newSource;
+        lines = newLines;
+        charOffsets = null;
+        parseResult = new ParseResultWithPositions<>(new ParseResult.Success<>(block), newSource, positions);
+        definitions = null;
+
+        // the declarations whose references or definition may resolve differently
+        Set<String> changedNames = new HashSet<>();
+        removed.forEach(d -> changedNames.add(d.name()));
+        added.forEach(d -> changedNames.add(d.name()));
+        added.forEach(this::index);
+        Set<ExpressionDeclaration> relinked = Collections.newSetFromMap(new IdentityHashMap<>());
+        relinked.addAll(added);
+        for (String name : changedNames) {
+            relinked.addAll(referrers.getOrDefault(name, Set.of()));
+        }
+        for (ExpressionDeclaration declaration : declarations) {
+            if (changedNames.contains(declaration.name())) {
+                relinked.add(declaration);
+            }
+        }
+        link(declarations, relinked, changedNames);
+        return true;
+    }
+
+    /**
+     * Computes the merged damaged regions of sorted edits.
+     *
+     * @return the regions, or null if one would not be parsed as in the whole source
+     */
+    private List<Region> damagedRegions(List<Edit> edits, int[] starts, int[] ends,
+                                        String newSource, LineIndex newLines) {
+        List<Region> regions = new ArrayList<>();
+        int delta = 0;
+        int regionDelta = 0;
+        int start = -1;
+        int end = -1;
+        int first = 0;
+        int last = 0;
+        for (Edit edit : edits) {
+            // last declaration starting at or before the edit, first one ending at or after it
+            int before = Arrays.binarySearch(starts, edit.start());
+            before = before >= 0 ? before : -before - 2;
+            int after = Arrays.binarySearch(ends, edit.end());
+            after = after >= 0 ? after : -after - 1;
+            int editStart = before < 0 ? 0 : starts[before];
+            int editEnd = after == ends.length ? lines.length() : ends[after];
+            if (start >= 0 && editStart <= end) {
+                end = Math.max(end, editEnd);
+                last = Math.max(last, Math.min(after + 1, ends.length));
+            } else {
+                if (start >= 0) {
+                    regions.add(region(start, end, first, last, regionDelta, delta, newLines));
+                }
+                regionDelta = delta;
+                start = editStart;
+                end = editEnd;
+                first = Math.max(before, 0);
+                last = Math.min(after + 1, ends.length);
+            }
+            delta += edit.delta();
+        }
+        regions.add(region(start, end, first, last, regionDelta, delta, newLines));
+
+        int index = 0;
+        int offset = 0;
+        for (Region region : regions) {
+            // a token of a region must not merge with the text around it
+            if (region.newStart() > 0) {
+                index = newSource.offsetByCodePoints(index, region.newStart() - 1 - offset);
+                offset = region.newStart() - 1;
+                if (!Character.isWhitespace(newSource.codePointAt(index))) {
+                    return null;
+                }
+            }
+            if (region.newEnd() < newLines.length()) {
+                index = newSource.offsetByCodePoints(index, region.newEnd() - offset);
+                offset = region.newEnd();
+                if (!Character.isWhitespace(newSource.codePointAt(index))) {
+                    return null;
+                }
+            }
+        }
+        return regions;
+    }
+
+    private Region region(int start, int end, int first, int last, int deltaBefore, int deltaAfter, LineIndex newLines) {
+        int newEnd = end + deltaAfter;
+        return new Region(start, end, first, last, start + deltaBefore, newEnd,
+                lines.position(end), newLines.position(newEnd));
+    }
+
+    /**
+     * Moves a range of the previous source to the new source.
+     *
+     * @return the new range, or null if the range is in a damaged region
+     */
+    private static Range move(Range range, List<Region> regions) {
+        int offset = range.start().offset();
+        Region preceding = null;
+        for (Region region : regions) {
+            if (offset < region.start()) {
+                break;
+            }
+            if (offset < region.end()) {
+                return null;
+            }
+            preceding = region;
+        }
+        if (preceding == null) {
+            return range;
+        }
+        return new Range(move(range.start(), preceding), move(range.end(), preceding));
+    }
+
+    private static Position move(Position position, Region preceding) {
+        int line = position.line() + preceding.newEndPosition().line() - preceding.oldEndPosition().line();
+        // only the rest of the region's last line moves horizontally
+        int column = position.line() == preceding.oldEndPosition().line()
+                ? position.column() + preceding.newEndPosition().column() - preceding.oldEndPosition().column()
+                : position.column();
+        return new Position(line, column, position.offset() + preceding.newEnd() - preceding.end());
+    }
+
+    /**
+     * Links the given declarations in source order, defining the other ones as they are.
+     *
+     * @param declarations all the top-level declarations
+     * @param relinked the declarations to link
+     * @param changedNames the names whose resolved references are cleared in the linked declarations
+     */
+    private void link(List<ExpressionDeclaration> declarations, Set<ExpressionDeclaration> relinked,
+                      Set<String> changedNames) {
+        ParseContext parseContext = new ParseContext(source, parseResult.positionMap());
+        SymbolResolver resolver = new SymbolResolver(parseContext);
+        Context globals = new Context(new HashMap<>(externalSymbols));
+        lastLinked = 0;
+        for (ExpressionDeclaration declaration : declarations) {
+            if (relinked.contains(declaration)) {
+                forEachReference(declaration, reference -> {
+                    if (changedNames.contains(reference.name())) {
+                        reference.setExpression(null);
+                    }
+                });
+                int before = parseContext.errors().size();
+                declaration.accept(resolver, globals);
+                List<ParseError> errors = parseContext.errors();
+                if (errors.size() > before) {
+                    linkErrors.put(declaration, List.copyOf(errors.subList(before, errors.size())));
+                } else {
+                    linkErrors.remove(declaration);
+                }
+                lastLinked++;
+            } else if (declaration.expression() != null && !globals.currentContext().containsKey(declaration.name())) {
+                globals.define(declaration.name(), declaration.expression());
+            }
+        }
+    }
+
+    private void index(ExpressionDeclaration declaration) {
+        Set<String> names = new HashSet<>();
+        forEachReference(declaration, reference -> names.add(reference.name()));
+        referredNames.put(declaration, names);
+        for (String name : names) {
+            referrers.computeIfAbsent(name, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(declaration);
+        }
+    }
+
+    private void unindex(ExpressionDeclaration declaration) {
+        Set<String> names = referredNames.remove(declaration);
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            Set<ExpressionDeclaration> declarations = referrers.get(name);
+            declarations.remove(declaration);
+            if (declarations.isEmpty()) {
+                referrers.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Whether a text has only whitespace and comments.
+     */
+    private static boolean isBlank(String text) {
+        GPSLLexer lexer = new GPSLLexer(CharStreams.fromString(text));
+        boolean[] failed = {false};
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                failed[0] = true;
+            }
+        });
+        return lexer.nextToken().getType() == Token.EOF && !failed[0];
+    }
+
+    /**
+     * Calls an action on the references of an element, without following them.
+     */
+    private static void forEachReference(SyntaxTreeElement element, Consumer<Reference> action) {
+        element.accept(new Visitor<Void, Void>() {
+            @Override
+            public Void visit(Reference reference, Void input) {
+                action.accept(reference);
+                return null;
+            }
+
+            @Override
+            public Void visit(UnaryExpression expression, Void input) {
+                return expression.expression().accept(this, input);
+            }
+
+            @Override
+            public Void visit(BinaryExpression expression, Void input) {
+                expression.left().accept(this, input);
+                return expression.right().accept(this, input);
+            }
+
+            @Override
+            public Void visit(Conditional conditional, Void input) {
+                conditional.condition().accept(this, input);
+                conditional.trueBranch().accept(this, input);
+                return conditional.falseBranch().accept(this, input);
+            }
+
+            @Override
+            public Void visit(LetExpression letExpression, Void input) {
+                letExpression.declarations().accept(this, input);
+                return letExpression.expression().accept(this, input);
+            }
+
+            @Override
+            public Void visit(Declarations declarations, Void input) {
+                declarations.declarations().forEach(d -> d.accept(this, input));
+                return null;
+            }
+
+            @Override
+            public Void visit(ExpressionDeclaration declaration, Void input) {
+                return declaration.expression() == null ? null : declaration.expression().accept(this, input);
+            }
+
+            @Override
+            public Void visit(Automaton automaton, Void input) {
+                automaton.transitions().forEach(t -> t.guard().accept(this, input));
+                return null;
+            }
+        }, null);
+    }
+}
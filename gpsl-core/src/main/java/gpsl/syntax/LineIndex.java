@@ -0,0 +1,107 @@
+package gpsl.syntax;
+
+import rege.reader.infra.Position;
+
+import java.util.Arrays;
+
+/**
+ * Converts between offsets and 1-based line/column positions of a source text.
+ */
+public final class LineIndex {
+
+    private final int[] lineStarts;
+    private final int length;
+
+    public LineIndex(String source) {
+        this(lineStarts(source, false), source.length());
+    }
+
+    private LineIndex(int[] lineStarts, int length) {
+        this.lineStarts = lineStarts;
+        this.length = length;
+    }
+
+    /**
+     * Creates the index of a source with offsets counted in code points, as by the lexer.
+     */
+    static LineIndex ofCodePoints(String source) {
+        return new LineIndex(lineStarts(source, true), source.codePointCount(0, source.length()));
+    }
+
+    /**
+     * Creates an index from the offsets of its line starts, the first one being 0.
+     */
+    static LineIndex of(int[] lineStarts, int length) {
+        return new LineIndex(lineStarts.clone(), length);
+    }
+
+    /**
+     * Gets the offsets of the line starts.
+     */
+    int[] lineStarts() {
+        return lineStarts.clone();
+    }
+
+    /**
+     * Gets the length of the source.
+     */
+    int length() {
+        return length;
+    }
+
+    private static int[] lineStarts(String source, boolean codePoints) {
+        int[] starts = new int[16];
+        int lines = 1;
+        int offset = 0;
+        for (int i = 0; i < source.length(); i++, offset++) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                if (lines == starts.length) {
+                    starts = Arrays.copyOf(starts, lines * 2);
+                }
+                starts[lines++] = offset + 1;
+            } else if (codePoints && Character.isHighSurrogate(c)
+                    && i + 1 < source.length() && Character.isLowSurrogate(source.charAt(i + 1))) {
+                i++;
+            }
+        }
+        return Arrays.copyOf(starts, lines);
+    }
+
+    /**
+     * Gets the position of an offset.
+     *
+     * @param offset the offset, between 0 and the source length
+     * @return the position, with 1-based line and column
+     */
+    public Position position(int offset) {
+        int line = Arrays.binarySearch(lineStarts, offset);
+        if (line < 0) {
+            line = -line - 2;
+        }
+        return new Position(line + 1, offset - lineStarts[line] + 1, offset);
+    }
+
+    /**
+     * Gets the offset of a position, clamped to the source.
+     *
+     * @param line the 1-based line
+     * @param column the 1-based column
+     * @return the offset
+     */
+    public int offset(int line, int column) {
+        if (line > lineStarts.length) {
+            return length;
+        }
+        int lineStart = lineStarts[Math.max(0, line - 1)];
+        int lineEnd = line < lineStarts.length ? lineStarts[line] - 1 : length;
+        return Math.min(lineStart + Math.max(0, column - 1), lineEnd);
+    }
+
+    /**
+     * Gets the number of lines.
+     */
+    public int lineCount() {
+        return lineStarts.length;
+    }
+}
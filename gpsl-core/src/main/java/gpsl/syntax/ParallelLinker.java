@@ -0,0 +1,165 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+import rege.reader.infra.*;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Links the top-level declarations of a block in parallel, with the same result as a {@link SymbolResolver}.
+ * <p>
+ * Sequentially, a declaration sees the external symbols and the declarations before it, the first one of a name
+ * winning. Linking only points references to expressions that the parser already built, so the names visible
+ * from each declaration are computed up front from the first definition of every name, and the declarations
+ * then depend on nothing but that table: chunks of them are linked on the pool, each declaration against a
+ * read-only view of the globals before it. The errors of the chunks are concatenated in declaration order.
+ */
+final class ParallelLinker {
+
+    /**
+     * Blocks with fewer declarations per worker are linked sequentially.
+     */
+    private static final int MIN_CHUNK = 256;
+
+    private final ParseContext parseContext;
+    private final List<ExpressionDeclaration> declarations;
+    private final Map<String, Object> externalSymbols;
+    // the index of the declaration defining each name, those of the external symbols excluded
+    private final Map<String, Integer> definitions = new HashMap<>();
+
+    ParallelLinker(ParseContext parseContext, Declarations block, Map<String, Object> externalSymbols) {
+        this.parseContext = parseContext;
+        this.declarations = block.declarations();
+        this.externalSymbols = externalSymbols;
+        for (int i = 0; i < declarations.size(); i++) {
+            ExpressionDeclaration declaration = declarations.get(i);
+            if (declaration.expression() != null && !externalSymbols.containsKey(declaration.name())) {
+                definitions.putIfAbsent(declaration.name(), i);
+            }
+        }
+    }
+
+    /**
+     * Links the declarations, adding the errors to the parse context. The external symbols are not modified.
+     */
+    void link(ForkJoinPool pool) {
+        int chunks = Math.min(4 * pool.getParallelism(), declarations.size() / MIN_CHUNK);
+        if (chunks < 2) {
+            parseContext.addErrors(link(0, declarations.size()));
+        } else {
+            List<Callable<List<ParseError>>> tasks = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                int start = (int) ((long) declarations.size() * i / chunks);
+                int end = (int) ((long) declarations.size() * (i + 1) / chunks);
+                tasks.add(() -> link(start, end));
+            }
+            for (Future<List<ParseError>> errors : pool.invokeAll(tasks)) {
+                parseContext.addErrors(errors.resultNow());
+            }
+        }
+    }
+
+    private List<ParseError> link(int start, int end) {
+        ParseContext chunkContext = new ParseContext(parseContext.source(), parseContext.positionMap());
+        SymbolResolver resolver = new SymbolResolver(chunkContext);
+        Globals globals = globals(start);
+        Context context = new Context(globals);
+        for (int i = start; i < end; i++) {
+            globals.index = i;
+            declarations.get(i).accept(resolver, context);
+        }
+        return chunkContext.errors();
+    }
+
+    /**
+     * Gets the global scope seen by a declaration.
+     *
+     * @param index the index of the declaration
+     * @return a view of the external symbols and the definitions before the declaration
+     */
+    Globals globals(int index) {
+        Globals globals = new Globals();
+        globals.index = index;
+        return globals;
+    }
+
+    /**
+     * The global scope seen by a declaration: the external symbols and the definitions before it.
+     * The definitions being known up front, defining a name only checks that it is the precomputed definition.
+     */
+    final class Globals extends AbstractMap<String, Object> {
+        private int index;
+
+        @Override
+        public Object get(Object name) {
+            Integer definition = definitions.get(name);
+            if (definition != null && definition < index) {
+                return declarations.get(definition).expression();
+            }
+            return externalSymbols.get(name);
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            Integer definition = definitions.get(name);
+            return definition != null && definition < index || externalSymbols.containsKey(name);
+        }
+
+        /**
+         * Checks a definition against the precomputed one: the declaration being linked must be the first
+         * definition of its name. Nothing is stored, the definition being visible from the next declarations.
+         *
+         * @return null, the name not being visible before
+         * @throws IllegalStateException if the definition is not the precomputed one
+         */
+        @Override
+        public Object put(String name, Object value) {
+            Integer definition = definitions.get(name);
+            if (definition == null || definition != index || declarations.get(definition).expression() != value) {
+                throw new IllegalStateException("'" + name + "' is not the definition of declaration " + index);
+            }
+            return null;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    // the names of the definitions are not external
+                    Iterator<Entry<String, Object>> defined = definitions.entrySet().stream()
+                            .filter(definition -> definition.getValue() < index)
+                            .<Entry<String, Object>>map(definition -> new SimpleImmutableEntry<>(
+                                    definition.getKey(), declarations.get(definition.getValue()).expression()))
+                            .iterator();
+                    Iterator<Entry<String, Object>> external = externalSymbols.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return external.hasNext() || defined.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            return external.hasNext() ? new SimpleImmutableEntry<>(external.next()) : defined.next();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = externalSymbols.size();
+                    for (int definition : definitions.values()) {
+                        if (definition < index) {
+                            size++;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+    }
+}
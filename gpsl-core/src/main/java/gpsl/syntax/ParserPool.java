@@ -0,0 +1,106 @@
+package gpsl.syntax;
+
+import gpsl.parser.GPSLLexer;
+import gpsl.parser.GPSLParser;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+/**
+ * Per-thread lexer and parser instances, reset between uses instead of being rebuilt.
+ * <p>
+ * The tokens of a parse tree keep their own character stream, so trees stay valid after the
+ * instances are reused. A nested parse on the same thread gets fresh instances.
+ */
+final class ParserPool {
+
+    private static final ThreadLocal<ParserPool> POOL = ThreadLocal.withInitial(ParserPool::new);
+
+    // character streams hold a read position, so each pool has its own empty one
+    private final CharStream empty = CharStreams.fromString("");
+    private final GPSLLexer lexer;
+    private final CommonTokenStream tokens;
+    private final GPSLParser parser;
+    private boolean inUse;
+
+    private ParserPool() {
+        lexer = new GPSLLexer(empty);
+        tokens = new CommonTokenStream(lexer);
+        parser = new GPSLParser(tokens);
+    }
+
+    /**
+     * Gets the instances of the current thread, or fresh ones if they are already in use.
+     * Must be paired with {@link #release()}.
+     */
+    static ParserPool acquire() {
+        ParserPool pool = POOL.get();
+        if (pool.inUse) {
+            pool = new ParserPool();
+        }
+        pool.inUse = true;
+        return pool;
+    }
+
+    /**
+     * Makes the instances available to the next parse of the thread.
+     * The source and tokens of the last parse are dropped, so the pool does not keep them alive.
+     */
+    void release() {
+        lexer.setInputStream(empty);
+        tokens.setTokenSource(lexer);
+        inUse = false;
+    }
+
+    /**
+     * Resets the lexer and parser on a new source.
+     *
+     * @param source the source to parse
+     * @param listener the error listener of both the lexer and the parser
+     * @param errorStrategy the parser error strategy
+     * @param predictionMode the parser prediction mode
+     * @return the parser, ready to parse the source
+     */
+    GPSLParser parser(String source, ANTLRErrorListener listener,
+                      ANTLRErrorStrategy errorStrategy, PredictionMode predictionMode) {
+        lexer.setInputStream(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+
+        tokens.setTokenSource(lexer);
+        parser.setTokenStream(tokens);
+        // reset() keeps the ATN state of the previous parse, which error recovery would take as the invoking state
+        parser.setState(ATNState.INVALID_STATE_NUMBER);
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+        parser.setErrorHandler(errorStrategy);
+        parser.getInterpreter().setPredictionMode(predictionMode);
+        return parser;
+    }
+
+    /**
+     * Resets the lexer alone on a new source, for parsers reading its tokens directly.
+     *
+     * @param source the source to tokenize
+     * @param listener the lexer error listener
+     * @return the lexer, ready to tokenize the source
+     */
+    GPSLLexer lexer(String source, ANTLRErrorListener listener) {
+        lexer.setInputStream(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+        return lexer;
+    }
+
+    /**
+     * Resets the lexer and parser for a plain LL parse reporting to the given context.
+     */
+    GPSLParser parser(String source, ParseContext parseContext) {
+        return parser(source, new GPSLErrorListener(parseContext), new DefaultErrorStrategy(), PredictionMode.LL);
+    }
+}
@@ -6,6 +6,7 @@ import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.Token;
 
 import java.util.*;
+import java.util.function.UnaryOperator;
 
 /**
  * Maps AST nodes to their source positions.
@@ -19,25 +20,85 @@ import java.util.*;
  *   <li>Multiple source maps (original, preprocessed, generated)</li>
  *   <li>Simple testing (no need to create positions)</li>
  * </ul>
+ *
+ * <p>A node shared by several source locations, as built by a hash-consing factory or by inlined
+ * references, has one range per location: {@link #get} gives the first one and {@link #getAll} all of them.
+ * Recording a range enclosing the last one of the node (e.g. parentheses) widens it instead.
+ *
+ * <p>This map keeps a {@link Range} and a parse tree node per AST node; {@link CompactPositionMap} only keeps
+ * offsets, for large sources.
  */
 public class PositionMap {
     
     private final Map<SyntaxTreeElement, Range> positions = new IdentityHashMap<>();
     private final Map<SyntaxTreeElement, ParserRuleContext> parseTreeNodes = new IdentityHashMap<>();
+    // all the ranges of the nodes found at more than one source location
+    private final Map<SyntaxTreeElement, List<Range>> sharedPositions = new IdentityHashMap<>();
     
     /**
      * Record the position of an AST node.
      */
     public void put(SyntaxTreeElement node, Range range) {
-        positions.put(node, range);
+        Range first = positions.putIfAbsent(node, range);
+        if (first == null) {
+            return;
+        }
+        List<Range> ranges = sharedPositions.get(node);
+        Range last = ranges == null ? first : ranges.getLast();
+        if (encloses(range, last)) {
+            if (ranges != null) {
+                ranges.set(ranges.size() - 1, range);
+            }
+            if (last == first) {
+                positions.put(node, range);
+            }
+            return;
+        }
+        if (ranges == null) {
+            ranges = new ArrayList<>(2);
+            ranges.add(first);
+            sharedPositions.put(node, ranges);
+        }
+        ranges.add(range);
+    }
+
+    /**
+     * Record the position of an AST node built from a parse tree node.
+     */
+    void put(SyntaxTreeElement node, ParserRuleContext ctx) {
+        put(node, ctx.getStart(), ctx.getStop() != null ? ctx.getStop() : ctx.getStart());
+    }
+
+    /**
+     * Record the position of an AST node spanning from the first to the last token of a construct.
+     */
+    void put(SyntaxTreeElement node, Token start, Token stop) {
+        put(node, rangeOf(start, stop));
     }
     
     /**
      * Record the ANTLR4 parse tree node for an AST node.
      * Useful for error reporting and IDE features.
+     * For shared nodes, the parse tree node of the first location is kept.
      */
     public void putParseTree(SyntaxTreeElement node, ParserRuleContext ctx) {
-        parseTreeNodes.put(node, ctx);
+        ParserRuleContext previous = parseTreeNodes.putIfAbsent(node, ctx);
+        if (previous != null && isAncestor(ctx, previous)) {
+            parseTreeNodes.put(node, ctx);
+        }
+    }
+
+    private static boolean encloses(Range outer, Range inner) {
+        return outer.start().offset() <= inner.start().offset() && inner.end().offset() <= outer.end().offset();
+    }
+
+    private static boolean isAncestor(ParserRuleContext ancestor, ParserRuleContext node) {
+        for (var current = node.getParent(); current != null; current = current.getParent()) {
+            if (current == ancestor) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
@@ -48,6 +109,19 @@ public class PositionMap {
         return Optional.ofNullable(positions.get(node));
     }
     
+    /**
+     * Get all the positions of an AST node, in source order.
+     * @return the ranges, empty if not tracked
+     */
+    public List<Range> getAll(SyntaxTreeElement node) {
+        List<Range> ranges = sharedPositions.get(node);
+        if (ranges != null) {
+            return Collections.unmodifiableList(ranges);
+        }
+        Range range = positions.get(node);
+        return range == null ? List.of() : List.of(range);
+    }
+    
     /**
      * Get the ANTLR4 parse tree node for an AST node.
      * @return the parse tree context, or empty if not tracked
@@ -86,7 +160,13 @@ public class PositionMap {
     public static Range rangeOf(ParserRuleContext ctx) {
         Token start = ctx.getStart();
         Token stop = ctx.getStop() != null ? ctx.getStop() : start;
-        
+        return rangeOf(start, stop);
+    }
+
+    /**
+     * Create a range from the first and last tokens of a construct.
+     */
+    static Range rangeOf(Token start, Token stop) {
         Position startPos = new Position(
             start.getLine(),
             start.getCharPositionInLine() + 1,
@@ -134,8 +214,82 @@ public class PositionMap {
      * Useful when combining multiple parse results.
      */
     public void mergeFrom(PositionMap other) {
-        positions.putAll(other.positions);
-        parseTreeNodes.putAll(other.parseTreeNodes);
+        mergeFrom(other, UnaryOperator.identity());
+    }
+
+    /**
+     * Merge a position map of a slice of the source, shifting its positions.
+     * The parse tree nodes keep the positions of the slice.
+     *
+     * @param other the position map of the slice
+     * @param origin the position, in this map's source, of the first character of the slice
+     */
+    public void mergeFrom(PositionMap other, Position origin) {
+        mergeFrom(other, range -> shift(range, origin));
+    }
+
+    /**
+     * Merge the positions of another map, moved by a function.
+     * The parse tree nodes of the kept nodes are copied unchanged.
+     *
+     * @param other the position map to copy
+     * @param move gives the new range of a range, or null to drop it
+     */
+    void mergeFrom(PositionMap other, UnaryOperator<Range> move) {
+        for (SyntaxTreeElement node : other.trackedNodes()) {
+            List<Range> ranges = other.getAll(node);
+            List<Range> moved = new ArrayList<>(ranges.size());
+            for (Range range : ranges) {
+                Range m = move.apply(range);
+                if (m != null) {
+                    moved.add(m);
+                }
+            }
+            if (!moved.isEmpty()) {
+                replace(node, moved);
+                other.getParseTree(node).ifPresent(ctx -> setParseTree(node, ctx));
+            }
+        }
+    }
+
+    /**
+     * Replace all the positions of an AST node.
+     *
+     * @param ranges the ranges, in source order, not empty
+     */
+    void replace(SyntaxTreeElement node, List<Range> ranges) {
+        positions.put(node, ranges.getFirst());
+        if (ranges.size() > 1) {
+            sharedPositions.put(node, new ArrayList<>(ranges));
+        } else {
+            sharedPositions.remove(node);
+        }
+    }
+
+    /**
+     * Replace the parse tree node of an AST node.
+     */
+    void setParseTree(SyntaxTreeElement node, ParserRuleContext ctx) {
+        parseTreeNodes.put(node, ctx);
+    }
+
+    /**
+     * Forget the positions and parse tree node of an AST node.
+     */
+    void remove(SyntaxTreeElement node) {
+        positions.remove(node);
+        parseTreeNodes.remove(node);
+        sharedPositions.remove(node);
+    }
+
+    private static Range shift(Range range, Position origin) {
+        return new Range(shift(range.start(), origin), shift(range.end(), origin));
+    }
+
+    private static Position shift(Position position, Position origin) {
+        // only the first line of the slice starts after column 1
+        int column = position.line() == 1 ? position.column() + origin.column() - 1 : position.column();
+        return new Position(position.line() + origin.line() - 1, column, position.offset() + origin.offset());
     }
     
     /**
@@ -145,6 +299,7 @@ public class PositionMap {
     public void clear() {
         positions.clear();
         parseTreeNodes.clear();
+        sharedPositions.clear();
     }
     
     /**
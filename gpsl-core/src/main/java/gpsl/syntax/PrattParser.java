@@ -0,0 +1,453 @@
+package gpsl.syntax;
+
+import gpsl.parser.GPSLLexer;
+import gpsl.parser.GPSLParser;
+import gpsl.syntax.model.*;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import rege.reader.infra.ParseError;
+import rege.reader.infra.Range;
+
+import java.util.*;
+
+/**
+ * Hand-written recursive-descent parser of GPSL, building the AST directly from the lexer tokens.
+ * <p>
+ * Formulas are parsed by precedence climbing with the precedences ANTLR derives from the left-recursive
+ * {@code formula} rule of {@code GPSL.g4}: a binary operator of precedence {@code p} continues a formula
+ * parsed at minimal precedence {@code m} when {@code p >= m}, and its right operand is parsed at {@code p + 1},
+ * or at {@code p} for the right-associative ones. Nodes are built through the factory, positions recorded
+ * and references resolved in the order of {@link Antlr4ToGPSLMapper}, so the results are the same.
+ * <p>
+ * It does not report syntax errors: on the first one it gives up, and the caller parses the source again
+ * with ANTLR, which reports them.
+ */
+final class PrattParser {
+
+    /**
+     * Thrown on the first lexer or syntax error.
+     */
+    static final class SyntaxError extends RuntimeException {
+        private static final SyntaxError INSTANCE = new SyntaxError();
+
+        private SyntaxError() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final BaseErrorListener FAIL_ON_ERROR = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            throw SyntaxError.INSTANCE;
+        }
+    };
+
+    // the implicit tokens of the automaton guards
+    private static final int LBRACKET = GPSLParser.T__0;
+    private static final int RBRACKET = GPSLParser.T__1;
+
+    // precedences and right operand precedences of the binary operators, as in the generated GPSLParser
+    private static final int[] PRECEDENCE = new int[GPSLLexer.VOCABULARY.getMaxTokenType() + 1];
+    private static final int[] RIGHT_PRECEDENCE = new int[PRECEDENCE.length];
+    private static final int CONDITIONAL_PRECEDENCE = 2;
+
+    static {
+        binary(7, 7, GPSLLexer.SUNTIL, GPSLLexer.WUNTIL, GPSLLexer.SRELEASE, GPSLLexer.WRELEASE);
+        binary(6, 7, GPSLLexer.CONJUNCTION);
+        binary(5, 6, GPSLLexer.DISJUNCTION);
+        binary(4, 5, GPSLLexer.XOR);
+        binary(3, 3, GPSLLexer.IMPLICATION, GPSLLexer.EQUIVALENCE);
+        binary(CONDITIONAL_PRECEDENCE, CONDITIONAL_PRECEDENCE, GPSLLexer.QMARK);
+    }
+
+    private static void binary(int precedence, int rightPrecedence, int... types) {
+        for (int type : types) {
+            PRECEDENCE[type] = precedence;
+            RIGHT_PRECEDENCE[type] = rightPrecedence;
+        }
+    }
+
+    private final ParseContext context;
+    private final boolean trackPositions;
+    private final Factory factory;
+    private final Context symbols;
+    private Token[] tokens = new Token[64];
+    private int count;
+    private int index;
+
+    private PrattParser(ParseContext context, boolean trackPositions, Factory factory, Context symbols) {
+        this.context = context;
+        this.trackPositions = trackPositions;
+        this.factory = factory;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Parses a formula, or a block of declarations.
+     *
+     * @param context the parse context receiving the positions and the linking errors
+     * @param declarations whether to parse a block of declarations rather than a formula
+     * @param trackPositions whether to record the range of each AST node
+     * @param factory the factory building the nodes
+     * @param symbols the symbol context used to resolve references while building, or null to leave them unresolved
+     * @param <T> the expected return type
+     * @return the syntax model element, or null when the factory rejected a reference left unresolved by a
+     *         linking error, as on the ANTLR path
+     * @throws SyntaxError on the first lexer or syntax error; the context may then hold partial results
+     */
+    static <T> T parse(ParseContext context, boolean declarations, boolean trackPositions,
+                       Factory factory, Context symbols) {
+        PrattParser parser = new PrattParser(context, trackPositions, factory, symbols);
+        parser.tokenize(context.source());
+        try {
+            @SuppressWarnings("unchecked")
+            T result = (T) (declarations ? parser.block() : parser.formula(0));
+            return result;
+        } catch (SyntaxError e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // factories may reject the unresolved references left by linking errors
+            if (!context.hasErrors()) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    private void tokenize(String source) {
+        ParserPool pool = ParserPool.acquire();
+        try {
+            GPSLLexer lexer = pool.lexer(source, FAIL_ON_ERROR);
+            for (Token token = lexer.nextToken(); ; token = lexer.nextToken()) {
+                if (count == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, count * 2);
+                }
+                tokens[count++] = token;
+                if (token.getType() == Token.EOF) {
+                    return;
+                }
+            }
+        } finally {
+            pool.release();
+        }
+    }
+
+    // ========== TOKENS ==========
+
+    private int peek() {
+        return tokens[index].getType();
+    }
+
+    private Token next() {
+        Token token = tokens[index];
+        if (token.getType() == Token.EOF) {
+            throw SyntaxError.INSTANCE;
+        }
+        index++;
+        return token;
+    }
+
+    private Token expect(int type) {
+        if (peek() != type) {
+            throw SyntaxError.INSTANCE;
+        }
+        return next();
+    }
+
+    private Token last() {
+        return tokens[index - 1];
+    }
+
+    private <N> N positioned(N value, Token start) {
+        if (trackPositions && value instanceof SyntaxTreeElement node) {
+            context.positionMap().put(node, start, last());
+        }
+        return value;
+    }
+
+    // ========== DECLARATIONS ==========
+
+    private Declarations block() {
+        Token start = tokens[index];
+        List<ExpressionDeclaration> declarations = new ArrayList<>();
+        do {
+            declarations.add(formulaDeclaration());
+        } while (peek() == GPSLLexer.IDENTIFIER);
+        return positioned(factory.declarations(declarations), start);
+    }
+
+    private ExpressionDeclaration formulaDeclaration() {
+        Token start = expect(GPSLLexer.IDENTIFIER);
+        String name = start.getText();
+        boolean isInternal = switch (peek()) {
+            case GPSLLexer.EQ -> true;
+            case GPSLLexer.SEQ -> false;
+            default -> throw SyntaxError.INSTANCE;
+        };
+        next();
+
+        Expression expression;
+        if (startsAutomatonDecl(peek())) {
+            expression = automaton(null, null);
+        } else if (peek() == GPSLLexer.LET) {
+            Token letStart = tokens[index];
+            enterScope();
+            Declarations declarations = letDecl();
+            expression = startsAutomatonDecl(peek())
+                    ? automaton(letStart, declarations)
+                    : letExpression(letStart, declarations);
+        } else {
+            expression = formula(0);
+        }
+
+        ExpressionDeclaration declaration = positioned(factory.declaration(name, expression, isInternal), start);
+        if (symbols != null) {
+            try {
+                symbols.define(name, expression);
+            } catch (Context.SymbolAlreadyDefinedException e) {
+                addError(start, "duplicate symbol '" + name + "'", "duplicate-symbol");
+            }
+        }
+        return declaration;
+    }
+
+    /**
+     * Parses {@code LET formulaDeclarationList IN}, in the scope already entered by the caller.
+     */
+    private Declarations letDecl() {
+        Token start = expect(GPSLLexer.LET);
+        Token listStart = tokens[index];
+        List<ExpressionDeclaration> declarations = new ArrayList<>();
+        declarations.add(formulaDeclaration());
+        while (peek() == GPSLLexer.COMMA) {
+            next();
+            if (peek() != GPSLLexer.IDENTIFIER) {
+                // trailing comma
+                break;
+            }
+            declarations.add(formulaDeclaration());
+        }
+        Declarations list = positioned(factory.declarations(declarations), listStart);
+        expect(GPSLLexer.IN);
+        return positioned(list, start);
+    }
+
+    private Expression letExpression(Token start, Declarations declarations) {
+        Expression expression = formula(1);
+        Expression letExpression = positioned(factory.letExpression(declarations, expression), start);
+        exitScope();
+        return letExpression;
+    }
+
+    // ========== FORMULAS ==========
+
+    /**
+     * Parses a formula whose binary operators have at least the given precedence.
+     */
+    private Expression formula(int minPrecedence) {
+        Token start = tokens[index];
+        Expression left = primary();
+        while (true) {
+            int operatorType = peek();
+            int precedence = operatorType >= 0 ? PRECEDENCE[operatorType] : 0;
+            if (precedence == 0 || precedence < minPrecedence) {
+                return left;
+            }
+            Token operator = next();
+            if (operatorType == GPSLLexer.QMARK) {
+                Expression trueBranch = formula(0);
+                expect(GPSLLexer.COLON);
+                Expression falseBranch = formula(CONDITIONAL_PRECEDENCE);
+                left = positioned(factory.conditional(left, trueBranch, falseBranch), start);
+            } else {
+                Expression right = formula(RIGHT_PRECEDENCE[operatorType]);
+                left = positioned(binary(operator, left, right), start);
+            }
+        }
+    }
+
+    private Expression primary() {
+        if (peek() == GPSLLexer.LET) {
+            Token start = tokens[index];
+            enterScope();
+            return letExpression(start, letDecl());
+        }
+        Token start = next();
+        return switch (start.getType()) {
+            case GPSLLexer.TRUE -> positioned(factory.t(), start);
+            case GPSLLexer.FALSE -> positioned(factory.f(), start);
+            case GPSLLexer.IDENTIFIER -> reference(start);
+            case GPSLLexer.ATOMINLINE -> positioned(atom(start.getText()), start);
+            case GPSLLexer.LPAREN -> {
+                Expression expression = formula(0);
+                expect(GPSLLexer.RPAREN);
+                yield positioned(expression, start);
+            }
+            case GPSLLexer.NEGATION -> positioned(factory.negation(start.getText(), formula(10)), start);
+            case GPSLLexer.NEXT -> positioned(factory.next(start.getText(), formula(9)), start);
+            case GPSLLexer.EVENTUALLY -> positioned(factory.eventually(start.getText(), formula(8)), start);
+            case GPSLLexer.GLOBALLY -> positioned(factory.globally(start.getText(), formula(8)), start);
+            default -> throw SyntaxError.INSTANCE;
+        };
+    }
+
+    private Expression binary(Token operatorToken, Expression left, Expression right) {
+        String operator = operatorToken.getText();
+        return switch (operatorToken.getType()) {
+            case GPSLLexer.CONJUNCTION -> factory.conjunction(operator, left, right);
+            case GPSLLexer.DISJUNCTION -> factory.disjunction(operator, left, right);
+            case GPSLLexer.XOR -> factory.exclusiveDisjunction(operator, left, right);
+            case GPSLLexer.IMPLICATION -> factory.implication(operator, left, right);
+            case GPSLLexer.EQUIVALENCE -> factory.equivalence(operator, left, right);
+            case GPSLLexer.SUNTIL -> factory.strongUntil(operator, left, right);
+            case GPSLLexer.WUNTIL -> factory.weakUntil(operator, left, right);
+            case GPSLLexer.SRELEASE -> factory.strongRelease(operator, left, right);
+            case GPSLLexer.WRELEASE -> factory.weakRelease(operator, left, right);
+            default -> throw new IllegalStateException("Unknown binary operator: " + operator);
+        };
+    }
+
+    private Expression atom(String value) {
+        String delimiter = value.substring(0, 1);
+        String atom = value.substring(1, value.length() - 1);
+        atom = delimiter.equals("|") ? atom.replace("\\|", "|") : atom.replace("\\\"", "\"");
+        return factory.atom(atom, delimiter);
+    }
+
+    private Expression reference(Token token) {
+        String name = token.getText();
+        if (symbols == null) {
+            return positioned(factory.reference(name), token);
+        }
+        try {
+            Object resolved = symbols.lookup(name);
+            if (resolved instanceof Expression expression) {
+                return positioned(factory.reference(expression), token);
+            }
+            // a state of the enclosing automaton, shadowing any formula of the same name
+            Expression reference = positioned(factory.reference(name), token);
+            addError(token, "state '" + name + "' is not a formula", "state-reference");
+            return reference;
+        } catch (Context.SymbolNotFoundException e) {
+            Expression reference = positioned(factory.reference(name), token);
+            addError(token, "undefined symbol '" + name + "'", "undefined-symbol");
+            return reference;
+        }
+    }
+
+    // ========== AUTOMATA ==========
+
+    private static boolean startsAutomatonDecl(int type) {
+        return type == GPSLLexer.NFA || type == GPSLLexer.BUCHI || type == GPSLLexer.STATES;
+    }
+
+    /**
+     * Parses an automaton, after its optional let declarations.
+     *
+     * @param start the let token, or null without let declarations
+     * @param declarations the let declarations, or null without them
+     */
+    private Expression automaton(Token start, Declarations declarations) {
+        if (start == null) {
+            start = tokens[index];
+            enterScope();
+        }
+        Automaton automaton = automatonDecl();
+        if (declarations == null) {
+            declarations = factory.declarations(List.of());
+        }
+        Expression letExpression = positioned(factory.letExpression(declarations, automaton), start);
+        exitScope();
+        return letExpression;
+    }
+
+    private Automaton automatonDecl() {
+        Token start = tokens[index];
+        AutomatonSemanticsKind semantics = AutomatonSemanticsKind.BUCHI;
+        if (peek() == GPSLLexer.NFA) {
+            semantics = AutomatonSemanticsKind.NFA;
+            next();
+        } else if (peek() == GPSLLexer.BUCHI) {
+            next();
+        }
+        List<String> stateNames = names(GPSLLexer.STATES);
+        expect(GPSLLexer.SEMICOLON);
+        // the scope of the states, as in SymbolResolver
+        enterScope();
+        if (symbols != null) {
+            stateNames.stream().distinct().forEach(name -> symbols.define(name, factory.state(name)));
+        }
+        List<String> initialNames = names(GPSLLexer.INITIAL);
+        expect(GPSLLexer.SEMICOLON);
+        List<String> acceptNames = names(GPSLLexer.ACCEPT);
+        expect(GPSLLexer.SEMICOLON);
+
+        List<Transition> transitions = new ArrayList<>();
+        transitions.add(transitionDecl());
+        while (peek() == GPSLLexer.SEMICOLON) {
+            next();
+            transitions.add(transitionDecl());
+        }
+        // sorted by priority, as the mapper does
+        transitions.sort(Comparator.comparingInt(Transition::priority));
+        exitScope();
+
+        Set<State> states = new HashSet<>();
+        stateNames.forEach(name -> states.add(factory.state(name)));
+        Set<State> initialStates = new HashSet<>();
+        initialNames.forEach(name -> initialStates.add(factory.state(name)));
+        Set<State> acceptStates = new HashSet<>();
+        acceptNames.forEach(name -> acceptStates.add(factory.state(name)));
+
+        return positioned(factory.automaton(semantics, states, initialStates, acceptStates, transitions), start);
+    }
+
+    private List<String> names(int keyword) {
+        expect(keyword);
+        List<String> names = new ArrayList<>();
+        names.add(expect(GPSLLexer.IDENTIFIER).getText());
+        while (peek() == GPSLLexer.COMMA) {
+            next();
+            names.add(expect(GPSLLexer.IDENTIFIER).getText());
+        }
+        return names;
+    }
+
+    private Transition transitionDecl() {
+        Token start = expect(GPSLLexer.IDENTIFIER);
+        int priority = Integer.MIN_VALUE;
+        int type = peek();
+        if (type == GPSLLexer.FALSE || type == GPSLLexer.TRUE || type == GPSLLexer.NATURAL) {
+            try {
+                priority = Integer.parseInt(next().getText());
+            } catch (NumberFormatException e) {
+                priority = Integer.MIN_VALUE;
+            }
+        }
+        expect(LBRACKET);
+        Expression guard = formula(0);
+        expect(RBRACKET);
+        String target = expect(GPSLLexer.IDENTIFIER).getText();
+        Transition transition = factory.transition(
+                factory.state(start.getText()), priority, guard, factory.state(target));
+        return positioned(transition, start);
+    }
+
+    // ========== SYMBOLS ==========
+
+    private void enterScope() {
+        if (symbols != null) symbols.pushContext();
+    }
+
+    private void exitScope() {
+        if (symbols != null) symbols.popContext();
+    }
+
+    private void addError(Token token, String message, String errorCode) {
+        Range range = PositionMap.rangeOf(token, last());
+        context.addError(new ParseError(range, message, ParseError.Severity.ERROR, Optional.of(errorCode)));
+    }
+}
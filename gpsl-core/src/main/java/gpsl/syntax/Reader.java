@@ -5,15 +5,36 @@ import gpsl.parser.GPSLParser;
 import gpsl.syntax.model.Automaton;
 import gpsl.syntax.model.Declarations;
 import gpsl.syntax.model.Expression;
+import gpsl.syntax.model.ExpressionDeclaration;
+import gpsl.syntax.model.Factory;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenFactory;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import rege.reader.infra.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * GPSL parser with comprehensive error reporting and position tracking.
@@ -30,7 +51,96 @@ public class Reader {
     }
 
     /**
-     * Core parsing method - all other methods delegate to this.
+     * Start rules of the entry points, also known to the {@link PrattParser}.
+     */
+    private enum StartRule implements ParserFunction {
+        FORMULA {
+            @Override
+            public ParserRuleContext parse(GPSLParser parser) {
+                return parser.formula();
+            }
+        },
+        BLOCK {
+            @Override
+            public ParserRuleContext parse(GPSLParser parser) {
+                return parser.block();
+            }
+        }
+    }
+
+    /**
+     * Parsers building the AST of the parse entry points (the streaming ones always use ANTLR).
+     */
+    public enum Backend {
+        /**
+         * The ANTLR parser generated from {@code GPSL.g4}, in two stages (SLL, then LL).
+         */
+        ANTLR,
+        /**
+         * A hand-written precedence-climbing parser building the AST directly, without parse tree.
+         * It yields the same AST, positions and errors; sources with syntax errors are parsed again with ANTLR,
+         * which reports them. The position maps have no parse tree nodes.
+         */
+        PRATT
+    }
+
+    private static final ThreadLocal<Backend> BACKEND = ThreadLocal.withInitial(() -> Backend.ANTLR);
+
+    /**
+     * Gets the parser backend of the current thread, {@link Backend#ANTLR} outside {@link #withBackend}.
+     */
+    public static Backend backend() {
+        return BACKEND.get();
+    }
+
+    /**
+     * Runs parses with a parser backend.
+     * The backend is used by the parse entry points called from the given parses on the current thread,
+     * including the chunks of {@link #parseDeclarationsInParallel}; parses on other threads are not affected.
+     *
+     * <pre>{@code
+     * var result = Reader.withBackend(Reader.Backend.PRATT, () -> Reader.parseDeclarationsWithPositions(source));
+     * }</pre>
+     *
+     * @param backend the backend
+     * @param parses the parses to run
+     * @param <T> the result type
+     * @return the result of the parses
+     */
+    public static <T> T withBackend(Backend backend, Supplier<T> parses) {
+        Backend previous = BACKEND.get();
+        BACKEND.set(Objects.requireNonNull(backend));
+        try {
+            return parses.get();
+        } finally {
+            BACKEND.set(previous);
+        }
+    }
+
+    /**
+     * Builds the model with the {@link PrattParser} when it is the selected backend.
+     *
+     * @return the model, or null to parse with ANTLR: another backend is selected, the source has a syntax error,
+     *         or the factory rejected a reference left unresolved by a linking error. The parse context and the
+     *         symbols may then hold partial results.
+     */
+    private static <T> T parseWithPratt(ParseContext parseContext, ParserFunction parserFn, boolean trackPositions,
+                                        Factory factory, Context symbols) {
+        if (backend() != Backend.PRATT || !(parserFn instanceof StartRule rule)) {
+            return null;
+        }
+        try {
+            return PrattParser.parse(parseContext, rule == StartRule.BLOCK, trackPositions, factory, symbols);
+        } catch (PrattParser.SyntaxError e) {
+            // the ANTLR path reports the syntax errors
+            return null;
+        }
+    }
+
+    /**
+     * Core position-free parsing method - the plain parse entry points delegate to this.
+     * No position or parse tree node is recorded, so the ANTLR parse tree is garbage as soon as the AST is built;
+     * linking errors are reported at the start of the source.
      * 
      * @param source the source text to parse
      * @param parserFn function that calls the appropriate parser method (e.g., GPSLParser::formula)
@@ -46,18 +156,21 @@ public class Reader {
             boolean doLink) {
         
         ParseContext parseContext = new ParseContext(source);
-        
-        // Phase 1: Lexing and Parsing
-        GPSLParser parser = createParser(source, parseContext);
-        ParserRuleContext tree = parserFn.parse(parser);
-        
-        if (parseContext.hasErrors()) {
-            return parseContext.toResult(null);
+        T model = parseWithPratt(parseContext, parserFn, false, Factory.instance(), null);
+        if (model == null) {
+            parseContext = new ParseContext(source);
+
+            // Phase 1: Lexing and Parsing
+            ParserRuleContext tree = parseTree(source, parseContext, parserFn);
+
+            if (parseContext.hasErrors()) {
+                return parseContext.toResult(null);
+            }
+
+            // Phase 2: Build AST, without position tracking
+            model = buildSyntaxModel(tree, parseContext, false);
         }
         
-        // Phase 2: Build AST with position tracking
-        T model = buildSyntaxModel(tree, parseContext);
-        
         // Phase 3: Symbol resolution (optional)
         if (doLink) {
             SymbolResolver resolver = new SymbolResolver(parseContext);
@@ -70,22 +183,279 @@ public class Reader {
 
     /**
      * Parse a GPSL expression from source text (without symbol resolution).
+     * No positions are tracked; use {@link #parseExpressionWithPositions(String)} when they are needed.
      * 
      * @param source the GPSL expression source
      * @return ParseResult containing expression or errors with positions
      */
     public static ParseResult<Expression> parseExpression(String source) {
-        return parse(source, GPSLParser::formula, new HashMap<>(), false);
+        return parse(source, StartRule.FORMULA, new HashMap<>(), false);
     }
     
     /**
      * Parse GPSL declarations from source text (without symbol resolution).
+     * No positions are tracked; use {@link #parseDeclarationsWithPositions(String)} when they are needed.
      * 
      * @param source the GPSL declarations source
      * @return ParseResult containing declarations or errors
      */
     public static ParseResult<Declarations> parseDeclarations(String source) {
-        return parse(source, GPSLParser::block, new HashMap<>(), false);
+        return parse(source, StartRule.BLOCK, new HashMap<>(), false);
+    }
+
+    /**
+     * Parse and link a GPSL expression without position tracking.
+     * Meant for machine-generated properties: linking errors have no source position.
+     * 
+     * @param source the GPSL expression source
+     * @param externalSymbols external symbols available for resolution
+     * @return ParseResult containing the linked expression or errors
+     */
+    public static ParseResult<Expression> parseAndLinkExpression(String source, Map<String, Object> externalSymbols) {
+        return parse(source, StartRule.FORMULA, externalSymbols, true);
+    }
+
+    /**
+     * Parse and link GPSL declarations without position tracking.
+     * Meant for machine-generated properties: linking errors have no source position.
+     * 
+     * @param source the GPSL declarations source
+     * @return ParseResult containing the linked declarations or errors
+     */
+    public static ParseResult<Declarations> parseAndLinkDeclarations(String source) {
+        return parse(source, StartRule.BLOCK, new HashMap<>(), true);
+    }
+
+    /**
+     * Parse and link GPSL declarations with external context, without position tracking.
+     * Meant for machine-generated properties: linking errors have no source position.
+     * 
+     * @param source the GPSL declarations source
+     * @param externalSymbols external symbols available for resolution
+     * @return ParseResult containing the linked declarations or errors
+     */
+    public static ParseResult<Declarations> parseAndLinkDeclarations(String source, Map<String, Object> externalSymbols) {
+        return parse(source, StartRule.BLOCK, externalSymbols, true);
+    }
+
+    // ========== FACTORY-AWARE PARSING (linked while built) ==========
+
+    /**
+     * Core factory-aware parsing method.
+     * Nodes are built through the factory and references are resolved while building and inlined
+     * with {@link Factory#reference(Expression)}, so e.g. a hash-consing factory yields a shared DAG without re-walking.
+     *
+     * @param source the source text to parse
+     * @param parserFn function that calls the appropriate parser method
+     * @param factory the factory building the nodes
+     * @param externalSymbols external symbols for symbol resolution (copied, not modified)
+     * @param trackPositions whether to record positions, possibly several per shared node
+     * @param <T> the expected return type
+     * @return the linked model or errors, with the position map
+     */
+    private static <T> ParseResultWithPositions<T> parseWithFactory(
+            String source,
+            ParserFunction parserFn,
+            Factory factory,
+            Map<String, Object> externalSymbols,
+            boolean trackPositions) {
+
+        ParseContext parseContext = positionsContext(source);
+        T prattModel = parseWithPratt(
+                parseContext, parserFn, trackPositions, factory, new Context(new HashMap<>(externalSymbols)));
+        if (prattModel != null) {
+            return new ParseResultWithPositions<>(parseContext.toResult(prattModel), source, parseContext.positionMap());
+        }
+
+        parseContext = positionsContext(source);
+        ParserRuleContext tree = parseTree(source, parseContext, parserFn);
+
+        ParseResult<T> result;
+        if (parseContext.hasErrors()) {
+            result = parseContext.toResult(null);
+        } else {
+            Antlr4ToGPSLMapper syntaxBuilder = new Antlr4ToGPSLMapper(
+                    parseContext, trackPositions, factory, new Context(new HashMap<>(externalSymbols)));
+            T model = null;
+            try {
+                ParseTreeWalker.DEFAULT.walk(syntaxBuilder, tree);
+                model = syntaxBuilder.getValue(tree);
+            } catch (RuntimeException e) {
+                // factories may reject the unresolved references left by linking errors
+                if (!parseContext.hasErrors()) {
+                    throw e;
+                }
+            }
+            result = parseContext.toResult(model);
+        }
+        return new ParseResultWithPositions<>(result, source, parseContext.positionMap());
+    }
+
+    /**
+     * Parse and link a GPSL expression, building its nodes through a factory.
+     * No positions are tracked.
+     *
+     * @param source the GPSL expression source
+     * @param factory the factory building the nodes, e.g. a hash-consing or BDD factory
+     * @return ParseResult containing the linked expression or errors
+     */
+    public static ParseResult<Expression> parseExpression(String source, Factory factory) {
+        return parseExpression(source, factory, Map.of());
+    }
+
+    /**
+     * Parse and link a GPSL expression with external context, building its nodes through a factory.
+     * No positions are tracked.
+     *
+     * @param source the GPSL expression source
+     * @param factory the factory building the nodes, e.g. a hash-consing or BDD factory
+     * @param externalSymbols external symbols available for resolution
+     * @return ParseResult containing the linked expression or errors
+     */
+    public static ParseResult<Expression> parseExpression(String source, Factory factory, Map<String, Object> externalSymbols) {
+        return Reader.<Expression>parseWithFactory(source, StartRule.FORMULA, factory, externalSymbols, false).result();
+    }
+
+    /**
+     * Parse and link GPSL declarations, building their nodes through a factory.
+     * No positions are tracked.
+     *
+     * @param source the GPSL declarations source
+     * @param factory the factory building the nodes, e.g. a hash-consing or BDD factory
+     * @return ParseResult containing the linked declarations or errors
+     */
+    public static ParseResult<Declarations> parseDeclarations(String source, Factory factory) {
+        return parseDeclarations(source, factory, Map.of());
+    }
+
+    /**
+     * Parse and link GPSL declarations with external context, building their nodes through a factory.
+     * No positions are tracked.
+     *
+     * @param source the GPSL declarations source
+     * @param factory the factory building the nodes, e.g. a hash-consing or BDD factory
+     * @param externalSymbols external symbols available for resolution
+     * @return ParseResult containing the linked declarations or errors
+     */
+    public static ParseResult<Declarations> parseDeclarations(String source, Factory factory, Map<String, Object> externalSymbols) {
+        return Reader.<Declarations>parseWithFactory(source, StartRule.BLOCK, factory, externalSymbols, false).result();
+    }
+
+    /**
+     * Parse and link a GPSL expression through a factory, with position map.
+     * Shared nodes have one position per source location (see {@link PositionMap#getAll}).
+     *
+     * @param source the source text
+     * @param factory the factory building the nodes
+     * @return ParseResult with the linked expression and accessible position map
+     */
+    public static ParseResultWithPositions<Expression> parseExpressionWithPositions(String source, Factory factory) {
+        return parseWithFactory(source, StartRule.FORMULA, factory, Map.of(), true);
+    }
+
+    /**
+     * Parse and link GPSL declarations through a factory, with position map.
+     * Shared nodes have one position per source location (see {@link PositionMap#getAll}).
+     *
+     * @param source the source text
+     * @param factory the factory building the nodes
+     * @return ParseResult with the linked declarations and accessible position map
+     */
+    public static ParseResultWithPositions<Declarations> parseDeclarationsWithPositions(String source, Factory factory) {
+        return parseWithFactory(source, StartRule.BLOCK, factory, Map.of(), true);
+    }
+
+    // ========== STREAMING ==========
+
+    /**
+     * Stream the top-level declarations of a GPSL source, without symbol resolution.
+     * <p>
+     * The input is tokenized incrementally and each declaration is passed to the consumer as soon as it is parsed,
+     * so memory stays bounded by the largest declaration. A declaration with syntax errors is skipped and parsing
+     * resumes after it. No positions are tracked; errors carry their line and column.
+     *
+     * @param input the GPSL declarations source
+     * @param consumer receives each declaration, in source order
+     * @return the number of declarations passed to the consumer, or the errors
+     * @throws java.io.UncheckedIOException if the input cannot be read
+     */
+    public static ParseResult<Integer> streamDeclarations(java.io.Reader input, Consumer<ExpressionDeclaration> consumer) {
+        return stream(input, null, consumer);
+    }
+
+    /**
+     * Stream and link the top-level declarations of a GPSL source.
+     * <p>
+     * Unlike {@link #linkWithPositions}, a top-level declaration may refer to a later one: such forward references
+     * are kept in a deferred resolution table and resolved in place, after the declaration was passed to the consumer,
+     * when their target is parsed. They are all resolved when the method returns a success. The expressions of the
+     * top-level declarations are kept for the references of the following ones.
+     *
+     * @param input the GPSL declarations source
+     * @param externalSymbols external symbols available for resolution (copied, not modified)
+     * @param consumer receives each declaration, in source order
+     * @return the number of declarations passed to the consumer, or the errors
+     * @throws java.io.UncheckedIOException if the input cannot be read
+     */
+    public static ParseResult<Integer> streamAndLinkDeclarations(
+            java.io.Reader input,
+            Map<String, Object> externalSymbols,
+            Consumer<ExpressionDeclaration> consumer) {
+        return stream(input, externalSymbols, consumer);
+    }
+
+    private static ParseResult<Integer> stream(
+            java.io.Reader input,
+            Map<String, Object> externalSymbols,
+            Consumer<ExpressionDeclaration> consumer) {
+
+        ParseContext parseContext = new ParseContext("");
+        GPSLErrorListener listener = new GPSLErrorListener(parseContext);
+
+        // Unbuffered streams keep only the lookahead; tokens copy their text out of the character buffer
+        GPSLLexer lexer = new GPSLLexer(new UnbufferedCharStream(input));
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+        TokenStream tokens = new UnbufferedTokenStream<>(lexer);
+        GPSLParser parser = new GPSLParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+
+        boolean doLink = externalSymbols != null;
+        DeferredResolver resolver = doLink ? new DeferredResolver(parseContext, externalSymbols) : null;
+        int count = 0;
+        try {
+            while (tokens.LA(1) != Token.EOF) {
+                int errors = parseContext.errors().size();
+                int start = tokens.index();
+                ParserRuleContext tree = parser.formulaDeclaration();
+                if (parseContext.errors().size() > errors) {
+                    if (tokens.index() == start) {
+                        parser.consume();
+                    }
+                    continue;
+                }
+
+                // Positions are only kept while the declaration is linked
+                ExpressionDeclaration declaration = buildSyntaxModel(tree, parseContext, doLink);
+                if (doLink) {
+                    resolver.link(declaration);
+                    parseContext.positionMap().clear();
+                }
+                consumer.accept(declaration);
+                count++;
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof java.io.IOException io) {
+                throw new java.io.UncheckedIOException(io);
+            }
+            throw e;
+        }
+        if (doLink) {
+            resolver.finish();
+        }
+        return parseContext.toResult(count);
     }
 
     // ========== LINKING (in-place symbol resolution) ==========
@@ -127,6 +497,39 @@ public class Reader {
         return parseContext.toResult(element);
     }
     
+    /**
+     * Link the declarations of a parse result in parallel on the common fork-join pool.
+     * 
+     * @param parseResult the parse result with positions
+     * @return ParseResult with linking errors, or success with the linked declarations
+     * @see #linkInParallel(ParseResultWithPositions, Map, ForkJoinPool)
+     */
+    public static ParseResult<Declarations> linkInParallel(ParseResultWithPositions<Declarations> parseResult) {
+        return linkInParallel(parseResult, new HashMap<>(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Link the declarations of a parse result in parallel, with the same result as {@link #linkWithPositions}.
+     * <p>
+     * A top-level declaration only sees the external symbols and the declarations before it, so the names it
+     * refers to are known before any of them is linked: chunks of declarations are linked independently on the
+     * pool, and their errors reported in declaration order.
+     * 
+     * @param parseResult the parse result with positions
+     * @param externalSymbols external symbols available for resolution (not modified)
+     * @param pool the pool linking the chunks
+     * @return ParseResult with linking errors, or success with the linked declarations
+     */
+    public static ParseResult<Declarations> linkInParallel(
+            ParseResultWithPositions<Declarations> parseResult, Map<String, Object> externalSymbols, ForkJoinPool pool) {
+        if (!(parseResult.result() instanceof ParseResult.Success<Declarations>(Declarations declarations))) {
+            return parseResult.result();
+        }
+        ParseContext parseContext = new ParseContext(parseResult.source(), parseResult.positionMap());
+        new ParallelLinker(parseContext, declarations, externalSymbols).link(pool);
+        return parseContext.toResult(declarations);
+    }
+
     /**
      * Link symbol references in an expression without position tracking.
      * Useful for programmatically constructed ASTs.
@@ -214,6 +617,13 @@ public class Reader {
         return parseContext.toResult(automaton);
     }
 
+    /**
+     * Creates the context of a parse returning its positions, kept in a {@link CompactPositionMap}.
+     */
+    private static ParseContext positionsContext(String source) {
+        return new ParseContext(source, new CompactPositionMap(source));
+    }
+
     /**
      * Parse expression and return with position map.
      * Useful for LSP implementations that need position tracking.
@@ -222,18 +632,22 @@ public class Reader {
      * @return ParseResult with expression and accessible position map
      */
     public static ParseResultWithPositions<Expression> parseExpressionWithPositions(String source) {
-        ParseContext parseContext = new ParseContext(source);
+        ParseContext parseContext = positionsContext(source);
+        Expression prattModel = parseWithPratt(parseContext, StartRule.FORMULA, true, Factory.instance(), null);
+        if (prattModel != null) {
+            return new ParseResultWithPositions<>(parseContext.toResult(prattModel), source, parseContext.positionMap());
+        }
+        parseContext = positionsContext(source);
         
         // Phase 1: Lexing and Parsing
-        GPSLParser parser = createParser(source, parseContext);
-        ParserRuleContext tree = parser.formula();
+        ParserRuleContext tree = parseTree(source, parseContext, StartRule.FORMULA);
         
         ParseResult<Expression> result;
         if (parseContext.hasErrors()) {
             result = parseContext.toResult(null);
         } else {
             // Phase 2: Build AST with position tracking
-            Expression model = buildSyntaxModel(tree, parseContext);
+            Expression model = buildSyntaxModel(tree, parseContext, true);
             result = parseContext.toResult(model);
         }
         
@@ -247,18 +661,22 @@ public class Reader {
      * @return ParseResult with declarations and accessible position map
      */
     public static ParseResultWithPositions<Declarations> parseDeclarationsWithPositions(String source) {
-        ParseContext parseContext = new ParseContext(source);
+        ParseContext parseContext = positionsContext(source);
+        Declarations prattModel = parseWithPratt(parseContext, StartRule.BLOCK, true, Factory.instance(), null);
+        if (prattModel != null) {
+            return new ParseResultWithPositions<>(parseContext.toResult(prattModel), source, parseContext.positionMap());
+        }
+        parseContext = positionsContext(source);
         
         // Phase 1: Lexing and Parsing
-        GPSLParser parser = createParser(source, parseContext);
-        ParserRuleContext tree = parser.block();
+        ParserRuleContext tree = parseTree(source, parseContext, StartRule.BLOCK);
         
         ParseResult<Declarations> result;
         if (parseContext.hasErrors()) {
             result = parseContext.toResult(null);
         } else {
             // Phase 2: Build AST with position tracking
-            Declarations model = buildSyntaxModel(tree, parseContext);
+            Declarations model = buildSyntaxModel(tree, parseContext, true);
             result = parseContext.toResult(model);
         }
         
@@ -266,13 +684,138 @@ public class Reader {
     }
 
     /**
-     * Creates an ANTLR4 parser for the given input string with error listener.
+     * Sources below this size are not worth splitting.
+     */
+    private static final int MIN_PARALLEL_CHUNK = 64 * 1024;
+
+    /**
+     * Parse declarations in parallel on the common fork-join pool, and return with position map.
+     * 
+     * @param source the source text
+     * @return the same result as {@link #parseDeclarationsWithPositions(String)}
+     * @see #parseDeclarationsInParallel(String, ForkJoinPool)
+     */
+    public static ParseResultWithPositions<Declarations> parseDeclarationsInParallel(String source) {
+        return parseDeclarationsInParallel(source, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse declarations in parallel, and return with position map.
+     * <p>
+     * The source is split at top-level declaration boundaries by a {@link DeclarationScanner}, the chunks are parsed
+     * on the pool and their position maps merged with shifted positions. Declarations are not linked: run a single
+     * {@link #linkWithPositions} pass on the result. If a chunk fails to parse, the whole source is parsed again
+     * sequentially, so that errors are reported exactly as by {@link #parseDeclarationsWithPositions(String)}.
+     * 
+     * @param source the source text
+     * @param pool the pool parsing the chunks
+     * @return ParseResult with declarations and accessible position map
+     */
+    public static ParseResultWithPositions<Declarations> parseDeclarationsInParallel(String source, ForkJoinPool pool) {
+        int targetSize = Math.max(MIN_PARALLEL_CHUNK, source.length() / (4 * pool.getParallelism()));
+        List<DeclarationScanner.Chunk> chunks = DeclarationScanner.split(source, targetSize);
+        if (chunks.size() < 2) {
+            return parseDeclarationsWithPositions(source);
+        }
+
+        Backend selected = backend();
+        List<Callable<ParseResultWithPositions<Declarations>>> tasks = chunks.stream()
+                .<Callable<ParseResultWithPositions<Declarations>>>map(chunk -> () -> withBackend(selected,
+                        () -> parseDeclarationsWithPositions(source.substring(chunk.start(), chunk.end()))))
+                .toList();
+
+        PositionMap positionMap = new CompactPositionMap(source);
+        List<ExpressionDeclaration> declarations = new ArrayList<>();
+        List<Future<ParseResultWithPositions<Declarations>>> results = pool.invokeAll(tasks);
+        for (int i = 0; i < chunks.size(); i++) {
+            ParseResultWithPositions<Declarations> chunkResult = results.get(i).resultNow();
+            if (!(chunkResult.result() instanceof ParseResult.Success<Declarations>(Declarations chunkDeclarations))) {
+                return parseDeclarationsWithPositions(source);
+            }
+            positionMap.mergeFrom(chunkResult.positionMap(), chunks.get(i).origin());
+            declarations.addAll(chunkDeclarations.declarations());
+        }
+
+        Declarations block = new Declarations(declarations);
+        positionMap.put(block, new Range(
+                positionMap.getOrThrow(declarations.getFirst()).start(),
+                positionMap.getOrThrow(declarations.getLast()).end()));
+        return new ParseResultWithPositions<>(new ParseResult.Success<>(block), source, positionMap);
+    }
+
+    /**
+     * Representative sources parsed by {@link #warmUp()}, the invalid ones exercising the LL stage.
+     */
+    private static final String[] WARM_UP_DECLARATIONS = {
+        "a = [] (|p| -> <> |q|) b *= a U ! a c = X (a ? b : false) W c d = let x = a && b, y = a || b in x R (y ^ x)",
+        "e = <> [] |x == 1| <-> [] <> (|y| => |z|) f = true M (|a| /\\ |b| \\/ |c|)",
+        "g = buchi states s0, s1; initial s0; accept s1; s0 [|p|] s1; s1 1 [true] s0",
+        "h = nfa let q = |q| in states s; initial s; accept s; s [q && ! q] s",
+        "i = [] (|p| ->",
+        "j = ) k = |p|",
+    };
+
+    /**
+     * Primes the shared ANTLR state (ATN deserialization and DFA caches) and the current thread's parser pool.
+     * <p>
+     * Services parsing many small properties, such as the language server, call it once at start-up so that
+     * their first requests do not pay the first-call latency.
+     */
+    public static void warmUp() {
+        for (String source : WARM_UP_DECLARATIONS) {
+            parseDeclarations(source);
+            parseDeclarationsWithPositions(source);
+        }
+        parseExpression("[] (|p| -> <> |q|) && ! X (|r| U |s|)");
+        parseExpression("|p| &&");
+    }
+
+    /**
+     * Parses the source in two stages, with the lexer and parser of the current thread's {@link ParserPool}.
+     * <p>
+     * The first stage uses the faster SLL prediction and bails out on the first lexer or parser error,
+     * without reporting it. Only when it fails is the source parsed again with the full LL prediction
+     * and the {@link GPSLErrorListener}s, so the reported errors are exactly those of a plain LL parse.
+     *
+     * @param source the GPSL source code to parse
+     * @param parseContext the parse context for error collection
+     * @param parserFn function that calls the appropriate parser method
+     * @return the parse tree
+     */
+    static ParserRuleContext parseTree(String source, ParseContext parseContext, ParserFunction parserFn) {
+        ParserPool pool = ParserPool.acquire();
+        try {
+            try {
+                return parserFn.parse(pool.parser(source, BAIL_ON_ERROR, new BailErrorStrategy(), PredictionMode.SLL));
+            } catch (ParseCancellationException e) {
+                // Stage 2: full LL parse with error reporting
+                return parserFn.parse(pool.parser(source, parseContext));
+            }
+        } finally {
+            pool.release();
+        }
+    }
+
+    /**
+     * Lexer listener aborting the SLL stage; the LL stage reports the error.
+     */
+    private static final BaseErrorListener BAIL_ON_ERROR = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            throw new ParseCancellationException(msg, e);
+        }
+    };
+
+    /**
+     * Creates a fresh ANTLR4 parser for the given input string with error listener.
+     * The parser uses the default LL prediction and error recovery; parsing itself uses the {@link ParserPool}.
      *
      * @param source the GPSL source code to parse
      * @param parseContext the parse context for error collection
      * @return a configured GPSLParser instance
      */
-    private static GPSLParser createParser(String source, ParseContext parseContext) {
+    static GPSLParser createParser(String source, ParseContext parseContext) {
         CharStream chars = CharStreams.fromString(source);
         GPSLLexer lexer = new GPSLLexer(chars);
         
@@ -295,11 +838,12 @@ public class Reader {
      *
      * @param antlr4Tree the ANTLR4 parse tree
      * @param parseContext the parse context for position tracking
+     * @param trackPositions whether to record positions and parse tree nodes in the context's position map
      * @param <T> the expected return type
      * @return the syntax model element corresponding to the parse tree
      */
-    private static <T> T buildSyntaxModel(ParserRuleContext antlr4Tree, ParseContext parseContext) {
-        Antlr4ToGPSLMapper syntaxBuilder = new Antlr4ToGPSLMapper(parseContext);
+    private static <T> T buildSyntaxModel(ParserRuleContext antlr4Tree, ParseContext parseContext, boolean trackPositions) {
+        Antlr4ToGPSLMapper syntaxBuilder = new Antlr4ToGPSLMapper(parseContext, trackPositions);
         ParseTreeWalker.DEFAULT.walk(syntaxBuilder, antlr4Tree);
         return syntaxBuilder.getValue(antlr4Tree);
     }
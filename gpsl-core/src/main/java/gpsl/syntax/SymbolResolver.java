@@ -2,9 +2,6 @@ package gpsl.syntax;
 
 import gpsl.syntax.model.*;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Resolves symbol references in GPSL syntax trees.
  * Collects errors instead of throwing exceptions.
@@ -62,8 +59,17 @@ public class SymbolResolver implements Visitor<Context, Void> {
     public Void visit(Reference reference, Context environment) {
         if (reference.expression() == null) {
             try {
-                Expression resolved = environment.lookup(reference.name());
-                reference.setExpression(resolved);
+                Object resolved = environment.lookup(reference.name());
+                if (resolved instanceof State) {
+                    // a state of the enclosing automaton, shadowing any formula of the same name
+                    parseContext.addError(parseContext.errorAt(
+                        reference,
+                        "state '" + reference.name() + "' is not a formula",
+                        "state-reference"
+                    ));
+                } else {
+                    reference.setExpression((Expression) resolved);
+                }
             } catch (Context.SymbolNotFoundException e) {
                 parseContext.addError(parseContext.errorAt(
                     reference,
@@ -89,14 +95,12 @@ public class SymbolResolver implements Visitor<Context, Void> {
     @Override
     public Void visit(Automaton automaton, Context environment) {
         // Create a new context for the automaton's states
-        Map<String, Object> stateContext = new HashMap<>();
+        environment.pushContext();
         
         // Define all states in the context
         for (State state : automaton.states()) {
-            stateContext.put(state.name(), state);
+            environment.define(state.name(), state);
         }
-        
-        environment.pushContext(stateContext);
 
         // Resolve transitions - source and target states should be looked up
         // and guard expressions should be resolved
@@ -0,0 +1,54 @@
+package gpsl.syntax;
+
+/**
+ * Constants of the binary syntax tree format.
+ *
+ * <p>An image is laid out as:
+ * <pre>
+ * magic 'GPST' | version | flags
+ * string table   : count, strings (length, UTF-8 bytes)
+ * node table     : count, nodes in post-order (children refer to earlier ids)
+ * links          : count, (reference id, target id)
+ * root id
+ * positions      : line starts (count, line lengths), source length,
+ *                  by node id, (range count, (start delta, length)...)  if flags has POSITIONS
+ * </pre>
+ * Counts, ids and offsets are unsigned variable-length integers; start deltas, from the previous range, and
+ * priorities are zig-zag encoded. String and child ids are written plus one, 0 standing for null.
+ * Reference targets are written as links after the nodes, so a target may be any node.
+ */
+final class SyntaxTreeFormat {
+
+    static final int MAGIC = 0x47505354; // "GPST"
+    static final int VERSION = 1;
+
+    static final int POSITIONS = 1;
+
+    static final byte TRUE = 0;
+    static final byte FALSE = 1;
+    static final byte ATOM = 2;
+    static final byte NEGATION = 3;
+    static final byte NEXT = 4;
+    static final byte EVENTUALLY = 5;
+    static final byte GLOBALLY = 6;
+    static final byte CONJUNCTION = 7;
+    static final byte DISJUNCTION = 8;
+    static final byte EXCLUSIVE_DISJUNCTION = 9;
+    static final byte IMPLICATION = 10;
+    static final byte EQUIVALENCE = 11;
+    static final byte STRONG_UNTIL = 12;
+    static final byte WEAK_UNTIL = 13;
+    static final byte STRONG_RELEASE = 14;
+    static final byte WEAK_RELEASE = 15;
+    static final byte CONDITIONAL = 16;
+    static final byte REFERENCE = 17;
+    static final byte LET = 18;
+    static final byte DECLARATION = 19;
+    static final byte DECLARATIONS = 20;
+    static final byte STATE = 21;
+    static final byte TRANSITION = 22;
+    static final byte AUTOMATON = 23;
+
+    private SyntaxTreeFormat() {
+    }
+}
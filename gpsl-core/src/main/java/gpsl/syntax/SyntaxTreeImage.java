@@ -0,0 +1,142 @@
+package gpsl.syntax;
+
+import gpsl.syntax.Reader.ParseResultWithPositions;
+import gpsl.syntax.model.*;
+import rege.reader.infra.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A pre-parsed syntax tree, with its positions, in a binary form that loads without parsing.
+ *
+ * <p>The image keeps the whole tree: declarations, let expressions, automata and the links of the
+ * references to their targets. Nodes shared by several parents are written once and shared again when read.
+ * Positions, when written, are kept as offsets with the line starts of the source, and read into a
+ * {@link CompactPositionMap}; the source itself is not kept.
+ *
+ * <pre>{@code
+ * var parsed = Reader.parseDeclarationsWithPositions(source);
+ * Reader.linkWithPositions(parsed);
+ * SyntaxTreeImage.of(parsed).write(Path.of("properties.gpslt"));
+ * Declarations declarations = (Declarations) SyntaxTreeImage.read(Path.of("properties.gpslt")).root();
+ * }</pre>
+ */
+public final class SyntaxTreeImage {
+
+    private final SyntaxTreeElement root;
+    private final PositionMap positionMap;
+    // the line starts of the source of the positions, null without positions
+    private final LineIndex lines;
+
+    /**
+     * Creates an image of a tree, without positions.
+     */
+    public SyntaxTreeImage(SyntaxTreeElement root) {
+        this(root, new PositionMap(), (LineIndex) null);
+    }
+
+    /**
+     * Creates an image of a tree with its positions.
+     *
+     * @param root the root of the tree
+     * @param positionMap the positions of the nodes
+     * @param source the source of the positions, giving their lines and columns
+     */
+    public SyntaxTreeImage(SyntaxTreeElement root, PositionMap positionMap, String source) {
+        this(root, positionMap, LineIndex.ofCodePoints(source));
+    }
+
+    SyntaxTreeImage(SyntaxTreeElement root, PositionMap positionMap, LineIndex lines) {
+        this.root = root;
+        this.positionMap = positionMap;
+        this.lines = lines;
+    }
+
+    /**
+     * Creates an image of a successful parse, with its positions.
+     *
+     * @param parsed the parse result
+     * @return the image
+     * @throws IllegalArgumentException if the parse failed
+     */
+    public static SyntaxTreeImage of(ParseResultWithPositions<? extends SyntaxTreeElement> parsed) {
+        if (!(parsed.result() instanceof ParseResult.Success<? extends SyntaxTreeElement> success)) {
+            throw new IllegalArgumentException("Cannot make an image of a failed parse");
+        }
+        return new SyntaxTreeImage(success.value(), parsed.positionMap(), parsed.source());
+    }
+
+    /**
+     * Gets the root of the tree.
+     */
+    public SyntaxTreeElement root() {
+        return root;
+    }
+
+    /**
+     * Gets the positions of the nodes, empty if the image has none.
+     */
+    public PositionMap positionMap() {
+        return positionMap;
+    }
+
+    /**
+     * Writes this image, with the positions if it has some.
+     *
+     * @param out the stream to write to (not closed)
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream out) throws IOException {
+        new SyntaxTreeWriter().write(root, lines == null ? null : positionMap, lines, out);
+    }
+
+    /**
+     * Writes this image to a file.
+     *
+     * @param file the file to write
+     * @throws IOException if writing fails
+     */
+    public void write(Path file) throws IOException {
+        try (var out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(out);
+        }
+    }
+
+    /**
+     * Reads an image.
+     *
+     * @param in the stream to read from, up to its end (not closed)
+     * @return the image
+     * @throws IOException if reading fails or the stream is not a valid image
+     */
+    public static SyntaxTreeImage read(InputStream in) throws IOException {
+        return read(in.readAllBytes());
+    }
+
+    /**
+     * Reads an image from its bytes.
+     *
+     * @param bytes the bytes of the image
+     * @return the image
+     * @throws IOException if the bytes are not a valid image
+     */
+    public static SyntaxTreeImage read(byte[] bytes) throws IOException {
+        return new SyntaxTreeReader(bytes).read();
+    }
+
+    /**
+     * Reads an image from a file.
+     *
+     * @param file the file to read
+     * @return the image
+     * @throws IOException if reading fails or the file is not a valid image
+     */
+    public static SyntaxTreeImage read(Path file) throws IOException {
+        return read(Files.readAllBytes(file));
+    }
+}
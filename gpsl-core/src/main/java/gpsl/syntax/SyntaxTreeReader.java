@@ -0,0 +1,175 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static gpsl.syntax.SyntaxTreeFormat.*;
+
+/**
+ * Decodes the binary syntax tree format written by {@link SyntaxTreeWriter}, in a single pass over its bytes.
+ *
+ * <p>Every node id is decoded once, so nodes shared in the image are shared in memory as well,
+ * and equal strings are a single instance.
+ */
+final class SyntaxTreeReader {
+
+    private static final AutomatonSemanticsKind[] KINDS = AutomatonSemanticsKind.values();
+
+    private final byte[] bytes;
+    private int position;
+    private String[] strings;
+    private SyntaxTreeElement[] nodes;
+
+    SyntaxTreeReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    SyntaxTreeImage read() throws IOException {
+        try {
+            return readImage();
+        } catch (IndexOutOfBoundsException | ClassCastException | IllegalArgumentException e) {
+            throw new IOException("Malformed syntax tree image", e);
+        }
+    }
+
+    private SyntaxTreeImage readImage() throws IOException {
+        if (bytes.length < 4 || readInt() != MAGIC) {
+            throw new IOException("Not a GPSL syntax tree image");
+        }
+        int version = readVarInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported syntax tree image version " + version + ", expected " + VERSION);
+        }
+        int flags = readVarInt();
+
+        strings = new String[readVarInt()];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readVarInt();
+            strings[i] = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+        }
+        nodes = new SyntaxTreeElement[readVarInt()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = readNode();
+        }
+        int links = readVarInt();
+        for (int i = 0; i < links; i++) {
+            Reference reference = (Reference) nodes[readVarInt()];
+            reference.setExpression((Expression) nodes[readVarInt()]);
+        }
+        SyntaxTreeElement root = nodes[readVarInt()];
+
+        SyntaxTreeImage image = (flags & POSITIONS) != 0
+                ? readPositions(root)
+                : new SyntaxTreeImage(root, new PositionMap(), (LineIndex) null);
+        if (position != bytes.length) {
+            throw new IOException("Trailing bytes in syntax tree image");
+        }
+        return image;
+    }
+
+    private SyntaxTreeImage readPositions(SyntaxTreeElement root) {
+        int[] lineStarts = new int[readVarInt()];
+        for (int i = 1; i < lineStarts.length; i++) {
+            lineStarts[i] = lineStarts[i - 1] + readVarInt();
+        }
+        LineIndex lines = LineIndex.of(lineStarts, readVarInt());
+        var positions = new CompactPositionMap(lines);
+        int previous = 0;
+        for (SyntaxTreeElement node : nodes) {
+            int ranges = readVarInt();
+            for (int j = 0; j < ranges; j++) {
+                int delta = readVarInt();
+                int start = previous + ((delta >>> 1) ^ -(delta & 1));
+                positions.putOffsets(node, start, start + readVarInt());
+                previous = start;
+            }
+        }
+        return new SyntaxTreeImage(root, positions, lines);
+    }
+
+    private SyntaxTreeElement readNode() throws IOException {
+        byte tag = bytes[position++];
+        return switch (tag) {
+            case TRUE -> new True();
+            case FALSE -> new False();
+            case ATOM -> new Atom(string(), string());
+            case NEGATION -> new Negation(string(), expression());
+            case NEXT -> new Next(string(), expression());
+            case EVENTUALLY -> new Eventually(string(), expression());
+            case GLOBALLY -> new Globally(string(), expression());
+            case CONJUNCTION -> new Conjunction(string(), expression(), expression());
+            case DISJUNCTION -> new Disjunction(string(), expression(), expression());
+            case EXCLUSIVE_DISJUNCTION -> new ExclusiveDisjunction(string(), expression(), expression());
+            case IMPLICATION -> new Implication(string(), expression(), expression());
+            case EQUIVALENCE -> new Equivalence(string(), expression(), expression());
+            case STRONG_UNTIL -> new StrongUntil(string(), expression(), expression());
+            case WEAK_UNTIL -> new WeakUntil(string(), expression(), expression());
+            case STRONG_RELEASE -> new StrongRelease(string(), expression(), expression());
+            case WEAK_RELEASE -> new WeakRelease(string(), expression(), expression());
+            case CONDITIONAL -> new Conditional(expression(), expression(), expression());
+            case REFERENCE -> new Reference(string());
+            case LET -> new LetExpression((Declarations) child(), child());
+            case DECLARATION -> new ExpressionDeclaration(string(), expression(), bytes[position++] != 0);
+            case DECLARATIONS -> new Declarations(children(ExpressionDeclaration.class));
+            case STATE -> new State(string());
+            case TRANSITION -> {
+                State source = (State) child();
+                int priority = readVarInt();
+                yield new Transition(source, (priority >>> 1) ^ -(priority & 1), expression(), (State) child());
+            }
+            case AUTOMATON -> new Automaton(KINDS[readVarInt()],
+                    new LinkedHashSet<>(children(State.class)),
+                    new LinkedHashSet<>(children(State.class)),
+                    new LinkedHashSet<>(children(State.class)),
+                    children(Transition.class));
+            default -> throw new IOException("Unknown node tag " + tag + " in syntax tree image");
+        };
+    }
+
+    private String string() {
+        int id = readVarInt();
+        return id == 0 ? null : strings[id - 1];
+    }
+
+    private SyntaxTreeElement child() {
+        int id = readVarInt();
+        return id == 0 ? null : nodes[id - 1];
+    }
+
+    private Expression expression() {
+        return (Expression) child();
+    }
+
+    private <T extends SyntaxTreeElement> List<T> children(Class<T> type) {
+        int count = readVarInt();
+        List<T> children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            children.add(type.cast(child()));
+        }
+        return children;
+    }
+
+    private int readInt() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (bytes[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = bytes[position++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer");
+    }
+}
@@ -0,0 +1,259 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+import rege.reader.infra.Range;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static gpsl.syntax.SyntaxTreeFormat.*;
+
+/**
+ * Encodes a syntax tree into the binary syntax tree format.
+ *
+ * <p>Nodes are numbered by identity: a node reachable along several paths, as in the DAGs built by
+ * hash-consing factories, is written once, and structurally equal but distinct nodes stay distinct.
+ */
+final class SyntaxTreeWriter {
+
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final List<String> stringList = new ArrayList<>();
+    private final Map<SyntaxTreeElement, Integer> ids = new IdentityHashMap<>();
+    private final List<SyntaxTreeElement> nodes = new ArrayList<>();
+    // the linked references, in id order
+    private final List<Reference> references = new ArrayList<>();
+    private final Buffer nodeBytes = new Buffer();
+
+    void write(SyntaxTreeElement root, PositionMap positions, LineIndex lines, OutputStream stream) throws IOException {
+        int rootId = node(root);
+        // the targets of links, which may be outside the tree (e.g. external symbols)
+        for (int i = 0; i < references.size(); i++) {
+            node(references.get(i).expression());
+        }
+
+        Buffer out = new Buffer();
+        out.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+        out.writeVarInt(positions == null ? 0 : POSITIONS);
+        out.writeVarInt(stringList.size());
+        for (String string : stringList) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeVarInt(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        out.writeVarInt(nodes.size());
+        nodeBytes.writeTo(out);
+
+        out.writeVarInt(references.size());
+        for (Reference reference : references) {
+            out.writeVarInt(ids.get(reference));
+            out.writeVarInt(ids.get(reference.expression()));
+        }
+        out.writeVarInt(rootId);
+
+        if (positions != null) {
+            writePositions(out, positions, lines);
+        }
+        out.writeTo(stream);
+        stream.flush();
+    }
+
+    private void writePositions(Buffer out, PositionMap positions, LineIndex lines) {
+        int[] lineStarts = lines.lineStarts();
+        out.writeVarInt(lineStarts.length);
+        for (int i = 1; i < lineStarts.length; i++) {
+            out.writeVarInt(lineStarts[i] - lineStarts[i - 1]);
+        }
+        out.writeVarInt(lines.length());
+
+        int previous = 0;
+        for (SyntaxTreeElement node : nodes) {
+            List<Range> ranges = positions.getAll(node);
+            out.writeVarInt(ranges.size());
+            for (Range range : ranges) {
+                int start = range.start().offset();
+                // zig-zag encoded: children come before their parent, which starts at or before them
+                out.writeVarInt(((start - previous) << 1) ^ ((start - previous) >> 31));
+                out.writeVarInt(range.end().offset() - start);
+                previous = start;
+            }
+        }
+    }
+
+    private int string(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = strings.get(value);
+        if (id == null) {
+            id = stringList.size();
+            strings.put(value, id);
+            stringList.add(value);
+        }
+        return id + 1;
+    }
+
+    private int child(SyntaxTreeElement element) {
+        return element == null ? 0 : node(element) + 1;
+    }
+
+    private int node(SyntaxTreeElement element) {
+        Integer id = ids.get(element);
+        if (id != null) {
+            return id;
+        }
+        // children first, so that every id refers to an already decoded node
+        switch (element) {
+            case True t -> nodeBytes.write(TRUE);
+            case False f -> nodeBytes.write(FALSE);
+            case Atom atom -> {
+                int value = string(atom.value());
+                int delimiter = string(atom.delimiter());
+                nodeBytes.write(ATOM);
+                nodeBytes.writeVarInt(value);
+                nodeBytes.writeVarInt(delimiter);
+            }
+            case Negation e -> unary(NEGATION, e.operator(), e.expression());
+            case Next e -> unary(NEXT, e.operator(), e.expression());
+            case Eventually e -> unary(EVENTUALLY, e.operator(), e.expression());
+            case Globally e -> unary(GLOBALLY, e.operator(), e.expression());
+            case Conjunction e -> binary(CONJUNCTION, e.operator(), e.left(), e.right());
+            case Disjunction e -> binary(DISJUNCTION, e.operator(), e.left(), e.right());
+            case ExclusiveDisjunction e -> binary(EXCLUSIVE_DISJUNCTION, e.operator(), e.left(), e.right());
+            case Implication e -> binary(IMPLICATION, e.operator(), e.left(), e.right());
+            case Equivalence e -> binary(EQUIVALENCE, e.operator(), e.left(), e.right());
+            case StrongUntil e -> binary(STRONG_UNTIL, e.operator(), e.left(), e.right());
+            case WeakUntil e -> binary(WEAK_UNTIL, e.operator(), e.left(), e.right());
+            case StrongRelease e -> binary(STRONG_RELEASE, e.operator(), e.left(), e.right());
+            case WeakRelease e -> binary(WEAK_RELEASE, e.operator(), e.left(), e.right());
+            case Conditional e -> {
+                int condition = child(e.condition());
+                int trueBranch = child(e.trueBranch());
+                int falseBranch = child(e.falseBranch());
+                nodeBytes.write(CONDITIONAL);
+                nodeBytes.writeVarInt(condition);
+                nodeBytes.writeVarInt(trueBranch);
+                nodeBytes.writeVarInt(falseBranch);
+            }
+            case Reference reference -> {
+                int name = string(reference.name());
+                nodeBytes.write(REFERENCE);
+                nodeBytes.writeVarInt(name);
+                if (reference.expression() != null) {
+                    references.add(reference);
+                }
+            }
+            case LetExpression let -> {
+                int declarations = child(let.declarations());
+                int body = child(let.expression());
+                nodeBytes.write(LET);
+                nodeBytes.writeVarInt(declarations);
+                nodeBytes.writeVarInt(body);
+            }
+            case ExpressionDeclaration declaration -> {
+                int name = string(declaration.name());
+                int expression = child(declaration.expression());
+                nodeBytes.write(DECLARATION);
+                nodeBytes.writeVarInt(name);
+                nodeBytes.writeVarInt(expression);
+                nodeBytes.write(declaration.isInternal() ? 1 : 0);
+            }
+            case Declarations declarations -> {
+                int[] children = children(declarations.declarations());
+                nodeBytes.write(DECLARATIONS);
+                writeChildren(children);
+            }
+            case State state -> {
+                int name = string(state.name());
+                nodeBytes.write(STATE);
+                nodeBytes.writeVarInt(name);
+            }
+            case Transition transition -> {
+                int source = child(transition.source());
+                int guard = child(transition.guard());
+                int target = child(transition.target());
+                nodeBytes.write(TRANSITION);
+                nodeBytes.writeVarInt(source);
+                // zig-zag encoded, priorities may be negative
+                nodeBytes.writeVarInt((transition.priority() << 1) ^ (transition.priority() >> 31));
+                nodeBytes.writeVarInt(guard);
+                nodeBytes.writeVarInt(target);
+            }
+            case Automaton automaton -> {
+                int[] states = children(automaton.states());
+                int[] initialStates = children(automaton.initialStates());
+                int[] acceptStates = children(automaton.acceptStates());
+                int[] transitions = children(automaton.transitions());
+                nodeBytes.write(AUTOMATON);
+                nodeBytes.writeVarInt(automaton.semanticsKind().ordinal());
+                writeChildren(states);
+                writeChildren(initialStates);
+                writeChildren(acceptStates);
+                writeChildren(transitions);
+            }
+        }
+        id = nodes.size();
+        nodes.add(element);
+        ids.put(element, id);
+        return id;
+    }
+
+    private int[] children(Collection<? extends SyntaxTreeElement> elements) {
+        int[] children = new int[elements.size()];
+        int i = 0;
+        for (SyntaxTreeElement element : elements) {
+            children[i++] = child(element);
+        }
+        return children;
+    }
+
+    private void writeChildren(int[] children) {
+        nodeBytes.writeVarInt(children.length);
+        for (int child : children) {
+            nodeBytes.writeVarInt(child);
+        }
+    }
+
+    private void unary(byte tag, String operator, Expression operand) {
+        int op = string(operator);
+        int child = child(operand);
+        nodeBytes.write(tag);
+        nodeBytes.writeVarInt(op);
+        nodeBytes.writeVarInt(child);
+    }
+
+    private void binary(byte tag, String operator, Expression left, Expression right) {
+        int op = string(operator);
+        int l = child(left);
+        int r = child(right);
+        nodeBytes.write(tag);
+        nodeBytes.writeVarInt(op);
+        nodeBytes.writeVarInt(l);
+        nodeBytes.writeVarInt(r);
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(1024);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package gpsl.syntax;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Replacement of the source text between two offsets.
+ *
+ * @param start the offset of the first replaced character
+ * @param end the offset after the last replaced character ({@code start} for an insertion)
+ * @param text the new text
+ */
+public record TextEdit(int start, int end, String text) {
+
+    public TextEdit {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid edit range [" + start + ", " + end + ")");
+        }
+    }
+
+    /**
+     * Gets the change of length of the source.
+     */
+    public int delta() {
+        return text.length() - (end - start);
+    }
+
+    /**
+     * Applies edits expressed against the same source.
+     *
+     * @param source the source
+     * @param edits non-overlapping edits, in any order
+     * @return the edited source
+     * @throws IllegalArgumentException if edits overlap or exceed the source
+     */
+    public static String apply(String source, List<TextEdit> edits) {
+        List<TextEdit> sorted = sorted(edits);
+        StringBuilder builder = new StringBuilder(source.length());
+        int copied = 0;
+        for (TextEdit edit : sorted) {
+            if (edit.start() < copied || edit.end() > source.length()) {
+                throw new IllegalArgumentException("Overlapping or out of range edit " + edit);
+            }
+            builder.append(source, copied, edit.start()).append(edit.text());
+            copied = edit.end();
+        }
+        return builder.append(source, copied, source.length()).toString();
+    }
+
+    static List<TextEdit> sorted(List<TextEdit> edits) {
+        return edits.stream().sorted(Comparator.comparingInt(TextEdit::start).thenComparingInt(TextEdit::end)).toList();
+    }
+}
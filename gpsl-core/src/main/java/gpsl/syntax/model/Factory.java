@@ -206,6 +206,10 @@ public class Factory {
         return wrap(new LetExpression(wrap(declarations), wrap(expression)));
     }
 
+    public Expression letExpression(Declarations declarations, Automaton automaton) {
+        return wrap(new LetExpression(wrap(declarations), wrap(automaton)));
+    }
+
     public Expression letExpression(Expression expression, ExpressionDeclaration... whereClauses) {
         return wrap(new LetExpression(wrap(declarations(whereClauses)), wrap(expression)));
     }
@@ -0,0 +1,345 @@
+package gpsl.toBuchi;
+
+import gpsl.syntax.model.*;
+
+import java.util.*;
+
+/**
+ * Language-preserving reduction of Büchi (and NFA) automata, applied to the LTL3BA output.
+ *
+ * <p>The pipeline runs the following passes:
+ * <ol>
+ *   <li><b>guard simplification</b>: guards are simplified by the {@link GuardAlgebra} and
+ *       transitions with unsatisfiable guards are dropped;</li>
+ *   <li><b>guard merging</b>: parallel transitions with the same source, priority and target
+ *       are merged into one transition guarded by the disjunction of their guards;</li>
+ *   <li><b>dead-state removal</b>: states not reachable from an initial state are removed, as are
+ *       states from which no accepting run can continue (no accepting cycle for Büchi automata,
+ *       no accepting state for NFAs);</li>
+ *   <li><b>direct-simulation quotienting</b>: states that simulate each other are merged, and
+ *       transitions dominated by another transition of the same source are dropped.</li>
+ * </ol>
+ *
+ * <p>Removing a transition can enable lower-priority transitions of the same source, so the last
+ * two passes only apply to automata whose transitions all have the same priority (which is the
+ * case for LTL3BA output). Automata with several priorities only get the first two passes and the
+ * removal of unreachable states.
+ *
+ * <p>The simulation is only computed for automata of at most {@link #DEFAULT_SIMULATION_LIMIT}
+ * states by default: larger automata only get the first three passes.
+ *
+ * <p>How much is reduced depends on the {@link GuardAlgebra}: the syntactic algebra only merges
+ * guards and recognizes trivial implications, a BDD-based algebra decides them exactly.
+ */
+public class BuchiReduction {
+
+    /**
+     * The number of states above which the simulation is not computed by default.
+     */
+    public static final int DEFAULT_SIMULATION_LIMIT = 256;
+
+    private final GuardAlgebra algebra;
+    private final Factory factory;
+    private final int simulationLimit;
+
+    /**
+     * Creates a reduction using the syntactic guard algebra and the default factory.
+     */
+    public BuchiReduction() {
+        this(GuardAlgebra.syntactic(Factory.instance()), Factory.instance());
+    }
+
+    /**
+     * Creates a reduction.
+     *
+     * @param algebra the guard algebra deciding satisfiability and implication of guards
+     * @param factory the factory used to build the reduced automaton
+     */
+    public BuchiReduction(GuardAlgebra algebra, Factory factory) {
+        this(algebra, factory, DEFAULT_SIMULATION_LIMIT);
+    }
+
+    /**
+     * Creates a reduction computing the simulation of automata of at most the given number of states.
+     *
+     * @param algebra the guard algebra deciding satisfiability and implication of guards
+     * @param factory the factory used to build the reduced automaton
+     * @param simulationLimit the number of states above which simulation quotienting is skipped
+     */
+    public BuchiReduction(GuardAlgebra algebra, Factory factory, int simulationLimit) {
+        this.algebra = algebra;
+        this.factory = factory;
+        this.simulationLimit = simulationLimit;
+    }
+
+    /**
+     * Reduces an automaton.
+     *
+     * @param automaton the automaton to reduce
+     * @return an automaton accepting the same language, with at most as many states and transitions
+     */
+    public Automaton reduce(Automaton automaton) {
+        var work = new Work(automaton);
+        work.transitions = mergeParallel(simplifyGuards(work.transitions));
+
+        boolean singlePriority = work.transitions.stream().mapToInt(Transition::priority).distinct().count() <= 1;
+        removeDeadStates(work, singlePriority);
+        if (singlePriority && work.states.size() <= simulationLimit) {
+            quotientBySimulation(work);
+            removeDeadStates(work, true);
+        }
+        return factory.automaton(
+                automaton.semanticsKind(),
+                work.states,
+                work.initialStates,
+                work.acceptStates,
+                work.transitions);
+    }
+
+    /**
+     * Mutable view of the automaton being reduced, keeping the original iteration order.
+     */
+    private static final class Work {
+        final AutomatonSemanticsKind kind;
+        Set<State> states;
+        Set<State> initialStates;
+        Set<State> acceptStates;
+        List<Transition> transitions;
+
+        Work(Automaton automaton) {
+            kind = automaton.semanticsKind();
+            states = new LinkedHashSet<>(automaton.states());
+            initialStates = new LinkedHashSet<>(automaton.initialStates());
+            acceptStates = new LinkedHashSet<>(automaton.acceptStates());
+            transitions = new ArrayList<>(automaton.transitions());
+        }
+    }
+
+    private List<Transition> simplifyGuards(List<Transition> transitions) {
+        List<Transition> result = new ArrayList<>(transitions.size());
+        for (Transition t : transitions) {
+            Expression guard = algebra.simplify(t.guard());
+            if (algebra.isUnsatisfiable(guard)) {
+                continue;
+            }
+            result.add(guard == t.guard() ? t : new Transition(t.source(), t.priority(), guard, t.target()));
+        }
+        return result;
+    }
+
+    private record Edge(State source, int priority, State target) {}
+
+    private List<Transition> mergeParallel(List<Transition> transitions) {
+        Map<Edge, Expression> guards = new LinkedHashMap<>();
+        for (Transition t : transitions) {
+            guards.merge(new Edge(t.source(), t.priority(), t.target()), t.guard(), algebra::or);
+        }
+        if (guards.size() == transitions.size()) {
+            return transitions;
+        }
+        List<Transition> result = new ArrayList<>(guards.size());
+        guards.forEach((edge, guard) -> result.add(
+                factory.transition(edge.source(), edge.priority(), guard, edge.target())));
+        // keep transitions sorted by priority, as required by AutomatonSemantics
+        result.sort(Comparator.comparingInt(Transition::priority));
+        return result;
+    }
+
+    private void removeDeadStates(Work work, boolean removeUnproductive) {
+        Map<State, List<State>> successors = new HashMap<>();
+        Map<State, List<State>> predecessors = new HashMap<>();
+        for (Transition t : work.transitions) {
+            successors.computeIfAbsent(t.source(), k -> new ArrayList<>()).add(t.target());
+            predecessors.computeIfAbsent(t.target(), k -> new ArrayList<>()).add(t.source());
+        }
+
+        Set<State> live = reach(work.initialStates, successors);
+        if (removeUnproductive) {
+            Set<State> goals = new HashSet<>();
+            for (State accept : work.acceptStates) {
+                if (!live.contains(accept)) continue;
+                // Büchi acceptance needs an accepting state on a cycle
+                if (work.kind != AutomatonSemanticsKind.BUCHI
+                        || reach(successors.getOrDefault(accept, List.of()), successors).contains(accept)) {
+                    goals.add(accept);
+                }
+            }
+            live.retainAll(reach(goals, predecessors));
+        }
+        if (live.size() == work.states.size()) {
+            return;
+        }
+        work.states.retainAll(live);
+        work.initialStates.retainAll(live);
+        work.acceptStates.retainAll(live);
+        work.transitions.removeIf(t -> !live.contains(t.source()) || !live.contains(t.target()));
+    }
+
+    private static Set<State> reach(Collection<State> from, Map<State, List<State>> edges) {
+        Set<State> visited = new HashSet<>(from);
+        Deque<State> stack = new ArrayDeque<>(from);
+        while (!stack.isEmpty()) {
+            for (State next : edges.getOrDefault(stack.pop(), List.of())) {
+                if (visited.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        return visited;
+    }
+
+    private void quotientBySimulation(Work work) {
+        List<State> states = new ArrayList<>(work.states);
+        int n = states.size();
+        if (n == 0) {
+            return;
+        }
+        Map<State, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            index.put(states.get(i), i);
+        }
+        List<List<Transition>> outgoing = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            outgoing.add(new ArrayList<>());
+        }
+        for (Transition t : work.transitions) {
+            outgoing.get(index.get(t.source())).add(t);
+        }
+
+        boolean[][] simulated = directSimulation(work, states, index, outgoing);
+
+        // Merge simulation-equivalent states, preferring initial states as representatives
+        State[] representative = new State[n];
+        for (int i = 0; i < n; i++) {
+            if (representative[i] != null) continue;
+            State chosen = states.get(i);
+            for (int j = i; j < n; j++) {
+                if (simulated[i][j] && simulated[j][i] && work.initialStates.contains(states.get(j))) {
+                    chosen = states.get(j);
+                    break;
+                }
+            }
+            for (int j = i; j < n; j++) {
+                if (simulated[i][j] && simulated[j][i]) {
+                    representative[j] = chosen;
+                }
+            }
+        }
+
+        // Drop transitions dominated by another transition of the same source
+        List<Transition> kept = new ArrayList<>();
+        for (List<Transition> out : outgoing) {
+            List<Transition> remaining = new ArrayList<>(out);
+            for (Transition t : out) {
+                int target = index.get(t.target());
+                boolean dominated = remaining.stream().anyMatch(other -> other != t
+                        && simulated[target][index.get(other.target())]
+                        && algebra.implies(t.guard(), other.guard()));
+                if (dominated) {
+                    remaining.remove(t);
+                }
+            }
+            kept.addAll(remaining);
+        }
+
+        List<Transition> quotient = new ArrayList<>(kept.size());
+        for (Transition t : kept) {
+            State source = representative[index.get(t.source())];
+            State target = representative[index.get(t.target())];
+            quotient.add(source == t.source() && target == t.target()
+                    ? t
+                    : factory.transition(source, t.priority(), t.guard(), target));
+        }
+        work.transitions = mergeParallel(quotient);
+        work.states = mapStates(work.states, index, representative);
+        work.initialStates = mapStates(work.initialStates, index, representative);
+        work.acceptStates = mapStates(work.acceptStates, index, representative);
+    }
+
+    /**
+     * Computes the direct simulation preorder: {@code simulated[i][j]} holds when state j
+     * simulates state i, i.e. j is accepting whenever i is, and every transition of i is
+     * matched, for every valuation of its guard, by a transition of j to a state simulating its target.
+     *
+     * <p>Each pass only checks again the states with a transition to a state whose simulation was
+     * refined by the previous pass, and the covers of a target are only built again once it is refined.
+     */
+    private boolean[][] directSimulation(Work work, List<State> states, Map<State, Integer> index,
+                                         List<List<Transition>> outgoing) {
+        int n = states.size();
+        boolean[][] simulated = new boolean[n][n];
+        for (int i = 0; i < n; i++) {
+            boolean accepting = work.acceptStates.contains(states.get(i));
+            for (int j = 0; j < n; j++) {
+                simulated[i][j] = !accepting || work.acceptStates.contains(states.get(j));
+            }
+        }
+        int[][] targets = new int[n][];
+        List<BitSet> predecessors = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            predecessors.add(new BitSet(n));
+        }
+        for (int i = 0; i < n; i++) {
+            List<Transition> out = outgoing.get(i);
+            targets[i] = new int[out.size()];
+            for (int k = 0; k < out.size(); k++) {
+                targets[i][k] = index.get(out.get(k).target());
+                predecessors.get(targets[i][k]).set(i);
+            }
+        }
+
+        // covers[target][j]: disjunction of the guards of the transitions of j to a state simulating target
+        Expression[][] covers = new Expression[n][];
+        BitSet pending = new BitSet(n);
+        pending.set(0, n);
+        while (!pending.isEmpty()) {
+            BitSet refined = new BitSet(n);
+            for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i + 1)) {
+                List<Transition> out = outgoing.get(i);
+                for (int j = 0; j < n; j++) {
+                    if (i == j || !simulated[i][j]) continue;
+                    for (int k = 0; k < out.size(); k++) {
+                        if (!algebra.implies(out.get(k).guard(), cover(covers, simulated, targets, outgoing, targets[i][k], j))) {
+                            simulated[i][j] = false;
+                            refined.set(i);
+                            break;
+                        }
+                    }
+                }
+            }
+            pending = new BitSet(n);
+            for (int i = refined.nextSetBit(0); i >= 0; i = refined.nextSetBit(i + 1)) {
+                covers[i] = null;
+                pending.or(predecessors.get(i));
+            }
+        }
+        return simulated;
+    }
+
+    private Expression cover(Expression[][] covers, boolean[][] simulated, int[][] targets,
+                             List<List<Transition>> outgoing, int target, int j) {
+        if (covers[target] == null) {
+            covers[target] = new Expression[simulated.length];
+        }
+        Expression cover = covers[target][j];
+        if (cover == null) {
+            cover = factory.f();
+            List<Transition> out = outgoing.get(j);
+            for (int k = 0; k < out.size(); k++) {
+                if (simulated[target][targets[j][k]]) {
+                    cover = algebra.or(cover, out.get(k).guard());
+                }
+            }
+            covers[target][j] = cover;
+        }
+        return cover;
+    }
+
+    private static Set<State> mapStates(Set<State> states, Map<State, Integer> index, State[] representative) {
+        Set<State> result = new LinkedHashSet<>();
+        for (State state : states) {
+            result.add(representative[index.get(state)]);
+        }
+        return result;
+    }
+}
@@ -1,14 +1,13 @@
 package gpsl.toBuchi;
 
 import gpsl.ltl3ba.LTL3BA;
-import gpsl.syntax.Reader;
-import gpsl.syntax.model.Automaton;
-import gpsl.syntax.model.Expression;
+import gpsl.ltl3ba.Ltl3baOptions;
+import gpsl.syntax.model.*;
 import rege.reader.infra.ParseResult;
 import rege.reader.infra.ParseError;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 
 public class Expression2BuchiAutomaton {
 
@@ -19,20 +18,80 @@ public class Expression2BuchiAutomaton {
      * @return ParseResult containing the automaton or errors from guard parsing
      */
     public static ParseResult<Automaton> convert(Expression gpslExpression) {
+        return convert(gpslExpression, Factory.instance());
+    }
+
+    /**
+     * Converts a GPSL expression to a Büchi automaton using LTL3BA,
+     * building the transition guards through the given factory.
+     *
+     * @param gpslExpression the GPSL expression to convert
+     * @param factory the factory used to build the guards (e.g. a hash-consing factory)
+     * @return ParseResult containing the automaton or errors from guard parsing
+     */
+    public static ParseResult<Automaton> convert(Expression gpslExpression, Factory factory) {
+        return convert(gpslExpression, factory, new BuchiReduction(GuardAlgebra.syntactic(factory), factory));
+    }
+
+    /**
+     * Converts a GPSL expression to a Büchi automaton using LTL3BA, and reduces the result.
+     *
+     * @param gpslExpression the GPSL expression to convert
+     * @param factory the factory used to build the guards (e.g. a hash-consing factory)
+     * @param reduction the reduction applied to the LTL3BA automaton
+     * @return ParseResult containing the automaton or errors from guard parsing
+     */
+    public static ParseResult<Automaton> convert(Expression gpslExpression, Factory factory, BuchiReduction reduction) {
+        return convert(gpslExpression, factory, Ltl3baOptions.defaults(), reduction);
+    }
+
+    /**
+     * Converts a GPSL expression to a Büchi automaton using LTL3BA with the given options.
+     *
+     * @param gpslExpression the GPSL expression to convert
+     * @param options the ltl3ba optimization switches
+     * @return ParseResult containing the automaton or errors from guard parsing
+     */
+    public static ParseResult<Automaton> convert(Expression gpslExpression, Ltl3baOptions options) {
+        Factory factory = Factory.instance();
+        return convert(gpslExpression, factory, options, new BuchiReduction(GuardAlgebra.syntactic(factory), factory));
+    }
+
+    /**
+     * Converts a GPSL expression to a Büchi automaton using LTL3BA with the given options,
+     * and reduces the result.
+     *
+     * @param gpslExpression the GPSL expression to convert
+     * @param factory the factory used to build the guards (e.g. a hash-consing factory)
+     * @param options the ltl3ba optimization switches
+     * @param reduction the reduction applied to the LTL3BA automaton
+     * @return ParseResult containing the automaton or errors from guard parsing
+     */
+    public static ParseResult<Automaton> convert(Expression gpslExpression, Factory factory, Ltl3baOptions options,
+                                                 BuchiReduction reduction) {
         try {
-            //Convert GPSL expression to LTL3BA formula
+            //Abstract maximal propositional subformulas, only the temporal skeleton goes to LTL3BA
+            var abstraction = new PropositionalAbstraction();
+            Expression skeleton = abstraction.abstractPropositions(gpslExpression);
+
+            //Convert the skeleton to LTL3BA formula
             var transformer = new LTL3BATransformer();
-            String ltlFormula = gpslExpression.accept(transformer, null);
-            
-            //Fetch buchi automaton text from LTL3BA
-            var automatonText = LTL3BA.getInstance().convert(ltlFormula);
-            
-            // Convert atom map to Object map for parsing context
-            java.util.Map<String, Object> atomContext = new java.util.HashMap<>(transformer.getNameToAtomMap());
-            
-            //Read automaton from text with atom context
-            return AutomatonReaderFromLTL3BA.read(automatonText, atomContext);
+            String ltlFormula = skeleton.accept(transformer, null);
+
+            //Stream the buchi automaton from LTL3BA, substituting the subformulas back into the guards
+            var guardParser = new LTL3BAGuardParser(abstraction.substitute(transformer.getNameToAtomMap()), factory);
+            var reader = new AutomatonReaderFromLTL3BA(guardParser);
+            LTL3BA.getInstance().convert(ltlFormula, options, reader);
+            var result = reader.result();
+            if (result instanceof ParseResult.Success<Automaton>(Automaton automaton)) {
+                return new ParseResult.Success<>(reduction.reduce(automaton));
+            }
+            return result;
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                // ltl3ba was killed, the caller decides what the interruption means
+                Thread.currentThread().interrupt();
+            }
             // Wrap LTL3BA errors as parse errors
             ParseError error = new ParseError(
                 null, // no specific range for LTL3BA conversion errors
@@ -43,93 +102,126 @@ public class Expression2BuchiAutomaton {
         }
     }
 
-    private static class AutomatonReaderFromLTL3BA {
-        static ParseResult<Automaton> read(String automatonText, java.util.Map<String, Object> context) {
-            List<ParseError> errors = new ArrayList<>();
-            
-            // Parse LTL3BA output format (CSV-like: source,target,guard,...)
-            String[] lines = automatonText.split("\n");
-            
+    /**
+     * Incremental reader for the LTL3BA output format (CSV-like: source, target, "guard", ...).
+     * Lines are consumed as LTL3BA writes them; states and transitions are built on the fly.
+     */
+    private static class AutomatonReaderFromLTL3BA implements Consumer<String> {
+        private final LTL3BAGuardParser guardParser;
+        private final List<ParseError> errors = new ArrayList<>();
+        private String failedGuard = null;
+
+        private final Set<State> states = new HashSet<>();
+        private final Set<State> initialStates = new HashSet<>();
+        private final Set<State> acceptStates = new HashSet<>();
+        private final List<Transition> transitions = new ArrayList<>();
+        private final Map<String, State> stateByName = new HashMap<>();
+
+        private boolean headerRead = false;
+
+        AutomatonReaderFromLTL3BA(LTL3BAGuardParser guardParser) {
+            this.guardParser = guardParser;
+        }
+
+        @Override
+        public void accept(String rawLine) {
             // Skip first line (acc = "...") header
-            java.util.Set<gpsl.syntax.model.State> states = new java.util.HashSet<>();
-            java.util.Set<gpsl.syntax.model.State> initialStates = new java.util.HashSet<>();
-            java.util.Set<gpsl.syntax.model.State> acceptStates = new java.util.HashSet<>();
-            java.util.List<gpsl.syntax.model.Transition> transitions = new java.util.ArrayList<>();
-            
-            // Process all lines after the header (line 0)
-            for (int i = 1; i < lines.length; i++) {
-                String line = lines[i].trim();
-                if (line.isEmpty()) continue;
-                
-                // Parse CSV line: source,target,guard,...
-                String[] parts = line.split(",");
-                // Take only first 3 parts and remove quotes
-                String source = parts[0].replace("\"", "").trim();
-                String target = parts[1].replace("\"", "").trim();
-                String guardStr = parts[2].replace("\"", "").trim();
-                
-                // Create or retrieve states
-                gpsl.syntax.model.State sourceState = new gpsl.syntax.model.State(source);
-                gpsl.syntax.model.State targetState = new gpsl.syntax.model.State(target);
-                
-                states.add(sourceState);
-                states.add(targetState);
-                
-                // Check for initial states (contains "init")
-                if (source.contains("init")) {
-                    initialStates.add(sourceState);
-                }
-                if (target.contains("init")) {
-                    initialStates.add(targetState);
-                }
-                
-                // Check for accept states (contains "accept")
-                if (source.contains("accept")) {
-                    acceptStates.add(sourceState);
-                }
-                if (target.contains("accept")) {
-                    acceptStates.add(targetState);
+            if (!headerRead) {
+                headerRead = true;
+                return;
+            }
+            String line = rawLine.trim();
+            if (line.isEmpty()) return;
+
+            // Take only the first 3 fields: source, target, guard
+            int sourceEnd = nextField(line, 0);
+            int targetEnd = nextField(line, sourceEnd + 1);
+            int guardEnd = nextField(line, targetEnd + 1);
+            String source = unquote(line, 0, sourceEnd);
+            String target = unquote(line, sourceEnd + 1, targetEnd);
+            String guardStr = unquote(line, targetEnd + 1, guardEnd);
+
+            // Create or retrieve states
+            State sourceState = state(source);
+            State targetState = state(target);
+
+            // Parse guard expression, atoms are resolved by the guard parser - collect errors instead of throwing
+            ParseResult<Expression> guardResult = guardParser.parse(guardStr);
+
+            if (guardResult instanceof ParseResult.Success<Expression> success) {
+                // Create transition with priority 0
+                transitions.add(new Transition(sourceState, 0, success.value(), targetState));
+            } else if (guardResult instanceof ParseResult.Failure<Expression> failure) {
+                if (failedGuard == null) {
+                    failedGuard = guardStr;
                 }
-                
-                // Parse guard expression and link with context - collect errors instead of throwing
-                var guardResultWithPos = Reader.parseExpressionWithPositions(guardStr);
-                ParseResult<Expression> guardResult = Reader.linkWithPositions(guardResultWithPos, context);
-                
-                if (guardResult instanceof ParseResult.Success<Expression> success) {
-                    Expression guard = success.value();
-                    
-                    // Create transition with priority 0
-                    gpsl.syntax.model.Transition transition = new gpsl.syntax.model.Transition(
-                        sourceState, 0, guard, targetState
+                // Collect guard parsing errors with context about which transition failed
+                for (ParseError error : failure.errors()) {
+                    ParseError contextualError = new ParseError(
+                        error.range(),
+                        "Failed to parse guard expression '" + guardStr + "' for transition "
+                            + source + " -> " + target + ": " + error.message(),
+                        error.code().orElse("guard-parse-error")
                     );
-                    transitions.add(transition);
-                } else if (guardResult instanceof ParseResult.Failure<Expression> failure) {
-                    // Collect guard parsing errors with context about which transition failed
-                    for (ParseError error : failure.errors()) {
-                        ParseError contextualError = new ParseError(
-                            error.range(),
-                            "Failed to parse guard expression '" + guardStr + "' for transition " 
-                                + source + " -> " + target + ": " + error.message(),
-                            error.code().orElse("guard-parse-error")
-                        );
-                        errors.add(contextualError);
-                    }
+                    errors.add(contextualError);
                 }
             }
-            
+        }
+
+        private State state(String name) {
+            State existing = stateByName.get(name);
+            if (existing != null) {
+                return existing;
+            }
+            State state = new State(name);
+            stateByName.put(name, state);
+            states.add(state);
+            // Initial states contain "init", accept states contain "accept"
+            if (name.contains("init")) {
+                initialStates.add(state);
+            }
+            if (name.contains("accept")) {
+                acceptStates.add(state);
+            }
+            return state;
+        }
+
+        /**
+         * Returns the index of the comma ending the field starting at {@code from}
+         * (or the line length), ignoring commas inside double quotes.
+         */
+        private static int nextField(String line, int from) {
+            boolean quoted = false;
+            for (int i = from; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == ',' && !quoted) {
+                    return i;
+                }
+            }
+            return line.length();
+        }
+
+        private static String unquote(String line, int from, int to) {
+            if (from >= to) return "";
+            return line.substring(from, to).replace("\"", "").trim();
+        }
+
+        ParseResult<Automaton> result() {
             // If there were any errors parsing guards, return failure
             if (!errors.isEmpty()) {
-                return new ParseResult.Failure<>(errors, automatonText);
+                return new ParseResult.Failure<>(errors, failedGuard);
             }
-            
+
             Automaton automaton = new Automaton(
-                gpsl.syntax.model.AutomatonSemanticsKind.BUCHI,
+                AutomatonSemanticsKind.BUCHI,
                 states,
                 initialStates,
                 acceptStates,
                 transitions
             );
-            
+
             return new ParseResult.Success<>(automaton);
         }
     }
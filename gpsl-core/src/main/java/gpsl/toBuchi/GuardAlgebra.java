@@ -0,0 +1,82 @@
+package gpsl.toBuchi;
+
+import gpsl.syntax.model.*;
+
+/**
+ * Boolean reasoning on transition guards, as needed by {@link BuchiReduction}.
+ *
+ * <p>Implementations must be sound: {@link #isUnsatisfiable} and {@link #implies} may answer
+ * {@code false} when they cannot decide, but never {@code true} wrongly. The
+ * {@link #syntactic(Factory) syntactic} algebra only recognizes trivial cases; a complete,
+ * BDD-based algebra is provided by the {@code gpsl-otf} module.
+ */
+public interface GuardAlgebra {
+
+    /**
+     * Builds the disjunction of two guards.
+     */
+    Expression or(Expression left, Expression right);
+
+    /**
+     * Returns an equivalent, possibly simpler guard.
+     */
+    Expression simplify(Expression guard);
+
+    /**
+     * Checks whether no valuation satisfies the guard.
+     */
+    boolean isUnsatisfiable(Expression guard);
+
+    /**
+     * Checks whether every valuation satisfying {@code left} satisfies {@code right}.
+     */
+    boolean implies(Expression left, Expression right);
+
+    /**
+     * Creates an algebra that decides only syntactically obvious cases,
+     * building disjunctions through the given factory.
+     *
+     * @param factory the factory used to build merged guards
+     * @return a sound but incomplete guard algebra
+     */
+    static GuardAlgebra syntactic(Factory factory) {
+        return new GuardAlgebra() {
+            @Override
+            public Expression or(Expression left, Expression right) {
+                if (left instanceof True || right instanceof False) return left;
+                if (right instanceof True || left instanceof False) return right;
+                if (left.equals(right)) return left;
+                return factory.disjunction("||", left, right);
+            }
+
+            @Override
+            public Expression simplify(Expression guard) {
+                return guard;
+            }
+
+            @Override
+            public boolean isUnsatisfiable(Expression guard) {
+                return switch (guard) {
+                    case False f -> true;
+                    case Reference r -> r.expression() != null && isUnsatisfiable(r.expression());
+                    case Conjunction c -> isUnsatisfiable(c.left()) || isUnsatisfiable(c.right())
+                            || c.left().equals(new Negation("!", c.right()))
+                            || c.right().equals(new Negation("!", c.left()));
+                    case Disjunction d -> isUnsatisfiable(d.left()) && isUnsatisfiable(d.right());
+                    default -> false;
+                };
+            }
+
+            @Override
+            public boolean implies(Expression left, Expression right) {
+                if (right instanceof True || left instanceof False || left.equals(right)) return true;
+                if (left instanceof Reference r && r.expression() != null) return implies(r.expression(), right);
+                if (right instanceof Reference r && r.expression() != null) return implies(left, r.expression());
+                if (left instanceof Disjunction d) return implies(d.left(), right) && implies(d.right(), right);
+                if (right instanceof Conjunction c) return implies(left, c.left()) && implies(left, c.right());
+                if (right instanceof Disjunction d && (implies(left, d.left()) || implies(left, d.right()))) return true;
+                return left instanceof Conjunction c && (implies(c.left(), right) || implies(c.right(), right));
+            }
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package gpsl.toBuchi;
+
+import gpsl.syntax.model.Atom;
+import gpsl.syntax.model.Expression;
+import gpsl.syntax.model.Factory;
+import rege.reader.infra.ParseError;
+import rege.reader.infra.ParseResult;
+import rege.reader.infra.Position;
+import rege.reader.infra.Range;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Hand-written parser for the transition guards emitted by LTL3BA.
+ *
+ * <p>LTL3BA only produces a small propositional fragment:
+ * <pre>
+ * guard   := and ('||' and)*
+ * and     := unary ('&amp;&amp;' unary)*
+ * unary   := '!' unary | primary
+ * primary := '(' guard ')' | 'true' | '1' | 'false' | '0' | name
+ * </pre>
+ * where {@code name} is one of the atom names assigned by {@link LTL3BATransformer}.
+ * Names are resolved directly from the transformer's name map, so no symbol
+ * resolution pass is needed.
+ *
+ * <p>Guards are built through the supplied {@link Factory}, and the parsed guard
+ * is cached per guard text: a guard occurring on several transitions is parsed once
+ * and shared. With a hash-consing factory, structurally equal guards are shared too.
+ */
+public class LTL3BAGuardParser {
+
+    private final Map<String, ? extends Expression> nameToExpression;
+    private final Factory factory;
+    private final Map<String, Expression> cache = new HashMap<>();
+
+    private String text;
+    private int index;
+
+    /**
+     * Creates a guard parser.
+     *
+     * @param nameToExpression the atom names used in the LTL3BA formula and their expressions
+     * @param factory the factory used to build the guards
+     */
+    public LTL3BAGuardParser(Map<String, ? extends Expression> nameToExpression, Factory factory) {
+        this.nameToExpression = nameToExpression;
+        this.factory = factory;
+    }
+
+    /**
+     * Parses one guard.
+     *
+     * @param guard the guard text, e.g. {@code (!atom0) || (atom0 && atom1)}
+     * @return ParseResult containing the guard or a single error
+     */
+    public ParseResult<Expression> parse(String guard) {
+        Expression cached = cache.get(guard);
+        if (cached != null) {
+            return new ParseResult.Success<>(cached);
+        }
+        text = guard;
+        index = 0;
+        try {
+            Expression result = disjunction();
+            skipWhitespace();
+            if (index < text.length()) {
+                throw error("unexpected '" + text.charAt(index) + "'", "syntax-error");
+            }
+            cache.put(guard, result);
+            return new ParseResult.Success<>(result);
+        } catch (GuardSyntaxException e) {
+            return new ParseResult.Failure<>(List.of(e.error), guard);
+        } finally {
+            text = null;
+        }
+    }
+
+    private Expression disjunction() {
+        Expression left = conjunction();
+        while (accept("||")) {
+            left = factory.disjunction("||", left, conjunction());
+        }
+        return left;
+    }
+
+    private Expression conjunction() {
+        Expression left = unary();
+        while (accept("&&")) {
+            left = factory.conjunction("&&", left, unary());
+        }
+        return left;
+    }
+
+    private Expression unary() {
+        if (accept("!")) {
+            return factory.negation("!", unary());
+        }
+        return primary();
+    }
+
+    private Expression primary() {
+        skipWhitespace();
+        if (index >= text.length()) {
+            throw error("unexpected end of guard", "syntax-error");
+        }
+        char c = text.charAt(index);
+        if (c == '(') {
+            index++;
+            Expression inner = disjunction();
+            if (!accept(")")) {
+                throw error("missing ')'", "syntax-error");
+            }
+            return inner;
+        }
+        if (c == '1') {
+            index++;
+            return factory.t();
+        }
+        if (c == '0') {
+            index++;
+            return factory.f();
+        }
+        if (!Character.isLetter(c)) {
+            throw error("unexpected '" + c + "'", "syntax-error");
+        }
+        int start = index;
+        while (index < text.length() && (Character.isLetterOrDigit(text.charAt(index)) || text.charAt(index) == '_')) {
+            index++;
+        }
+        String name = text.substring(start, index);
+        return switch (name) {
+            case "true" -> factory.t();
+            case "false" -> factory.f();
+            default -> resolve(name, start);
+        };
+    }
+
+    private Expression resolve(String name, int start) {
+        Expression expression = nameToExpression.get(name);
+        if (expression == null) {
+            index = start;
+            throw error("undefined symbol '" + name + "'", "undefined-symbol");
+        }
+        if (expression instanceof Atom atom) {
+            return factory.atom(atom.value(), atom.delimiter());
+        }
+        return factory.wrap(expression);
+    }
+
+    private boolean accept(String token) {
+        skipWhitespace();
+        if (text.startsWith(token, index)) {
+            index += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+    }
+
+    private GuardSyntaxException error(String message, String code) {
+        Position start = new Position(1, index + 1, index);
+        Position end = new Position(1, index + 2, index + 1);
+        return new GuardSyntaxException(
+                new ParseError(new Range(start, end), message, ParseError.Severity.ERROR, Optional.of(code)));
+    }
+
+    /**
+     * Internal control-flow exception, converted to a ParseResult.Failure by {@link #parse(String)}.
+     */
+    private static class GuardSyntaxException extends RuntimeException {
+        final ParseError error;
+
+        GuardSyntaxException(ParseError error) {
+            super(error.message(), null, false, false);
+            this.error = error;
+        }
+    }
+}
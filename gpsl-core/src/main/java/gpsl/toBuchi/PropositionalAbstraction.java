@@ -0,0 +1,243 @@
+package gpsl.toBuchi;
+
+import gpsl.semantics.Evaluator.EvaluationException;
+import gpsl.semantics.IsPropositional;
+import gpsl.syntax.model.*;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Pre-pass of the LTL3BA translation that abstracts propositional subformulas away.
+ *
+ * <p>Every maximal propositional subformula (as decided by {@link IsPropositional})
+ * is replaced by a fresh {@link Atom}, leaving only the temporal skeleton of the formula.
+ * Structurally equal subformulas are replaced by the same atom. The literals
+ * {@code true} and {@code false} are kept as they are, since LTL3BA simplifies them.
+ *
+ * <p>The skeleton is what {@link LTL3BATransformer} sends to LTL3BA: the
+ * {@code Conditional}, {@code ExclusiveDisjunction}, {@code WeakUntil} and
+ * {@code StrongRelease} encodings then duplicate single atoms instead of whole
+ * subformulas, and LTL3BA sees one atom per distinct propositional subformula.
+ * The guards of the resulting automaton are mapped back to the original
+ * subformulas through {@link #substitution()}.
+ *
+ * <p>References and let expressions in temporal positions are inlined;
+ * inside an abstracted subformula they are kept as they are.
+ */
+public class PropositionalAbstraction implements Visitor<Void, Expression> {
+
+    private final IsPropositional isPropositional = new Propositionality();
+    private final Map<Expression, Atom> abstractions = new HashMap<>();
+    private final Map<Atom, Expression> substitution = new LinkedHashMap<>();
+
+    /**
+     * Computes the temporal skeleton of an expression.
+     *
+     * @param expression the expression to abstract
+     * @return the expression with its maximal propositional subformulas replaced by fresh atoms
+     */
+    public Expression abstractPropositions(Expression expression) {
+        return expression.accept(this, null);
+    }
+
+    /**
+     * Gets the fresh atoms introduced so far and the subformulas they stand for.
+     *
+     * @return unmodifiable view of the atom-to-subformula mapping
+     */
+    public Map<Atom, Expression> substitution() {
+        return Map.copyOf(substitution);
+    }
+
+    /**
+     * Maps the atom names assigned by an {@link LTL3BATransformer} run on the skeleton
+     * back to the abstracted subformulas, as expected by {@link LTL3BAGuardParser}.
+     *
+     * @param nameToAtom the transformer's name-to-atom mapping
+     * @return the name-to-subformula mapping
+     */
+    public Map<String, Expression> substitute(Map<String, Atom> nameToAtom) {
+        Map<String, Expression> nameToExpression = new HashMap<>();
+        nameToAtom.forEach((name, atom) -> nameToExpression.put(name, substitution.getOrDefault(atom, atom)));
+        return nameToExpression;
+    }
+
+    /**
+     * {@link IsPropositional} remembering the result of each node: the first check, at the root, computes
+     * the results of all the subformulas bottom-up, and the checks at the lower levels only look them up.
+     */
+    private static class Propositionality extends IsPropositional {
+        private final Map<SyntaxTreeElement, Boolean> results = new IdentityHashMap<>();
+
+        private Boolean memoized(SyntaxTreeElement element, Supplier<Boolean> check) {
+            Boolean result = results.get(element);
+            if (result == null) {
+                result = check.get();
+                results.put(element, result);
+            }
+            return result;
+        }
+
+        @Override
+        public Boolean visit(Reference element, Void input) {
+            return memoized(element, () -> super.visit(element, input));
+        }
+
+        @Override
+        public Boolean visit(Negation element, Void input) {
+            return memoized(element, () -> super.visit(element, input));
+        }
+
+        @Override
+        public Boolean visit(BinaryExpression element, Void input) {
+            return memoized(element, () -> super.visit(element, input));
+        }
+
+        @Override
+        public Boolean visit(Conditional element, Void input) {
+            return memoized(element, () -> super.visit(element, input));
+        }
+    }
+
+    private Atom abstraction(Expression subformula) {
+        Atom atom = abstractions.get(subformula);
+        if (atom == null) {
+            atom = new Atom("prop" + abstractions.size(), "|");
+            abstractions.put(subformula, atom);
+            substitution.put(atom, subformula);
+        }
+        return atom;
+    }
+
+    private Expression abstractOrRebuild(Expression element, Void input, Supplier<Expression> rebuild) {
+        if (element.accept(isPropositional, input)) {
+            return abstraction(element);
+        }
+        return rebuild.get();
+    }
+
+    @Override
+    public Expression visit(SyntaxTreeElement element, Void input) {
+        throw new UnsupportedOperationException(
+            "The propositional abstraction does not support "
+            + element.getClass().getSimpleName() + " elements."
+        );
+    }
+
+    @Override
+    public Expression visit(True element, Void input) {
+        return element;
+    }
+
+    @Override
+    public Expression visit(False element, Void input) {
+        return element;
+    }
+
+    @Override
+    public Expression visit(Atom element, Void input) {
+        return abstraction(element);
+    }
+
+    @Override
+    public Expression visit(Reference element, Void input) {
+        if (element.expression() == null) {
+            throw new EvaluationException("Unresolved reference: " + element.name());
+        }
+        return abstractOrRebuild(element, input, () -> element.expression().accept(this, input));
+    }
+
+    @Override
+    public Expression visit(LetExpression element, Void input) {
+        return element.expression().accept(this, input);
+    }
+
+    @Override
+    public Expression visit(ExpressionDeclaration element, Void input) {
+        return element.expression().accept(this, input);
+    }
+
+    @Override
+    public Expression visit(Negation element, Void input) {
+        return abstractOrRebuild(element, input, () ->
+            new Negation(element.operator(), element.expression().accept(this, input)));
+    }
+
+    @Override
+    public Expression visit(Conjunction element, Void input) {
+        return abstractOrRebuild(element, input, () ->
+            new Conjunction(element.operator(), element.left().accept(this, input), element.right().accept(this, input)));
+    }
+
+    @Override
+    public Expression visit(Disjunction element, Void input) {
+        return abstractOrRebuild(element, input, () ->
+            new Disjunction(element.operator(), element.left().accept(this, input), element.right().accept(this, input)));
+    }
+
+    @Override
+    public Expression visit(ExclusiveDisjunction element, Void input) {
+        return abstractOrRebuild(element, input, () ->
+            new ExclusiveDisjunction(element.operator(), element.left().accept(this, input), element.right().accept(this, input)));
+    }
+
+    @Override
+    public Expression visit(Implication element, Void input) {
+        return abstractOrRebuild(element, input, () ->
+            new Implication(element.operator(), element.left().accept(this, input), element.right().accept(this, input)));
+    }
+
+    @Override
+    public Expression visit(Equivalence element, Void input) {
+        return abstractOrRebuild(element, input, () ->
+            new Equivalence(element.operator(), element.left().accept(this, input), element.right().accept(this, input)));
+    }
+
+    @Override
+    public Expression visit(Conditional element, Void input) {
+        return abstractOrRebuild(element, input, () ->
+            new Conditional(
+                element.condition().accept(this, input),
+                element.trueBranch().accept(this, input),
+                element.falseBranch().accept(this, input)));
+    }
+
+    @Override
+    public Expression visit(Next element, Void input) {
+        return new Next(element.operator(), element.expression().accept(this, input));
+    }
+
+    @Override
+    public Expression visit(Eventually element, Void input) {
+        return new Eventually(element.operator(), element.expression().accept(this, input));
+    }
+
+    @Override
+    public Expression visit(Globally element, Void input) {
+        return new Globally(element.operator(), element.expression().accept(this, input));
+    }
+
+    @Override
+    public Expression visit(StrongUntil element, Void input) {
+        return new StrongUntil(element.operator(), element.left().accept(this, input), element.right().accept(this, input));
+    }
+
+    @Override
+    public Expression visit(WeakUntil element, Void input) {
+        return new WeakUntil(element.operator(), element.left().accept(this, input), element.right().accept(this, input));
+    }
+
+    @Override
+    public Expression visit(StrongRelease element, Void input) {
+        return new StrongRelease(element.operator(), element.left().accept(this, input), element.right().accept(this, input));
+    }
+
+    @Override
+    public Expression visit(WeakRelease element, Void input) {
+        return new WeakRelease(element.operator(), element.left().accept(this, input), element.right().accept(this, input));
+    }
+}
@@ -7,4 +7,6 @@ module language.gpsl.core {
     exports gpsl.syntax;
     exports gpsl.semantics;
     exports gpsl.syntax.model;
+    exports gpsl.compiler;
+    exports gpsl.toBuchi;
 }
\ No newline at end of file
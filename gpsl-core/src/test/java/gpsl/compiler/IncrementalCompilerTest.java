@@ -0,0 +1,146 @@
+package gpsl.compiler;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.semantics.Semantics;
+import gpsl.syntax.model.Automaton;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.ParseResult;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the selective retranslation of the IncrementalCompiler.
+ */
+class IncrementalCompilerTest {
+
+    private static final String SOURCE = """
+            req = |a| && |b|
+            safety = [] ! req
+            both = safety && <> |c|
+            liveness = [] (|a| -> <> |b|)
+            local = let req = |c| in [] req
+            aut = states s, t; initial s; accept t;
+                  s [|a|] t;
+                  t [true] t
+            """;
+
+    private static PropertyBundle bundle(ParseResult<PropertyBundle> result) {
+        if (result instanceof ParseResult.Failure<PropertyBundle> failure) {
+            fail("Compilation failed:\n" + failure.formatErrors());
+        }
+        return ((ParseResult.Success<PropertyBundle>) result).value();
+    }
+
+    /**
+     * Checks the bundle against a compilation of the whole source.
+     */
+    private static void assertSameAsWholeCompilation(IncrementalCompiler compiler) {
+        PropertyBundle expected = bundle(PropertyCompiler.compile(compiler.source()));
+        PropertyBundle actual = bundle(compiler.result());
+        assertEquals(List.copyOf(expected.names()), List.copyOf(actual.names()));
+        for (String name : expected.names()) {
+            Automaton expectedAutomaton = expected.automaton(name);
+            Automaton actualAutomaton = actual.automaton(name);
+            assertEquals(expectedAutomaton.semanticsKind(), actualAutomaton.semanticsKind(), name);
+            assertEquals(expectedAutomaton.states().size(), actualAutomaton.states().size(), name);
+            assertEquals(expectedAutomaton.transitions().size(), actualAutomaton.transitions().size(), name);
+        }
+    }
+
+    @Test
+    void testCompileTranslatesEveryDeclaration() {
+        var compiler = IncrementalCompiler.compile(SOURCE);
+
+        assertSameAsWholeCompilation(compiler);
+        assertEquals(Set.of("req", "safety", "both", "liveness", "local", "aut"), compiler.lastTranslated());
+    }
+
+    @Test
+    void testReloadTranslatesTheTransitiveDependentsOnly() {
+        var compiler = IncrementalCompiler.compile(SOURCE);
+        PropertyBundle before = compiler.bundle();
+
+        compiler.reload(SOURCE.replace("req = |a| && |b|", "req = |a| || |b|"));
+
+        assertSameAsWholeCompilation(compiler);
+        // local binds its own req
+        assertEquals(Set.of("req", "safety", "both"), compiler.lastTranslated());
+        for (String name : List.of("liveness", "local", "aut")) {
+            assertSame(before.automaton(name), compiler.bundle().automaton(name), name);
+        }
+        assertNotSame(before.automaton("both"), compiler.bundle().automaton("both"));
+    }
+
+    @Test
+    void testUnchangedTextIsNotTranslatedAgain() {
+        var compiler = IncrementalCompiler.compile(SOURCE);
+        PropertyBundle before = compiler.bundle();
+
+        // the edited region is parsed again, with the same declarations
+        compiler.reload(SOURCE.replace("safety = [] ! req\n", "safety = [] ! req\n\n// comment\n"));
+
+        assertSameAsWholeCompilation(compiler);
+        assertEquals(Set.of(), compiler.lastTranslated());
+        for (String name : before.names()) {
+            assertSame(before.automaton(name), compiler.bundle().automaton(name), name);
+        }
+    }
+
+    @Test
+    void testSupplementaryCharactersBeforeTheChange() {
+        // the emoji is two chars, one code point for the lexer
+        String source = "x = |😀|\nd1 = |p|\nd2 = |q|\nb = d1\n";
+        var compiler = IncrementalCompiler.compile(source);
+
+        compiler.reload(source.replace("b = d1", "b = d2"));
+
+        assertSameAsWholeCompilation(compiler);
+        assertEquals(Set.of("b"), compiler.lastTranslated());
+        assertEquals(bundle(PropertyCompiler.compile(compiler.source())).automaton("b").transitions(),
+                compiler.bundle().automaton("b").transitions());
+    }
+
+    @Test
+    void testAddedAndRemovedDeclarations() {
+        var compiler = IncrementalCompiler.compile(SOURCE);
+
+        compiler.reload(SOURCE.replace("liveness = [] (|a| -> <> |b|)\n", "extra = <> req\n"));
+
+        assertSameAsWholeCompilation(compiler);
+        assertEquals(Set.of("extra"), compiler.lastTranslated());
+        assertFalse(compiler.bundle().names().contains("liveness"));
+    }
+
+    @Test
+    void testFailedReloadKeepsTheLastBundle() {
+        var compiler = IncrementalCompiler.compile(SOURCE);
+        PropertyBundle before = compiler.bundle();
+
+        var failed = compiler.reload(SOURCE.replace("safety = [] ! req", "safety = [] ! undefined"));
+        assertInstanceOf(ParseResult.Failure.class, failed);
+        assertSame(before, compiler.bundle());
+
+        // compared with the last successful compilation
+        compiler.reload(SOURCE.replace("<> |c|", "<> |d|"));
+        assertSameAsWholeCompilation(compiler);
+        assertEquals(Set.of("both"), compiler.lastTranslated());
+        assertSame(before.automaton("safety"), compiler.bundle().automaton("safety"));
+    }
+
+    @Test
+    void testSemanticsAreReusedUntilTranslatedAgain() {
+        var compiler = IncrementalCompiler.compile(SOURCE);
+        AtomEvaluator<Set<String>> evaluator = (atom, valuation) -> valuation.contains(atom);
+        Semantics<Set<String>> liveness = compiler.semantics("liveness", evaluator);
+        Semantics<Set<String>> safety = compiler.semantics("safety", evaluator);
+
+        compiler.reload(SOURCE.replace("req = |a| && |b|", "req = |a| || |b|"));
+
+        assertSame(liveness, compiler.semantics("liveness", evaluator));
+        assertNotSame(safety, compiler.semantics("safety", evaluator));
+        assertSame(compiler.bundle().automaton("safety"), compiler.semantics("safety", evaluator).getAutomaton());
+    }
+}
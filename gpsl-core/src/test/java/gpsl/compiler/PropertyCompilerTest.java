@@ -0,0 +1,134 @@
+package gpsl.compiler;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.semantics.Evaluator;
+import gpsl.syntax.model.*;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.ParseResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ahead-of-time PropertyCompiler and the PropertyBundle format.
+ */
+class PropertyCompilerTest {
+
+    private static final String SOURCE = """
+            req = |a| && |b|
+            safety = [] ! req
+            liveness = [] (|a| -> <> (|b| ^ |c|))
+            aut = states s, t; initial s; accept t;
+                  s [|a|] t;
+                  t [true] t
+            """;
+
+    private PropertyBundle compileOrFail(String source) {
+        var result = PropertyCompiler.compile(source);
+        if (result instanceof ParseResult.Failure<PropertyBundle> failure) {
+            fail("Compilation failed:\n" + failure.formatErrors());
+        }
+        return ((ParseResult.Success<PropertyBundle>) result).value();
+    }
+
+    private PropertyBundle roundTrip(PropertyBundle bundle, Factory factory) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        bundle.write(bytes);
+        return PropertyBundle.read(new ByteArrayInputStream(bytes.toByteArray()), factory);
+    }
+
+    /**
+     * References are inlined in bundles, so guards are compared by their truth tables over a, b, c.
+     */
+    private void assertEquivalentGuards(Expression expected, Expression actual, String name) {
+        var evaluator = new Evaluator<Set<String>>((atom, valuation) -> valuation.contains(atom));
+        for (int bits = 0; bits < 8; bits++) {
+            Set<String> valuation = new HashSet<>();
+            if ((bits & 1) != 0) valuation.add("a");
+            if ((bits & 2) != 0) valuation.add("b");
+            if ((bits & 4) != 0) valuation.add("c");
+            assertEquals(expected.accept(evaluator, valuation), actual.accept(evaluator, valuation),
+                    name + " guard under " + valuation);
+        }
+    }
+
+    @Test
+    void testCompileProducesOneAutomatonPerDeclaration() {
+        PropertyBundle bundle = compileOrFail(SOURCE);
+
+        assertEquals(List.of("req", "safety", "liveness", "aut"), List.copyOf(bundle.names()));
+        assertEquals(AutomatonSemanticsKind.NFA, bundle.automaton("req").semanticsKind());
+        assertEquals(AutomatonSemanticsKind.BUCHI, bundle.automaton("liveness").semanticsKind());
+    }
+
+    @Test
+    void testRoundTripPreservesAutomata() throws IOException {
+        PropertyBundle bundle = compileOrFail(SOURCE);
+        PropertyBundle loaded = roundTrip(bundle, Factory.instance());
+
+        assertEquals(bundle.names(), loaded.names());
+        for (String name : bundle.names()) {
+            Automaton expected = bundle.automaton(name);
+            Automaton actual = loaded.automaton(name);
+            assertEquals(expected.semanticsKind(), actual.semanticsKind(), name);
+            assertEquals(expected.states(), actual.states(), name);
+            assertEquals(expected.initialStates(), actual.initialStates(), name);
+            assertEquals(expected.acceptStates(), actual.acceptStates(), name);
+            assertEquals(expected.transitions().size(), actual.transitions().size(), name);
+            for (int i = 0; i < expected.transitions().size(); i++) {
+                Transition e = expected.transitions().get(i);
+                Transition a = actual.transitions().get(i);
+                assertEquals(e.source(), a.source(), name);
+                assertEquals(e.priority(), a.priority(), name);
+                assertEquals(e.target(), a.target(), name);
+                assertEquivalentGuards(e.guard(), a.guard(), name);
+            }
+        }
+    }
+
+    @Test
+    void testEqualGuardsAreSharedAfterLoading() throws IOException {
+        var atom = new Atom("p", "|");
+        var s = new State("s");
+        var guard1 = new Negation("!", new Conjunction("&&", atom, new Atom("q", "|")));
+        var guard2 = new Negation("!", new Conjunction("&&", atom, new Atom("q", "|")));
+        var automaton = new Automaton(AutomatonSemanticsKind.BUCHI, Set.of(s), Set.of(s), Set.of(s),
+                List.of(new Transition(s, 0, guard1, s), new Transition(s, 1, guard2, s)));
+
+        PropertyBundle loaded = roundTrip(new PropertyBundle(Map.of("p", automaton)), Factory.instance());
+
+        var transitions = loaded.automaton("p").transitions();
+        assertEquals(guard1, transitions.get(0).guard());
+        assertSame(transitions.get(0).guard(), transitions.get(1).guard());
+    }
+
+    @Test
+    void testLoadedSemanticsEvaluatesGuards() throws IOException {
+        PropertyBundle loaded = roundTrip(compileOrFail(SOURCE), Factory.instance());
+        AtomEvaluator<Set<String>> holds = (atom, valuation) -> valuation.contains(atom);
+        var semantics = loaded.semantics("aut", holds);
+
+        State s = semantics.initial().getFirst();
+        assertEquals(1, semantics.actions(Set.of("a"), s).size());
+        assertTrue(semantics.actions(Set.of(), s).isEmpty());
+    }
+
+    @Test
+    void testCompileReportsLinkErrors() {
+        var result = PropertyCompiler.compile("p = [] missing");
+        assertTrue(result.isFailure());
+    }
+
+    @Test
+    void testReadRejectsOtherData() {
+        assertThrows(IOException.class,
+                () -> PropertyBundle.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+    }
+}
@@ -0,0 +1,106 @@
+package gpsl.compiler;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.semantics.Semantics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the hot reloading of property files.
+ */
+class PropertyReloaderTest {
+
+    private static final String SOURCE = """
+            req = |a| && |b|
+            safety = [] ! req
+            liveness = [] (|a| -> <> |b|)
+            """;
+
+    private static final AtomEvaluator<Set<String>> EVALUATOR = (atom, valuation) -> valuation.contains(atom);
+
+    @TempDir
+    Path directory;
+
+    private static PropertyReloader.Snapshot<Set<String>> await(PropertyReloader<Set<String>> reloader,
+                                                                 Predicate<PropertyReloader.Snapshot<Set<String>>> condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (System.nanoTime() < deadline) {
+            var snapshot = reloader.snapshot();
+            if (condition.test(snapshot)) {
+                return snapshot;
+            }
+            Thread.sleep(20);
+        }
+        return fail("No reload after 20 seconds");
+    }
+
+    @Test
+    void testReloadSwapsTheChangedDeclarationsOnly() throws IOException {
+        Path file = Files.writeString(directory.resolve("mutex.gpsl"), SOURCE);
+        Files.writeString(directory.resolve("notes.txt"), "not properties");
+        try (var reloader = PropertyReloader.watch(EVALUATOR, Duration.ofSeconds(10), directory)) {
+            var before = reloader.snapshot();
+            assertEquals(Set.of(file), before.properties().keySet());
+            assertEquals(List.of("req", "safety", "liveness"), List.copyOf(before.properties().get(file).keySet()));
+
+            Files.writeString(file, SOURCE.replace("|a| && |b|", "|a| || |b|"));
+            reloader.reload(List.of(file));
+            var after = reloader.snapshot();
+
+            assertTrue(after.generation() > before.generation());
+            assertSame(before.semantics(file, "liveness"), after.semantics(file, "liveness"));
+            assertNotSame(before.semantics(file, "safety"), after.semantics(file, "safety"));
+            // the previous snapshot is left as it was
+            Semantics<Set<String>> safety = before.semantics(file, "safety");
+            assertSame(safety, before.semantics(file, "safety"));
+            assertFalse(safety.getAutomaton().transitions().isEmpty());
+        }
+    }
+
+    @Test
+    void testFailedReloadKeepsTheLastProperties() throws IOException {
+        Path file = Files.writeString(directory.resolve("mutex.gpsl"), SOURCE);
+        try (var reloader = PropertyReloader.watch(EVALUATOR, Duration.ofSeconds(10), directory)) {
+            var before = reloader.snapshot();
+
+            Files.writeString(file, SOURCE.replace("[] ! req", "[] ! (req"));
+            reloader.reload(List.of(file));
+            var failed = reloader.snapshot();
+            assertFalse(failed.errors().get(file).isEmpty());
+            assertSame(before.semantics(file, "safety"), failed.semantics(file, "safety"));
+
+            Files.writeString(file, SOURCE);
+            reloader.reload(List.of(file));
+            var fixed = reloader.snapshot();
+            assertTrue(fixed.errors().isEmpty());
+            assertSame(before.semantics(file, "safety"), fixed.semantics(file, "safety"));
+        }
+    }
+
+    @Test
+    void testWatchedChangesAreReloaded() throws IOException, InterruptedException {
+        Path file = Files.writeString(directory.resolve("mutex.gpsl"), SOURCE);
+        try (var reloader = PropertyReloader.watch(EVALUATOR, Duration.ofMillis(50), directory)) {
+            Path added = Files.writeString(directory.resolve("added.gpsl"), "fairness = [] <> |c|\n");
+            var snapshot = await(reloader, s -> s.properties().containsKey(added));
+            assertNotNull(snapshot.semantics(added, "fairness"));
+
+            Files.delete(file);
+            snapshot = await(reloader, s -> !s.properties().containsKey(file));
+            assertThrows(NoSuchElementException.class, () -> reloader.snapshot().semantics(file, "req"));
+            assertEquals(Set.of(added), snapshot.properties().keySet());
+        }
+    }
+}
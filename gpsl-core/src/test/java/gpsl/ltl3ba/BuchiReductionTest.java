@@ -0,0 +1,175 @@
+package gpsl.ltl3ba;
+
+import gpsl.syntax.model.*;
+import gpsl.toBuchi.BuchiReduction;
+import gpsl.toBuchi.Expression2BuchiAutomaton;
+import gpsl.toBuchi.GuardAlgebra;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.ParseResult;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static gpsl.syntax.TestHelpers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the BuchiReduction pipeline applied after LTL3BA translation.
+ */
+class BuchiReductionTest {
+
+    private final Atom p = new Atom("p", "|");
+    private final Atom q = new Atom("q", "|");
+    private final State s0 = new State("s0");
+    private final State s1 = new State("s1");
+    private final State s2 = new State("s2");
+    private final BuchiReduction reduction = new BuchiReduction();
+
+    private Automaton buchi(Set<State> states, Set<State> initial, Set<State> accept, Transition... transitions) {
+        return new Automaton(AutomatonSemanticsKind.BUCHI, states, initial, accept, List.of(transitions));
+    }
+
+    @Test
+    void testParallelTransitionsAreMerged() {
+        var automaton = buchi(Set.of(s0), Set.of(s0), Set.of(s0),
+                new Transition(s0, 0, p, s0),
+                new Transition(s0, 0, q, s0));
+
+        Automaton reduced = reduction.reduce(automaton);
+
+        assertEquals(1, reduced.transitions().size());
+        assertEquals(new Disjunction("||", p, q), reduced.transitions().getFirst().guard());
+    }
+
+    @Test
+    void testUnsatisfiableTransitionsAreDropped() {
+        var automaton = buchi(Set.of(s0, s1), Set.of(s0), Set.of(s0),
+                new Transition(s0, 0, p, s0),
+                new Transition(s0, 0, new Conjunction("&&", q, new Negation("!", q)), s1),
+                new Transition(s1, 0, new True(), s1));
+
+        Automaton reduced = reduction.reduce(automaton);
+
+        assertEquals(Set.of(s0), reduced.states());
+        assertEquals(List.of(new Transition(s0, 0, p, s0)), reduced.transitions());
+    }
+
+    @Test
+    void testDeadStatesAreRemoved() {
+        // s1 has no accepting cycle, s2 is unreachable
+        var automaton = buchi(Set.of(s0, s1, s2), Set.of(s0), Set.of(s0, s2),
+                new Transition(s0, 0, p, s0),
+                new Transition(s0, 0, q, s1),
+                new Transition(s1, 0, new True(), s1),
+                new Transition(s2, 0, new True(), s0));
+
+        Automaton reduced = reduction.reduce(automaton);
+
+        assertEquals(Set.of(s0), reduced.states());
+        assertEquals(Set.of(s0), reduced.acceptStates());
+    }
+
+    @Test
+    void testSimulationEquivalentStatesAreMerged() {
+        // s0 and s1 are both accepting with a true self-loop and a true edge to each other
+        var automaton = buchi(Set.of(s0, s1), Set.of(s0), Set.of(s0, s1),
+                new Transition(s0, 0, new True(), s1),
+                new Transition(s1, 0, new True(), s1),
+                new Transition(s1, 0, new True(), s0));
+
+        Automaton reduced = reduction.reduce(automaton);
+
+        assertEquals(Set.of(s0), reduced.states());
+        assertEquals(Set.of(s0), reduced.initialStates());
+        assertEquals(List.of(new Transition(s0, 0, new True(), s0)), reduced.transitions());
+    }
+
+    @Test
+    void testDominatedTransitionsAreDropped() {
+        // s0 -p-> s1 is dominated by s0 -true-> s2, as s2 simulates s1
+        var automaton = buchi(Set.of(s0, s1, s2), Set.of(s0), Set.of(s1, s2),
+                new Transition(s0, 0, p, s1),
+                new Transition(s0, 0, new True(), s2),
+                new Transition(s1, 0, p, s1),
+                new Transition(s2, 0, new True(), s2));
+
+        Automaton reduced = reduction.reduce(automaton);
+
+        assertEquals(Set.of(s0, s2), reduced.states());
+        assertEquals(2, reduced.transitions().size());
+    }
+
+    @Test
+    void testRefinementsReachThePredecessors() {
+        // the chains only differ on their last guard: none of their states simulates the other chain's
+        State x = new State("x");
+        State a0 = new State("a0"), a1 = new State("a1"), a2 = new State("a2");
+        State b0 = new State("b0"), b1 = new State("b1"), b2 = new State("b2");
+        State accept = new State("accept");
+        var automaton = new Automaton(AutomatonSemanticsKind.BUCHI,
+                new LinkedHashSet<>(List.of(x, b0, a0, b1, a1, b2, a2, accept)), Set.of(x), Set.of(accept),
+                List.of(
+                        new Transition(x, 0, new True(), b0),
+                        new Transition(x, 0, new True(), a0),
+                        new Transition(b0, 0, p, b1),
+                        new Transition(a0, 0, p, a1),
+                        new Transition(b1, 0, p, b2),
+                        new Transition(a1, 0, p, a2),
+                        new Transition(b2, 0, q, accept),
+                        new Transition(a2, 0, p, accept),
+                        new Transition(accept, 0, new True(), accept)));
+
+        Automaton reduced = reduction.reduce(automaton);
+
+        assertEquals(automaton.states(), reduced.states());
+        assertEquals(automaton.transitions().size(), reduced.transitions().size());
+    }
+
+    @Test
+    void testSimulationIsSkippedAboveTheLimit() {
+        var automaton = buchi(Set.of(s0, s1), Set.of(s0), Set.of(s0, s1),
+                new Transition(s0, 0, new True(), s1),
+                new Transition(s1, 0, new True(), s1),
+                new Transition(s1, 0, new True(), s0));
+
+        var limited = new BuchiReduction(GuardAlgebra.syntactic(Factory.instance()), Factory.instance(), 1);
+
+        assertEquals(Set.of(s0, s1), limited.reduce(automaton).states());
+        assertEquals(Set.of(s0), reduction.reduce(automaton).states());
+    }
+
+    @Test
+    void testPrioritizedAutomataKeepLowerPriorityTransitions() {
+        // Removing s0 -p-> s1 (a dead end) would enable the priority 1 transition under p
+        var automaton = new Automaton(AutomatonSemanticsKind.NFA, Set.of(s0, s1, s2), Set.of(s0), Set.of(s2),
+                List.of(
+                        new Transition(s0, 0, p, s1),
+                        new Transition(s0, 1, new True(), s2)));
+
+        Automaton reduced = reduction.reduce(automaton);
+
+        assertEquals(automaton.states(), reduced.states());
+        assertEquals(automaton.transitions(), reduced.transitions());
+    }
+
+    @Test
+    void testTranslatedAutomataAreNotLarger() {
+        for (String formula : List.of("[] <> |p|", "|p| U (|q| U |p|)", "[] (|p| -> <> |q|)", "<> [] |p| || [] <> |q|")) {
+            Expression expression = parseExpressionOrFail(formula);
+            var unreduced = Expression2BuchiAutomaton.convert(expression, Factory.instance(),
+                    new BuchiReduction(GuardAlgebra.syntactic(Factory.instance()), Factory.instance()) {
+                        @Override
+                        public Automaton reduce(Automaton automaton) {
+                            return automaton;
+                        }
+                    });
+            Automaton original = ((ParseResult.Success<Automaton>) unreduced).value();
+            Automaton reduced = convertToAutomatonOrFail(expression);
+
+            assertTrue(reduced.states().size() <= original.states().size(), formula);
+            assertTrue(reduced.transitions().size() <= original.transitions().size(), formula);
+            assertFalse(reduced.initialStates().isEmpty(), formula);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package gpsl.ltl3ba;
+
+import gpsl.syntax.model.*;
+import gpsl.toBuchi.LTL3BAGuardParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.ParseResult;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the LTL3BAGuardParser that reads the guards emitted by LTL3BA.
+ */
+class LTL3BAGuardParserTest {
+
+    private final Atom p = new Atom("p", "|");
+    private final Atom q = new Atom("q", "\"");
+    private LTL3BAGuardParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new LTL3BAGuardParser(Map.of("atom0", p, "atom1", q), Factory.instance());
+    }
+
+    private Expression parseOrFail(String guard) {
+        var result = parser.parse(guard);
+        if (result instanceof ParseResult.Failure<Expression> failure) {
+            fail("Guard parsing failed:\n" + failure.formatErrors());
+        }
+        return ((ParseResult.Success<Expression>) result).value();
+    }
+
+    @Test
+    void testAtomsAreResolvedFromNameMap() {
+        assertEquals(p, parseOrFail("atom0"));
+        assertEquals(q, parseOrFail("(atom1)"));
+    }
+
+    @Test
+    void testConstants() {
+        assertInstanceOf(True.class, parseOrFail("(1)"));
+        assertInstanceOf(True.class, parseOrFail("true"));
+        assertInstanceOf(False.class, parseOrFail("0"));
+        assertInstanceOf(False.class, parseOrFail("false"));
+    }
+
+    @Test
+    void testPrecedence() {
+        // && binds tighter than ||, ! binds tighter than &&
+        Expression guard = parseOrFail("(!atom0) || (atom0 && atom1)");
+        assertEquals(
+                new Disjunction("||", new Negation("!", p), new Conjunction("&&", p, q)),
+                guard);
+
+        Expression noParens = parseOrFail("!atom0 && atom1 || atom0");
+        assertEquals(
+                new Disjunction("||", new Conjunction("&&", new Negation("!", p), q), p),
+                noParens);
+    }
+
+    @Test
+    void testIdenticalGuardsAreShared() {
+        Expression first = parseOrFail("(atom0 && !atom1)");
+        Expression second = parseOrFail("(atom0 && !atom1)");
+        assertSame(first, second);
+    }
+
+    @Test
+    void testUndefinedAtom() {
+        var result = parser.parse("atom0 && atom7");
+        assertTrue(result.isFailure());
+        var error = ((ParseResult.Failure<Expression>) result).errors().getFirst();
+        assertEquals("undefined-symbol", error.code().orElseThrow());
+        assertEquals(10, error.range().start().column());
+    }
+
+    @Test
+    void testSyntaxErrors() {
+        assertTrue(parser.parse("(atom0 && atom1").isFailure());
+        assertTrue(parser.parse("atom0 &&").isFailure());
+        assertTrue(parser.parse("atom0 atom1").isFailure());
+        assertTrue(parser.parse("").isFailure());
+    }
+}
@@ -0,0 +1,135 @@
+package gpsl.ltl3ba;
+
+import gpsl.syntax.TestHelpers;
+import gpsl.syntax.model.Expression;
+import gpsl.toBuchi.LTL3BATransformer;
+import gpsl.toBuchi.PropositionalAbstraction;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Tuning harness for the ltl3ba options.
+ *
+ * <p>Translates a corpus of GPSL formulas under several {@link Ltl3baOptions} combinations
+ * and reports, per property class, the translation time against the number of states and
+ * transitions of the raw LTL3BA automata (before {@code BuchiReduction}).
+ *
+ * <p>Usage: {@code LTL3BATuning [corpus-file [repetitions]]}. Each non-empty line of the corpus
+ * is {@code class: formula}; lines starting with {@code #} are ignored. Without a corpus file,
+ * a small built-in corpus is used.
+ */
+public class LTL3BATuning {
+
+    private static final String DEFAULT_CORPUS = """
+            # class: formula
+            safety: [] ! (|c1| && |c2|)
+            safety: [] (|req| -> X (|ack| || |busy|))
+            safety: [] (|a| -> (|b| W |c|))
+            response: [] (|req| -> <> |ack|)
+            response: [] (|p| -> <> (|q| && <> |r|))
+            response: [] ((|p| && ! |q|) -> (|r| U |q|))
+            fairness: [] <> |p| -> [] <> |q|
+            fairness: ([] <> |p| && [] <> |q|) -> [] <> |r|
+            fairness: <> [] |p| || [] <> |q|
+            nested: |p| U (|q| U (|r| U |s|))
+            nested: [] (|p| -> X X X |q|)
+            nested: ([] <> |a|) && ([] <> |b|) && ([] <> |c|) && ([] <> |d|)
+            """;
+
+    private static final Map<String, Ltl3baOptions> CONFIGURATIONS = new LinkedHashMap<>();
+    static {
+        CONFIGURATIONS.put("default", Ltl3baOptions.defaults());
+        CONFIGURATIONS.put("-S1", Ltl3baOptions.builder().postOptimization(Ltl3baOptions.PostOptimization.BISIMULATION).build());
+        CONFIGURATIONS.put("-S0", Ltl3baOptions.builder().postOptimization(Ltl3baOptions.PostOptimization.NONE).build());
+        CONFIGURATIONS.put("-M0", Ltl3baOptions.builder().determinization(false).build());
+        CONFIGURATIONS.put("-M0 -S1", Ltl3baOptions.builder().determinization(false).postOptimization(Ltl3baOptions.PostOptimization.BISIMULATION).build());
+        CONFIGURATIONS.put("-l -p -o", Ltl3baOptions.builder().logicSimplification(false).aPosterioriSimplification(false).onTheFlySimplification(false).build());
+        CONFIGURATIONS.put("-x (ltl2ba)", Ltl3baOptions.builder().ltl3baImprovements(false).build());
+    }
+
+    private record Measure(long nanos, int states, int transitions) {
+        Measure plus(Measure other) {
+            return new Measure(nanos + other.nanos, states + other.states, transitions + other.transitions);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String corpus = args.length > 0 ? Files.readString(Path.of(args[0])) : DEFAULT_CORPUS;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Map<String, List<String>> formulasByClass = new LinkedHashMap<>();
+        for (String line : corpus.lines().map(String::trim).toList()) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int colon = line.indexOf(':');
+            formulasByClass.computeIfAbsent(line.substring(0, colon).trim(), k -> new ArrayList<>())
+                    .add(toLtl3ba(line.substring(colon + 1).trim()));
+        }
+
+        LTL3BA ltl3ba = LTL3BA.getInstance();
+        // warm-up: first process launches are slower
+        for (int i = 0; i < 5; i++) {
+            ltl3ba.convert("[] <> p");
+        }
+
+        System.out.printf("%-10s %-14s %12s %8s %12s%n", "class", "options", "time (ms)", "states", "transitions");
+        for (var entry : formulasByClass.entrySet()) {
+            String best = null;
+            Measure bestMeasure = null;
+            for (var configuration : CONFIGURATIONS.entrySet()) {
+                Measure total = new Measure(0, 0, 0);
+                for (String formula : entry.getValue()) {
+                    total = total.plus(measure(ltl3ba, formula, configuration.getValue(), repetitions));
+                }
+                System.out.printf("%-10s %-14s %12.2f %8d %12d%n", entry.getKey(), configuration.getKey(),
+                        total.nanos() / 1e6, total.states(), total.transitions());
+                // smallest automata first, then fastest translation
+                if (bestMeasure == null
+                        || total.transitions() + total.states() < bestMeasure.transitions() + bestMeasure.states()
+                        || (total.transitions() + total.states() == bestMeasure.transitions() + bestMeasure.states()
+                            && total.nanos() < bestMeasure.nanos())) {
+                    best = configuration.getKey();
+                    bestMeasure = total;
+                }
+            }
+            System.out.printf("%-10s best: %s%n%n", entry.getKey(), best);
+        }
+    }
+
+    /**
+     * Converts a GPSL formula to the LTL3BA input, as {@code Expression2BuchiAutomaton} does.
+     */
+    private static String toLtl3ba(String gpslFormula) {
+        Expression expression = TestHelpers.parseExpressionOrFail(gpslFormula);
+        Expression skeleton = new PropositionalAbstraction().abstractPropositions(expression);
+        return skeleton.accept(new LTL3BATransformer(), null);
+    }
+
+    /**
+     * Translates a formula several times, returning the median time and the automaton size.
+     */
+    private static Measure measure(LTL3BA ltl3ba, String formula, Ltl3baOptions options, int repetitions) throws Exception {
+        long[] times = new long[repetitions];
+        int transitions = 0;
+        Set<String> states = new HashSet<>();
+        for (int i = 0; i < repetitions; i++) {
+            List<String> lines = new ArrayList<>();
+            long start = System.nanoTime();
+            ltl3ba.convert(formula, options, lines::add);
+            times[i] = System.nanoTime() - start;
+
+            states.clear();
+            transitions = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split(",", 3);
+                if (fields.length < 3) continue;
+                states.add(fields[0].trim());
+                states.add(fields[1].trim());
+                transitions++;
+            }
+        }
+        Arrays.sort(times);
+        return new Measure(times[repetitions / 2], states.size(), transitions);
+    }
+}
@@ -0,0 +1,94 @@
+package gpsl.ltl3ba;
+
+import gpsl.semantics.Evaluator;
+import gpsl.syntax.model.*;
+import gpsl.toBuchi.LTL3BATransformer;
+import gpsl.toBuchi.PropositionalAbstraction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static gpsl.syntax.TestHelpers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the PropositionalAbstraction pre-pass of the LTL3BA translation.
+ */
+class PropositionalAbstractionTest {
+
+    @Test
+    void testMaximalPropositionalSubformulasAreAbstracted() {
+        Expression formula = parseExpressionOrFail("[] (|p| && |q| -> <> (|r| || ! |p|))");
+
+        var abstraction = new PropositionalAbstraction();
+        Expression skeleton = abstraction.abstractPropositions(formula);
+
+        Map<Atom, Expression> substitution = abstraction.substitution();
+        assertEquals(2, substitution.size());
+        var globally = assertInstanceOf(Globally.class, skeleton);
+        var implication = assertInstanceOf(Implication.class, globally.expression());
+        Atom left = assertInstanceOf(Atom.class, implication.left());
+        var eventually = assertInstanceOf(Eventually.class, implication.right());
+        Atom right = assertInstanceOf(Atom.class, eventually.expression());
+
+        assertInstanceOf(Conjunction.class, substitution.get(left));
+        assertInstanceOf(Disjunction.class, substitution.get(right));
+    }
+
+    @Test
+    void testEqualSubformulasShareOneAtom() {
+        Expression formula = parseExpressionOrFail("(|a| ^ |b|) U ([] (|a| ^ |b|))");
+
+        var abstraction = new PropositionalAbstraction();
+        var skeleton = assertInstanceOf(StrongUntil.class, abstraction.abstractPropositions(formula));
+
+        var globally = assertInstanceOf(Globally.class, skeleton.right());
+        assertEquals(skeleton.left(), globally.expression());
+        assertEquals(1, abstraction.substitution().size());
+    }
+
+    @Test
+    void testConstantsAreKept() {
+        Expression formula = parseExpressionOrFail("true U |p|");
+
+        var abstraction = new PropositionalAbstraction();
+        var skeleton = assertInstanceOf(StrongUntil.class, abstraction.abstractPropositions(formula));
+
+        assertInstanceOf(True.class, skeleton.left());
+        assertEquals(Set.of(new Atom("p", "|")), Set.copyOf(abstraction.substitution().values()));
+    }
+
+    @Test
+    void testSkeletonOfNestedConditionalsStaysSmall() {
+        // Without abstraction, every ternary duplicates its condition in the LTL3BA encoding
+        Expression formula = parseExpressionOrFail(
+                "[] (|a| ? (|b| ? (|c| ? |d| : |e|) : |f|) : (|g| ? |h| : |i|))");
+
+        var direct = formula.accept(new LTL3BATransformer(), null);
+
+        var abstraction = new PropositionalAbstraction();
+        var abstracted = abstraction.abstractPropositions(formula).accept(new LTL3BATransformer(), null);
+
+        assertEquals("([] atom0)", abstracted);
+        assertTrue(direct.length() > 10 * abstracted.length());
+    }
+
+    @Test
+    void testGuardsAreSubstitutedBack() throws Exception {
+        Expression formula = parseExpressionOrFail("<> (|p| ^ |q|)");
+
+        Automaton automaton = convertToAutomatonOrFail(formula);
+
+        // The guard of the transition out of the initial state is the original XOR
+        boolean hasXorGuard = automaton.transitions().stream()
+                .anyMatch(t -> t.guard().equals(new ExclusiveDisjunction("^", new Atom("p", "|"), new Atom("q", "|"))));
+        assertTrue(hasXorGuard, "XOR subformula should appear verbatim in a guard");
+
+        var evaluator = new Evaluator<Map<String, Boolean>>((atom, valuation) -> valuation.get(atom));
+        boolean enabledOnXor = automaton.transitions().stream()
+                .filter(t -> automaton.initialStates().contains(t.source()))
+                .anyMatch(t -> t.guard().accept(evaluator, Map.of("p", true, "q", false)));
+        assertTrue(enabledOnXor);
+    }
+}
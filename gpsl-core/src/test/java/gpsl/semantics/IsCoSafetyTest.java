@@ -0,0 +1,142 @@
+package gpsl.semantics;
+
+import gpsl.syntax.TestHelpers;
+import gpsl.syntax.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the co-safety classifier and the bad-prefix NFA of co-safety properties.
+ */
+class IsCoSafetyTest {
+
+    private static boolean isCoSafety(String source) {
+        return TestHelpers.parseExpressionOrFail(source).accept(new IsCoSafety(), false);
+    }
+
+    private static boolean isSafety(String source) {
+        return TestHelpers.parseExpressionOrFail(source).accept(new IsCoSafety(), true);
+    }
+
+    @Test
+    void testCoSafety() {
+        for (String source : List.of(
+            "|p|",
+            "<> |p|",
+            "! [] |p|",
+            "! [] (|p| -> X |q|)",
+            "X |p| && <> (|q| || |r|)",
+            "|p| U |q|",
+            "|p| M |q|",
+            "! (|p| W |q|)",
+            "! (|p| R |q|)",
+            "|p| -> <> |q|",
+            "|p| ? <> |q| : X |r|",
+            "|p| xor X |q|")) {
+            assertTrue(isCoSafety(source), source);
+        }
+    }
+
+    @Test
+    void testNotCoSafety() {
+        for (String source : List.of(
+            "[] |p|",
+            "[] <> |p|",
+            "<> [] |p|",
+            "! <> |p|",
+            "|p| W |q|",
+            "|p| R |q|",
+            "! (|p| U |q|)",
+            "([] |p|) && |q|",
+            "<> |p| <-> |q|",
+            "<> |p| ? |q| : |r|")) {
+            assertFalse(isCoSafety(source), source);
+        }
+    }
+
+    @Test
+    void testSafety() {
+        assertTrue(isSafety("[] |p|"));
+        assertTrue(isSafety("[] (|p| -> X |q|)"));
+        assertTrue(isSafety("|p| W |q|"));
+        assertFalse(isSafety("<> |p|"));
+        assertFalse(isSafety("[] <> |p|"));
+    }
+
+    @Test
+    void testReferencesAreFollowed() {
+        Declarations declarations = TestHelpers.parseDeclarationsOrFail("""
+                bad = |a| && |b|
+                never = [] ! bad
+                violation = ! never
+                """);
+        List<ExpressionDeclaration> all = declarations.declarations();
+        assertTrue(all.get(2).accept(new IsCoSafety(), false));
+        assertFalse(all.get(1).accept(new IsCoSafety(), false));
+        assertFalse(new Reference("unresolved").accept(new IsCoSafety(), false));
+    }
+
+    @Test
+    void testCoSafetyPropertiesGetBadPrefixNFA() {
+        for (String source : List.of("! [] ! |bad|", "<> |p|", "|p| U |q|", "! [] (|p| -> X |q|)", "X X |p|")) {
+            Expression expression = TestHelpers.parseExpressionOrFail(source);
+            Automaton buchi = TestHelpers.convertToAutomatonOrFail(expression);
+            assertEquals(AutomatonSemanticsKind.BUCHI, buchi.semanticsKind(), source);
+
+            Automaton nfa = CoSafetyToNFA.toNFA(expression, buchi).orElseThrow();
+            assertEquals(AutomatonSemanticsKind.NFA, nfa.semanticsKind(), source);
+            assertEquals(buchi.states(), nfa.states(), source);
+            assertEquals(buchi.transitions(), nfa.transitions(), source);
+            assertFalse(nfa.acceptStates().isEmpty(), source);
+            assertTrue(buchi.acceptStates().containsAll(nfa.acceptStates()), source);
+        }
+    }
+
+    @Test
+    void testOtherPropertiesKeepTheirBuchiAutomaton() {
+        Expression expression = TestHelpers.parseExpressionOrFail("[] <> |p|");
+        Automaton buchi = TestHelpers.convertToAutomatonOrFail(expression);
+        assertTrue(CoSafetyToNFA.toNFA(expression, buchi).isEmpty());
+    }
+
+    @Test
+    void testAcceptingCycleWithoutTrueLoopIsNotABadPrefix() {
+        State s = new State("s");
+        State x = new State("x");
+        Expression p = new Atom("p", "|");
+        Automaton infinitelyOften = new Automaton(
+                AutomatonSemanticsKind.BUCHI,
+                Set.of(s, x),
+                Set.of(s),
+                Set.of(x),
+                List.of(new Transition(s, 1, new True(), s),
+                        new Transition(s, 1, p, x),
+                        new Transition(x, 1, new True(), s)));
+        assertTrue(CoSafetyToNFA.toNFA(infinitelyOften).isEmpty());
+
+        // a lower priority true loop is not always taken
+        Automaton preempted = new Automaton(
+                AutomatonSemanticsKind.BUCHI,
+                Set.of(s, x),
+                Set.of(s),
+                Set.of(x),
+                List.of(new Transition(s, 1, p, x),
+                        new Transition(x, 0, p, s),
+                        new Transition(x, 1, new True(), x)));
+        assertTrue(CoSafetyToNFA.toNFA(preempted).isEmpty());
+
+        Automaton terminal = new Automaton(
+                AutomatonSemanticsKind.BUCHI,
+                Set.of(s, x),
+                Set.of(s),
+                Set.of(x),
+                List.of(new Transition(s, 1, new Negation("!", p), s),
+                        new Transition(s, 1, p, x),
+                        new Transition(x, 1, new True(), x)));
+        assertEquals(Set.of(x), CoSafetyToNFA.toNFA(terminal).orElseThrow().acceptStates());
+    }
+}
@@ -0,0 +1,154 @@
+package gpsl.semantics;
+
+import gpsl.syntax.TestHelpers;
+import gpsl.syntax.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the TranslationStrategy backend selection.
+ */
+class TranslationStrategyTest {
+
+    private static final Automaton MARKER = new Automaton(
+            AutomatonSemanticsKind.BUCHI, Set.of(), Set.of(), Set.of(), List.of());
+
+    /**
+     * A backend accepting every formula, counting its calls.
+     */
+    private static class FakeBackend implements TranslationBackend {
+        final AtomicInteger calls = new AtomicInteger();
+        final long sleepMillis;
+        final boolean fails;
+
+        FakeBackend(long sleepMillis, boolean fails) {
+            this.sleepMillis = sleepMillis;
+            this.fails = fails;
+        }
+
+        @Override
+        public String name() {
+            return "fake";
+        }
+
+        @Override
+        public boolean accepts(FormulaFeatures features) {
+            return true;
+        }
+
+        @Override
+        public Automaton translate(Expression expression) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fails) {
+                throw new Semantics.SemanticConversionException("fake failure");
+            }
+            return MARKER;
+        }
+    }
+
+    @Test
+    void testFeatures() {
+        var features = FormulaFeatures.of(TestHelpers.parseExpressionOrFail("[] (|p| -> X <> (|q| && |p|))"));
+        assertEquals(2, features.atomCount());
+        assertEquals(3, features.temporalDepth());
+        assertFalse(features.isPropositional());
+
+        var propositional = FormulaFeatures.of(TestHelpers.parseExpressionOrFail("|p| && ! |q|"));
+        assertTrue(propositional.isPropositional());
+        // p, q, !q, p && !q
+        assertEquals(4, propositional.size());
+    }
+
+    @Test
+    void testSharedSubformulasAreCountedOnce() {
+        var declarations = TestHelpers.parseDeclarationsOrFail("a = |p| && |q| b = a U a");
+        var features = FormulaFeatures.of(declarations.declarations().getLast().expression());
+        // U, two references to a, p && q, p, q
+        assertEquals(6, features.size());
+        assertEquals(1, features.temporalDepth());
+    }
+
+    @Test
+    void testDefaultStrategyRoutesByFeatures() {
+        var strategy = TranslationStrategy.defaultStrategy();
+
+        var nfa = strategy.toAutomaton(TestHelpers.parseExpressionOrFail("|p| || |q|"));
+        assertEquals(AutomatonSemanticsKind.NFA, nfa.semanticsKind());
+
+        var buchi = strategy.toAutomaton(TestHelpers.parseExpressionOrFail("<> |p|"));
+        assertEquals(AutomatonSemanticsKind.BUCHI, buchi.semanticsKind());
+    }
+
+    @Test
+    void testExplicitAutomataAreUsedDirectly() {
+        var backend = new FakeBackend(0, false);
+        var strategy = TranslationStrategy.first(backend);
+
+        var automaton = strategy.toAutomaton(new Automaton(
+                AutomatonSemanticsKind.NFA, Set.of(), Set.of(), Set.of(), List.of()));
+
+        assertEquals(AutomatonSemanticsKind.NFA, automaton.semanticsKind());
+        assertEquals(0, backend.calls.get());
+    }
+
+    @Test
+    void testFailureFallsBackToNextBackend() {
+        var failing = new FakeBackend(0, true);
+        var working = new FakeBackend(0, false);
+        var strategy = TranslationStrategy.first(failing).then(working);
+
+        assertSame(MARKER, strategy.toAutomaton(TestHelpers.parseExpressionOrFail("<> |p|")));
+        assertEquals(1, failing.calls.get());
+        assertEquals(1, working.calls.get());
+    }
+
+    @Test
+    void testTimeoutFallsBackToNextBackend() {
+        var slow = new FakeBackend(5_000, false);
+        var strategy = TranslationStrategy
+                .first(slow, Duration.ofMillis(50))
+                .then(TranslationBackend.ltl3ba());
+
+        long start = System.nanoTime();
+        var automaton = strategy.toAutomaton(TestHelpers.parseExpressionOrFail("<> |p|"));
+
+        assertNotSame(MARKER, automaton);
+        assertFalse(automaton.states().isEmpty());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(4)) < 0);
+    }
+
+    @Test
+    void testRestrictedBackendsAreSkipped() {
+        var small = new FakeBackend(0, false);
+        var strategy = TranslationStrategy
+                .first(small.when(f -> f.size() < 3))
+                .then(TranslationBackend.ltl3ba());
+
+        strategy.toAutomaton(TestHelpers.parseExpressionOrFail("[] (|p| -> <> |q|)"));
+        assertEquals(0, small.calls.get());
+    }
+
+    @Test
+    void testAllBackendsFailing() {
+        var strategy = TranslationStrategy.first(new FakeBackend(0, true)).then(new FakeBackend(0, true));
+
+        var e = assertThrows(Semantics.SemanticConversionException.class,
+                () -> strategy.toAutomaton(TestHelpers.parseExpressionOrFail("<> |p|")));
+        assertTrue(e.getMessage().contains("fake failure"));
+
+        var none = TranslationStrategy.first(TranslationBackend.propositional());
+        assertThrows(Semantics.SemanticConversionException.class,
+                () -> none.toAutomaton(TestHelpers.parseExpressionOrFail("<> |p|")));
+    }
+}
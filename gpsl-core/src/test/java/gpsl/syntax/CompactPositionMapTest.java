@@ -0,0 +1,128 @@
+package gpsl.syntax;
+
+import gpsl.parser.GPSLParser;
+import gpsl.syntax.model.*;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.*;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the offset-only position map.
+ */
+class CompactPositionMapTest {
+
+    /**
+     * Maps a source with both maps, recording parse tree nodes in the compact one.
+     */
+    private static void assertSameAsPositionMap(String source) {
+        ParseContext expected = new ParseContext(source);
+        ParseContext actual = new ParseContext(source, new CompactPositionMap(source, true));
+        var tree = Reader.parseTree(source, expected, GPSLParser::block);
+        assertFalse(expected.hasErrors());
+        var expectedMapper = new Antlr4ToGPSLMapper(expected, true);
+        var actualMapper = new Antlr4ToGPSLMapper(actual, true);
+        ParseTreeWalker.DEFAULT.walk(expectedMapper, tree);
+        ParseTreeWalker.DEFAULT.walk(actualMapper, tree);
+
+        List<SyntaxTreeElement> expectedNodes = TestHelpers.nodes(expectedMapper.getValue(tree));
+        List<SyntaxTreeElement> actualNodes = TestHelpers.nodes(actualMapper.getValue(tree));
+        assertEquals(expectedNodes.size(), actualNodes.size());
+        assertEquals(expected.positionMap().trackedNodes().size(), actual.positionMap().trackedNodes().size());
+        for (int i = 0; i < expectedNodes.size(); i++) {
+            SyntaxTreeElement node = actualNodes.get(i);
+            assertEquals(expected.positionMap().getAll(expectedNodes.get(i)), actual.positionMap().getAll(node));
+            assertEquals(expected.positionMap().getParseTree(expectedNodes.get(i)), actual.positionMap().getParseTree(node));
+            assertEquals(expected.positionMap().contains(expectedNodes.get(i)), actual.positionMap().trackedNodes().contains(node));
+        }
+    }
+
+    @Test
+    void testSameRangesAsPositionMap() {
+        assertSameAsPositionMap("a = [] (|p| -> <> |q|)\nb *= a U\n  (|x\ny| && ! a)\n");
+        assertSameAsPositionMap("h = nfa states s, t; initial s; accept t;\n s [|q| && ! |q|] t");
+        assertSameAsPositionMap(ParserBenchmark.generate(500, new Random(41)));
+    }
+
+    @Test
+    void testReaderResultsUseCompactMap() {
+        var result = Reader.parseDeclarationsWithPositions("a = [] ((|p|))\nb = a");
+        assertInstanceOf(CompactPositionMap.class, result.positionMap());
+        var declarations = ((ParseResult.Success<Declarations>) result.result()).value();
+        var globally = (Globally) declarations.declarations().getFirst().expression();
+
+        // parentheses widen the range of their content
+        assertEquals(new Range(new Position(1, 8, 7), new Position(1, 15, 14)),
+                result.positionMap().getOrThrow(globally.expression()));
+        assertEquals(new Position(2, 6, 20), result.positionMap().getOrThrow(declarations).end());
+        assertTrue(result.positionMap().getParseTree(declarations).isEmpty());
+    }
+
+    @Test
+    void testSharedNodes() {
+        var map = new CompactPositionMap("a && a && (a)");
+        var node = new Atom("a", "|");
+        map.put(node, range(0, 1));
+        map.put(node, range(5, 6));
+        map.put(node, range(11, 12));
+        // widens the last range
+        map.put(node, range(10, 13));
+
+        assertEquals(List.of(range(0, 1), range(5, 6), range(10, 13)), map.getAll(node));
+        assertEquals(range(0, 1), map.getOrThrow(node));
+
+        var copy = new PositionMap();
+        copy.mergeFrom(map);
+        assertEquals(map.getAll(node), copy.getAll(node));
+    }
+
+    @Test
+    void testRemoveAndGrow() {
+        String source = "x".repeat(1000);
+        var map = new CompactPositionMap(source);
+        List<Atom> atoms = new java.util.ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Atom atom = new Atom("x", "|");
+            atoms.add(atom);
+            map.put(atom, range(i, i + 1));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            map.remove(atoms.get(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Atom atom = new Atom("x", "|");
+            map.put(atom, range(i, i + 1));
+            atoms.add(atom);
+        }
+
+        assertEquals(1500, map.trackedNodes().size());
+        for (int i = 0; i < 2000; i++) {
+            boolean kept = i >= 1000 || i % 2 == 1;
+            assertEquals(kept, map.contains(atoms.get(i)));
+            assertEquals(kept ? List.of(range(i % 1000, i % 1000 + 1)) : List.of(), map.getAll(atoms.get(i)));
+        }
+        map.clear();
+        assertFalse(map.contains(atoms.getLast()));
+        assertTrue(map.trackedNodes().isEmpty());
+    }
+
+    @Test
+    void testColumnsCountCodePoints() {
+        // the mathematical script letter is two chars, one code point for the lexer
+        String source = "a = |𝒜|\nb = a";
+        var result = Reader.parseDeclarationsWithPositions(source);
+        var declarations = ((ParseResult.Success<Declarations>) result.result()).value();
+
+        assertEquals(new Range(new Position(1, 5, 4), new Position(1, 8, 7)),
+                result.positionMap().getOrThrow(declarations.declarations().getFirst().expression()));
+        assertEquals(new Position(2, 1, 8), result.positionMap().getOrThrow(declarations.declarations().getLast()).start());
+    }
+
+    private static Range range(int start, int end) {
+        return new Range(new Position(1, start + 1, start), new Position(1, end + 1, end));
+    }
+}
@@ -0,0 +1,93 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.Declarations;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the scopes of symbols.
+ */
+class ContextTest {
+
+    @Test
+    void testInnerScopesShadowAndRestore() {
+        Map<String, Object> globals = new HashMap<>(Map.of("a", "global a"));
+        var context = new Context(globals);
+
+        context.pushContext();
+        context.define("a", "outer a");
+        context.define("b", "outer b");
+        context.pushContext(Map.of("a", "inner a"));
+        assertEquals("inner a", context.lookup("a"));
+        assertEquals("outer b", context.lookup("b"));
+        assertEquals(Map.of("a", "inner a"), context.currentContext());
+
+        context.popContext();
+        assertEquals("outer a", context.lookup("a"));
+        context.popContext();
+        assertEquals("global a", context.lookup("a"));
+        assertThrows(Context.SymbolNotFoundException.class, () -> context.lookup("b"));
+        assertThrows(IllegalStateException.class, context::popContext);
+
+        // global definitions go to the given map
+        context.define("c", null);
+        assertNull(context.lookup("c"));
+        assertTrue(globals.containsKey("c"));
+    }
+
+    @Test
+    void testDuplicatesInTheSameScope() {
+        var context = new Context();
+        context.define("a", 1);
+        assertThrows(Context.SymbolAlreadyDefinedException.class, () -> context.define("a", 2));
+
+        context.pushContext();
+        context.define("a", 3);
+        assertThrows(Context.SymbolAlreadyDefinedException.class, () -> context.define("a", 4));
+        context.pushContext();
+        context.define("a", 5);
+        context.popContext();
+        assertEquals(3, (int) context.lookup("a"));
+    }
+
+    @Test
+    void testDeeplyNestedScopes() {
+        var context = new Context();
+        int depth = 100_000;
+        for (int i = 0; i < depth; i++) {
+            context.pushContext();
+            context.define("x" + i, i);
+            context.define("shadowed", i);
+        }
+        assertEquals(0, (int) context.lookup("x0"));
+        assertEquals(depth - 1, (int) context.lookup("shadowed"));
+        for (int i = depth - 1; i >= 0; i--) {
+            assertEquals(i, (int) context.lookup("shadowed"));
+            context.popContext();
+        }
+        assertThrows(Context.SymbolNotFoundException.class, () -> context.lookup("x0"));
+    }
+
+    @Test
+    void testNestedLetErrors() {
+        StringBuilder source = new StringBuilder("a = ");
+        for (int i = 0; i < 200; i++) {
+            source.append("let x").append(i).append(" = ").append(i == 0 ? "|p|" : "x" + (i - 1)).append(" in ");
+        }
+        source.append("let y = x199, y = x0 in y && z");
+
+        ParseResult<Declarations> result = Reader.parseAndLinkDeclarations(source.toString());
+
+        assertInstanceOf(ParseResult.Failure.class, result);
+        if (result instanceof ParseResult.Failure<Declarations> failure) {
+            assertEquals(List.of("duplicate-symbol", "undefined-symbol"),
+                    failure.errors().stream().map(error -> error.code().orElseThrow()).toList());
+        }
+    }
+}
@@ -277,6 +277,48 @@ class ErrorReportingTest {
         }
     }
 
+    // ========== AUTOMATON STATE TESTS ==========
+
+    @Test
+    void testStateNamedInGuard() {
+        var result = parseAndLinkDeclarations("a = states s, t; initial s; accept t; s [t] t");
+
+        assertTrue(result.isFailure(), "A state is not a formula");
+
+        if (result instanceof ParseResult.Failure<Declarations> failure) {
+            assertEquals(1, failure.errors().size());
+
+            ParseError error = failure.errors().get(0);
+            assertEquals("state-reference", error.code().orElse(""));
+            assertTrue(error.message().contains("t"));
+            assertEquals(42, error.range().start().column(), "Error should point to the guard");
+        }
+    }
+
+    @Test
+    void testStatesAreLinkedAlikeWhileBuilding() {
+        for (String source : new String[] {
+                "a = states s, t; initial s; accept t; s [s] t",
+                "t = |p| a = states s, t; initial s; accept t; s [t] t",
+                "t = |p| a = let u = t in states s, t; initial s; accept t; s [u] t",
+                "t = |p| a = states s, u; initial s; accept u; s [t] u",
+                "t = |p| a = states s, s; initial s; accept s; s [t] s"}) {
+            var linked = parseAndLinkDeclarations(source);
+            var built = Reader.parseDeclarationsWithPositions(source, Factory.instance()).result();
+            // without positions
+            var unpositioned = Reader.parseAndLinkDeclarations(source);
+
+            assertEquals(linked.isSuccess(), built.isSuccess(), source);
+            assertEquals(linked.isSuccess(), unpositioned.isSuccess(), source);
+            if (linked instanceof ParseResult.Failure<Declarations> failure) {
+                assertEquals(failure.errors(), ((ParseResult.Failure<Declarations>) built).errors(), source);
+                assertEquals(failure.errors().stream().map(ParseError::message).toList(),
+                        ((ParseResult.Failure<Declarations>) unpositioned).errors().stream().map(ParseError::message).toList(),
+                        source);
+            }
+        }
+    }
+
     // ========== ERROR MESSAGE QUALITY TESTS ==========
     
     @Test
@@ -553,4 +595,42 @@ class ErrorReportingTest {
                 "Should only report undefined 'x', not complain about atom content");
         }
     }
+
+    // ========== TWO-STAGE PARSING ==========
+
+    @Test
+    void testTwoStageParsingReportsSameErrorsAsLLParsing() {
+        String[] invalid = {
+            "(true",
+            "a && && b",
+            "|p| U",
+            "x = true y = ",
+            "x = [] |p| y = (true z = false",
+            "x = # true",
+            "states a; initial a; accept a; a [1] true -> ",
+            "a = true b = false c = a &&& b"
+        };
+        for (String source : invalid) {
+            for (Reader.ParserFunction rule : new Reader.ParserFunction[] {
+                    gpsl.parser.GPSLParser::formula, gpsl.parser.GPSLParser::block}) {
+                ParseContext twoStage = new ParseContext(source);
+                Reader.parseTree(source, twoStage, rule);
+
+                ParseContext ll = new ParseContext(source);
+                rule.parse(Reader.createParser(source, ll));
+
+                assertEquals(ll.errors(), twoStage.errors(), "Errors differ for: " + source);
+            }
+        }
+    }
+
+    @Test
+    void testTwoStageParsingOfValidInputHasNoErrors() {
+        String source = "a = [] (|p| -> <> |q|) b = a U !a c = a ? b : X c";
+        ParseContext context = new ParseContext(source);
+        var tree = Reader.parseTree(source, context, gpsl.parser.GPSLParser::block);
+
+        assertFalse(context.hasErrors());
+        assertEquals(3, ((gpsl.parser.GPSLParser.BlockContext) tree).formulaDeclaration().size());
+    }
 }
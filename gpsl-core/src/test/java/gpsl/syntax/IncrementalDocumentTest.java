@@ -0,0 +1,198 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.*;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the incremental reparsing of declarations.
+ */
+class IncrementalDocumentTest {
+
+    private static TextEdit replace(String source, String target, String text) {
+        int start = source.indexOf(target);
+        assertTrue(start >= 0, target);
+        return new TextEdit(start, start + target.length(), text);
+    }
+
+    private static void edit(IncrementalDocument document, String target, String text) {
+        document.apply(List.of(replace(document.source(), target, text)));
+        assertSameAsWholeParse(document);
+    }
+
+    private static Declarations declarations(IncrementalDocument document) {
+        if (document.parseResult().result() instanceof ParseResult.Success<Declarations>(Declarations declarations)) {
+            return declarations;
+        }
+        return fail(document.parseResult().result().toString());
+    }
+
+    /**
+     * Checks the document against a parse and link of its whole source, positions included.
+     */
+    private static void assertSameAsWholeParse(IncrementalDocument document) {
+        var parsed = Reader.parseDeclarationsWithPositions(document.source());
+        var linked = Reader.linkWithPositions(parsed);
+        if (!(parsed.result() instanceof ParseResult.Success<Declarations>(Declarations expected))) {
+            assertEquals(parsed.result(), document.parseResult().result());
+            return;
+        }
+        Declarations actual = declarations(document);
+        assertEquals(expected, actual);
+        List<SyntaxTreeElement> expectedNodes = TestHelpers.nodes(expected);
+        List<SyntaxTreeElement> actualNodes = TestHelpers.nodes(actual);
+        assertEquals(expectedNodes.size(), actualNodes.size());
+        for (int i = 0; i < expectedNodes.size(); i++) {
+            assertEquals(parsed.positionMap().getAll(expectedNodes.get(i)),
+                    document.parseResult().positionMap().getAll(actualNodes.get(i)), expectedNodes.get(i).toString());
+        }
+        assertEquals(linked, document.linkResult());
+    }
+
+    @Test
+    void testEditReparsesOnlyTheEditedDeclaration() {
+        var document = IncrementalDocument.parse("a = |p|\nb = [] a\nc = <> |q|\nd = c U |r|\n");
+        List<ExpressionDeclaration> before = declarations(document).declarations();
+
+        edit(document, "<> |q|", "X\n  (|q| && |s|)");
+
+        List<ExpressionDeclaration> after = declarations(document).declarations();
+        assertSame(before.get(0), after.get(0));
+        assertSame(before.get(1), after.get(1));
+        assertNotSame(before.get(2), after.get(2));
+        assertSame(before.get(3), after.get(3));
+        // c and its referrer d
+        assertEquals(2, document.lastLinked());
+        assertSame(after.get(2).expression(), ((Reference) ((BinaryExpression) after.get(3).expression()).left()).expression());
+        assertEquals(new Position(5, 1, 38), document.parseResult().positionMap().getOrThrow(after.get(3)).start());
+    }
+
+    @Test
+    void testRenamingRelinksReferrers() {
+        var document = IncrementalDocument.parse("a = |p|\nb = [] a\nc = <> |q|\nd = X b\n");
+
+        edit(document, "a =", "z =");
+        assertEquals(2, document.lastLinked());
+        var errors = assertInstanceOf(ParseResult.Failure.class, document.linkResult()).errors();
+        assertEquals(1, errors.size());
+
+        // an unrelated edit keeps the error, moved
+        edit(document, "c = <> |q|", "c = <> |q|\n\n");
+        assertEquals(1, document.lastLinked());
+        assertInstanceOf(ParseResult.Failure.class, document.linkResult());
+
+        edit(document, "z =", "a =");
+        assertInstanceOf(ParseResult.Success.class, document.linkResult());
+    }
+
+    @Test
+    void testInsertingAndDeletingDeclarations() {
+        var document = IncrementalDocument.parse("a = |p|\nb = [] a\n\nd = X b\n");
+
+        edit(document, "\n\n", "\nc = b && |q| c *= c\n");
+        assertEquals(5, declarations(document).declarations().size());
+        // the duplicate c
+        assertInstanceOf(ParseResult.Failure.class, document.linkResult());
+
+        edit(document, "c *= c", "");
+        assertInstanceOf(ParseResult.Success.class, document.linkResult());
+
+        edit(document, "b = [] a\n", "");
+        assertEquals(3, declarations(document).declarations().size());
+        assertInstanceOf(ParseResult.Failure.class, document.linkResult());
+    }
+
+    @Test
+    void testSyntaxErrorsFallBackToWholeParse() {
+        var document = IncrementalDocument.parse("a = |p|\nb = [] a\nc = <> |q|\n");
+
+        edit(document, "[] a", "[] (a");
+        assertInstanceOf(ParseResult.Failure.class, document.parseResult().result());
+
+        edit(document, "[] (a", "[] (a)");
+        assertInstanceOf(ParseResult.Success.class, document.linkResult());
+
+        // an edit joining two declarations
+        edit(document, "(a)\n", "(a) && ");
+        assertEquals(2, declarations(document).declarations().size());
+
+        // the block parser stops at unexpected tokens, dropping the next declarations
+        edit(document, "(a) && ", "(a) )\n");
+        assertEquals(2, declarations(document).declarations().size());
+
+        edit(document, document.source(), "");
+        assertInstanceOf(ParseResult.Failure.class, document.parseResult().result());
+    }
+
+    @Test
+    void testSeveralEdits() {
+        var document = IncrementalDocument.parse("a = |p|\nb = [] a\nc = <> |q| // c\nd = X b\ne = c\n");
+        String source = document.source();
+
+        document.apply(List.of(
+                replace(source, "d = X b", "d = X b\nf = d"),
+                replace(source, "|p|", "|p| ||\n |r|"),
+                replace(source, "// c", "/* c */")));
+
+        assertEquals(6, declarations(document).declarations().size());
+        assertSameAsWholeParse(document);
+    }
+
+    @Test
+    void testRandomEdits() {
+        Random random = new Random(39);
+        var document = IncrementalDocument.parse(ParserBenchmark.generate(80, random));
+
+        for (int i = 0; i < 200; i++) {
+            String source = document.source();
+            int start = random.nextInt(source.length() + 1);
+            int end = Math.min(source.length(), start + random.nextInt(12));
+            String text = switch (random.nextInt(6)) {
+                case 0 -> "";
+                case 1 -> " ";
+                case 2 -> "\nn" + i + " = d" + random.nextInt(80) + " && |y|\n";
+                case 3 -> "(";
+                case 4 -> "|z" + i + "|";
+                default -> source.substring(start, end);
+            };
+            document.apply(List.of(new TextEdit(start, end, text)));
+            assertSameAsWholeParse(document);
+        }
+    }
+
+    @Test
+    void testSupplementaryCharactersBeforeTheEdit() {
+        // the emoji is two chars, one code point for the lexer
+        var document = IncrementalDocument.parse("x = |😀|\na = |p| // 😀\nb = [] a\nc = <> |q|\n");
+        List<ExpressionDeclaration> before = declarations(document).declarations();
+
+        edit(document, "<> |q|", "<> |r|");
+        edit(document, "[] a", "[] (a && |😀|)");
+        edit(document, "|p|", "|p| ||\n |😀|");
+
+        List<ExpressionDeclaration> after = declarations(document).declarations();
+        assertSame(before.get(0), after.get(0));
+        assertNotSame(before.get(3), after.get(3));
+        assertEquals(1, document.wholeParses());
+        assertEquals("c = <> |r|", document.text(after.get(3)));
+        assertEquals("b = [] (a && |😀|)", document.text(after.get(2)));
+    }
+
+    @Test
+    void testLineIndex() {
+        var lines = new LineIndex("ab\n\ncd");
+
+        assertEquals(3, lines.lineCount());
+        assertEquals(new Position(1, 1, 0), lines.position(0));
+        assertEquals(new Position(2, 1, 3), lines.position(3));
+        assertEquals(new Position(3, 3, 6), lines.position(6));
+        assertEquals(4, lines.offset(3, 1));
+        assertEquals(2, lines.offset(1, 10));
+        assertEquals(6, lines.offset(7, 1));
+    }
+}
@@ -0,0 +1,119 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the parallel linking of declarations.
+ */
+class ParallelLinkingTest {
+
+    /**
+     * Links two parses of a source, sequentially and in parallel, and compares errors and targets.
+     */
+    private static void assertSameAsSequential(String source, Map<String, Object> externalSymbols) {
+        var sequential = Reader.parseDeclarationsWithPositions(source);
+        var parallel = Reader.parseDeclarationsWithPositions(source);
+        Map<String, Object> parallelSymbols = new HashMap<>(externalSymbols);
+
+        var expected = Reader.linkWithPositions(sequential, new HashMap<>(externalSymbols));
+        ParseResult<Declarations> actual;
+        try (var pool = new ForkJoinPool(4)) {
+            actual = Reader.linkInParallel(parallel, parallelSymbols, pool);
+        }
+
+        assertEquals(expected, actual);
+        List<SyntaxTreeElement> expectedNodes = TestHelpers.nodes(((ParseResult.Success<Declarations>) sequential.result()).value());
+        List<SyntaxTreeElement> actualNodes = TestHelpers.nodes(((ParseResult.Success<Declarations>) parallel.result()).value());
+        Map<SyntaxTreeElement, Integer> expectedIds = ids(expectedNodes);
+        Map<SyntaxTreeElement, Integer> actualIds = ids(actualNodes);
+        for (int i = 0; i < expectedNodes.size(); i++) {
+            if (expectedNodes.get(i) instanceof Reference reference) {
+                Expression target = ((Reference) actualNodes.get(i)).expression();
+                // the same node of each tree, or the same external symbol
+                Integer id = expectedIds.get(reference.expression());
+                assertEquals(id, actualIds.get(target), reference.name());
+                if (id == null) {
+                    assertSame(reference.expression(), target);
+                }
+            }
+        }
+        assertEquals(externalSymbols, parallelSymbols);
+    }
+
+    private static Map<SyntaxTreeElement, Integer> ids(List<SyntaxTreeElement> nodes) {
+        Map<SyntaxTreeElement, Integer> ids = new IdentityHashMap<>();
+        for (SyntaxTreeElement node : nodes) {
+            ids.putIfAbsent(node, ids.size());
+        }
+        return ids;
+    }
+
+    @Test
+    void testSameAsSequentialLinking() {
+        Random random = new Random(44);
+        StringBuilder source = new StringBuilder(ParserBenchmark.generate(3000, random));
+        for (int i = 0; i < 200; i++) {
+            int declaration = random.nextInt(3200);
+            switch (random.nextInt(4)) {
+                // duplicates, forward and undefined references
+                case 0 -> source.append("d").append(declaration).append(" = |dup|\n");
+                case 1 -> source.append("f").append(i).append(" = d").append(declaration).append(" && g").append(i).append('\n');
+                case 2 -> source.append("g").append(i).append(" = let d0 = |shadow| in d0 U ext\n");
+                default -> source.append("ext = [] d").append(declaration).append('\n');
+            }
+        }
+
+        assertSameAsSequential(source.toString(), Map.of());
+        assertSameAsSequential(source.toString(), Map.of("ext", new Atom("external", "|"), "d7", new True()));
+    }
+
+    @Test
+    void testSmallBlocksAndFailures() {
+        assertSameAsSequential("a = |p| b = a U c c = b a = c", Map.of());
+
+        var failed = Reader.parseDeclarationsWithPositions("a = [] (");
+        assertSame(failed.result(), Reader.linkInParallel(failed));
+    }
+
+    @Test
+    void testGlobalsViewTheVisibleDefinitions() {
+        var parsed = Reader.parseDeclarationsWithPositions("a = |p| b = a ext = |q| a = b c = b");
+        Declarations block = ((ParseResult.Success<Declarations>) parsed.result()).value();
+        Expression external = new True();
+        ParallelLinker linker = new ParallelLinker(new ParseContext(""), block, Map.of("ext", external));
+        List<ExpressionDeclaration> declarations = block.declarations();
+
+        assertEquals(Map.of("ext", external), linker.globals(0));
+        assertEquals(Map.of("ext", external, "a", declarations.get(0).expression()), linker.globals(1));
+        // a redefinition is not visible, the first definition winning
+        Map<String, Object> last = linker.globals(4);
+        assertEquals(Map.of("ext", external, "a", declarations.get(0).expression(), "b", declarations.get(1).expression()), last);
+        assertEquals(3, last.size());
+        assertEquals(Set.of("a", "b", "ext"), last.keySet());
+        assertSame(declarations.get(1).expression(), last.get("b"));
+        assertFalse(last.containsKey("c"));
+        assertEquals(new HashMap<>(last).hashCode(), last.hashCode());
+    }
+
+    @Test
+    void testGlobalsOnlyTakeThePrecomputedDefinitions() {
+        var parsed = Reader.parseDeclarationsWithPositions("a = |p| b = a a = b");
+        Declarations block = ((ParseResult.Success<Declarations>) parsed.result()).value();
+        ParallelLinker linker = new ParallelLinker(new ParseContext(""), block, Map.of());
+        List<ExpressionDeclaration> declarations = block.declarations();
+
+        assertNull(linker.globals(1).put("b", declarations.get(1).expression()));
+        // another expression, another declaration, or the redefinition
+        assertThrows(IllegalStateException.class, () -> linker.globals(1).put("b", new True()));
+        assertThrows(IllegalStateException.class, () -> linker.globals(0).put("b", declarations.get(1).expression()));
+        assertThrows(IllegalStateException.class, () -> linker.globals(2).put("a", declarations.get(2).expression()));
+        assertThrows(IllegalStateException.class, () -> linker.globals(2).put("c", new True()));
+    }
+}
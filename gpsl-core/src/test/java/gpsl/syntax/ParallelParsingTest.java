@@ -0,0 +1,136 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the declaration boundary scanner and the parallel parsing of declarations.
+ */
+class ParallelParsingTest {
+
+    private static List<String> split(String source) {
+        return DeclarationScanner.split(source, 0).stream()
+                .map(chunk -> source.substring(chunk.start(), chunk.end()))
+                .toList();
+    }
+
+    @Test
+    void testScannerFindsTopLevelDeclarations() {
+        assertEquals(List.of("a = |p| ", "b *= |q|\n", "c = [] a"), split("a = |p| b *= |q|\nc = [] a"));
+    }
+
+    @Test
+    void testScannerSkipsNestedAndQuotedEquals() {
+        String source = """
+                a = let x = |p|, y = (let z = |v == 1| in z) in x U y
+                // d = not a declaration
+                /* e = neither
+                   f = this */ b = "g = 1" \\/ \\ h = |q| in h => a
+                c = states s; initial s; accept s; s [|i = 0| /\\ a] s
+                """;
+        var chunks = split(source);
+
+        assertEquals(3, chunks.size());
+        assertTrue(chunks.get(0).startsWith("a = let"));
+        assertTrue(chunks.get(1).startsWith("b = \"g = 1\""));
+        assertTrue(chunks.get(2).startsWith("c = states"));
+    }
+
+    @Test
+    void testScannerTracksOrigins() {
+        String source = "a = |p\n|\n  b = |q|  c = /* \n */ |r|\nd = |s|";
+        var chunks = DeclarationScanner.split(source, 0);
+
+        assertEquals(4, chunks.size());
+        assertEquals(new Position(3, 3, 11), chunks.get(1).origin());
+        assertEquals(new Position(3, 12, 20), chunks.get(2).origin());
+        assertEquals(new Position(5, 1, 36), chunks.get(3).origin());
+    }
+
+    @Test
+    void testParallelParsingMatchesSequentialParsing() {
+        String source = ParserBenchmark.generate(6_000, new Random(7));
+        var pool = new ForkJoinPool(4);
+        try {
+            var sequential = Reader.parseDeclarationsWithPositions(source);
+            var parallel = Reader.parseDeclarationsInParallel(source, pool);
+
+            var expected = ((ParseResult.Success<Declarations>) sequential.result()).value();
+            var actual = ((ParseResult.Success<Declarations>) parallel.result()).value();
+            assertEquals(expected, actual);
+            assertEquals(sequential.rangeOf(expected), parallel.rangeOf(actual));
+            for (int i = 0; i < expected.declarations().size(); i++) {
+                var expectedDeclaration = expected.declarations().get(i);
+                var actualDeclaration = actual.declarations().get(i);
+                assertEquals(sequential.rangeOf(expectedDeclaration), parallel.rangeOf(actualDeclaration));
+                assertEquals(sequential.rangeOf(expectedDeclaration.expression()),
+                        parallel.rangeOf(actualDeclaration.expression()));
+            }
+
+            // a single linking pass over the merged result
+            assertTrue(Reader.linkWithPositions(parallel).isSuccess());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testScannerOriginsCountCodePoints() {
+        // the emoji is two chars, one code point for the lexer
+        String source = "a = |😀| b = |p|\n |😀| c = |q|";
+        var chunks = DeclarationScanner.split(source, 0);
+
+        assertEquals(3, chunks.size());
+        assertEquals(new Position(1, 9, 8), chunks.get(1).origin());
+        assertEquals(new Position(2, 6, 21), chunks.get(2).origin());
+        assertEquals("c = |q|", source.substring(chunks.get(2).start(), chunks.get(2).end()));
+    }
+
+    @Test
+    void testParallelParsingWithSupplementaryCharacters() {
+        String generated = ParserBenchmark.generate(6_000, new Random(13));
+        int middle = generated.indexOf("\nd3000 ") + 1;
+        String source = "x = |😀|\n" + generated.substring(0, middle) + "y = |𝒜| && |😀|\n" + generated.substring(middle);
+        var pool = new ForkJoinPool(4);
+        try {
+            var sequential = Reader.parseDeclarationsWithPositions(source);
+            var parallel = Reader.parseDeclarationsInParallel(source, pool);
+
+            var expected = ((ParseResult.Success<Declarations>) sequential.result()).value();
+            var actual = ((ParseResult.Success<Declarations>) parallel.result()).value();
+            assertEquals(expected, actual);
+            List<SyntaxTreeElement> expectedNodes = TestHelpers.nodes(expected);
+            List<SyntaxTreeElement> actualNodes = TestHelpers.nodes(actual);
+            assertEquals(expectedNodes.size(), actualNodes.size());
+            for (int i = 0; i < expectedNodes.size(); i++) {
+                assertEquals(sequential.positionMap().getAll(expectedNodes.get(i)),
+                        parallel.positionMap().getAll(actualNodes.get(i)), expectedNodes.get(i).toString());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelParsingFallsBackOnErrors() {
+        String valid = ParserBenchmark.generate(6_000, new Random(11));
+        int middle = valid.indexOf("\nd3000 ") + 1;
+        String source = valid.substring(0, middle) + "broken = ( |p| && \n" + valid.substring(middle);
+        var pool = new ForkJoinPool(4);
+        try {
+            var sequential = (ParseResult.Failure<Declarations>) Reader.parseDeclarationsWithPositions(source).result();
+            var parallel = (ParseResult.Failure<Declarations>) Reader.parseDeclarationsInParallel(source, pool).result();
+
+            assertEquals(sequential.errors(), parallel.errors());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package gpsl.syntax;
+
+import gpsl.parser.GPSLParser;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark of the two-stage (SLL, then LL) parsing of {@link Reader} against a plain LL parse.
+ *
+ * <p>Generates declaration files of increasing size and reports the median time to build the parse
+ * tree in both modes, and the time of a full {@link Reader#parseDeclarations(String)} with the ANTLR and the
+ * hand-written ({@link Reader.Backend#PRATT}) backends.
+ *
+ * <p>It then compares, per MB of input, the time and the retained memory of the parse results with
+ * ({@link Reader#parseDeclarationsWithPositions(String)}) and without ({@link Reader#parseDeclarations(String)})
+ * position tracking, the time to read a {@link SyntaxTreeImage} of the linked declarations with positions, with
+ * its size, and the times of {@link Reader#parseDeclarationsInParallel(String)} and
+ * {@link Reader#linkInParallel(Reader.ParseResultWithPositions)} on the common pool.
+ *
+ * <p>Usage: {@code ParserBenchmark [declarations [repetitions]]}, defaults to 20000 declarations and 7 repetitions.
+ */
+public class ParserBenchmark {
+
+    private static final String[] TEMPLATES = {
+            "[] (%1$s -> <> %2$s)",
+            "%1$s U (%2$s && ! %3$s)",
+            "<> [] %1$s || [] <> (%2$s ^ %3$s)",
+            "X (%1$s ? %2$s : %3$s) W %1$s",
+            "(%1$s <-> %2$s) R (%3$s \\/ false)",
+            "let t = %1$s && %2$s in [] (t => X t)",
+    };
+
+    public static void main(String[] args) {
+        int declarations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+
+        System.out.printf("%12s %10s %12s %12s %12s %12s%n",
+                "declarations", "size (kB)", "LL (ms)", "SLL+LL (ms)", "Reader (ms)", "Pratt (ms)");
+        for (int count = declarations / 8; count <= declarations; count *= 2) {
+            String source = generate(count, new Random(count));
+            // warm-up
+            for (int i = 0; i < 3; i++) {
+                parseLL(source);
+                parseTwoStage(source);
+            }
+            long ll = median(repetitions, () -> parseLL(source));
+            long twoStage = median(repetitions, () -> parseTwoStage(source));
+            long reader = median(repetitions, () -> Reader.parseDeclarations(source));
+            long pratt = withPratt(() -> median(repetitions, () -> Reader.parseDeclarations(source)));
+            System.out.printf("%12d %10d %12.2f %12.2f %12.2f %12.2f%n",
+                    count, source.length() / 1024, ll / 1e6, twoStage / 1e6, reader / 1e6, pratt / 1e6);
+        }
+
+        String source = generate(declarations, new Random(42));
+        double megabytes = source.length() / (1024.0 * 1024.0);
+        long withPositions = median(repetitions, () -> Reader.parseDeclarationsWithPositions(source));
+        long withoutPositions = median(repetitions, () -> Reader.parseDeclarations(source));
+        long retainedWith = retained(() -> Reader.parseDeclarationsWithPositions(source));
+        long retainedWithout = retained(() -> Reader.parseDeclarations(source));
+        System.out.printf("%nper MB of input   %14s %14s%n", "time (ms)", "retained (MB)");
+        System.out.printf("with positions    %14.2f %14.2f%n",
+                withPositions / 1e6 / megabytes, retainedWith / megabytes / (1024 * 1024));
+        System.out.printf("without positions %14.2f %14.2f%n",
+                withoutPositions / 1e6 / megabytes, retainedWithout / megabytes / (1024 * 1024));
+        long prattWithPositions = withPratt(() -> median(repetitions, () -> Reader.parseDeclarationsWithPositions(source)));
+        long prattWithoutPositions = withPratt(() -> median(repetitions, () -> Reader.parseDeclarations(source)));
+        System.out.printf("Pratt, positions  %14.2f%n", prattWithPositions / 1e6 / megabytes);
+        System.out.printf("Pratt, none       %14.2f%n", prattWithoutPositions / 1e6 / megabytes);
+        byte[] image = image(source);
+        long imageRead = median(repetitions, () -> readImage(image));
+        System.out.printf("image, positions  %14.2f %14.2f%n",
+                imageRead / 1e6 / megabytes, image.length / megabytes / (1024 * 1024));
+
+        // warm-up of the fork-join workers' parsers
+        Reader.parseDeclarationsInParallel(source);
+        long parallel = median(repetitions, () -> Reader.parseDeclarationsInParallel(source));
+        System.out.printf("parallel (%2d)     %14.2f%n",
+                java.util.concurrent.ForkJoinPool.commonPool().getParallelism(), parallel / 1e6 / megabytes);
+
+        long link = medianLink(repetitions, source, Reader::linkWithPositions);
+        long parallelLink = medianLink(repetitions, source, Reader::linkInParallel);
+        System.out.printf("link              %14.2f%n", link / 1e6 / megabytes);
+        System.out.printf("link, parallel    %14.2f%n", parallelLink / 1e6 / megabytes);
+    }
+
+    /**
+     * Times the linking of fresh parses, linking resolving only the references not resolved yet.
+     */
+    private static long medianLink(int repetitions, String source,
+            java.util.function.Function<Reader.ParseResultWithPositions<gpsl.syntax.model.Declarations>, Object> link) {
+        long[] times = new long[repetitions];
+        for (int i = 0; i < repetitions; i++) {
+            var parsed = Reader.parseDeclarationsWithPositions(source);
+            System.gc();
+            long start = System.nanoTime();
+            link.apply(parsed);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[repetitions / 2];
+    }
+
+    private static byte[] image(String source) {
+        var parsed = Reader.parseDeclarationsWithPositions(source);
+        Reader.linkWithPositions(parsed);
+        var out = new java.io.ByteArrayOutputStream();
+        try {
+            SyntaxTreeImage.of(parsed).write(out);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void readImage(byte[] image) {
+        try {
+            SyntaxTreeImage.read(image);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    private static long withPratt(java.util.function.LongSupplier task) {
+        return Reader.withBackend(Reader.Backend.PRATT, task::getAsLong);
+    }
+
+    /**
+     * Estimates the heap retained by the result of a task, after collection.
+     */
+    private static long retained(java.util.function.Supplier<Object> task) {
+        long before = usedAfterGc();
+        Object result = task.get();
+        long after = usedAfterGc();
+        if (result == null) {
+            throw new IllegalStateException();
+        }
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Generates a block of declarations, some referring to previous ones.
+     */
+    static String generate(int count, Random random) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String template = TEMPLATES[random.nextInt(TEMPLATES.length)];
+            builder.append("d").append(i).append(random.nextBoolean() ? " = " : " *= ")
+                    .append(String.format(template, operand(i, random), operand(i, random), operand(i, random)))
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String operand(int index, Random random) {
+        if (index > 0 && random.nextInt(4) == 0) {
+            return "d" + random.nextInt(index);
+        }
+        return "|x" + random.nextInt(64) + " == " + random.nextInt(8) + "|";
+    }
+
+    private static void parseLL(String source) {
+        ParseContext context = new ParseContext(source);
+        Reader.createParser(source, context).block();
+        check(context);
+    }
+
+    private static void parseTwoStage(String source) {
+        ParseContext context = new ParseContext(source);
+        Reader.parseTree(source, context, GPSLParser::block);
+        check(context);
+    }
+
+    private static void check(ParseContext context) {
+        if (context.hasErrors()) {
+            throw new IllegalStateException(context.errors().getFirst().message());
+        }
+    }
+
+    private static long median(int repetitions, Runnable task) {
+        long[] times = new long[repetitions];
+        for (int i = 0; i < repetitions; i++) {
+            long start = System.nanoTime();
+            task.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[repetitions / 2];
+    }
+}
@@ -0,0 +1,129 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the hand-written parser backend gives the results of the ANTLR one.
+ */
+class PrattParserTest {
+
+    private static final List<String> EXPRESSIONS = List.of(
+            "true", "0", "x", "|p|", "| a \\| b |", "\"q \\\" r\"", "|x\n == 1|", "(((|p|)))",
+            "! |p|", "~ not ¬ |p|", "X |p| U |q|", "() o N next |p|", "<> [] F G |p|",
+            "|p| U |q| U |r|", "|p| W |q| M |r| R |s|", "|p| && |q| || |r| ^ |s| -> |t| <-> |u|",
+            "|p| -> |q| -> |r|", "|p| * |q| + |r|", "! |p| && X |q| U <> |r|", "[] (|p| -> <> |q|)",
+            "|p| ? |q| : |r|", "|p| ? |q| ? |r| : |s| : |t|", "|p| ? |q| : |r| ? |s| : |t|",
+            "|p| && |q| ? X |r| : |s| -> |t|", "let x = |p| in x && x", "let x = |p|, y = x, in y U x",
+            "|p| && let x = |q| in x || |r|", "! let x = |p| in x", "\\ x = |p| in x",
+            "|p| |q|", "|p| && /* c */ |q| // end");
+
+    private static final List<String> DECLARATIONS = List.of(
+            "a = true b = false", "a = |p| b *= a U a c = let d = b in d && a",
+            "a = let x = |p| in states s; initial s; accept s; s [x] s",
+            "a = nfa states s0, s1; initial s0; accept s1; s0 1 [true] s1; s1 [|p|] s0; s0 0 [false] s0",
+            "a = buchi states s; initial s; accept s; s 12 [|p| && |q|] s",
+            "a = |p| b = undefined c = a d = a", "a = [] (|p| -> <> |q|)\n\n// c\nb = X a", "a = |p| )",
+            "s = |p| a = states s, t; initial s; accept t; s [t] t; t [s] s", "t = |p| a = states s; initial s; accept s; s [t] s");
+
+    private static final List<String> INVALID = List.of(
+            "", "|p| &&", "(|p|", "a = ", "a = |p| b", "a = states s; initial s", "a = @", "let x = in x",
+            "a = |p| ? |q|", "a |p|");
+
+    private static <T extends SyntaxTreeElement> void assertSameResults(Supplier<Reader.ParseResultWithPositions<T>> parse) {
+        var expected = Reader.withBackend(Reader.Backend.ANTLR, parse);
+        var actual = Reader.withBackend(Reader.Backend.PRATT, parse);
+        assertEquals(expected.result(), actual.result(), expected.source());
+        if (expected.result() instanceof ParseResult.Success<T>(T expectedTree)
+                && actual.result() instanceof ParseResult.Success<T>(T actualTree)) {
+            List<SyntaxTreeElement> expectedNodes = TestHelpers.nodes(expectedTree);
+            List<SyntaxTreeElement> actualNodes = TestHelpers.nodes(actualTree);
+            assertEquals(expectedNodes.size(), actualNodes.size());
+            for (int i = 0; i < expectedNodes.size(); i++) {
+                assertEquals(expected.positionMap().getAll(expectedNodes.get(i)),
+                        actual.positionMap().getAll(actualNodes.get(i)), expected.source());
+            }
+        }
+        assertEquals(Reader.linkWithPositions(expected), Reader.linkWithPositions(actual), expected.source());
+    }
+
+    @Test
+    void testExpressions() {
+        for (String source : EXPRESSIONS) {
+            assertSameResults(() -> Reader.parseExpressionWithPositions(source));
+            assertSameResults(() -> Reader.parseExpressionWithPositions(source, Factory.instance()));
+            assertEquals(Reader.withBackend(Reader.Backend.ANTLR, () -> Reader.parseExpression(source)),
+                    Reader.withBackend(Reader.Backend.PRATT, () -> Reader.parseExpression(source)), source);
+        }
+    }
+
+    @Test
+    void testDeclarations() {
+        for (String source : DECLARATIONS) {
+            assertSameResults(() -> Reader.parseDeclarationsWithPositions(source));
+            assertSameResults(() -> Reader.parseDeclarationsWithPositions(source, Factory.instance()));
+            assertEquals(Reader.withBackend(Reader.Backend.ANTLR, () -> Reader.parseAndLinkDeclarations(source, new HashMap<>(Map.of("undefined", new True())))),
+                    Reader.withBackend(Reader.Backend.PRATT, () -> Reader.parseAndLinkDeclarations(source, new HashMap<>(Map.of("undefined", new True())))),
+                    source);
+        }
+    }
+
+    @Test
+    void testSyntaxErrorsAreReportedByAntlr() {
+        for (String source : INVALID) {
+            assertSameResults(() -> Reader.parseDeclarationsWithPositions(source));
+            assertSameResults(() -> Reader.parseExpressionWithPositions(source));
+            assertSameResults(() -> Reader.parseDeclarationsWithPositions(source, Factory.instance()));
+        }
+    }
+
+    @Test
+    void testGeneratedDeclarations() {
+        String source = ParserBenchmark.generate(500, new Random(40));
+        assertSameResults(() -> Reader.parseDeclarationsWithPositions(source));
+        // built without parse tree
+        var result = Reader.withBackend(Reader.Backend.PRATT, () -> Reader.parseDeclarationsWithPositions(source));
+        var declarations = assertInstanceOf(ParseResult.Success.class, result.result()).value();
+        assertTrue(result.positionMap().getParseTree((Declarations) declarations).isEmpty());
+        assertSameResults(() -> Reader.parseDeclarationsWithPositions(source, Factory.instance()));
+    }
+
+    @Test
+    void testBackendIsSelectedPerThread() {
+        Reader.withBackend(Reader.Backend.PRATT, () -> {
+            assertEquals(Reader.Backend.PRATT, Reader.backend());
+            assertEquals(Reader.Backend.ANTLR, CompletableFuture.supplyAsync(Reader::backend).join());
+            assertEquals(Reader.Backend.ANTLR, Reader.withBackend(Reader.Backend.ANTLR, Reader::backend));
+            return Reader.backend();
+        });
+        assertEquals(Reader.Backend.ANTLR, Reader.backend());
+    }
+
+    @Test
+    void testFactoryFailuresAreNotSwallowed() {
+        AtomicInteger calls = new AtomicInteger();
+        Factory failing = new Factory() {
+            @Override
+            public Expression atom(String value, String delimiter) {
+                calls.incrementAndGet();
+                throw new IllegalStateException(value);
+            }
+        };
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> Reader.withBackend(Reader.Backend.PRATT, () -> Reader.parseExpression("! |p|", failing)));
+        assertEquals("p", e.getMessage());
+        // thrown by the hand-written parser, not by an ANTLR parse after it
+        assertEquals(1, calls.get());
+    }
+}
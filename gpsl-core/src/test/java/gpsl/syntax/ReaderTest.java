@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static gpsl.syntax.TestHelpers.*;
@@ -341,4 +342,235 @@ class ReaderTest {
         assertEquals(3, range.end().line(), "Should end on line 3 (multiline)");
         assertTrue(range.end().line() > range.start().line());
     }
+
+    // ========== PARSER POOL ==========
+
+    @Test
+    void testPooledParseTreesSurviveReuse() {
+        var first = Reader.parseTree("|p| U |q|", new ParseContext("|p| U |q|"), gpsl.parser.GPSLParser::formula);
+        Reader.parseTree("a = [] |r|", new ParseContext("a = [] |r|"), gpsl.parser.GPSLParser::block);
+
+        assertEquals("|p|U|q|", first.getText());
+    }
+
+    @Test
+    void testPooledParserDoesNotLeakErrors() {
+        var failed = Reader.parseExpression("|p| &&");
+        assertTrue(failed.isFailure());
+
+        var succeeded = Reader.parseExpression("|p| && |q|");
+        assertTrue(succeeded.isSuccess());
+        assertEquals(failed.isFailure(), Reader.parseExpression("|p| &&").isFailure());
+    }
+
+    @Test
+    void testNestedAcquireGetsFreshInstances() {
+        ParserPool outer = ParserPool.acquire();
+        try {
+            ParserPool inner = ParserPool.acquire();
+            assertNotSame(outer, inner);
+            inner.release();
+        } finally {
+            outer.release();
+        }
+        ParserPool again = ParserPool.acquire();
+        again.release();
+        assertSame(outer, again);
+    }
+
+    @Test
+    void testWarmUpThenParseConcurrently() throws Exception {
+        Reader.warmUp();
+        var executor = java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+            var futures = new java.util.ArrayList<java.util.concurrent.Future<Declarations>>();
+            for (int i = 0; i < 64; i++) {
+                String source = "a" + i + " = [] (|p" + i + "| -> <> |q|) b" + i + " = a" + i + " U |r|";
+                futures.add(executor.submit(() -> parseDeclarationsOrFail(source)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                var declarations = futures.get(i).get();
+                assertEquals("a" + i, declarations.declarations().getFirst().name());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // ========== POSITION-FREE PARSING ==========
+
+    @Test
+    void testPositionFreeParseBuildsSameTree() {
+        String source = "a = [] (|p| -> <> |q|) b = let c = a in c U |r| d = states s; initial s; accept s; s [|p|] s";
+        var withPositions = Reader.parseDeclarationsWithPositions(source);
+        var withoutPositions = Reader.parseDeclarations(source);
+
+        assertEquals(((ParseResult.Success<Declarations>) withPositions.result()).value(),
+                ((ParseResult.Success<Declarations>) withoutPositions).value());
+    }
+
+    @Test
+    void testPositionFreeMapperRecordsNothing() {
+        String source = "[] (|p| -> <> |q|)";
+        ParseContext context = new ParseContext(source);
+        var tree = Reader.parseTree(source, context, gpsl.parser.GPSLParser::formula);
+        var mapper = new Antlr4ToGPSLMapper(context, false);
+        org.antlr.v4.runtime.tree.ParseTreeWalker.DEFAULT.walk(mapper, tree);
+
+        assertInstanceOf(Globally.class, mapper.getValue(tree));
+        assertTrue(context.positionMap().trackedNodes().isEmpty());
+    }
+
+    @Test
+    void testParseAndLinkWithoutPositions() {
+        var result = Reader.parseAndLinkDeclarations("a = |p| b = [] a");
+        assertTrue(result.isSuccess());
+        var decls = ((ParseResult.Success<Declarations>) result).value();
+        var reference = (Reference) ((Globally) decls.declarations().get(1).expression()).expression();
+        assertSame(decls.declarations().get(0).expression(), reference.expression());
+
+        var undefined = Reader.parseAndLinkExpression("[] x", Map.of());
+        assertTrue(undefined.isFailure());
+
+        var external = Reader.parseAndLinkExpression("[] x", Map.of("x", new Atom("p", "|")));
+        assertTrue(external.isSuccess());
+    }
+
+    // ========== FACTORY-AWARE PARSING ==========
+
+    @Test
+    void testFactoryParsingInlinesReferences() {
+        var result = Reader.parseDeclarations("a = |p| && |q| b = [] a c = let d = b in d U a", Factory.instance());
+        assertTrue(result.isSuccess());
+        var decls = ((ParseResult.Success<Declarations>) result).value().declarations();
+
+        var a = decls.get(0).expression();
+        var b = decls.get(1).expression();
+        assertSame(a, ((Globally) b).expression());
+        var until = (StrongUntil) ((LetExpression) decls.get(2).expression()).expression();
+        assertSame(b, until.left());
+        assertSame(a, until.right());
+    }
+
+    @Test
+    void testFactoryParsingReportsLinkingErrors() {
+        var undefined = Reader.parseDeclarationsWithPositions("a = |p| b = a U x", Factory.instance());
+        var failure = assertInstanceOf(ParseResult.Failure.class, undefined.result());
+        assertEquals(1, failure.errors().size());
+        ParseError error = (ParseError) failure.errors().getFirst();
+        assertEquals("undefined symbol 'x'", error.message());
+        assertEquals(17, error.range().start().column());
+
+        var duplicate = Reader.parseDeclarations("a = |p| a = |q|", Factory.instance());
+        assertTrue(duplicate.isFailure());
+
+        // let scopes shadow outer declarations and are closed after the body
+        var shadowed = Reader.parseExpression("(let a = |q| in a) && a",
+                Factory.instance(), Map.of("a", new Atom("p", "|")));
+        var conjunction = (Conjunction) ((ParseResult.Success<Expression>) shadowed).value();
+        assertEquals(new Atom("q", "|"), ((LetExpression) conjunction.left()).expression());
+        assertEquals(new Atom("p", "|"), conjunction.right());
+    }
+
+    @Test
+    void testSharedNodesKeepAllTheirPositions() {
+        String source = "a = |p|\nb = a && (a)";
+        var result = Reader.parseDeclarationsWithPositions(source, Factory.instance());
+        var decls = ((ParseResult.Success<Declarations>) result.result()).value().declarations();
+        var atom = decls.get(0).expression();
+
+        var ranges = result.positionMap().getAll(atom);
+        assertEquals(3, ranges.size());
+        assertEquals(1, ranges.get(0).start().line());
+        assertEquals(5, ranges.get(1).start().column());
+        // the parenthesized occurrence is widened to the parentheses
+        assertEquals(10, ranges.get(2).start().column());
+        assertEquals(ranges.get(0), result.rangeOf(atom).orElseThrow());
+    }
+
+    // ========== STREAMING ==========
+
+    @Test
+    void testStreamDeclarations() {
+        String source = "a = [] (|p| -> <> |q|)\nb *= a U |r|\nc = states s; initial s; accept s; s [|p|] s";
+        var streamed = new java.util.ArrayList<ExpressionDeclaration>();
+        var result = Reader.streamDeclarations(new java.io.StringReader(source), streamed::add);
+
+        assertEquals(3, ((ParseResult.Success<Integer>) result).value());
+        assertEquals(((ParseResult.Success<Declarations>) Reader.parseDeclarations(source)).value().declarations(), streamed);
+    }
+
+    @Test
+    void testStreamSkipsInvalidDeclarations() {
+        var names = new java.util.ArrayList<String>();
+        var result = Reader.streamDeclarations(
+                new java.io.StringReader("a = |p|\nb = |q| && && |s|\nc = |r|"), d -> names.add(d.name()));
+
+        var failure = assertInstanceOf(ParseResult.Failure.class, result);
+        assertEquals(2, ((ParseError) failure.errors().getFirst()).range().start().line());
+        assertTrue(names.contains("a"));
+        assertTrue(names.contains("c"));
+        assertFalse(names.contains("b"));
+    }
+
+    @Test
+    void testStreamLinksForwardReferences() {
+        var streamed = new java.util.ArrayList<ExpressionDeclaration>();
+        var result = Reader.streamAndLinkDeclarations(
+                new java.io.StringReader("b = [] (a && x) a = let y = |q| in y || c c = |p|"),
+                Map.of("x", new Atom("x", "|")), streamed::add);
+
+        assertTrue(result.isSuccess());
+        var conjunction = (Conjunction) ((Globally) streamed.get(0).expression()).expression();
+        assertSame(streamed.get(1).expression(), ((Reference) conjunction.left()).expression());
+        assertEquals(new Atom("x", "|"), ((Reference) conjunction.right()).expression());
+        var body = (Disjunction) ((LetExpression) streamed.get(1).expression()).expression();
+        assertSame(streamed.get(2).expression(), ((Reference) body.right()).expression());
+    }
+
+    @Test
+    void testStreamReportsCyclesAndUndefinedSymbols() {
+        var cyclic = Reader.streamAndLinkDeclarations(
+                new java.io.StringReader("a = X b\nb = a || |p|"), Map.of(), d -> {});
+        var failure = assertInstanceOf(ParseResult.Failure.class, cyclic);
+        assertEquals(Optional.of("cyclic-reference"), ((ParseError) failure.errors().getFirst()).code());
+
+        var undefined = Reader.streamAndLinkDeclarations(
+                new java.io.StringReader("a = |p|\nb = a U z"), Map.of(), d -> {});
+        failure = assertInstanceOf(ParseResult.Failure.class, undefined);
+        ParseError error = (ParseError) failure.errors().getFirst();
+        assertEquals("undefined symbol 'z'", error.message());
+        assertEquals(2, error.range().start().line());
+    }
+
+    @Test
+    void testStreamGeneratedInput() {
+        int count = 20_000;
+        var input = new java.io.Reader() {
+            int next = 0;
+            String pending = "";
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (pending.isEmpty()) {
+                    if (next == count) return -1;
+                    pending = "d" + next + " = [] (|x" + next + "| -> <> d" + Math.max(0, next - 1) + ")\n";
+                    if (next == 0) pending = "d0 = |x|\n";
+                    next++;
+                }
+                int n = Math.min(length, pending.length());
+                pending.getChars(0, n, buffer, offset);
+                pending = pending.substring(n);
+                return n;
+            }
+
+            @Override
+            public void close() {}
+        };
+        var counter = new java.util.concurrent.atomic.AtomicInteger();
+        var result = Reader.streamAndLinkDeclarations(input, Map.of(), d -> counter.incrementAndGet());
+
+        assertTrue(result.isSuccess());
+        assertEquals(count, counter.get());
+    }
 }
@@ -0,0 +1,123 @@
+package gpsl.syntax;
+
+import gpsl.syntax.model.*;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the binary syntax tree images.
+ */
+class SyntaxTreeImageTest {
+
+    private static byte[] bytes(SyntaxTreeImage image) throws IOException {
+        var out = new ByteArrayOutputStream();
+        image.write(out);
+        return out.toByteArray();
+    }
+
+    private static SyntaxTreeImage roundTrip(SyntaxTreeImage image) throws IOException {
+        return SyntaxTreeImage.read(new ByteArrayInputStream(bytes(image)));
+    }
+
+    private static Reader.ParseResultWithPositions<Declarations> parseAndLink(String source) {
+        var parsed = Reader.parseDeclarationsWithPositions(source);
+        assertInstanceOf(ParseResult.Success.class, Reader.linkWithPositions(parsed));
+        return parsed;
+    }
+
+    @Test
+    void testRoundTripKeepsTreeLinksAndPositions() throws IOException {
+        var parsed = parseAndLink(ParserBenchmark.generate(300, new Random(42))
+                + "h = nfa states s, t; initial s; accept t; s [d1 && ! |q|] t; t 2 [true] s\n"
+                + "l = let x = d2, y = x U d3 in x R y\n"
+                + "m = |é ≠ 𝒜|\n");
+        Declarations expected = ((ParseResult.Success<Declarations>) parsed.result()).value();
+
+        SyntaxTreeImage image = roundTrip(SyntaxTreeImage.of(parsed));
+        Declarations actual = (Declarations) image.root();
+
+        assertEquals(expected, actual);
+        List<SyntaxTreeElement> expectedNodes = TestHelpers.nodes(expected);
+        List<SyntaxTreeElement> actualNodes = TestHelpers.nodes(actual);
+        assertEquals(expectedNodes.size(), actualNodes.size());
+        for (int i = 0; i < expectedNodes.size(); i++) {
+            assertEquals(parsed.positionMap().getAll(expectedNodes.get(i)),
+                    image.positionMap().getAll(actualNodes.get(i)), expectedNodes.get(i).toString());
+        }
+
+        // references point to nodes of the read tree
+        Set<SyntaxTreeElement> read = Collections.newSetFromMap(new IdentityHashMap<>());
+        read.addAll(actualNodes);
+        assertTrue(actualNodes.stream().anyMatch(Reference.class::isInstance));
+        for (SyntaxTreeElement node : actualNodes) {
+            if (node instanceof Reference reference) {
+                assertTrue(read.contains(reference.expression()), reference.name());
+            }
+        }
+
+        // written again, with the positions read
+        assertArrayEquals(bytes(SyntaxTreeImage.of(parsed)), bytes(image));
+    }
+
+    @Test
+    void testSharingIsPreserved() throws IOException {
+        Atom shared = new Atom("p", "|");
+        Expression and = new Conjunction("&&", shared, shared);
+        // equal to the shared atom, but a distinct node
+        Atom copy = new Atom("p", "|");
+        var declarations = new Declarations(List.of(
+                new ExpressionDeclaration("a", and),
+                new ExpressionDeclaration("b", new Disjunction("||", and, copy), false)));
+
+        var actual = (Declarations) roundTrip(new SyntaxTreeImage(declarations)).root();
+
+        assertEquals(declarations, actual);
+        var a = (Conjunction) actual.declarations().get(0).expression();
+        var b = (Disjunction) actual.declarations().get(1).expression();
+        assertSame(a.left(), a.right());
+        assertSame(a, b.left());
+        assertNotSame(a.left(), b.right());
+        // atom strings are interned
+        assertSame(((Atom) a.left()).value(), ((Atom) b.right()).value());
+    }
+
+    @Test
+    void testReferencesToExternalAndUnresolvedSymbols() throws IOException {
+        Expression external = new Globally("[]", new Atom("e", "|"));
+        var parsed = Reader.parseDeclarationsWithPositions("a = ext && u");
+        Reader.linkWithPositions(parsed, new HashMap<>(Map.of("ext", external)));
+        var actual = (Declarations) roundTrip(SyntaxTreeImage.of(parsed)).root();
+
+        var and = (Conjunction) actual.declarations().getFirst().expression();
+        assertEquals(external, ((Reference) and.left()).expression());
+        assertNull(((Reference) and.right()).expression());
+    }
+
+    @Test
+    void testImagesWithoutPositions() throws IOException {
+        var declarations = ((ParseResult.Success<Declarations>) Reader.parseAndLinkDeclarations("a = |p| b = [] a")).value();
+
+        var image = roundTrip(new SyntaxTreeImage(declarations));
+
+        assertEquals(declarations, image.root());
+        assertTrue(image.positionMap().trackedNodes().isEmpty());
+    }
+
+    @Test
+    void testMalformedImages() throws IOException {
+        byte[] bytes = bytes(new SyntaxTreeImage(new Declarations(List.of(new ExpressionDeclaration("a", new True())))));
+
+        assertThrows(IOException.class, () -> SyntaxTreeImage.read(new byte[] {1, 2}));
+        assertThrows(IOException.class, () -> SyntaxTreeImage.read(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(IOException.class, () -> SyntaxTreeImage.read(Arrays.copyOf(bytes, bytes.length + 1)));
+        bytes[4] = 2;
+        assertThrows(IOException.class, () -> SyntaxTreeImage.read(bytes));
+    }
+}
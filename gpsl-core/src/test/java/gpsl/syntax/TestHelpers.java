@@ -159,4 +159,40 @@ public class TestHelpers {
         
         return ((ParseResult.Success<Automaton>) result).value();
     }
+
+    /**
+     * The nodes of a tree in pre-order, without following references.
+     */
+    public static java.util.List<SyntaxTreeElement> nodes(SyntaxTreeElement root) {
+        java.util.List<SyntaxTreeElement> nodes = new java.util.ArrayList<>();
+        collect(root, nodes);
+        return nodes;
+    }
+
+    private static void collect(SyntaxTreeElement element, java.util.List<SyntaxTreeElement> nodes) {
+        nodes.add(element);
+        switch (element) {
+            case Declarations d -> d.declarations().forEach(e -> collect(e, nodes));
+            case ExpressionDeclaration d -> collect(d.expression(), nodes);
+            case UnaryExpression u -> collect(u.expression(), nodes);
+            case BinaryExpression b -> {
+                collect(b.left(), nodes);
+                collect(b.right(), nodes);
+            }
+            case Conditional c -> {
+                collect(c.condition(), nodes);
+                collect(c.trueBranch(), nodes);
+                collect(c.falseBranch(), nodes);
+            }
+            case LetExpression l -> {
+                collect(l.declarations(), nodes);
+                collect(l.expression(), nodes);
+            }
+            case Automaton a -> a.transitions().forEach(t -> {
+                nodes.add(t);
+                collect(t.guard(), nodes);
+            });
+            default -> { }
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package gpsl.lsp;
 
+import gpsl.syntax.Reader;
 import org.eclipse.lsp4j.InitializeParams;
 import org.eclipse.lsp4j.InitializeResult;
 import org.eclipse.lsp4j.ServerCapabilities;
@@ -29,15 +30,17 @@ public class GPSLLanguageServer implements LanguageServer, LanguageClientAware {
     @Override
     public CompletableFuture<InitializeResult> initialize(InitializeParams params) {
         ServerCapabilities caps = new ServerCapabilities();
-        // Use Full sync - server receives complete document on every change
-        // Simpler and more reliable than incremental sync
-        caps.setTextDocumentSync(TextDocumentSyncKind.Full);
+        // Use Incremental sync - only the edited declarations are re-parsed
+        caps.setTextDocumentSync(TextDocumentSyncKind.Incremental);
         
         // Enable Go to Definition
         caps.setDefinitionProvider(true);
         
         // Enable Document Symbols (outline view)
         caps.setDocumentSymbolProvider(true);
+
+        // Prime the parser on the message thread, which also handles the document notifications
+        Reader.warmUp();
         
         return CompletableFuture.completedFuture(new InitializeResult(caps));
     }
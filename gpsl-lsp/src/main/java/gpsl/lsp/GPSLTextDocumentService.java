@@ -1,7 +1,10 @@
 package gpsl.lsp;
 
-import gpsl.syntax.Reader;
+import gpsl.syntax.IncrementalDocument;
+import gpsl.syntax.LineIndex;
 import gpsl.syntax.PositionMap;
+import gpsl.syntax.Reader;
+import gpsl.syntax.TextEdit;
 import gpsl.syntax.model.*;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
@@ -15,7 +18,8 @@ import java.util.concurrent.CompletableFuture;
 
 public class GPSLTextDocumentService implements TextDocumentService {
     private final GPSLLanguageServer server;
-    private final Map<String, String> openDocs = new HashMap<>();
+    // Open documents, re-parsed incrementally on changes
+    private final Map<String, IncrementalDocument> openDocs = new HashMap<>();
     // Cache parsed and linked results for go-to-definition
     private final Map<String, ParsedDocument> parsedDocs = new HashMap<>();
 
@@ -29,22 +33,40 @@ public class GPSLTextDocumentService implements TextDocumentService {
     @Override
     public void didOpen(DidOpenTextDocumentParams params) {
         var doc = params.getTextDocument();
-        openDocs.put(doc.getUri(), doc.getText());
-        publishDiagnostics(doc.getUri(), doc.getText());
+        var document = IncrementalDocument.parse(doc.getText());
+        openDocs.put(doc.getUri(), document);
+        publishDiagnostics(doc.getUri(), document);
     }
 
     @Override
     public void didChange(DidChangeTextDocumentParams params) {
         var uri = params.getTextDocument().getUri();
         var changes = params.getContentChanges();
-        if (!changes.isEmpty()) {
-            // Get full document text from the change
-            // LSP sends full document when TextDocumentSyncKind is Full
-            var change = changes.get(0);
-            String text = change.getText();
-            openDocs.put(uri, text);
-            publishDiagnostics(uri, text);
+        var document = openDocs.get(uri);
+        if (changes.isEmpty() || document == null) {
+            return;
+        }
+        // Changes are applied in order, each one against the text left by the previous one
+        for (var change : changes) {
+            if (change.getRange() == null) {
+                document = IncrementalDocument.parse(change.getText());
+            } else {
+                document.apply(List.of(toTextEdit(document.source(), change)));
+            }
         }
+        openDocs.put(uri, document);
+        publishDiagnostics(uri, document);
+    }
+
+    // Convert a 0-based LSP range change to offsets
+    private static TextEdit toTextEdit(String source, TextDocumentContentChangeEvent change) {
+        var lines = new LineIndex(source);
+        var start = change.getRange().getStart();
+        var end = change.getRange().getEnd();
+        return new TextEdit(
+            lines.offset(start.getLine() + 1, start.getCharacter() + 1),
+            lines.offset(end.getLine() + 1, end.getCharacter() + 1),
+            change.getText());
     }
 
     @Override
@@ -250,9 +272,9 @@ public class GPSLTextDocumentService implements TextDocumentService {
         }
     }
 
-    private void publishDiagnostics(String uri, String text) {
-        // Try parsing as declarations first (normal .gpsl files)
-        var declsResult = Reader.parseDeclarationsWithPositions(text);
+    private void publishDiagnostics(String uri, IncrementalDocument document) {
+        // Declarations re-parsed and re-linked for the last changes only
+        var declsResult = document.parseResult();
         
         // Only try expression if it's clearly not a declarations file
         // (i.e., declarations failed and text doesn't contain '=')
@@ -262,7 +284,7 @@ public class GPSLTextDocumentService implements TextDocumentService {
         
         // Cache successfully parsed declarations for go-to-definition
         if (chosen.result().isSuccess()) {
-            var linkResult = Reader.linkWithPositions(declsResult);
+            var linkResult = document.linkResult();
             
             // Get the parsed declarations (even if linking partially failed)
             var declarations = (Declarations) ((ParseResult.Success<?>) chosen.result()).value();
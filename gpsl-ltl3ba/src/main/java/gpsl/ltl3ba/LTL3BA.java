@@ -1,6 +1,16 @@
 package gpsl.ltl3ba;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
 
 public class LTL3BA {
     private static volatile LTL3BA instance;
@@ -22,21 +32,176 @@ public class LTL3BA {
     }
     
     public String convert(String ltlFormula) throws IOException, InterruptedException {
-        ProcessBuilder processBuilder = nativeExecutable.createProcess(
-                "-T3", // build the BA
-                "-f", ltlFormula
-        );
+        return convert(ltlFormula, Ltl3baOptions.defaults());
+    }
+
+    /**
+     * Converts an LTL formula with the given ltl3ba options.
+     *
+     * @param ltlFormula the LTL formula to convert
+     * @param options the ltl3ba optimization switches
+     * @return the output of ltl3ba
+     * @throws RuntimeException if ltl3ba exits with a non-zero status
+     */
+    public String convert(String ltlFormula, Ltl3baOptions options) throws IOException, InterruptedException {
+        StringBuilder output = new StringBuilder();
+        convert(ltlFormula, options, line -> output.append(line).append('\n'));
+        return output.toString();
+    }
+
+    /**
+     * Converts an LTL formula, streaming the output of ltl3ba line by line.
+     * Each line is handed to the consumer as soon as ltl3ba writes it, so the caller
+     * can build the automaton while ltl3ba is still running.
+     * Stderr is drained concurrently, so a full pipe buffer cannot block the process.
+     * The calling thread waits for the lines interruptibly: when it is interrupted, ltl3ba is killed
+     * and {@link InterruptedException} is thrown.
+     * At most a bounded number of lines are read ahead of the consumer, so a slow consumer holds
+     * ltl3ba back rather than buffering its whole output.
+     *
+     * @param ltlFormula the LTL formula to convert
+     * @param lineConsumer receives the output lines, without line terminators
+     * @throws RuntimeException if ltl3ba exits with a non-zero status
+     */
+    public void convert(String ltlFormula, Consumer<String> lineConsumer) throws IOException, InterruptedException {
+        convert(ltlFormula, Ltl3baOptions.defaults(), lineConsumer);
+    }
+
+    /**
+     * Converts an LTL formula with the given ltl3ba options, streaming the output line by line.
+     *
+     * @param ltlFormula the LTL formula to convert
+     * @param options the ltl3ba optimization switches
+     * @param lineConsumer receives the output lines, without line terminators
+     * @throws RuntimeException if ltl3ba exits with a non-zero status
+     */
+    public void convert(String ltlFormula, Ltl3baOptions options, Consumer<String> lineConsumer) throws IOException, InterruptedException {
+        List<String> arguments = new ArrayList<>(options.toArguments());
+        arguments.add("-T3"); // build the BA
+        arguments.add("-f");
+        arguments.add(ltlFormula);
+        ProcessBuilder processBuilder = nativeExecutable.createProcess(arguments.toArray(String[]::new));
         Process process = processBuilder.start();
-        
-        // Read output
-        String output = new String(process.getInputStream().readAllBytes());
-        int exitCode = process.waitFor();
-        
-        if (exitCode != 0) {
-            String error = new String(process.getErrorStream().readAllBytes());
-            throw new RuntimeException("ltl3ba failed: " + error);
-        }
-        
-        return output;
-    }   
+        StreamDrainer stderr = StreamDrainer.start(process.getErrorStream());
+        LineReader stdout = LineReader.start(process.getInputStream());
+
+        boolean completed = false;
+        try {
+            String line;
+            while ((line = stdout.next()) != null) {
+                lineConsumer.accept(line);
+            }
+            int exitCode = process.waitFor();
+
+            if (exitCode != 0) {
+                throw new RuntimeException("ltl3ba failed: " + stderr.await());
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                process.destroyForcibly();
+                stdout.abandon();
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of a stream on a background thread, so that waiting for them can be interrupted:
+     * a thread blocked reading a process pipe ignores interrupts.
+     * The lines read ahead are bounded; the background thread waits for room, and stops when the
+     * reader is {@linkplain #abandon() abandoned}.
+     */
+    private static final class LineReader {
+        // end of the stream, compared by identity
+        private static final String END = new String();
+        private static final int READ_AHEAD = 1024;
+
+        private final BlockingQueue<String> lines = new ArrayBlockingQueue<>(READ_AHEAD);
+        private volatile IOException failure;
+        private Thread thread;
+
+        static LineReader start(InputStream stream) {
+            LineReader reader = new LineReader();
+            reader.thread = new Thread(() -> {
+                try (BufferedReader lines = new BufferedReader(new InputStreamReader(stream))) {
+                    String line;
+                    while ((line = lines.readLine()) != null) {
+                        reader.lines.put(line);
+                    }
+                } catch (IOException e) {
+                    reader.failure = e;
+                } catch (InterruptedException e) {
+                    // abandoned: nobody takes the lines any more
+                    return;
+                }
+                try {
+                    reader.lines.put(END);
+                } catch (InterruptedException e) {
+                    // abandoned while waiting for room for the end
+                }
+            }, "ltl3ba-stdout");
+            reader.thread.setDaemon(true);
+            reader.thread.start();
+            return reader;
+        }
+
+        /**
+         * Stops the background thread when the lines are no longer taken.
+         * The stream must be closed or at its end for a thread blocked reading it to stop.
+         */
+        void abandon() {
+            thread.interrupt();
+        }
+
+        /**
+         * Waits for the next line.
+         *
+         * @return the line, or null at the end of the stream
+         */
+        String next() throws IOException, InterruptedException {
+            String line = lines.take();
+            if (line != END) {
+                return line;
+            }
+            lines.add(END);
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads a stream to completion on a background thread.
+     */
+    private static final class StreamDrainer {
+        private final Thread thread;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private volatile IOException failure;
+
+        private StreamDrainer(InputStream stream) {
+            this.thread = new Thread(() -> {
+                try (stream) {
+                    stream.transferTo(buffer);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }, "ltl3ba-stderr");
+            this.thread.setDaemon(true);
+        }
+
+        static StreamDrainer start(InputStream stream) {
+            StreamDrainer drainer = new StreamDrainer(stream);
+            drainer.thread.start();
+            return drainer;
+        }
+
+        String await() throws InterruptedException {
+            thread.join();
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+            return buffer.toString();
+        }
+    }
 }
@@ -0,0 +1,242 @@
+package gpsl.ltl3ba;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Typed command-line options of ltl3ba.
+ *
+ * <p>Every optimization is enabled by default, as in ltl3ba itself; each {@code false}
+ * flag adds the switch disabling it. The output format ({@code -T3}) and the formula
+ * ({@code -f}) are always supplied by {@link LTL3BA}.
+ *
+ * <pre>{@code
+ * Ltl3baOptions fast = Ltl3baOptions.builder()
+ *         .determinization(false)
+ *         .postOptimization(Ltl3baOptions.PostOptimization.BISIMULATION)
+ *         .build();
+ * }</pre>
+ *
+ * @param logicSimplification simplification of the formula ({@code -l} when disabled)
+ * @param aPosterioriSimplification a-posteriori simplification ({@code -p} when disabled)
+ * @param onTheFlySimplification on-the-fly simplification ({@code -o} when disabled)
+ * @param sccSimplification strongly connected components simplification ({@code -c} when disabled)
+ * @param acceptanceTrick trick in accepting conditions ({@code -a} when disabled)
+ * @param postponing postponing/suspension in TGBA construction ({@code -P} when disabled)
+ * @param directFinalComponents direct building of final components ({@code -D} when disabled)
+ * @param removeNonAcceptingSccs removal of non-accepting strongly connected components ({@code -C} when disabled)
+ * @param alternatingSuspension suspension in alternating automaton construction ({@code -A} when disabled)
+ * @param rewriteReleaseFormulae rewriting of R formulae with alternating subformulae ({@code -R} when disabled)
+ * @param determinization determinization towards more deterministic automata ({@code -M0} when disabled)
+ * @param postOptimization a-posteriori optimization of the final Büchi automaton ({@code -S0|-S1|-S2})
+ * @param ltl3baImprovements all LTL3BA specific improvements ({@code -x} when disabled, acts like LTL2BA)
+ */
+public record Ltl3baOptions(
+        boolean logicSimplification,
+        boolean aPosterioriSimplification,
+        boolean onTheFlySimplification,
+        boolean sccSimplification,
+        boolean acceptanceTrick,
+        boolean postponing,
+        boolean directFinalComponents,
+        boolean removeNonAcceptingSccs,
+        boolean alternatingSuspension,
+        boolean rewriteReleaseFormulae,
+        boolean determinization,
+        PostOptimization postOptimization,
+        boolean ltl3baImprovements
+) {
+
+    /**
+     * The a-posteriori optimizations of the final Büchi automaton ({@code -S} switch).
+     */
+    public enum PostOptimization {
+        /** No a-posteriori optimization ({@code -S0}). */
+        NONE,
+        /** Basic bisimulation reduction ({@code -S1}). */
+        BISIMULATION,
+        /** Strong fair simulation reduction ({@code -S2}), the ltl3ba default. */
+        FAIR_SIMULATION
+    }
+
+    private static final Ltl3baOptions DEFAULTS = builder().build();
+
+    public Ltl3baOptions {
+        Objects.requireNonNull(postOptimization, "postOptimization cannot be null");
+    }
+
+    /**
+     * The ltl3ba defaults: every optimization enabled, no extra switch.
+     *
+     * @return the default options
+     */
+    public static Ltl3baOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Creates a builder initialized with the ltl3ba defaults.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a builder initialized with these options.
+     *
+     * @return a new builder
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * Converts these options to ltl3ba command-line switches.
+     *
+     * @return the switches, empty for the defaults
+     */
+    public List<String> toArguments() {
+        List<String> arguments = new ArrayList<>();
+        if (!logicSimplification) arguments.add("-l");
+        if (!aPosterioriSimplification) arguments.add("-p");
+        if (!onTheFlySimplification) arguments.add("-o");
+        if (!sccSimplification) arguments.add("-c");
+        if (!acceptanceTrick) arguments.add("-a");
+        if (!postponing) arguments.add("-P");
+        if (!directFinalComponents) arguments.add("-D");
+        if (!removeNonAcceptingSccs) arguments.add("-C");
+        if (!alternatingSuspension) arguments.add("-A");
+        if (!rewriteReleaseFormulae) arguments.add("-R");
+        if (!determinization) arguments.add("-M0");
+        switch (postOptimization) {
+            case NONE -> arguments.add("-S0");
+            case BISIMULATION -> arguments.add("-S1");
+            case FAIR_SIMULATION -> { }
+        }
+        if (!ltl3baImprovements) arguments.add("-x");
+        return arguments;
+    }
+
+    /**
+     * Builder for {@link Ltl3baOptions}, starting from the ltl3ba defaults.
+     */
+    public static final class Builder {
+        private boolean logicSimplification = true;
+        private boolean aPosterioriSimplification = true;
+        private boolean onTheFlySimplification = true;
+        private boolean sccSimplification = true;
+        private boolean acceptanceTrick = true;
+        private boolean postponing = true;
+        private boolean directFinalComponents = true;
+        private boolean removeNonAcceptingSccs = true;
+        private boolean alternatingSuspension = true;
+        private boolean rewriteReleaseFormulae = true;
+        private boolean determinization = true;
+        private PostOptimization postOptimization = PostOptimization.FAIR_SIMULATION;
+        private boolean ltl3baImprovements = true;
+
+        private Builder() {
+        }
+
+        private Builder(Ltl3baOptions options) {
+            logicSimplification = options.logicSimplification;
+            aPosterioriSimplification = options.aPosterioriSimplification;
+            onTheFlySimplification = options.onTheFlySimplification;
+            sccSimplification = options.sccSimplification;
+            acceptanceTrick = options.acceptanceTrick;
+            postponing = options.postponing;
+            directFinalComponents = options.directFinalComponents;
+            removeNonAcceptingSccs = options.removeNonAcceptingSccs;
+            alternatingSuspension = options.alternatingSuspension;
+            rewriteReleaseFormulae = options.rewriteReleaseFormulae;
+            determinization = options.determinization;
+            postOptimization = options.postOptimization;
+            ltl3baImprovements = options.ltl3baImprovements;
+        }
+
+        public Builder logicSimplification(boolean enabled) {
+            this.logicSimplification = enabled;
+            return this;
+        }
+
+        public Builder aPosterioriSimplification(boolean enabled) {
+            this.aPosterioriSimplification = enabled;
+            return this;
+        }
+
+        public Builder onTheFlySimplification(boolean enabled) {
+            this.onTheFlySimplification = enabled;
+            return this;
+        }
+
+        public Builder sccSimplification(boolean enabled) {
+            this.sccSimplification = enabled;
+            return this;
+        }
+
+        public Builder acceptanceTrick(boolean enabled) {
+            this.acceptanceTrick = enabled;
+            return this;
+        }
+
+        public Builder postponing(boolean enabled) {
+            this.postponing = enabled;
+            return this;
+        }
+
+        public Builder directFinalComponents(boolean enabled) {
+            this.directFinalComponents = enabled;
+            return this;
+        }
+
+        public Builder removeNonAcceptingSccs(boolean enabled) {
+            this.removeNonAcceptingSccs = enabled;
+            return this;
+        }
+
+        public Builder alternatingSuspension(boolean enabled) {
+            this.alternatingSuspension = enabled;
+            return this;
+        }
+
+        public Builder rewriteReleaseFormulae(boolean enabled) {
+            this.rewriteReleaseFormulae = enabled;
+            return this;
+        }
+
+        public Builder determinization(boolean enabled) {
+            this.determinization = enabled;
+            return this;
+        }
+
+        public Builder postOptimization(PostOptimization postOptimization) {
+            this.postOptimization = Objects.requireNonNull(postOptimization);
+            return this;
+        }
+
+        public Builder ltl3baImprovements(boolean enabled) {
+            this.ltl3baImprovements = enabled;
+            return this;
+        }
+
+        public Ltl3baOptions build() {
+            return new Ltl3baOptions(
+                    logicSimplification,
+                    aPosterioriSimplification,
+                    onTheFlySimplification,
+                    sccSimplification,
+                    acceptanceTrick,
+                    postponing,
+                    directFinalComponents,
+                    removeNonAcceptingSccs,
+                    alternatingSuspension,
+                    rewriteReleaseFormulae,
+                    determinization,
+                    postOptimization,
+                    ltl3baImprovements);
+        }
+    }
+}
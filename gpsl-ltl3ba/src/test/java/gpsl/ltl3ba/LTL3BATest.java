@@ -3,6 +3,9 @@ package gpsl.ltl3ba;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -24,6 +27,37 @@ class LTL3BATest {
         assertSame(instance1, instance2, "getInstance should return the same instance");
     }
     
+    @Test
+    void testInterruptedConversionStops() throws Exception {
+        List<String> lines = new ArrayList<>();
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, () -> ltl3ba.convert("[] <> p && [] <> q", lines::add));
+        assertFalse(Thread.currentThread().isInterrupted());
+        // the next conversion is not affected
+        assertTrue(ltl3ba.convert("p").contains("accept"));
+    }
+
+    @Test
+    void testFailingConsumerStopsTheReader() throws Exception {
+        // thousands of lines, more than the lines read ahead
+        String formula = "(<>p0 || []q0) && (<>p1 || []q1) && (<>p2 || []q2) && (<>p3 || []q3) && (<>p4 || []q4) && (<>p5 || []q5)";
+        assertThrows(IllegalStateException.class, () -> ltl3ba.convert(formula, line -> {
+            // let the output back up before giving up
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException(line);
+        }));
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("ltl3ba-stdout")) {
+                thread.join(10_000);
+                assertFalse(thread.isAlive(), "the reader thread waits for room forever");
+            }
+        }
+    }
+
     @Test
     void testConvertSimpleAtom() throws Exception {
         String result = ltl3ba.convert("p");
@@ -189,6 +223,52 @@ class LTL3BATest {
             "Output should contain transition statements");
     }
     
+    @Test
+    void testStreamingConvertDeliversLines() throws Exception {
+        List<String> lines = new ArrayList<>();
+        ltl3ba.convert("[] (p -> <> q)", lines::add);
+        assertFalse(lines.isEmpty());
+        assertTrue(lines.getFirst().startsWith("acc ="), "First line should be the acceptance header");
+        assertTrue(lines.stream().noneMatch(l -> l.contains("\n")), "Lines should not contain terminators");
+        assertEquals(String.join("\n", lines) + "\n", ltl3ba.convert("[] (p -> <> q)"));
+    }
+
+    @Test
+    void testStreamingConvertReportsStderr() {
+        var e = assertThrows(RuntimeException.class, () -> ltl3ba.convert("p && && q", line -> {}));
+        assertTrue(e.getMessage().startsWith("ltl3ba failed"));
+    }
+
+    @Test
+    void testDefaultOptionsAddNoSwitch() {
+        assertEquals(List.of(), Ltl3baOptions.defaults().toArguments());
+    }
+
+    @Test
+    void testOptionsToArguments() {
+        Ltl3baOptions options = Ltl3baOptions.builder()
+                .logicSimplification(false)
+                .determinization(false)
+                .postOptimization(Ltl3baOptions.PostOptimization.BISIMULATION)
+                .build();
+        assertEquals(List.of("-l", "-M0", "-S1"), options.toArguments());
+        assertEquals(options, options.toBuilder().build());
+        assertEquals(List.of("-x"), Ltl3baOptions.builder().ltl3baImprovements(false).build().toArguments());
+    }
+
+    @Test
+    void testConvertWithOptions() throws Exception {
+        Ltl3baOptions noOptimizations = Ltl3baOptions.builder()
+                .postOptimization(Ltl3baOptions.PostOptimization.NONE)
+                .ltl3baImprovements(false)
+                .build();
+        String optimized = ltl3ba.convert("[]<>p && []<>q");
+        String unoptimized = ltl3ba.convert("[]<>p && []<>q", noOptimizations);
+        assertTrue(unoptimized.startsWith("acc ="));
+        assertTrue(unoptimized.lines().count() >= optimized.lines().count(),
+            "Disabling optimizations should not produce a smaller automaton");
+    }
+
     @Test
     void testInvalidFormulaThrowsException() {
         // Test with invalid syntax
@@ -0,0 +1,112 @@
+package gpsl.modelchecker;
+
+import gpsl.semantics.AtomEvaluator;
+import obp3.runtime.sli.SemanticRelation;
+import obp3.runtime.sli.Step;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe cache of the results of a model {@link SemanticRelation} and of its atom valuations,
+ * shared by model checkers running concurrently.
+ *
+ * <p>Each result is computed at most once: concurrent requests of the same configuration wait for the first
+ * one instead of calling the model again. Configurations and actions are keys, so they must have
+ * consistent {@code equals} and {@code hashCode}. The valuations are cached by the start configuration, action
+ * and end configuration of their step, so they do not depend on the equality of {@link Step} itself.
+ *
+ * <p>The cache grows with the explored state space and is never evicted: it is meant for the checks of a
+ * single {@link ParallelModelChecker#check} call, and {@link #clear() cleared} once they complete.
+ *
+ * @param <MA> the type of the model actions
+ * @param <MC> the type of the model configurations
+ */
+final class CachingSemanticRelation<MA, MC> implements SemanticRelation<MA, MC> {
+
+    private record Execution<MA, MC>(MA action, MC configuration) {}
+
+    private record Valuation<MA, MC>(String atom, MC start, Optional<MA> action, MC end) {}
+
+    private final SemanticRelation<MA, MC> model;
+    private final AtomEvaluator<Step<MA, MC>> atomEvaluator;
+    private volatile List<MC> initial;
+    private final ConcurrentMap<MC, CompletableFuture<List<MA>>> actions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Execution<MA, MC>, CompletableFuture<List<MC>>> executions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Valuation<MA, MC>, CompletableFuture<Boolean>> valuations = new ConcurrentHashMap<>();
+
+    CachingSemanticRelation(SemanticRelation<MA, MC> model, AtomEvaluator<Step<MA, MC>> atomEvaluator) {
+        this.model = model;
+        this.atomEvaluator = atomEvaluator;
+    }
+
+    @Override
+    public List<MC> initial() {
+        List<MC> configurations = initial;
+        if (configurations == null) {
+            synchronized (this) {
+                configurations = initial;
+                if (configurations == null) {
+                    configurations = List.copyOf(model.initial());
+                    initial = configurations;
+                }
+            }
+        }
+        return configurations;
+    }
+
+    @Override
+    public List<MA> actions(MC configuration) {
+        return memoize(actions, configuration, () -> List.copyOf(model.actions(configuration)));
+    }
+
+    @Override
+    public List<MC> execute(MA action, MC configuration) {
+        return memoize(executions, new Execution<>(action, configuration),
+                () -> List.copyOf(model.execute(action, configuration)));
+    }
+
+    /**
+     * Removes every cached result. Computations in progress still complete their waiting requests.
+     */
+    void clear() {
+        actions.clear();
+        executions.clear();
+        valuations.clear();
+    }
+
+    /**
+     * Gets the atom evaluator answering from the cache of valuations.
+     */
+    AtomEvaluator<Step<MA, MC>> atomEvaluator() {
+        return (atom, step) -> memoize(valuations, new Valuation<>(atom, step.start(), step.action(), step.end()),
+                () -> atomEvaluator.evaluate(atom, step));
+    }
+
+    /**
+     * Gets a cached value, computing it in the calling thread if no other thread did or does.
+     * The cache is not locked while computing, and a failed computation is removed so that it can be retried.
+     */
+    private static <K, V> V memoize(ConcurrentMap<K, CompletableFuture<V>> cache, K key, Supplier<V> computation) {
+        CompletableFuture<V> future = cache.get(key);
+        if (future == null) {
+            CompletableFuture<V> created = new CompletableFuture<>();
+            future = cache.putIfAbsent(key, created);
+            if (future == null) {
+                try {
+                    created.complete(computation.get());
+                } catch (RuntimeException | Error e) {
+                    cache.remove(key, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+                return created.join();
+            }
+        }
+        return future.join();
+    }
+}
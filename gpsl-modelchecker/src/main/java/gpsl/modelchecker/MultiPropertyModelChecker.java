@@ -0,0 +1,606 @@
+package gpsl.modelchecker;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.semantics.AutomatonSemantics;
+import gpsl.syntax.Reader;
+import gpsl.syntax.model.*;
+import obp3.runtime.sli.SemanticRelation;
+import obp3.runtime.sli.Step;
+import rege.reader.infra.ParseResult;
+
+import java.util.*;
+
+/**
+ * Checks several properties against a model in a single traversal of the model state space.
+ *
+ * <p>The model is synchronized with the vector of the property automata: a configuration of the product is a
+ * model configuration and one state per property, and each model step moves every property along the
+ * transitions its guards enable on that step. Model steps are computed once per model configuration, and each
+ * atom is evaluated once per step for all the properties.
+ *
+ * <p>As with {@link StepModelChecker}, the automaton of a property accepts its violations: an NFA property is
+ * violated when the product reaches one of its accepting states, and a Büchi property when the product has a
+ * cycle through one of its accepting states. The strongly connected components of the product are computed
+ * with Tarjan's algorithm during the traversal, so a cycle is found when its component is closed. The traversal
+ * stops once every property is decided. Properties are compiled by the shared {@link PropertyCache}, so a safety
+ * requirement comes as its bad-prefix NFA and is decided at its first violation.
+ *
+ * <p>The product stays close to the model's state space:
+ * <ul>
+ *   <li>An NFA property is determinized on the fly: it is in the set of the states its runs reach, so it does
+ *   not branch however nondeterministic its automaton.</li>
+ *   <li>The states from which the automaton cannot reach an accepting state (an accepting cycle for a Büchi
+ *   property) are dropped, and a property with no state left is out of the product from that configuration on.
+ *   A property that holds thus stops distinguishing configurations once it can no longer be violated.</li>
+ *   <li>A decided property is retired from the vector: the configurations reached afterward no longer
+ *   distinguish its states.</li>
+ * </ul>
+ * The successors of a product configuration are released when its component closes, and the steps of a model
+ * configuration when all the product configurations reached with it are closed.
+ *
+ * @param <MA> the type of the model actions
+ * @param <MC> the type of the model configurations
+ */
+public class MultiPropertyModelChecker<MA, MC> {
+
+    /**
+     * The verdict of a property.
+     *
+     * @param property the name of the property
+     * @param holds whether the model has no run accepted by the property automaton
+     * @param counterexample the model configurations of a violating run, empty if the property holds
+     * @param loopStart the index in the counterexample where the cycle of a Büchi violation starts, -1 otherwise.
+     *                  The cycle ends with the configuration at that index
+     * @param <MC> the type of the model configurations
+     */
+    public record Verdict<MC>(String property, boolean holds, List<MC> counterexample, int loopStart) {}
+
+    // the state of a property out of the product, or retired
+    private static final int NONE = -1;
+
+    //model SLI
+    final SemanticRelation<MA, MC> modelSemantics;
+    final AtomEvaluator<Step<MA, MC>> atomicPropositionEvaluator;
+
+    //properties
+    final List<String> names;
+    final List<Automaton> automata;
+
+    public MultiPropertyModelChecker(
+            SemanticRelation<MA, MC> modelSemantics,
+            AtomEvaluator<Step<MA, MC>> atomicPropositionEvaluator,
+            String properties) {
+        var modelP = Reader.parseDeclarationsWithPositions(properties);
+        var model = Reader.linkWithPositions(modelP);
+        switch (model) {
+            case ParseResult.Success<Declarations> success -> {
+                this.modelSemantics = modelSemantics;
+                this.atomicPropositionEvaluator = atomicPropositionEvaluator;
+                this.names = new ArrayList<>();
+                this.automata = new ArrayList<>();
+                for (ExpressionDeclaration declaration : success.value().declarations()) {
+                    names.add(declaration.name());
+                    automata.add(PropertyCache.shared().get(declaration).automaton());
+                }
+            }
+            case ParseResult.Failure<Declarations> failure -> {
+                throw new IllegalArgumentException("Failed to parse properties: " + failure.formatErrors());
+            }
+        }
+    }
+
+    public MultiPropertyModelChecker(
+            SemanticRelation<MA, MC> modelSemantics,
+            AtomEvaluator<Step<MA, MC>> atomicPropositionEvaluator,
+            Map<String, ? extends SyntaxTreeElement> properties) {
+        this.modelSemantics = modelSemantics;
+        this.atomicPropositionEvaluator = atomicPropositionEvaluator;
+        this.names = new ArrayList<>(properties.keySet());
+        this.automata = properties.values().stream()
+                .map(property -> PropertyCache.shared().get(property).automaton())
+                .toList();
+    }
+
+    /**
+     * Explores the product of the model and the properties.
+     *
+     * @return the verdicts, by property name in declaration order
+     */
+    public Map<String, Verdict<MC>> check() {
+        Verdict<MC>[] verdicts = new Traversal().run();
+        Map<String, Verdict<MC>> result = new LinkedHashMap<>();
+        for (Verdict<MC> verdict : verdicts) {
+            result.put(verdict.property(), verdict);
+        }
+        return result;
+    }
+
+    /**
+     * A configuration of the product: a model configuration and the state index of each property.
+     */
+    private record Node<MC>(MC model, int[] properties, int hash) {
+        Node(MC model, int[] properties) {
+            this(model, properties, 31 * Objects.hashCode(model) + Arrays.hashCode(properties));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Node<?> node && hash == node.hash
+                    && Arrays.equals(properties, node.properties) && Objects.equals(model, node.model);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * An iterative Tarjan traversal of the product.
+     */
+    private final class Traversal {
+        private final int count = automata.size();
+        private final List<AutomatonSemantics<Step<MA, MC>>> semantics = new ArrayList<>(count);
+        private final List<List<State>> states = new ArrayList<>(count);
+        private final List<Map<State, Integer>> stateIndexes = new ArrayList<>(count);
+        private final boolean[][] accepting = new boolean[count][];
+        // the states from which a violation is still possible
+        private final boolean[][] live = new boolean[count][];
+        // the sets of states of the NFA properties, numbered in order of appearance
+        private final List<Map<BitSet, Integer>> subsetIds = new ArrayList<>(count);
+        private final List<List<BitSet>> subsets = new ArrayList<>(count);
+        private final Verdict<MC>[] verdicts;
+        private int undecided = count;
+
+        // atom values of the step being evaluated, shared by the properties
+        private final Map<String, Boolean> atoms = new HashMap<>();
+        private final Map<MC, List<Step<MA, MC>>> modelSteps = new HashMap<>();
+        // the number of product configurations not closed yet, by model configuration
+        private final Map<MC, Integer> open = new HashMap<>();
+
+        private final Map<Node<MC>, Integer> ids = new HashMap<>();
+        private final List<Node<MC>> nodes = new ArrayList<>();
+        private final List<int[]> successors = new ArrayList<>();
+        // the Tarjan index of each node, -1 until visited
+        private int[] index = new int[1024];
+        private int[] lowlink = new int[1024];
+        // the component of each node once closed, -1 before
+        private int[] component = new int[1024];
+        private int visited;
+        private int components;
+        private final Deque<Integer> stack = new ArrayDeque<>();
+        // the current path: the node and the next successor to visit of each frame
+        private int[] pathNodes = new int[64];
+        private int[] pathNext = new int[64];
+        private int depth;
+
+        @SuppressWarnings("unchecked")
+        Traversal() {
+            verdicts = new Verdict[count];
+            AtomEvaluator<Step<MA, MC>> sharedEvaluator = (atom, step) -> {
+                Boolean value = atoms.get(atom);
+                if (value == null) {
+                    value = atomicPropositionEvaluator.evaluate(atom, step);
+                    atoms.put(atom, value);
+                }
+                return value;
+            };
+            for (int k = 0; k < count; k++) {
+                Automaton automaton = automata.get(k);
+                semantics.add(new AutomatonSemantics<>(automaton, sharedEvaluator));
+                List<State> list = List.copyOf(automaton.states());
+                Map<State, Integer> indexes = new HashMap<>();
+                accepting[k] = new boolean[list.size()];
+                for (int i = 0; i < list.size(); i++) {
+                    indexes.put(list.get(i), i);
+                    accepting[k][i] = automaton.acceptStates().contains(list.get(i));
+                }
+                states.add(list);
+                stateIndexes.add(indexes);
+                live[k] = liveStates(automaton, list, indexes, accepting[k]);
+                subsetIds.add(new HashMap<>());
+                subsets.add(new ArrayList<>());
+            }
+        }
+
+        private boolean determinized(int property) {
+            return automata.get(property).semanticsKind() == AutomatonSemanticsKind.NFA;
+        }
+
+        /**
+         * Gets the vector entry of a set of states of an NFA property.
+         */
+        private int subset(int property, BitSet set) {
+            if (set.isEmpty()) {
+                return NONE;
+            }
+            List<BitSet> known = subsets.get(property);
+            return subsetIds.get(property).computeIfAbsent(set, s -> {
+                known.add(s);
+                return known.size() - 1;
+            });
+        }
+
+        /**
+         * Tells whether the vector entry of a property has an accepting state.
+         */
+        private boolean accepting(int property, int entry) {
+            if (entry == NONE) {
+                return false;
+            }
+            if (!determinized(property)) {
+                return accepting[property][entry];
+            }
+            BitSet set = subsets.get(property).get(entry);
+            for (int state = set.nextSetBit(0); state >= 0; state = set.nextSetBit(state + 1)) {
+                if (accepting[property][state]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Verdict<MC>[] run() {
+            List<List<Integer>> initial = new ArrayList<>(count);
+            for (int k = 0; k < count; k++) {
+                BitSet states = new BitSet();
+                for (State state : semantics.get(k).initial()) {
+                    int i = stateIndexes.get(k).get(state);
+                    if (live[k][i]) {
+                        states.set(i);
+                    }
+                }
+                initial.add(choices(k, states));
+            }
+            for (MC configuration : modelSemantics.initial()) {
+                for (int[] vector : vectors(initial)) {
+                    if (undecided == 0) {
+                        break;
+                    }
+                    int id = node(new Node<>(configuration, vector));
+                    if (index[id] < 0) {
+                        visit(id);
+                    }
+                }
+            }
+            for (int k = 0; k < count; k++) {
+                if (verdicts[k] == null) {
+                    verdicts[k] = new Verdict<>(names.get(k), true, List.of(), -1);
+                }
+            }
+            return verdicts;
+        }
+
+        private void visit(int root) {
+            push(root);
+            while (depth > 0 && undecided > 0) {
+                int node = pathNodes[depth - 1];
+                int[] next = successors(node);
+                if (pathNext[depth - 1] < next.length) {
+                    int successor = next[pathNext[depth - 1]++];
+                    if (index[successor] < 0) {
+                        push(successor);
+                    } else if (component[successor] < 0) {
+                        lowlink[node] = Math.min(lowlink[node], index[successor]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (lowlink[node] == index[node]) {
+                    close(node, next);
+                }
+                if (depth > 0) {
+                    int parent = pathNodes[depth - 1];
+                    lowlink[parent] = Math.min(lowlink[parent], lowlink[node]);
+                }
+            }
+        }
+
+        private void push(int node) {
+            if (depth == pathNodes.length) {
+                pathNodes = Arrays.copyOf(pathNodes, depth * 2);
+                pathNext = Arrays.copyOf(pathNext, depth * 2);
+            }
+            pathNodes[depth] = node;
+            pathNext[depth] = 0;
+            depth++;
+            index[node] = visited;
+            lowlink[node] = visited;
+            visited++;
+            stack.push(node);
+            // an NFA property is violated as soon as one of its accepting states is reached
+            int[] vector = nodes.get(node).properties();
+            for (int k = 0; k < count; k++) {
+                if (verdicts[k] == null && determinized(k) && accepting(k, vector[k])) {
+                    decide(k, path(depth), -1);
+                }
+            }
+        }
+
+        /**
+         * Pops the component of a root, checking the Büchi properties having an accepting state in it.
+         */
+        private void close(int root, int[] rootSuccessors) {
+            int id = components++;
+            List<Integer> members = new ArrayList<>();
+            int member;
+            do {
+                member = stack.pop();
+                component[member] = id;
+                members.add(member);
+            } while (member != root);
+            boolean cycle = members.size() > 1 || Arrays.stream(rootSuccessors).anyMatch(s -> s == root);
+            for (int k = 0; cycle && k < count; k++) {
+                if (verdicts[k] != null || automata.get(k).semanticsKind() != AutomatonSemanticsKind.BUCHI) {
+                    continue;
+                }
+                for (int candidate : members) {
+                    int state = nodes.get(candidate).properties()[k];
+                    if (state != NONE && accepting[k][state]) {
+                        lasso(k, root, candidate, id);
+                        break;
+                    }
+                }
+            }
+            // a closed component is not visited again
+            for (int closed : members) {
+                successors.set(closed, null);
+                MC model = nodes.get(closed).model();
+                if (open.merge(model, -1, Integer::sum) == 0) {
+                    open.remove(model);
+                    modelSteps.remove(model);
+                }
+            }
+        }
+
+        /**
+         * Decides a Büchi property with the path to a component root, then a path to an accepting member
+         * and back, inside the component.
+         */
+        private void lasso(int property, int root, int acceptingNode, int id) {
+            // the root was just popped from the path
+            List<MC> counterexample = path(depth);
+            List<MC> toAccepting = acceptingNode == root ? List.of() : pathInComponent(root, acceptingNode, id);
+            counterexample.add(nodes.get(root).model());
+            counterexample.addAll(toAccepting);
+            int loopStart = counterexample.size() - 1;
+            counterexample.addAll(pathInComponent(acceptingNode, acceptingNode, id));
+            decide(property, counterexample, loopStart);
+        }
+
+        /**
+         * The model configurations of a shortest path of at least one step between two nodes of a component,
+         * the source excluded.
+         */
+        private List<MC> pathInComponent(int source, int target, int id) {
+            Map<Integer, Integer> parents = new HashMap<>();
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(source);
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int successor : successors.get(node)) {
+                    if (component[successor] != id || parents.containsKey(successor)) {
+                        continue;
+                    }
+                    parents.put(successor, node);
+                    if (successor == target) {
+                        LinkedList<MC> path = new LinkedList<>();
+                        for (int n = target; ; n = parents.get(n)) {
+                            path.addFirst(nodes.get(n).model());
+                            if (parents.get(n) == source) {
+                                return new ArrayList<>(path);
+                            }
+                        }
+                    }
+                    queue.add(successor);
+                }
+            }
+            // the component has a cycle through both nodes
+            throw new IllegalStateException("No path in component");
+        }
+
+        private List<MC> path(int length) {
+            List<MC> path = new ArrayList<>(length + 1);
+            for (int i = 0; i < length; i++) {
+                path.add(nodes.get(pathNodes[i]).model());
+            }
+            return path;
+        }
+
+        private void decide(int property, List<MC> counterexample, int loopStart) {
+            verdicts[property] = new Verdict<>(names.get(property), false, List.copyOf(counterexample), loopStart);
+            undecided--;
+        }
+
+        /**
+         * Gets the id of a node, creating it if it is new.
+         */
+        private int node(Node<MC> node) {
+            Integer existing = ids.get(node);
+            if (existing != null) {
+                return existing;
+            }
+            int id = nodes.size();
+            ids.put(node, id);
+            nodes.add(node);
+            successors.add(null);
+            open.merge(node.model(), 1, Integer::sum);
+            if (id == index.length) {
+                index = Arrays.copyOf(index, id * 2);
+                lowlink = Arrays.copyOf(lowlink, id * 2);
+                component = Arrays.copyOf(component, id * 2);
+            }
+            index[id] = -1;
+            component[id] = -1;
+            return id;
+        }
+
+        private int[] successors(int id) {
+            int[] computed = successors.get(id);
+            if (computed == null) {
+                computed = expand(nodes.get(id));
+                successors.set(id, computed);
+            }
+            return computed;
+        }
+
+        /**
+         * Computes the successors of a node: for every model step, the product of the moves of the properties.
+         */
+        private int[] expand(Node<MC> node) {
+            Set<Integer> result = new LinkedHashSet<>();
+            List<List<Integer>> moves = new ArrayList<>(count);
+            for (Step<MA, MC> step : modelSteps(node.model())) {
+                atoms.clear();
+                moves.clear();
+                for (int k = 0; k < count; k++) {
+                    int entry = node.properties()[k];
+                    if (entry == NONE || verdicts[k] != null) {
+                        moves.add(List.of(NONE));
+                        continue;
+                    }
+                    BitSet targets = new BitSet();
+                    if (determinized(k)) {
+                        BitSet sources = subsets.get(k).get(entry);
+                        for (int state = sources.nextSetBit(0); state >= 0; state = sources.nextSetBit(state + 1)) {
+                            move(k, state, step, targets);
+                        }
+                    } else {
+                        move(k, entry, step, targets);
+                    }
+                    moves.add(choices(k, targets));
+                }
+                for (int[] vector : vectors(moves)) {
+                    result.add(node(new Node<>(step.end(), vector)));
+                }
+            }
+            return result.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Adds the live targets of the transitions of a property state enabled on a step.
+         */
+        private void move(int property, int state, Step<MA, MC> step, BitSet targets) {
+            State source = states.get(property).get(state);
+            for (Transition transition : semantics.get(property).actions(step, source)) {
+                for (State target : semantics.get(property).execute(transition, step, source)) {
+                    int i = stateIndexes.get(property).get(target);
+                    if (live[property][i]) {
+                        targets.set(i);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The vector entries of a set of live states: the set itself for an NFA property, each state otherwise.
+         */
+        private List<Integer> choices(int property, BitSet states) {
+            if (states.isEmpty()) {
+                return List.of(NONE);
+            }
+            if (determinized(property)) {
+                return List.of(subset(property, states));
+            }
+            return states.stream().boxed().toList();
+        }
+
+        /**
+         * The steps of a model configuration, computed while a product configuration with it is open.
+         * A deadlock stutters.
+         */
+        private List<Step<MA, MC>> modelSteps(MC configuration) {
+            List<Step<MA, MC>> steps = modelSteps.get(configuration);
+            if (steps == null) {
+                steps = new ArrayList<>();
+                for (MA action : modelSemantics.actions(configuration)) {
+                    for (MC target : modelSemantics.execute(action, configuration)) {
+                        steps.add(new Step<>(configuration, Optional.of(action), target));
+                    }
+                }
+                if (steps.isEmpty()) {
+                    steps.add(new Step<>(configuration, Optional.empty(), configuration));
+                }
+                modelSteps.put(configuration, steps);
+            }
+            return steps;
+        }
+
+        /**
+         * The cartesian product of the choices of each property.
+         */
+        private List<int[]> vectors(List<List<Integer>> choices) {
+            List<int[]> vectors = new ArrayList<>();
+            vectors.add(new int[count]);
+            for (int k = 0; k < count; k++) {
+                List<int[]> extended = new ArrayList<>(vectors.size() * choices.get(k).size());
+                for (int[] vector : vectors) {
+                    for (int choice : choices.get(k)) {
+                        int[] copy = vector.clone();
+                        copy[k] = choice;
+                        extended.add(copy);
+                    }
+                }
+                vectors = extended;
+            }
+            return vectors;
+        }
+    }
+
+    /**
+     * Computes the states of an automaton from which a violation is possible, ignoring the guards:
+     * those reaching an accepting state for an NFA, an accepting state on a cycle for a Büchi automaton.
+     */
+    private static boolean[] liveStates(Automaton automaton, List<State> states, Map<State, Integer> indexes,
+                                        boolean[] accepting) {
+        List<List<Integer>> predecessors = new ArrayList<>(states.size());
+        List<List<Integer>> successors = new ArrayList<>(states.size());
+        for (int i = 0; i < states.size(); i++) {
+            predecessors.add(new ArrayList<>());
+            successors.add(new ArrayList<>());
+        }
+        for (Transition transition : automaton.transitions()) {
+            int source = indexes.get(transition.source());
+            int target = indexes.get(transition.target());
+            predecessors.get(target).add(source);
+            successors.get(source).add(target);
+        }
+        boolean[] live = new boolean[states.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < states.size(); i++) {
+            boolean target = automaton.semanticsKind() == AutomatonSemanticsKind.NFA
+                    ? accepting[i]
+                    : accepting[i] && reaches(successors, i, i);
+            if (target) {
+                live[i] = true;
+                queue.add(i);
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (int predecessor : predecessors.get(queue.poll())) {
+                if (!live[predecessor]) {
+                    live[predecessor] = true;
+                    queue.add(predecessor);
+                }
+            }
+        }
+        return live;
+    }
+
+    // whether a path of at least one transition leads from a state to another
+    private static boolean reaches(List<List<Integer>> successors, int source, int target) {
+        boolean[] known = new boolean[successors.size()];
+        Deque<Integer> stack = new ArrayDeque<>(successors.get(source));
+        while (!stack.isEmpty()) {
+            int state = stack.pop();
+            if (state == target) {
+                return true;
+            }
+            if (!known[state]) {
+                known[state] = true;
+                stack.addAll(successors.get(state));
+            }
+        }
+        return false;
+    }
+}
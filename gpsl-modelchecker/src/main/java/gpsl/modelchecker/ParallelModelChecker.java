@@ -0,0 +1,129 @@
+package gpsl.modelchecker;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.syntax.Reader;
+import gpsl.syntax.model.*;
+import obp3.modelchecking.EmptinessCheckerAnswer;
+import obp3.modelchecking.tools.BuchiModelCheckerModel;
+import obp3.runtime.sli.SemanticRelation;
+import obp3.runtime.sli.Step;
+import obp3.sli.core.operators.product.Product;
+import obp3.traversal.dfs.DepthFirstTraversal;
+import rege.reader.infra.ParseResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks the declarations of a property source concurrently, one {@link StepModelChecker} per declaration.
+ *
+ * <p>The checks of a {@code check} call share a thread-safe cache of the model's successors and atom valuations,
+ * so the model's step function runs at most once per configuration and action, and each atom once per step,
+ * across these checks. The cache is dropped once they all complete, and the configurations and actions must
+ * have consistent {@code equals} and {@code hashCode}. The results are returned as futures completing
+ * independently, in declaration order:
+ *
+ * <pre>{@code
+ * var checker = new ParallelModelChecker<>(modelSemantics, atomEvaluator, executor);
+ * checker.check(properties).forEach((name, result) ->
+ *         result.thenAccept(answer -> System.out.println(name + ": " + answer)));
+ * }</pre>
+ *
+ * @param <MA> the type of the model actions
+ * @param <MC> the type of the model configurations
+ */
+public class ParallelModelChecker<MA, MC> {
+
+    //model SLI
+    final SemanticRelation<MA, MC> modelSemantics;
+    final AtomEvaluator<Step<MA, MC>> atomicPropositionEvaluator;
+
+    //options
+    final Executor executor;
+    final BuchiModelCheckerModel.BuchiEmptinessCheckerAlgorithm emptinessCheckerAlgorithm;
+    final DepthFirstTraversal.Algorithm traversalAlgorithm;
+    final int depthBound;
+
+    public ParallelModelChecker(
+            SemanticRelation<MA, MC> modelSemantics,
+            AtomEvaluator<Step<MA, MC>> atomicPropositionEvaluator) {
+        this(modelSemantics, atomicPropositionEvaluator, ForkJoinPool.commonPool());
+    }
+
+    public ParallelModelChecker(
+            SemanticRelation<MA, MC> modelSemantics,
+            AtomEvaluator<Step<MA, MC>> atomicPropositionEvaluator,
+            Executor executor) {
+        this(
+                modelSemantics,
+                atomicPropositionEvaluator,
+                executor,
+                BuchiModelCheckerModel.BuchiEmptinessCheckerAlgorithm.GS09_CDLP05_SEPARATED,
+                DepthFirstTraversal.Algorithm.WHILE,
+                -1
+        );
+    }
+
+    public ParallelModelChecker(
+            SemanticRelation<MA, MC> modelSemantics,
+            AtomEvaluator<Step<MA, MC>> atomicPropositionEvaluator,
+            Executor executor,
+            BuchiModelCheckerModel.BuchiEmptinessCheckerAlgorithm emptinessCheckerAlgorithm,
+            DepthFirstTraversal.Algorithm traversal,
+            int depthBound) {
+        this.modelSemantics = modelSemantics;
+        this.atomicPropositionEvaluator = atomicPropositionEvaluator;
+        this.executor = executor;
+        this.emptinessCheckerAlgorithm = emptinessCheckerAlgorithm;
+        this.traversalAlgorithm = traversal;
+        this.depthBound = depthBound;
+    }
+
+    /**
+     * Parses, links and checks the declarations of a property source.
+     *
+     * @param properties the GPSL declarations source
+     * @return the result of each declaration, by name in declaration order
+     * @throws IllegalArgumentException if the source has errors
+     */
+    public Map<String, CompletableFuture<EmptinessCheckerAnswer<Product<MC, State>>>> check(String properties) {
+        var modelP = Reader.parseDeclarationsWithPositions(properties);
+        var model = Reader.linkWithPositions(modelP);
+        return switch (model) {
+            case ParseResult.Success<Declarations> success -> check(success.value());
+            case ParseResult.Failure<Declarations> failure ->
+                    throw new IllegalArgumentException("Failed to parse properties: " + failure.formatErrors());
+        };
+    }
+
+    /**
+     * Checks every declaration of a linked block on the executor, sharing a model cache dropped once the checks
+     * complete. A declaration that cannot be translated completes its future exceptionally.
+     * Of the declarations of a name, only the first one is checked.
+     *
+     * @param declarations the linked declarations
+     * @return the result of each declaration, by name in declaration order
+     */
+    public Map<String, CompletableFuture<EmptinessCheckerAnswer<Product<MC, State>>>> check(Declarations declarations) {
+        var cache = new CachingSemanticRelation<>(modelSemantics, atomicPropositionEvaluator);
+        Map<String, CompletableFuture<EmptinessCheckerAnswer<Product<MC, State>>>> results = new LinkedHashMap<>();
+        for (ExpressionDeclaration declaration : declarations.declarations()) {
+            if (results.containsKey(declaration.name())) {
+                continue;
+            }
+            results.put(declaration.name(), CompletableFuture.supplyAsync(() -> new StepModelChecker<>(
+                    cache,
+                    cache.atomEvaluator(),
+                    declaration,
+                    emptinessCheckerAlgorithm,
+                    traversalAlgorithm,
+                    depthBound).modelChecker().execute(), executor));
+        }
+        CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, failure) -> cache.clear());
+        return results;
+    }
+}
@@ -0,0 +1,158 @@
+package gpsl.modelchecker;
+
+import gpsl.semantics.CoSafetyToNFA;
+import gpsl.semantics.Semantics;
+import gpsl.syntax.Reader;
+import gpsl.syntax.hashcons.NamelessEquality;
+import gpsl.syntax.hashcons.NamelessHash;
+import gpsl.syntax.model.*;
+import rege.reader.infra.ParseResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded cache of compiled properties, shared by model checkers.
+ *
+ * <p>Properties are cached by their nameless structure ({@link NamelessHash}, {@link NamelessEquality}):
+ * declarations differing only by their names, operator spellings or the names of the declarations they refer to
+ * share one automaton. Property sources are also cached by their text, so an unchanged source is neither parsed
+ * nor translated again. Each cache keeps its most recently used entries.
+ *
+ * <p>The Büchi automaton of a co-safety property (a safety requirement, as properties describe violations) is
+ * replaced by its bad-prefix NFA when exact ({@link CoSafetyToNFA}), so the property is checked by reachability.
+ *
+ * <p>Thread-safe. A property is translated outside the lock, so two threads missing the same property at
+ * the same time may both translate it; the first result is kept.
+ */
+public final class PropertyCache {
+
+    /**
+     * A parsed and linked property with its automaton.
+     *
+     * @param property the property, the last declaration of a source
+     * @param automaton the automaton of the property
+     */
+    public record CompiledProperty(SyntaxTreeElement property, Automaton automaton) {}
+
+    /**
+     * A property compared by its nameless structure.
+     */
+    private record Key(SyntaxTreeElement element, int hash) {
+        // the name of a declaration does not change its automaton
+        static Key of(SyntaxTreeElement property) {
+            SyntaxTreeElement element = property instanceof ExpressionDeclaration declaration
+                    ? declaration.expression()
+                    : property;
+            return new Key(element, NamelessHash.hashCode(element));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && hash == other.hash && NamelessEquality.same(element, other.element);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final PropertyCache SHARED = new PropertyCache(256);
+
+    private final Map<String, CompiledProperty> sources;
+    private final Map<Key, CompiledProperty> properties;
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity the maximum number of properties, and of sources, kept
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public PropertyCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.sources = lru(capacity);
+        this.properties = lru(capacity);
+    }
+
+    /**
+     * Gets the cache shared by the model checkers, keeping 256 properties.
+     */
+    public static PropertyCache shared() {
+        return SHARED;
+    }
+
+    private static <K, V> Map<K, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the compiled property of a source: its last declaration, parsed, linked and translated.
+     *
+     * @param source the GPSL declarations source
+     * @return ParseResult containing the compiled property, or the parse and link errors (not cached)
+     * @throws Semantics.SemanticConversionException if the property cannot be translated
+     */
+    public ParseResult<CompiledProperty> get(String source) {
+        CompiledProperty cached;
+        synchronized (this) {
+            cached = sources.get(source);
+        }
+        if (cached != null) {
+            return new ParseResult.Success<>(cached);
+        }
+        var parsed = Reader.parseDeclarationsWithPositions(source);
+        var linked = Reader.linkWithPositions(parsed);
+        if (!(linked instanceof ParseResult.Success<Declarations>(Declarations declarations))) {
+            return new ParseResult.Failure<>(((ParseResult.Failure<Declarations>) linked).errors(), source);
+        }
+        ExpressionDeclaration property = declarations.declarations().getLast();
+        CompiledProperty compiled = new CompiledProperty(property, get(property).automaton());
+        synchronized (this) {
+            sources.put(source, compiled);
+        }
+        return new ParseResult.Success<>(compiled);
+    }
+
+    /**
+     * Gets the compiled property of a linked property, translating it only if no property with the same
+     * nameless structure is cached.
+     *
+     * @param property the property (a declaration, an expression or an automaton)
+     * @return the compiled property; its element is the first cached property of that structure, and its automaton
+     *         the bad-prefix NFA of a co-safety property
+     * @throws Semantics.SemanticConversionException if the property cannot be translated
+     */
+    public CompiledProperty get(SyntaxTreeElement property) {
+        Key key = Key.of(property);
+        CompiledProperty cached;
+        synchronized (this) {
+            cached = properties.get(key);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        Automaton automaton = Semantics.toAutomaton(property);
+        automaton = CoSafetyToNFA.toNFA(property, automaton).orElse(automaton);
+        CompiledProperty compiled = new CompiledProperty(property, automaton);
+        synchronized (this) {
+            cached = properties.putIfAbsent(key, compiled);
+        }
+        return cached != null ? cached : compiled;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        sources.clear();
+        properties.clear();
+    }
+}
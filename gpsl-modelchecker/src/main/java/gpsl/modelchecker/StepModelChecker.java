@@ -2,8 +2,6 @@ package gpsl.modelchecker;
 
 import gpsl.semantics.AtomEvaluator;
 import gpsl.semantics.AutomatonSemantics;
-import gpsl.semantics.Semantics;
-import gpsl.syntax.Reader;
 import gpsl.syntax.model.*;
 import obp3.modelchecking.EmptinessCheckerAnswer;
 import obp3.modelchecking.EmptinessCheckerStatus;
@@ -37,19 +35,17 @@ public class StepModelChecker<MA, MC> {
             SemanticRelation<MA, MC> modelSemantics,
             AtomEvaluator<Step<MA, MC>> atomicPropositionEvaluator,
             String property) {
-        var modelP = Reader.parseDeclarationsWithPositions(property);
-        var model = Reader.linkWithPositions(modelP);
-        switch (model) {
-            case ParseResult.Success<Declarations> success -> {
+        switch (PropertyCache.shared().get(property)) {
+            case ParseResult.Success<PropertyCache.CompiledProperty> success -> {
                 this.modelSemantics = modelSemantics;
                 this.atomicPropositionEvaluator = atomicPropositionEvaluator;
-                this.propertyModel = success.value().declarations().getLast();
-                this.automaton = Semantics.toAutomaton(this.propertyModel);
+                this.propertyModel = success.value().property();
+                this.automaton = success.value().automaton();
                 this.emptinessCheckerAlgorithm = BuchiModelCheckerModel.BuchiEmptinessCheckerAlgorithm.GS09_CDLP05_SEPARATED;
                 this.traversalAlgorithm = DepthFirstTraversal.Algorithm.WHILE;
                 this.depthBound = -1;
             }
-            case ParseResult.Failure<Declarations> failure -> {
+            case ParseResult.Failure<PropertyCache.CompiledProperty> failure -> {
                 throw new IllegalArgumentException("Failed to parse property: " + failure.formatErrors());
             }
         }
@@ -79,6 +75,7 @@ public class StepModelChecker<MA, MC> {
         this.modelSemantics = modelSemantics;
         this.atomicPropositionEvaluator = atomicPropositionEvaluator;
         this.propertyModel = propertyModel;
+        this.automaton = PropertyCache.shared().get(propertyModel).automaton();
         this.emptinessCheckerAlgorithm = emptinessCheckerAlgorithm;
         this.traversalAlgorithm = traversal;
         this.depthBound = depthBound;
@@ -1,6 +1,7 @@
 module language.gpsl.modelchecker {
     requires transitive obp.sli.runtime;
     requires language.gpsl.core;
+    requires language.gpsl.otf;
     requires reader.infra;
     requires obp.algos;
     exports gpsl.modelchecker;
@@ -0,0 +1,139 @@
+package gpsl.modelchecker;
+
+import gpsl.semantics.AtomEvaluator;
+import obp3.runtime.sli.SemanticRelation;
+import obp3.runtime.sli.Step;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the cache of model results shared by concurrent model checkers.
+ */
+class CachingSemanticRelationTest {
+
+    private static final int SIZE = 100;
+    private static final int THREADS = 8;
+
+    /**
+     * A counter modulo {@link #SIZE}, counting the calls of each configuration, action and valuation.
+     */
+    private static final class Counter implements SemanticRelation<String, Integer> {
+        final Map<Object, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        private void called(Object key) {
+            calls.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            // widens the races
+            Thread.yield();
+        }
+
+        @Override
+        public List<Integer> initial() {
+            called("initial");
+            return List.of(0);
+        }
+
+        @Override
+        public List<String> actions(Integer configuration) {
+            called(List.of("actions", configuration));
+            return List.of("inc", "reset");
+        }
+
+        @Override
+        public List<Integer> execute(String action, Integer configuration) {
+            called(List.of(action, configuration));
+            return List.of(action.equals("inc") ? (configuration + 1) % SIZE : 0);
+        }
+
+        AtomEvaluator<Step<String, Integer>> atomEvaluator() {
+            return (atom, step) -> {
+                called(List.of(atom, step));
+                return step.end() == 0;
+            };
+        }
+    }
+
+    @Test
+    void testEachResultIsComputedOnce() throws Exception {
+        Counter model = new Counter();
+        var cache = new CachingSemanticRelation<>(model, model.atomEvaluator());
+        var atomEvaluator = cache.atomEvaluator();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> visits = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                visits.add(pool.submit(() -> {
+                    start.await();
+                    int visited = 0;
+                    for (int configuration : cache.initial()) {
+                        for (int c = configuration; c < SIZE; c++) {
+                            for (String action : cache.actions(c)) {
+                                for (int target : cache.execute(action, c)) {
+                                    atomEvaluator.evaluate("zero", new Step<>(c, Optional.of(action), target));
+                                    visited++;
+                                }
+                            }
+                        }
+                    }
+                    return visited;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> visited : visits) {
+                assertEquals(2 * SIZE, visited.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // the initial configurations, then the actions, executions and valuation of each configuration and action
+        assertEquals(1 + SIZE + 2 * SIZE + 2 * SIZE, model.calls.size());
+        model.calls.forEach((key, calls) -> assertEquals(1, calls.get(), key.toString()));
+    }
+
+    @Test
+    void testClear() {
+        Counter model = new Counter();
+        var cache = new CachingSemanticRelation<>(model, model.atomEvaluator());
+        var step = new Step<>(0, Optional.of("inc"), 1);
+        cache.actions(0);
+        cache.atomEvaluator().evaluate("zero", step);
+        cache.clear();
+        cache.actions(0);
+        cache.atomEvaluator().evaluate("zero", step);
+
+        assertEquals(2, model.calls.get(List.of("actions", 0)).get());
+        assertEquals(2, model.calls.get(List.of("zero", step)).get());
+    }
+
+    @Test
+    void testFailuresAreRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        Counter model = new Counter();
+        var cache = new CachingSemanticRelation<>(model, (String atom, Step<String, Integer> step) -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException(atom);
+            }
+            return true;
+        });
+        var step = new Step<>(0, Optional.of("inc"), 1);
+
+        assertThrows(IllegalStateException.class, () -> cache.atomEvaluator().evaluate("p", step));
+        assertTrue(cache.atomEvaluator().evaluate("p", step));
+        assertTrue(cache.atomEvaluator().evaluate("p", step));
+        assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,248 @@
+package gpsl.modelchecker;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.syntax.Reader;
+import gpsl.syntax.model.Declarations;
+import gpsl.syntax.model.ExpressionDeclaration;
+import obp3.runtime.sli.SemanticRelation;
+import obp3.runtime.sli.Step;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.ParseResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the checks of several properties in a single traversal.
+ */
+class MultiPropertyModelCheckerTest {
+
+    private static final String PROPERTIES = """
+            reach3 = nfa states s, t; initial s; accept t; s [! |three|] s; s [|three|] t; t [true] t
+            reach5 = nfa states s, t; initial s; accept t; s [! |five|] s; s [|five|] t; t [true] t
+            infZero = states s, t; initial s; accept t; s [true] s; s [|zero|] t; t [true] s
+            infFive = states s, t; initial s; accept t; s [true] s; s [|five|] t; t [true] s
+            """;
+
+    /**
+     * A counter modulo a size, counting the configurations whose actions are computed.
+     */
+    private static final class Counter implements SemanticRelation<String, Integer> {
+        final int size;
+        final AtomicInteger expanded = new AtomicInteger();
+
+        Counter(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public List<Integer> initial() {
+            return List.of(0);
+        }
+
+        @Override
+        public List<String> actions(Integer configuration) {
+            expanded.incrementAndGet();
+            return List.of("inc");
+        }
+
+        @Override
+        public List<Integer> execute(String action, Integer configuration) {
+            return List.of((configuration + 1) % size);
+        }
+    }
+
+    private static final AtomEvaluator<Step<String, Integer>> ATOMS = (atom, step) -> switch (atom) {
+        case "zero" -> step.end() == 0;
+        case "one" -> step.end() == 1;
+        case "three" -> step.end() == 3;
+        case "five" -> step.end() == 5;
+        default -> throw new IllegalArgumentException(atom);
+    };
+
+    @Test
+    void testVerdicts() {
+        var verdicts = new MultiPropertyModelChecker<>(new Counter(4), ATOMS, PROPERTIES).check();
+
+        assertEquals(List.of("reach3", "reach5", "infZero", "infFive"), List.copyOf(verdicts.keySet()));
+
+        var reach3 = verdicts.get("reach3");
+        assertFalse(reach3.holds());
+        assertEquals(3, reach3.counterexample().getLast());
+        assertEquals(-1, reach3.loopStart());
+
+        var infZero = verdicts.get("infZero");
+        assertFalse(infZero.holds());
+        List<Integer> lasso = infZero.counterexample();
+        assertTrue(infZero.loopStart() >= 0 && infZero.loopStart() < lasso.size() - 1);
+        assertEquals(lasso.get(infZero.loopStart()), lasso.getLast());
+        // consecutive configurations are model steps
+        for (int i = 1; i < lasso.size(); i++) {
+            assertEquals((lasso.get(i - 1) + 1) % 4, lasso.get(i));
+        }
+        assertTrue(lasso.subList(infZero.loopStart(), lasso.size()).contains(0));
+
+        for (String holding : List.of("reach5", "infFive")) {
+            var verdict = verdicts.get(holding);
+            assertTrue(verdict.holds(), holding);
+            assertEquals(List.of(), verdict.counterexample(), holding);
+            assertEquals(-1, verdict.loopStart(), holding);
+        }
+    }
+
+    @Test
+    void testSelfLoopLasso() {
+        var verdicts = new MultiPropertyModelChecker<>(new Counter(1), ATOMS,
+                "accepting = states s; initial s; accept s; s [true] s").check();
+
+        var accepting = verdicts.get("accepting");
+        assertFalse(accepting.holds());
+        assertEquals(List.of(0, 0), accepting.counterexample());
+        assertEquals(0, accepting.loopStart());
+    }
+
+    @Test
+    void testStopsOnceEveryPropertyIsDecided() {
+        Counter model = new Counter(1000);
+        var verdicts = new MultiPropertyModelChecker<>(model, ATOMS, """
+                reach1 = nfa states s, t; initial s; accept t; s [! |one|] s; s [|one|] t; t [true] t
+                reach3 = nfa states s, t; initial s; accept t; s [! |three|] s; s [|three|] t; t [true] t
+                """).check();
+
+        assertFalse(verdicts.get("reach1").holds());
+        assertFalse(verdicts.get("reach3").holds());
+        assertEquals(List.of(0, 1), verdicts.get("reach1").counterexample());
+        assertTrue(model.expanded.get() <= 4, "expanded " + model.expanded.get());
+    }
+
+    @Test
+    void testSameVerdictsAsStepModelChecker() {
+        for (int size : new int[] {1, 4, 6}) {
+            Counter model = new Counter(size);
+            var verdicts = new MultiPropertyModelChecker<>(model, ATOMS, PROPERTIES).check();
+
+            var linked = Reader.linkWithPositions(Reader.parseDeclarationsWithPositions(PROPERTIES));
+            Declarations declarations = ((ParseResult.Success<Declarations>) linked).value();
+            for (ExpressionDeclaration declaration : declarations.declarations()) {
+                var answer = new StepModelChecker<>(model, ATOMS, declaration).modelChecker().execute();
+                assertEquals(answer.holds, verdicts.get(declaration.name()).holds(), declaration.name() + " modulo " + size);
+            }
+        }
+    }
+
+    /**
+     * A random graph, with the atoms {@code p} and {@code q} true on random configurations.
+     */
+    private record Graph(List<List<Integer>> successors, boolean[] p, boolean[] q)
+            implements SemanticRelation<Integer, Integer> {
+        static Graph random(Random random, int size) {
+            List<List<Integer>> successors = new ArrayList<>();
+            boolean[] p = new boolean[size];
+            boolean[] q = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                List<Integer> targets = new ArrayList<>();
+                // some configurations deadlock
+                for (int degree = random.nextInt(3); degree > 0; degree--) {
+                    targets.add(random.nextInt(size));
+                }
+                successors.add(targets);
+                p[i] = random.nextInt(3) == 0;
+                q[i] = random.nextBoolean();
+            }
+            return new Graph(successors, p, q);
+        }
+
+        @Override
+        public List<Integer> initial() {
+            return List.of(0);
+        }
+
+        @Override
+        public List<Integer> actions(Integer configuration) {
+            return successors.get(configuration);
+        }
+
+        @Override
+        public List<Integer> execute(Integer action, Integer configuration) {
+            return List.of(action);
+        }
+
+        AtomEvaluator<Step<Integer, Integer>> atoms() {
+            return (atom, step) -> switch (atom) {
+                case "p" -> p[step.end()];
+                case "q" -> q[step.end()];
+                default -> throw new IllegalArgumentException(atom);
+            };
+        }
+    }
+
+    // a counterexample is a run of the model from its initial configuration, a deadlock stuttering
+    private static void assertIsRun(Graph model, List<Integer> counterexample) {
+        if (counterexample.isEmpty()) {
+            return;
+        }
+        assertEquals(0, counterexample.getFirst());
+        for (int i = 1; i < counterexample.size(); i++) {
+            List<Integer> successors = model.successors().get(counterexample.get(i - 1));
+            assertTrue(successors.contains(counterexample.get(i))
+                    || successors.isEmpty() && counterexample.get(i).equals(counterexample.get(i - 1)));
+        }
+    }
+
+    @Test
+    void testRandomModelsAgreeWithStepModelChecker() {
+        String properties = """
+                reachP = ! [] ! |p|
+                reachPThenQ = <> (|p| && X |q|)
+                untilQ = |p| U |q|
+                response = ! [] (|p| -> X |q|)
+                infinitelyP = [] <> |p|
+                eventuallyAlwaysQ = <> [] |q|
+                fairness = [] <> |p| && [] <> ! |q|
+                choice = nfa states s, t, u; initial s; accept u; s [true] s; s [|p|] t; s [true] t; t [|q|] u
+                """;
+        var linked = Reader.linkWithPositions(Reader.parseDeclarationsWithPositions(properties));
+        Declarations declarations = ((ParseResult.Success<Declarations>) linked).value();
+        Random random = new Random(47);
+        for (int i = 0; i < 40; i++) {
+            Graph model = Graph.random(random, 1 + random.nextInt(12));
+            var verdicts = new MultiPropertyModelChecker<>(model, model.atoms(), properties).check();
+            for (ExpressionDeclaration declaration : declarations.declarations()) {
+                var answer = new StepModelChecker<>(model, model.atoms(), declaration).modelChecker().execute();
+                var verdict = verdicts.get(declaration.name());
+                assertEquals(answer.holds, verdict.holds(), declaration.name() + " on " + model);
+                assertIsRun(model, verdict.counterexample());
+            }
+        }
+    }
+
+    @Test
+    void testNondeterministicNFA() {
+        // t is reached after 1, but 2 follows: only the runs through s can still reach u
+        var verdicts = new MultiPropertyModelChecker<>(new Counter(4), ATOMS, """
+                holds = nfa states s, t, u; initial s; accept u; s [true] s; s [|one|] t; t [|three|] u
+                violated = nfa states s, t, u; initial s; accept u; s [true] s; s [true] t; t [|three|] u
+                """).check();
+
+        assertTrue(verdicts.get("holds").holds());
+        var violated = verdicts.get("violated");
+        assertFalse(violated.holds());
+        assertEquals(List.of(0, 1, 2, 3), violated.counterexample());
+    }
+
+    @Test
+    void testPropertiesByName() {
+        var declarations = ((ParseResult.Success<Declarations>) Reader.linkWithPositions(
+                Reader.parseDeclarationsWithPositions(PROPERTIES))).value().declarations();
+        var verdicts = new MultiPropertyModelChecker<>(new Counter(4), ATOMS,
+                Map.of("first", declarations.get(0), "second", declarations.get(1))).check();
+
+        assertFalse(verdicts.get("first").holds());
+        assertTrue(verdicts.get("second").holds());
+    }
+}
@@ -0,0 +1,128 @@
+package gpsl.modelchecker;
+
+import gpsl.semantics.AtomEvaluator;
+import gpsl.syntax.Reader;
+import gpsl.syntax.model.Declarations;
+import gpsl.syntax.model.ExpressionDeclaration;
+import gpsl.syntax.model.Factory;
+import obp3.runtime.sli.SemanticRelation;
+import obp3.runtime.sli.Step;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.ParseResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the concurrent checks of the declarations of a block.
+ */
+class ParallelModelCheckerTest {
+
+    private static final String PROPERTIES = """
+            reach3 = ! [] ! |three|
+            reach5 = ! [] ! |five|
+            infZero = [] <> |zero|
+            infFive = [] <> |five|
+            response = ! [] (|zero| -> X |one|)
+            """;
+
+    /**
+     * A counter modulo a size, counting the calls of actions for each configuration.
+     */
+    private static final class Counter implements SemanticRelation<String, Integer> {
+        final int size;
+        final Map<Integer, AtomicInteger> actions = new ConcurrentHashMap<>();
+
+        Counter(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public List<Integer> initial() {
+            return List.of(0);
+        }
+
+        @Override
+        public List<String> actions(Integer configuration) {
+            actions.computeIfAbsent(configuration, c -> new AtomicInteger()).incrementAndGet();
+            return List.of("inc");
+        }
+
+        @Override
+        public List<Integer> execute(String action, Integer configuration) {
+            return List.of((configuration + 1) % size);
+        }
+    }
+
+    private static final AtomEvaluator<Step<String, Integer>> ATOMS = (atom, step) -> switch (atom) {
+        case "zero" -> step.end() == 0;
+        case "one" -> step.end() == 1;
+        case "three" -> step.end() == 3;
+        case "five" -> step.end() == 5;
+        default -> throw new IllegalArgumentException(atom);
+    };
+
+    @Test
+    void testSameAnswersAsSequentialChecks() throws Exception {
+        var linked = Reader.linkWithPositions(Reader.parseDeclarationsWithPositions(PROPERTIES));
+        Declarations declarations = ((ParseResult.Success<Declarations>) linked).value();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int size : new int[] {1, 4, 6}) {
+                Counter model = new Counter(size);
+                var results = new ParallelModelChecker<>(model, ATOMS, executor).check(PROPERTIES);
+
+                assertEquals(List.of("reach3", "reach5", "infZero", "infFive", "response"), List.copyOf(results.keySet()));
+                for (ExpressionDeclaration declaration : declarations.declarations()) {
+                    var expected = new StepModelChecker<>(new Counter(size), ATOMS, declaration).modelChecker().execute();
+                    var actual = results.get(declaration.name()).get();
+                    assertEquals(expected.holds, actual.holds, declaration.name() + " modulo " + size);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testTheCacheIsScopedToACheck() throws Exception {
+        Counter model = new Counter(6);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            var checker = new ParallelModelChecker<>(model, ATOMS, executor);
+            for (int run = 1; run <= 2; run++) {
+                var results = checker.check(PROPERTIES);
+                CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new)).get();
+                // once per configuration in each check, whatever the number of properties
+                for (var calls : model.actions.values()) {
+                    assertEquals(run, calls.get());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testDuplicateNamesAreCheckedOnce() {
+        List<Runnable> submitted = new ArrayList<>();
+        var checker = new ParallelModelChecker<>(new Counter(4), ATOMS, submitted::add);
+        Factory f = Factory.instance();
+
+        var results = checker.check(f.declarations(
+                f.declaration("a", f.atom("p"), false),
+                f.declaration("b", f.atom("q"), false),
+                f.declaration("a", f.atom("r"), false)));
+
+        assertEquals(List.of("a", "b"), List.copyOf(results.keySet()));
+        assertEquals(2, submitted.size());
+    }
+}
@@ -0,0 +1,104 @@
+package gpsl.modelchecker;
+
+import gpsl.syntax.model.AutomatonSemanticsKind;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.ParseResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the cache of compiled properties.
+ */
+class PropertyCacheTest {
+
+    private static PropertyCache.CompiledProperty compile(PropertyCache cache, String source) {
+        ParseResult<PropertyCache.CompiledProperty> result = cache.get(source);
+        if (result instanceof ParseResult.Success<PropertyCache.CompiledProperty>(PropertyCache.CompiledProperty compiled)) {
+            return compiled;
+        }
+        return fail("Compilation failed: " + source);
+    }
+
+    @Test
+    void testSourceTextHit() {
+        PropertyCache cache = new PropertyCache(4);
+        var compiled = compile(cache, "p = [] <> |p|");
+
+        // neither parsed nor translated again
+        assertSame(compiled, compile(cache, "p = [] <> |p|"));
+        assertEquals(AutomatonSemanticsKind.BUCHI, compiled.automaton().semanticsKind());
+    }
+
+    @Test
+    void testRenamedAndRespelledPropertiesShareTheirAutomaton() {
+        PropertyCache cache = new PropertyCache(4);
+        var first = compile(cache, "a = |p| b = [] <> a");
+        var renamed = compile(cache, "x = |p| y = [] <> x");
+        var respelled = compile(cache, "c = |p| d = G F c");
+
+        assertNotSame(first.property(), renamed.property());
+        assertSame(first.automaton(), renamed.automaton());
+        assertSame(first.automaton(), respelled.automaton());
+        assertNotSame(first.automaton(), compile(cache, "a = |q| b = [] <> a").automaton());
+    }
+
+    @Test
+    void testCoSafetyPropertiesGetTheirBadPrefixNFA() {
+        PropertyCache cache = new PropertyCache(4);
+        assertEquals(AutomatonSemanticsKind.NFA, compile(cache, "bad = ! [] ! |bad|").automaton().semanticsKind());
+    }
+
+    @Test
+    void testLeastRecentlyUsedSourcesAreEvicted() {
+        PropertyCache cache = new PropertyCache(2);
+        var a = compile(cache, "a = [] <> |a|");
+        var b = compile(cache, "b = [] <> |b|");
+        compile(cache, "a = [] <> |a|");
+        compile(cache, "c = [] <> |c|");
+
+        assertSame(a, compile(cache, "a = [] <> |a|"));
+        var evicted = compile(cache, "b = [] <> |b|");
+        // parsed again
+        assertNotSame(b, evicted);
+        assertNotSame(b.property(), evicted.property());
+    }
+
+    @Test
+    void testLeastRecentlyUsedPropertiesAreEvicted() {
+        PropertyCache sources = new PropertyCache(4);
+        var a = compile(sources, "a = [] <> |a|").property();
+        var b = compile(sources, "b = [] <> |b|").property();
+        var c = compile(sources, "c = [] <> |c|").property();
+
+        PropertyCache cache = new PropertyCache(2);
+        var compiledA = cache.get(a);
+        var compiledB = cache.get(b);
+        cache.get(a);
+        cache.get(c);
+
+        assertSame(compiledA, cache.get(a));
+        var evicted = cache.get(b);
+        // translated again
+        assertNotSame(compiledB.automaton(), evicted.automaton());
+        assertEquals(compiledB.automaton(), evicted.automaton());
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        PropertyCache cache = new PropertyCache(1);
+        var compiled = compile(cache, "a = [] <> |a|");
+
+        for (String source : new String[] {"a = [] (", "a = undefined"}) {
+            var first = cache.get(source);
+            assertInstanceOf(ParseResult.Failure.class, first);
+            assertNotSame(first, cache.get(source));
+        }
+        // the failures did not take the only entry
+        assertSame(compiled, compile(cache, "a = [] <> |a|"));
+    }
+
+    @Test
+    void testCapacityMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new PropertyCache(0));
+    }
+}
@@ -2,7 +2,6 @@ package gpsl.syntax.hashcons;
 
 import gpsl.syntax.model.*;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -247,11 +246,29 @@ public class NamelessEquality implements Visitor<SyntaxTreeElement, Boolean> {
                     equals(element.states(), states) &&
                     equals(element.initialStates(), initialStates) &&
                     equals(element.acceptStates(), acceptStates) &&
-                    element.transitions().size() == transitions.size() &&
-                    new HashSet<>(element.transitions()).containsAll(element.transitions());
+                    equals(element.transitions(), transitions);
         }
         return false;
     }
+
+    //matches the elements one to one, in any order: a repeated element needs as many copies in the other list
+    <T extends SyntaxTreeElement> boolean equals(List<T> a, List<T> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        boolean[] matched = new boolean[b.size()];
+        for (T e : a) {
+            int i = 0;
+            while (i < b.size() && (matched[i] || !e.accept(this, b.get(i)))) {
+                i++;
+            }
+            if (i == b.size()) {
+                return false;
+            }
+            matched[i] = true;
+        }
+        return true;
+    }
     <T extends SyntaxTreeElement> boolean equals(Set<T> a, Set<T> b) {
         return a.size() == b.size() &&
                 a.stream().allMatch(e -> b.stream().anyMatch(e2 -> e.accept(this, e2)));
@@ -0,0 +1,157 @@
+package gpsl.syntax.ite;
+
+import gpsl.syntax.model.*;
+import gpsl.toBuchi.GuardAlgebra;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Exact guard algebra backed by a {@link BDDFactory}.
+ *
+ * <p>Guards are translated to reduced ordered BDDs, which are canonical in the factory:
+ * a guard is unsatisfiable iff its BDD is {@code false}, and {@code l} implies {@code r}
+ * iff the BDD of {@code l → r} is {@code true}.
+ *
+ * <p>Guards are kept in their original form in the automaton, except that tautologies
+ * and contradictions are simplified to {@code true} and {@code false}.
+ */
+public class BDDGuardAlgebra implements GuardAlgebra {
+
+    private final BDDFactory bdd;
+    private final Factory factory;
+    private final ToBDD toBDD = new ToBDD();
+    private final Map<Expression, Expression> cache = new IdentityHashMap<>();
+
+    /**
+     * Creates a BDD-based algebra, building merged guards with the default factory.
+     */
+    public BDDGuardAlgebra() {
+        this(Factory.instance());
+    }
+
+    /**
+     * Creates a BDD-based algebra.
+     *
+     * @param factory the factory used to build merged guards
+     */
+    public BDDGuardAlgebra(Factory factory) {
+        this.bdd = new BDDFactory();
+        this.factory = factory;
+    }
+
+    /**
+     * Translates a guard to its BDD.
+     *
+     * @param guard the guard
+     * @return the canonical BDD of the guard, {@code bdd.t()} or {@code bdd.f()} for constants
+     */
+    public Expression toBDD(Expression guard) {
+        Expression result = cache.get(guard);
+        if (result == null) {
+            result = guard.accept(toBDD, null);
+            cache.put(guard, result);
+        }
+        return result;
+    }
+
+    @Override
+    public Expression or(Expression left, Expression right) {
+        if (toBDD(left) == bdd.f() || toBDD(right) == bdd.t()) return right;
+        if (toBDD(right) == bdd.f() || toBDD(left) == bdd.t()) return left;
+        if (toBDD(left) == toBDD(right)) return left;
+        return factory.disjunction("||", left, right);
+    }
+
+    @Override
+    public Expression simplify(Expression guard) {
+        Expression result = toBDD(guard);
+        if (result == bdd.t()) return factory.t();
+        if (result == bdd.f()) return factory.f();
+        return guard;
+    }
+
+    @Override
+    public boolean isUnsatisfiable(Expression guard) {
+        return toBDD(guard) == bdd.f();
+    }
+
+    @Override
+    public boolean implies(Expression left, Expression right) {
+        return bdd.implication("->", toBDD(left), toBDD(right)) == bdd.t();
+    }
+
+    private class ToBDD implements Visitor<Void, Expression> {
+        @Override
+        public Expression visit(SyntaxTreeElement element, Void input) {
+            throw new UnsupportedOperationException(
+                    "Guards cannot contain " + element.getClass().getSimpleName() + " elements.");
+        }
+
+        @Override
+        public Expression visit(Atom element, Void input) {
+            return bdd.atom(element.value(), element.delimiter());
+        }
+
+        @Override
+        public Expression visit(True element, Void input) {
+            return bdd.t();
+        }
+
+        @Override
+        public Expression visit(False element, Void input) {
+            return bdd.f();
+        }
+
+        @Override
+        public Expression visit(Reference element, Void input) {
+            if (element.expression() == null) {
+                throw new IllegalStateException("Unresolved reference: " + element.name());
+            }
+            return toBDD(element.expression());
+        }
+
+        @Override
+        public Expression visit(LetExpression element, Void input) {
+            return element.expression().accept(this, input);
+        }
+
+        @Override
+        public Expression visit(Negation element, Void input) {
+            return bdd.negation("!", toBDD(element.expression()));
+        }
+
+        @Override
+        public Expression visit(Conjunction element, Void input) {
+            return bdd.conjunction("&&", toBDD(element.left()), toBDD(element.right()));
+        }
+
+        @Override
+        public Expression visit(Disjunction element, Void input) {
+            return bdd.disjunction("||", toBDD(element.left()), toBDD(element.right()));
+        }
+
+        @Override
+        public Expression visit(ExclusiveDisjunction element, Void input) {
+            return bdd.exclusiveDisjunction("^", toBDD(element.left()), toBDD(element.right()));
+        }
+
+        @Override
+        public Expression visit(Implication element, Void input) {
+            return bdd.implication("->", toBDD(element.left()), toBDD(element.right()));
+        }
+
+        @Override
+        public Expression visit(Equivalence element, Void input) {
+            return bdd.equivalence("<->", toBDD(element.left()), toBDD(element.right()));
+        }
+
+        @Override
+        public Expression visit(Conditional element, Void input) {
+            return bdd.conditional(
+                    toBDD(element.condition()),
+                    toBDD(element.trueBranch()),
+                    toBDD(element.falseBranch()));
+        }
+    }
+}
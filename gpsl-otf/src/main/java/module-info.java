@@ -3,4 +3,5 @@ module language.gpsl.otf {
     requires language.gpsl.core;
     requires obp.algos;
     exports gpsl.syntax.hashcons;
+    exports gpsl.syntax.ite;
 }
\ No newline at end of file
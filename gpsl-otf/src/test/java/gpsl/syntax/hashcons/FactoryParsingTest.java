@@ -0,0 +1,56 @@
+package gpsl.syntax.hashcons;
+
+import gpsl.syntax.Reader;
+import gpsl.syntax.ite.BDDFactory;
+import gpsl.syntax.model.*;
+import org.junit.jupiter.api.Test;
+import rege.reader.infra.ParseResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FactoryParsingTest {
+
+    private static <T> T value(ParseResult<T> result) {
+        if (result instanceof ParseResult.Failure<T> failure) {
+            fail(failure.formatErrors());
+        }
+        return ((ParseResult.Success<T>) result).value();
+    }
+
+    @Test
+    void testHashConsedWhileParsing() {
+        var f = new HashConsingFactory();
+        var decls = value(Reader.parseDeclarations(
+                "a = [] (|p| && |q|) b = <> (|p| and |q|) c = X [] (|p| && |q|)", f)).declarations();
+
+        var left = ((Globally) decls.get(0).expression()).expression();
+        var right = ((Eventually) decls.get(1).expression()).expression();
+        assertSame(left, right);
+        assertSame(decls.get(0).expression(), ((Next) decls.get(2).expression()).expression());
+    }
+
+    @Test
+    void testBDDsWhileParsing() {
+        var f = new BDDFactory();
+        var decls = value(Reader.parseDeclarations(
+                "a = |p| && |q| b = ! (! |q| || ! |p|) c = a ^ b d = a || ! a", f)).declarations();
+
+        assertSame(decls.get(0).expression(), decls.get(1).expression());
+        assertSame(f.f(), decls.get(2).expression());
+        assertSame(f.t(), decls.get(3).expression());
+    }
+
+    @Test
+    void testSharedNodePositions() {
+        var f = new HashConsingFactory();
+        var result = Reader.parseDeclarationsWithPositions("a = |p| && |q|\nb = |p| && |q|", f);
+        var decls = value(result.result()).declarations();
+
+        var shared = decls.get(0).expression();
+        assertSame(shared, decls.get(1).expression());
+        var ranges = result.positionMap().getAll(shared);
+        assertEquals(2, ranges.size());
+        assertEquals(1, ranges.get(0).start().line());
+        assertEquals(2, ranges.get(1).start().line());
+    }
+}
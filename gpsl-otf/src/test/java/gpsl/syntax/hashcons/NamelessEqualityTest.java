@@ -1,10 +1,14 @@
 package gpsl.syntax.hashcons;
 
+import gpsl.syntax.model.AutomatonSemanticsKind;
 import gpsl.syntax.model.Builder;
 import gpsl.syntax.model.Factory;
 import gpsl.syntax.model.Reference;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class NamelessEqualityTest {
@@ -56,4 +60,34 @@ public class NamelessEqualityTest {
         assertNotEquals(r1, r2);
         assertTrue(NamelessEquality.same(r1, r2));
     }
+
+    @Test
+    void testAutomataWithDifferentTransitions() {
+        var s = f.state("s");
+        var t = f.state("t");
+        var a1 = f.automaton(AutomatonSemanticsKind.NFA, Set.of(s, t), Set.of(s), Set.of(t),
+                List.of(f.transition(s, 0, f.atom("p"), t)));
+        var a2 = f.automaton(AutomatonSemanticsKind.NFA, Set.of(s, t), Set.of(s), Set.of(t),
+                List.of(f.transition(s, 0, f.atom("q"), t)));
+        var a3 = f.automaton(AutomatonSemanticsKind.NFA, Set.of(s, t), Set.of(s), Set.of(t),
+                List.of(f.transition(s, 0, f.atom("p"), t)));
+
+        assertFalse(NamelessEquality.same(a1, a2));
+        assertTrue(NamelessEquality.same(a1, a3));
+    }
+
+    @Test
+    void testAutomataWithRepeatedTransitions() {
+        var s = f.state("s");
+        var t = f.state("t");
+        var t1 = f.transition(s, 0, f.atom("p"), t);
+        var t2 = f.transition(s, 0, f.atom("q"), t);
+        var a1 = f.automaton(AutomatonSemanticsKind.NFA, Set.of(s, t), Set.of(s), Set.of(t), List.of(t1, t1));
+        var a2 = f.automaton(AutomatonSemanticsKind.NFA, Set.of(s, t), Set.of(s), Set.of(t), List.of(t1, t2));
+        var a3 = f.automaton(AutomatonSemanticsKind.NFA, Set.of(s, t), Set.of(s), Set.of(t), List.of(t2, t1));
+
+        assertFalse(NamelessEquality.same(a1, a2));
+        assertFalse(NamelessEquality.same(a2, a1));
+        assertTrue(NamelessEquality.same(a2, a3));
+    }
 }
@@ -0,0 +1,35 @@
+package gpsl.syntax.hashcons;
+
+import gpsl.syntax.Reader;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.lang.reflect.Method;
+
+/**
+ * Runs the factory parsing tests with the hand-written parser backend.
+ */
+class PrattFactoryParsingTest extends FactoryParsingTest {
+
+    @RegisterExtension
+    static final InvocationInterceptor PRATT = new InvocationInterceptor() {
+        @Override
+        public void interceptTestMethod(Invocation<Void> invocation, ReflectiveInvocationContext<Method> invocationContext,
+                                        ExtensionContext extensionContext) throws Throwable {
+            Throwable[] failure = {null};
+            Reader.withBackend(Reader.Backend.PRATT, () -> {
+                try {
+                    return invocation.proceed();
+                } catch (Throwable t) {
+                    failure[0] = t;
+                    return null;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+    };
+}
@@ -0,0 +1,63 @@
+package gpsl.syntax.ite;
+
+import gpsl.syntax.model.*;
+import gpsl.toBuchi.BuchiReduction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BDDGuardAlgebraTest {
+    Factory f = Factory.instance();
+    Expression p = f.atom("p");
+    Expression q = f.atom("q");
+
+    @Test
+    void testUnsatisfiable() {
+        var algebra = new BDDGuardAlgebra();
+
+        assertTrue(algebra.isUnsatisfiable(f.and(p, f.not(p))));
+        assertTrue(algebra.isUnsatisfiable(f.and(f.or(p, q), f.and(f.not(p), f.not(q)))));
+        assertFalse(algebra.isUnsatisfiable(f.xor(p, q)));
+    }
+
+    @Test
+    void testImplies() {
+        var algebra = new BDDGuardAlgebra();
+
+        assertTrue(algebra.implies(f.and(p, q), p));
+        assertTrue(algebra.implies(f.xor(p, q), f.or(p, q)));
+        assertTrue(algebra.implies(p, f.or(f.and(p, q), f.and(p, f.not(q)))));
+        assertFalse(algebra.implies(f.or(p, q), p));
+    }
+
+    @Test
+    void testSimplify() {
+        var algebra = new BDDGuardAlgebra();
+
+        assertInstanceOf(True.class, algebra.simplify(f.or(p, f.not(p))));
+        assertInstanceOf(False.class, algebra.simplify(f.equivalence(p, f.not(p))));
+        assertSame(p, algebra.simplify(p));
+    }
+
+    @Test
+    void testReductionWithBDDs() {
+        // s0 -(p && !q)-> s1 and s0 -(p && q)-> s1 merge into a guard equivalent to p;
+        // s1 is then simulated by s0, which matches any letter with the (p || !p) self-loop
+        var s0 = new State("s0");
+        var s1 = new State("s1");
+        var automaton = new Automaton(AutomatonSemanticsKind.BUCHI, Set.of(s0, s1), Set.of(s0), Set.of(s0, s1),
+                List.of(
+                        new Transition(s0, 0, f.or(p, f.not(p)), s0),
+                        new Transition(s0, 0, f.and(p, f.not(q)), s1),
+                        new Transition(s0, 0, f.and(p, q), s1),
+                        new Transition(s1, 0, p, s1)));
+
+        Automaton reduced = new BuchiReduction(new BDDGuardAlgebra(), f).reduce(automaton);
+
+        assertEquals(Set.of(s0), reduced.states());
+        assertEquals(List.of(new Transition(s0, 0, f.t(), s0)), reduced.transitions());
+    }
+}